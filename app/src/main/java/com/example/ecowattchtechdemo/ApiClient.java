@@ -6,14 +6,23 @@ import com.example.ecowattchtechdemo.BuildConfig;
 public class ApiClient {
     public static final String BASE_URL = "http://" + BuildConfig.SERVER_IP; // No trailing slash
     private static Retrofit retrofit;
+    private static ApiService apiService;
 
-    public static Retrofit getClient() {
+    public static synchronized Retrofit getClient() {
         if (retrofit == null) {
             retrofit = new Retrofit.Builder()
                     .baseUrl(BASE_URL)
+                    .client(SharedHttpClient.getClient()) // share the app-wide connection pool
                     .addConverterFactory(GsonConverterFactory.create())
                     .build();
         }
         return retrofit;
     }
+
+    public static synchronized ApiService getApiService() {
+        if (apiService == null) {
+            apiService = getClient().create(ApiService.class);
+        }
+        return apiService;
+    }
 }
@@ -7,6 +7,9 @@ public class ApiResponse {
     @SerializedName("status")
     public String status;
 
+    @SerializedName("version")
+    public String version;      // palette catalog version, also sent as the ETag
+
     @SerializedName("palettes")
     public List<Palette> palettes;
 
@@ -4,6 +4,7 @@ import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.POST;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 import retrofit2.http.Path;
 import com.example.ecowattchtechdemo.willow.models.EnergyDataResponse;
 import com.example.ecowattchtechdemo.ApiResponse;
@@ -12,19 +13,36 @@ public interface ApiService {
     @POST("/login")
     Call<LoginResponse> login(@Body LoginRequest request);
 
+    // Login plus profile, owned palettes, catalog version and standings in one round trip
+    @POST("/bootstrap")
+    Call<BootstrapResponse> bootstrap(@Body BootstrapRequest request);
+
+    @POST("/signup")
+    Call<SignupResponse> signup(@Body SignupRequest request);
+
     // Willow API integration endpoints (for future use)
     @GET("/energy/{buildingId}")
     Call<EnergyDataResponse> getEnergyData(@Path("buildingId") String buildingId);
 
+    // Readings and rankings from the backend's shared Willow poll; 304 when the ETag still matches
+    @GET("/dorm_standings")
+    Call<DormStandingsResponse> getDormStandings(@Header("If-None-Match") String etag);
+
+    // Palette catalog; 304 when the cached catalog version (sent as ETag) is still current
     @GET("/palettes")
-    Call<ApiResponse> getPalettes();
+    Call<ApiResponse> getPalettes(@Header("If-None-Match") String etag);
 
+    // Writes are sent by PendingWriteWorker; the key lets the backend recognise a replayed write
     @POST("/update_user_points")
-    Call<ApiResponse> updateUserPoints(@Body UpdatePointsRequest request);
+    Call<ApiResponse> updateUserPoints(@Header("Idempotency-Key") String idempotencyKey, @Body UpdatePointsRequest request);
 
     @POST("/purchase_palette")
-    Call<PurchaseResponse> purchasePalette(@Body PurchaseRequest request);
+    Call<PurchaseResponse> purchasePalette(@Header("Idempotency-Key") String idempotencyKey, @Body PurchaseRequest request);
 
     @POST("/is_done")
-    Call<isDoneResponse> isDone(@Body isDoneRequest request);
+    Call<isDoneResponse> isDone(@Header("Idempotency-Key") String idempotencyKey, @Body isDoneRequest request);
+
+    // Several queued writes in one request and one backend transaction, with a result per write
+    @POST("/batch")
+    Call<BatchResponse> batch(@Body BatchRequest request);
 }
@@ -0,0 +1,48 @@
+package com.example.ecowattchtechdemo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ordered list of writes for POST /batch, applied by the backend in one transaction
+ */
+public class BatchRequest {
+    public static final String TYPE_POINTS = "points";
+    public static final String TYPE_IS_DONE = "is_done";
+    public static final String TYPE_PURCHASE = "purchase";
+
+    private List<Mutation> mutations = new ArrayList<>();
+
+    public BatchRequest add(Mutation mutation) {
+        mutations.add(mutation);
+        return this;
+    }
+
+    public List<Mutation> getMutations() {
+        return mutations;
+    }
+
+    public static class Mutation {
+        private String id;          // also the idempotency key of this write
+        private String type;
+        private String username;
+        private int value;          // points total, isDone delta or points to deduct
+        private String paletteName; // purchases only
+
+        public Mutation(String id, String type, String username, int value, String paletteName) {
+            this.id = id;
+            this.type = type;
+            this.username = username;
+            this.value = value;
+            this.paletteName = paletteName;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getType() {
+            return type;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.ecowattchtechdemo;
+
+import java.util.List;
+
+/**
+ * Per-item results of POST /batch, in request order
+ */
+public class BatchResponse {
+    private String status;
+    private String message;
+    private List<Result> results;
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    public static class Result {
+        private String id;
+        private String status;          // "success" or "failure"
+        private String message;
+        private Integer newPointTotal;  // points and purchase items
+        private boolean replayed;       // answered from the stored result of an earlier delivery
+
+        public String getId() {
+            return id;
+        }
+
+        public boolean isSuccess() {
+            return "success".equals(status);
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public Integer getNewPointTotal() {
+            return newPointTotal;
+        }
+
+        public boolean isReplayed() {
+            return replayed;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.ecowattchtechdemo;
+
+/**
+ * Body of POST /bootstrap - the login credentials plus the cached palette catalog version,
+ * so the palettes are only sent back when the cached copy is stale
+ */
+public class BootstrapRequest {
+    private String usernames;
+    private String passwords;
+    private String catalogVersion;
+
+    public BootstrapRequest(String usernames, String passwords, String catalogVersion) {
+        this.usernames = usernames;
+        this.passwords = passwords;
+        this.catalogVersion = catalogVersion;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.ecowattchtechdemo;
+
+import com.example.ecowattchtechdemo.willow.models.Palette;
+import java.util.List;
+
+/**
+ * Everything the app needs after login, from one POST /bootstrap
+ */
+public class BootstrapResponse {
+    private String status;
+    private String message;
+    private User user;                        // profile, balance and isDone
+    private List<String> ownedPalettes;       // palettes bought on any device (null if unavailable)
+    private String catalogVersion;
+    private List<Palette> palettes;           // null when the cached catalog is current
+    private DormStandingsResponse standings;  // null until the backend has polled Willow
+    private String standingsEtag;
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public List<String> getOwnedPalettes() {
+        return ownedPalettes;
+    }
+
+    public String getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public List<Palette> getPalettes() {
+        return palettes;
+    }
+
+    public DormStandingsResponse getStandings() {
+        return standings;
+    }
+
+    public String getStandingsEtag() {
+        return standingsEtag;
+    }
+}
@@ -52,6 +52,11 @@ public class DashContentFragment extends Fragment {
 
         tm = new ThemeManager(requireContext());
         tm.applyTheme();
+
+        // Live readings may have arrived before this view existed
+        if (getActivity() instanceof DashboardActivity) {
+            ((DashboardActivity) getActivity()).onDashContentReady();
+        }
     }
     
     private void initializeViews(View view) {
@@ -16,6 +16,7 @@ import android.util.Log;
 import java.util.Random;
 import java.util.Map;
 import java.util.List;
+import java.util.Set;
 import java.text.DecimalFormat;
 import android.widget.ImageView;
 import android.widget.Button;
@@ -28,29 +29,26 @@ import android.animation.ObjectAnimator;
 import android.view.animation.AccelerateDecelerateInterpolator;
 
 // Willow API imports
-import com.android.volley.Request;
-import com.android.volley.toolbox.JsonObjectRequest;
-import com.android.volley.toolbox.Volley;
 import com.example.ecowattchtechdemo.gamification.DormPointsManager;
+import com.example.ecowattchtechdemo.gamification.GamificationStateStore;
+import com.example.ecowattchtechdemo.sync.PendingWriteQueue;
+import com.example.ecowattchtechdemo.willow.BuildingRegistry;
+import com.example.ecowattchtechdemo.willow.EnergyRepository;
 import com.example.ecowattchtechdemo.willow.WillowEnergyDataManager;
-import com.example.ecowattchtechdemo.willow.WillowApiV3Config;
+import com.example.ecowattchtechdemo.willow.models.Building;
+import com.example.ecowattchtechdemo.willow.models.DormEnergySnapshot;
 import com.example.ecowattchtechdemo.willow.models.EnergyDataResponse;
 import com.example.ecowattchtechdemo.gamification.DormPointsManager;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-
 
 public class DashboardActivity extends AppCompatActivity {
     private static final String TAG = "DashboardActivity";
     
     LinearLayout records, shop;
     private DashContentFragment dashContentFragment;
-    private Handler updateHandler;
     private DecimalFormat decimalFormat;
     private TextView shopPointsText; // Reference to shop button's points display
 
@@ -59,29 +57,27 @@ public class DashboardActivity extends AppCompatActivity {
 
     // Live data configuration
     private String currentDormName = "";
-    // Update intervals for different data types
-    private static final long LIVE_ENERGY_INTERVAL = 60000;      // 1 minute - live energy data
-    private static final long POTENTIAL_ENERGY_INTERVAL = 3600000; // 1 hour - potential energy (only changes at 10pm)
-    private static final long RANKINGS_INTERVAL = 120000;        // 2 minutes - dorm rankings/positions (more responsive)
+    // Data cadences live in EnergyRepository; this one is purely visual
     private static final long ROTATING_DISPLAY_INTERVAL = 5000;   // 5 seconds - rotating display cycle
-
-    // Tracking last update times
-    private long lastLiveEnergyUpdate = 0;
-    private long lastPotentialEnergyUpdate = 0;
-    private long lastRankingsUpdate = 0;
     
     // Rotating display state
     private int currentDisplayMode = 0; // 0=Today's Total (kWh), 1=Yesterday's total (kWh), 2=Today's Emissions
     private String[] rotatingDisplayData = new String[3]; // Store the three display values
     private Handler rotatingDisplayHandler;
+    private Runnable rotatingDisplayRunnable;
     
     // Cached values to avoid redundant API calls
     private String cachedDormPosition = null;
     private int cachedPotentialEnergy = 0;
     
+    // Last snapshot rendered for the user's dorm (the repository reuses the instance when nothing changed)
+    private DormEnergySnapshot lastRenderedSnapshot = null;
+    private Map<String, DormEnergySnapshot> pendingLiveEnergy = null; // arrived before the dash content was added
+    private boolean isShowingStaleData = false;
+    private boolean isShowingCachedData = false; // last-known-good snapshot from disk, not yet revalidated
+    
     // Dorm data for rotation
-    private String[] dormNames = {"TINSLEY", "GABALDON", "SECHRIST"};
-    private String[] dormPositions = {"1ST PLACE", "2ND PLACE", "3RD PLACE"};
+    private BuildingRegistry buildingRegistry; // every building the dashboard can show
     private int currentDormIndex = -1; // Will be set based on user's selected dorm
     ImageView hamburgerButton;
 
@@ -101,6 +97,7 @@ public class DashboardActivity extends AppCompatActivity {
     private String[] environmentalTips;
     
     // Willow API integration
+    private EnergyRepository energyRepository;
     private WillowEnergyDataManager energyDataManager;
     private boolean isWillowAuthenticated = false;
 
@@ -131,10 +128,8 @@ public class DashboardActivity extends AppCompatActivity {
         cachedDormPosition = currentDormName;
         cachedPotentialEnergy = 0;
         
-        startLiveDataUpdates();
-        
-        // Start rotating display cycle
-        startRotatingDisplay();
+        // Polling follows the activity lifecycle - it pauses while the dashboard isn't visible
+        observeLiveData();
 
         // initialize themeManager
         tm = new ThemeManager(this);
@@ -143,6 +138,15 @@ public class DashboardActivity extends AppCompatActivity {
     protected void onStart() {
         super.onStart();
         tm.applyTheme();
+        
+        // Start rotating display cycle
+        startRotatingDisplay();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        stopRotatingDisplay();
     }
 
     @Override
@@ -154,13 +158,16 @@ public class DashboardActivity extends AppCompatActivity {
         // Refresh profile data to ensure current user info is always up-to-date
         loadUserProfile();
         
+        // Readings that arrived while the dash content was not attached yet
+        onDashContentReady();
+        
         Log.d(TAG, "onResume: Refreshed shop points display and user profile");
     }
     
     private void initializeComponents() {
-        updateHandler = new Handler(Looper.getMainLooper());
         rotatingDisplayHandler = new Handler(Looper.getMainLooper());
         decimalFormat = new DecimalFormat("#,##0");
+        buildingRegistry = BuildingRegistry.getInstance(this);
         
         // Initialize rotating display data array
         rotatingDisplayData = new String[]{"Loading...", "Loading...", "Loading..."};
@@ -171,13 +178,9 @@ public class DashboardActivity extends AppCompatActivity {
         
         // Set current dorm to user's dorm and find its index
         if (userDorm != null && !userDorm.isEmpty()) {
-            currentDormName = userDorm.toUpperCase();
-            for (int i = 0; i < dormNames.length; i++) {
-                if (dormNames[i].equals(currentDormName)) {
-                    currentDormIndex = i;
-                    break;
-                }
-            }
+            String key = buildingRegistry.findKeyByName(userDorm);
+            currentDormName = key != null ? key : userDorm.toUpperCase();
+            currentDormIndex = buildingRegistry.indexOf(currentDormName);
         } else {
             Log.w(TAG, "No dorm selected during signup - user needs to select a dorm");
             currentDormName = "";
@@ -200,8 +203,9 @@ public class DashboardActivity extends AppCompatActivity {
      */
     private void initializeWillowApi() {
         try {
-            // 🎮 Use context-aware constructor for gamification features
-            energyDataManager = new WillowEnergyDataManager(this);
+            // 🎮 Shared repository owns the context-aware manager used for gamification features
+            energyRepository = EnergyRepository.getInstance(this);
+            energyDataManager = energyRepository.getDataManager();
             
             // Try to authenticate with stored credentials
             authenticateWithWillow();
@@ -250,7 +254,7 @@ public class DashboardActivity extends AppCompatActivity {
                     
                     // 🚀 INSTANT UPDATE: Force immediate data fetch after successful authentication
                     Log.d(TAG, "🚀 Triggering instant data update after authentication");
-                    forceInstantDataUpdate();
+                    energyRepository.refreshAll();
                 });
             }
             
@@ -287,6 +291,12 @@ public class DashboardActivity extends AppCompatActivity {
             if (checkedIn) {
                 Log.d(TAG, "Daily check-in successful for " + currentDormName + ": +25 spendable points");
 
+                // Sync the new total; only the latest total is sent if several are queued
+                String username = getSharedPreferences("MyAppPrefs", MODE_PRIVATE).getString("Username", "");
+                if (!username.isEmpty()) {
+                    PendingWriteQueue.getInstance(this).enqueuePoints(username, pointsManager.getIndividualSpendablePoints());
+                }
+
                 // Update shop button to show new points total
                 updateShopPointsDisplay();
 
@@ -378,11 +388,8 @@ public class DashboardActivity extends AppCompatActivity {
      */
     public void refreshLeaderboardRankings() {
         Log.d(TAG, "🏆 Manual refresh of leaderboard rankings requested");
-        // Force rankings update by resetting the last update time
-        lastRankingsUpdate = 0;
-        // Trigger an immediate data fetch with rankings update
-        if (currentDormName != null && !currentDormName.isEmpty()) {
-            fetchRealEnergyData(false, true);  // Force rankings update
+        if (energyRepository != null) {
+            energyRepository.getLeaderboard().refresh();
         }
     }
     
@@ -831,13 +838,8 @@ public class DashboardActivity extends AppCompatActivity {
             currentDormName = normalizedDorm;
             
             // Update current dorm index for proper data fetching
-            for (int i = 0; i < dormNames.length; i++) {
-                if (dormNames[i].equals(currentDormName)) {
-                    currentDormIndex = i;
-                    Log.d(TAG, "🔄 Updated currentDormIndex to: " + currentDormIndex);
-                    break;
-                }
-            }
+            currentDormIndex = buildingRegistry.indexOf(currentDormName);
+            Log.d(TAG, "🔄 Updated currentDormIndex to: " + currentDormIndex);
         }
 
         Log.d(TAG, "✅ Profile loaded - Username: '" + username + "', Dorm: '" + dorm + "' (CurrentDorm: " + currentDormName + ")");
@@ -882,10 +884,7 @@ public class DashboardActivity extends AppCompatActivity {
         task_editor.apply();
 
         //clear the shared preferences that hold the money a user has
-        SharedPreferences money_prefs = getSharedPreferences("DormPointsPrefs", MODE_PRIVATE);
-        SharedPreferences.Editor money_editor = money_prefs.edit();
-        money_editor.clear();
-        money_editor.apply();
+        GamificationStateStore.getInstance(this).clear();
 
         // Close modal before navigating away
         hideModal();
@@ -926,33 +925,8 @@ public class DashboardActivity extends AppCompatActivity {
 
                     checkForTasksComplete();
 
-                    //add that the task has been completed to the database
-
-                    //first get the shared preferences
-                    SharedPreferences User = getSharedPreferences("MyAppPrefs", MODE_PRIVATE);
-                    String username = User.getString("Username", "");
-                    isDoneRequest request = new isDoneRequest(username, 1);
-
-                    ApiService apiService = ApiClient.getClient().create(ApiService.class);
-                    apiService.isDone(request).enqueue(new Callback<isDoneResponse>() {
-                        @Override
-                        public void onResponse(Call<isDoneResponse> call, Response<isDoneResponse> response) {
-                            if (response.isSuccessful() && response.body() != null) {
-                                if ("success".equals(response.body().getStatus())) {
-                                    Toast.makeText(DashboardActivity.this, "Well done! Check in 1 complete", Toast.LENGTH_SHORT).show();
-                                } else {
-                                    Toast.makeText(DashboardActivity.this, "Checkin Failed: " + response.body().getMessage(), Toast.LENGTH_SHORT).show();
-                                }
-                            } else {
-                                Toast.makeText(DashboardActivity.this, "API Error", Toast.LENGTH_SHORT).show();
-                            }
-                        }
-
-                        @Override
-                        public void onFailure(Call<isDoneResponse> call, Throwable t) {
-                            Toast.makeText(DashboardActivity.this, "Network Error: " + t.getMessage(), Toast.LENGTH_LONG).show();
-                        }
-                    });
+                    // Record the task in the database (queued, so it survives a flaky connection)
+                    queueChecklistUpdate(1, 1);
                 }
                 break;
             case 2: // task 2
@@ -974,33 +948,8 @@ public class DashboardActivity extends AppCompatActivity {
 
                     checkForTasksComplete();
 
-                    //add that the task has been completed to the database
-
-                    //first get the shared preferences
-                    SharedPreferences User = getSharedPreferences("MyAppPrefs", MODE_PRIVATE);
-                    String username = User.getString("Username", "");
-                    isDoneRequest request = new isDoneRequest(username, 2);
-
-                    ApiService apiService = ApiClient.getClient().create(ApiService.class);
-                    apiService.isDone(request).enqueue(new Callback<isDoneResponse>() {
-                        @Override
-                        public void onResponse(Call<isDoneResponse> call, Response<isDoneResponse> response) {
-                            if (response.isSuccessful() && response.body() != null) {
-                                if ("success".equals(response.body().getStatus())) {
-                                    Toast.makeText(DashboardActivity.this, "Well done! Check in 2 complete", Toast.LENGTH_SHORT).show();
-                                } else {
-                                    Toast.makeText(DashboardActivity.this, "Checkin Failed: " + response.body().getMessage(), Toast.LENGTH_SHORT).show();
-                                }
-                            } else {
-                                Toast.makeText(DashboardActivity.this, "API Error", Toast.LENGTH_SHORT).show();
-                            }
-                        }
-
-                        @Override
-                        public void onFailure(Call<isDoneResponse> call, Throwable t) {
-                            Toast.makeText(DashboardActivity.this, "Network Error: " + t.getMessage(), Toast.LENGTH_LONG).show();
-                        }
-                    });
+                    // Record the task in the database (queued, so it survives a flaky connection)
+                    queueChecklistUpdate(2, 2);
                 }
                 break;
             case 3: // task 3
@@ -1022,38 +971,29 @@ public class DashboardActivity extends AppCompatActivity {
 
                     checkForTasksComplete();
 
-                    //add that the task has been completed to the database
-
-                    //first get the shared preferences
-                    SharedPreferences User = getSharedPreferences("MyAppPrefs", MODE_PRIVATE);
-                    String username = User.getString("Username", "");
-                    isDoneRequest request = new isDoneRequest(username, 4);
-
-                    ApiService apiService = ApiClient.getClient().create(ApiService.class);
-                    apiService.isDone(request).enqueue(new Callback<isDoneResponse>() {
-                        @Override
-                        public void onResponse(Call<isDoneResponse> call, Response<isDoneResponse> response) {
-                            if (response.isSuccessful() && response.body() != null) {
-                                if ("success".equals(response.body().getStatus())) {
-                                    Toast.makeText(DashboardActivity.this, "Well done! Check in 3 complete", Toast.LENGTH_SHORT).show();
-                                } else {
-                                    Toast.makeText(DashboardActivity.this, "Checkin Failed: " + response.body().getMessage(), Toast.LENGTH_SHORT).show();
-                                }
-                            } else {
-                                Toast.makeText(DashboardActivity.this, "API Error", Toast.LENGTH_SHORT).show();
-                            }
-                        }
-
-                        @Override
-                        public void onFailure(Call<isDoneResponse> call, Throwable t) {
-                            Toast.makeText(DashboardActivity.this, "Network Error: " + t.getMessage(), Toast.LENGTH_LONG).show();
-                        }
-                    });
+                    // Record the task in the database (queued, so it survives a flaky connection)
+                    queueChecklistUpdate(4, 3);
                 }
                 break;
         } // end switch statement
     }
 
+    /**
+     * Queue a checklist isDone delta for the backend. Rapid taps are summed into one write
+     * and PendingWriteWorker delivers it whenever the network allows.
+     */
+    private void queueChecklistUpdate(int pointsAdd, int checkinNumber) {
+        SharedPreferences userPrefs = getSharedPreferences("MyAppPrefs", MODE_PRIVATE);
+        String username = userPrefs.getString("Username", "");
+        if (username.isEmpty()) {
+            Log.w(TAG, "No username found - checklist update not queued");
+            return;
+        }
+
+        PendingWriteQueue.getInstance(this).enqueueIsDone(username, pointsAdd);
+        Toast.makeText(this, "Well done! Check in " + checkinNumber + " complete", Toast.LENGTH_SHORT).show();
+    }
+
     /**
      * Add user points when all three checklist items are completed
      */
@@ -1330,7 +1270,7 @@ public class DashboardActivity extends AppCompatActivity {
         meterFill.post(() -> {
             if (dashContentFragment != null && dashContentFragment.isAdded()) {
                 DormPointsManager pointsManager = new DormPointsManager(this);
-                String[] leaderboard = getSortedDormLeaderboard(pointsManager);
+                String[] leaderboard = pointsManager.getSortedLeaderboard();
                 if (leaderboard != null) {
                     dashContentFragment.updateLeaderboard(leaderboard);
                     Log.d(TAG, "🏆 Initial leaderboard set: 1st=" + leaderboard[0] + 
@@ -1340,35 +1280,6 @@ public class DashboardActivity extends AppCompatActivity {
         });
     }
 
-    /**
-     * Get sorted leaderboard array from DormPointsManager rankings
-     * @param pointsManager The DormPointsManager instance
-     * @return Array of 3 dorm names sorted by total points (highest to lowest)
-     */
-    private String[] getSortedDormLeaderboard(DormPointsManager pointsManager) {
-        Map<String, Integer> rankings = pointsManager.getDormRankings();
-        
-        // Sort dorms by points (highest first)
-        java.util.List<Map.Entry<String, Integer>> sortedDorms = new java.util.ArrayList<>(rankings.entrySet());
-        java.util.Collections.sort(sortedDorms, new java.util.Comparator<Map.Entry<String, Integer>>() {
-            @Override
-            public int compare(Map.Entry<String, Integer> a, Map.Entry<String, Integer> b) {
-                return b.getValue().compareTo(a.getValue());
-            }
-        });
-        
-        // Create array of sorted dorm names
-        String[] leaderboard = new String[3];
-        for (int i = 0; i < Math.min(3, sortedDorms.size()); i++) {
-            leaderboard[i] = sortedDorms.get(i).getKey();
-        }
-        
-        Log.d(TAG, "Leaderboard order: 1st=" + leaderboard[0] + 
-                   ", 2nd=" + leaderboard[1] + ", 3rd=" + leaderboard[2]);
-        
-        return leaderboard;
-    }
-
     /**
      * Convert cumulative energy values to realistic daily usage values
      * @param cumulativeValue The raw energy value that might be cumulative
@@ -1401,18 +1312,31 @@ public class DashboardActivity extends AppCompatActivity {
         // Initial display
         updateRotatingDisplay();
         
-        // Schedule recurring rotation
-        rotatingDisplayHandler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                // Move to next display mode
-                currentDisplayMode = (currentDisplayMode + 1) % 3;
-                updateRotatingDisplay();
-                
-                // Schedule next rotation
-                rotatingDisplayHandler.postDelayed(this, ROTATING_DISPLAY_INTERVAL);
-            }
-        }, ROTATING_DISPLAY_INTERVAL);
+        // Schedule recurring rotation (a single runnable, so repeated onStart calls never stack cycles)
+        if (rotatingDisplayRunnable == null) {
+            rotatingDisplayRunnable = new Runnable() {
+                @Override
+                public void run() {
+                    // Move to next display mode
+                    currentDisplayMode = (currentDisplayMode + 1) % 3;
+                    updateRotatingDisplay();
+                    
+                    // Schedule next rotation
+                    rotatingDisplayHandler.postDelayed(this, ROTATING_DISPLAY_INTERVAL);
+                }
+            };
+        }
+        rotatingDisplayHandler.removeCallbacks(rotatingDisplayRunnable);
+        rotatingDisplayHandler.postDelayed(rotatingDisplayRunnable, ROTATING_DISPLAY_INTERVAL);
+    }
+
+    /**
+     * Pause the rotating display while the dashboard is not visible
+     */
+    private void stopRotatingDisplay() {
+        if (rotatingDisplayHandler != null && rotatingDisplayRunnable != null) {
+            rotatingDisplayHandler.removeCallbacks(rotatingDisplayRunnable);
+        }
     }
 
     /**
@@ -1448,6 +1372,11 @@ public class DashboardActivity extends AppCompatActivity {
 
         Log.d(TAG, "Updating rotating display - Mode: " + currentDisplayMode + ", Label: " + displayLabel + ", Value: " + displayValue);
         
+        // Keep the "Xm old" marker current while the user's dorm is showing stale or cached readings
+        if ((isShowingStaleData || isShowingCachedData) && !currentDormName.isEmpty()) {
+            dashContentFragment.updateDormStatus(buildDormStatusText(currentDormName));
+        }
+        
         // Update the display using the fragment's method
         if (displayValue != null && !displayValue.isEmpty()) {
             String displayText = displayLabel + ": " + displayValue;
@@ -1629,176 +1558,147 @@ public class DashboardActivity extends AppCompatActivity {
     }
 
     /**
-     * Start the live data update cycle
+     * Subscribe to the repository's polling streams. Each stream only polls while this
+     * activity is started, and observers are removed automatically when it is destroyed.
      */
-    private void startLiveDataUpdates() {
-        Log.d(TAG, "🚀 Starting smart update system with optimized intervals:");
-        Log.d(TAG, "  - Live Energy: " + (LIVE_ENERGY_INTERVAL/1000) + "s");
-        Log.d(TAG, "  - Rally Points: " + (POTENTIAL_ENERGY_INTERVAL/60000) + "m");
-        Log.d(TAG, "  - Rankings: " + (RANKINGS_INTERVAL/60000) + "m");
-        
-        // 🚀 Show initial data immediately if authenticated, otherwise wait for auth callback
-        updateHandler.post(() -> {
-            if (dashContentFragment != null && dashContentFragment.isAdded()) {
-                if (isWillowAuthenticated) {
-                    Log.d(TAG, "🚀 Already authenticated - forcing instant initial update");
-                    forceInstantDataUpdate();
-                } else {
-                    Log.d(TAG, "🔐 Not authenticated yet - initial update will be triggered by auth callback");
-                    // Try regular update which will show authentication status
-                    updateUIWithLiveData();
-                }
-            } else {
-                // Retry after a short delay if fragment isn't ready
-                updateHandler.postDelayed(() -> startLiveDataUpdates(), 200);
-            }
-        });
+    private void observeLiveData() {
+        Log.d(TAG, "🚀 Observing live data with per-type intervals:");
+        Log.d(TAG, "  - Live Energy: " + (EnergyRepository.LIVE_ENERGY_INTERVAL/1000) + "s");
+        Log.d(TAG, "  - Rally Points: " + (EnergyRepository.POTENTIAL_ENERGY_INTERVAL/60000) + "m");
+        Log.d(TAG, "  - Rankings: " + (EnergyRepository.RANKINGS_INTERVAL/60000) + "m");
+        
+        if (energyRepository == null) {
+            Log.e(TAG, "❌ Energy repository not initialized - live data disabled");
+            return;
+        }
         
-        // Schedule recurring updates with shortest interval (live energy)
-        scheduleNextUpdate();
+        energyRepository.getLiveEnergy().observe(this, this::onLiveEnergyUpdated);
+        energyRepository.getLiveEnergy().getErrors().observe(this, this::onLiveEnergyError);
+        energyRepository.getLeaderboard().observe(this, this::onLeaderboardUpdated);
+        energyRepository.getPotentialEnergy().observe(this, this::onPotentialEnergyUpdated);
+        energyRepository.getStaleDorms().observe(this, this::onStaleDormsChanged);
     }
     
     /**
-     * Schedule the next data update with smart intervals
+     * New batched readings for every dorm - render the user's dorm
      */
-    private void scheduleNextUpdate() {
-        updateHandler.postDelayed(() -> {
-            updateUIWithLiveData();
-            scheduleNextUpdate(); // Schedule the next update
-        }, LIVE_ENERGY_INTERVAL); // Use live energy interval as base
-    }
-    
-    /**
-     * 🚀 Force instant data update bypassing all interval checks
-     * Used after authentication or user-requested refresh
-     */
-    private void forceInstantDataUpdate() {
-        if (dashContentFragment == null || !dashContentFragment.isAdded()) {
-            Log.w(TAG, "Fragment not ready for instant update - retrying in 100ms");
-            updateHandler.postDelayed(() -> forceInstantDataUpdate(), 100);
+    private void onLiveEnergyUpdated(Map<String, DormEnergySnapshot> snapshots) {
+        if (snapshots == null) return;
+        if (dashContentFragment == null || !dashContentFragment.isAdded() || dashContentFragment.getView() == null) {
+            // Keep the latest readings; onDashContentReady() renders them once the fragment has a view
+            pendingLiveEnergy = snapshots;
             return;
         }
+        pendingLiveEnergy = null;
         
-        if (!isWillowAuthenticated) {
-            Log.w(TAG, "Cannot force update - Willow API not authenticated");
+        // Check if user has selected a dorm
+        if (currentDormName == null || currentDormName.isEmpty() || currentDormIndex == -1) {
+            Log.w(TAG, "❌ Cannot show energy data - no dorm selected by user");
+            dashContentFragment.updateYesterdaysTotal("Please select a dorm during signup");
             return;
         }
         
-        Log.d(TAG, "🚀 INSTANT UPDATE: Bypassing interval checks and fetching data immediately");
+        DormEnergySnapshot snapshot = snapshots.get(currentDormName);
+        if (snapshot == null) {
+            Log.w(TAG, "⚠️ No snapshot returned for " + currentDormName);
+            dashContentFragment.updateYesterdaysTotal("No data for " + currentDormName + " ❌");
+            return;
+        }
         
-        // Always rotate dorms
-        rotateDorm();
+        // Another dorm changed but ours didn't - nothing to redraw
+        if (snapshot == lastRenderedSnapshot) {
+            Log.v(TAG, "⏭️ " + currentDormName + " unchanged - skipping render");
+            return;
+        }
+        lastRenderedSnapshot = snapshot;
+        isShowingCachedData = snapshot.isCached();
+        if (isShowingCachedData) {
+            Log.d(TAG, "📦 Rendering cached snapshot for " + currentDormName + " while revalidating");
+        }
         
-        // Force all updates regardless of intervals
-        fetchRealEnergyData(true, true);
+        EnergyDataResponse powerData = snapshot.getPowerData();
+        EnergyDataResponse energyData = snapshot.getEnergyData();
+        Log.d(TAG, "✅ Power data received: " + powerData.getCurrentUsageKW() + " kW");
+        Log.d(TAG, "✅ Energy consumption data received: " + energyData.getDailyTotalKWh() + " kWh");
         
-        // Update all last update times to current time to reset intervals
-        long currentTime = System.currentTimeMillis();
-        lastLiveEnergyUpdate = currentTime;
-        lastPotentialEnergyUpdate = currentTime;
-        lastRankingsUpdate = currentTime;
+        updateUIWithCombinedData(powerData, energyData);
     }
     
     /**
-     * Update UI with optimized data fetching based on update intervals
+     * The dash content has a view now (called from its onViewCreated and from onResume) - render any held readings
      */
-    private void updateUIWithLiveData() {
-        if (dashContentFragment == null || !dashContentFragment.isAdded()) {
-            Log.w(TAG, "Fragment not ready for live data update - retrying in 1 second");
-            // Retry after a short delay
-            updateHandler.postDelayed(() -> updateUIWithLiveData(), 1000);
-            return;
-        }
-
-        long currentTime = System.currentTimeMillis();
-        boolean shouldUpdateLiveEnergy = (currentTime - lastLiveEnergyUpdate) >= LIVE_ENERGY_INTERVAL;
-        boolean shouldUpdatePotentialEnergy = (currentTime - lastPotentialEnergyUpdate) >= POTENTIAL_ENERGY_INTERVAL;
-        boolean shouldUpdateRankings = (currentTime - lastRankingsUpdate) >= RANKINGS_INTERVAL;
-
-        // Always rotate dorms, but only log when actually fetching data
-        rotateDorm();
-
-        if (shouldUpdateLiveEnergy) {
-            if (isWillowAuthenticated) {
-                Log.d(TAG, "🔄 Fetching live energy data (due for update)");
-                fetchRealEnergyData(shouldUpdatePotentialEnergy, shouldUpdateRankings);
-                lastLiveEnergyUpdate = currentTime;
-                
-                if (shouldUpdatePotentialEnergy) {
-                    lastPotentialEnergyUpdate = currentTime;
-                }
-                if (shouldUpdateRankings) {
-                    lastRankingsUpdate = currentTime;
-                }
-            } else {
-                Log.e(TAG, "❌ Willow API not authenticated - cannot fetch energy data");
-                dashContentFragment.updateYesterdaysTotal("API Authentication Required ❌");
-            }
-        } else {
-            // Skip update - not due yet
-            long timeUntilNext = LIVE_ENERGY_INTERVAL - (currentTime - lastLiveEnergyUpdate);
-            Log.v(TAG, "⏭️ Skipping update (next in " + (timeUntilNext/1000) + "s)");
-        }
+    void onDashContentReady() {
+        if (pendingLiveEnergy == null) return;
+        lastRenderedSnapshot = null; // a new view has nothing rendered yet
+        onLiveEnergyUpdated(pendingLiveEnergy);
+    }
+    
+    private void onLiveEnergyError(String error) {
+        // Null means the last poll succeeded; auth failures are reported by the auth callback
+        if (error == null || !isWillowAuthenticated) return;
+        if (dashContentFragment == null || !dashContentFragment.isAdded()) return;
+        
+        Log.e(TAG, "❌ Failed to fetch energy data: " + error);
+        dashContentFragment.updateYesterdaysTotal("Data fetch failed: " + error + " ❌");
     }
     
     /**
-     * Fetch real energy data from Willow API with conditional updates
+     * Rankings changed - update the leaderboard and the user's dorm position
      */
-    private void fetchRealEnergyData(boolean updatePotentialEnergy, boolean updateRankings) {
-        // Check if user has selected a dorm
-        if (currentDormName == null || currentDormName.isEmpty() || currentDormIndex == -1) {
-            Log.w(TAG, "❌ Cannot fetch energy data - no dorm selected by user");
-            if (dashContentFragment != null) {
-                dashContentFragment.updateYesterdaysTotal("Please select a dorm during signup");
+    private void onLeaderboardUpdated(String[] leaderboard) {
+        if (leaderboard == null || dashContentFragment == null || !dashContentFragment.isAdded()) return;
+        
+        dashContentFragment.updateLeaderboard(leaderboard);
+        Log.d(TAG, "🏆 Leaderboard display updated: 1st=" + leaderboard[0] + 
+                   ", 2nd=" + leaderboard[1] + ", 3rd=" + leaderboard[2]);
+        
+        if (currentDormName == null || currentDormName.isEmpty()) return;
+        cachedDormPosition = "UNRANKED";
+        for (int i = 0; i < leaderboard.length; i++) {
+            if (currentDormName.equals(leaderboard[i])) {
+                cachedDormPosition = DormPointsManager.placeLabel(i + 1);
+                break;
             }
-            return;
         }
+        Log.d(TAG, "🏆 Rankings updated - Position: " + cachedDormPosition);
+        dashContentFragment.updateDormStatus(buildDormStatusText(currentDormName));
+    }
+    
+    /**
+     * The user's dorm crossed the staleness threshold (or became fresh again)
+     */
+    private void onStaleDormsChanged(Set<String> staleDorms) {
+        boolean stale = staleDorms != null && staleDorms.contains(currentDormName);
+        if (stale == isShowingStaleData) return;
+        isShowingStaleData = stale;
         
-        String powerTwinId = getCurrentBuildingTwinId();        // For kW (instantaneous power)
-        String energyTwinId = getCurrentBuildingEnergyTwinId(); // For kWh (cumulative energy)
+        if (dashContentFragment != null && dashContentFragment.isAdded() && !currentDormName.isEmpty()) {
+            dashContentFragment.updateDormStatus(buildDormStatusText(currentDormName));
+        }
+    }
+    
+    /**
+     * "DORM - POSITION", with the data age appended while readings are stale or restored from cache
+     */
+    private String buildDormStatusText(String buildingName) {
+        String statusText = buildingName + " - " + (cachedDormPosition != null ? cachedDormPosition : "LIVE DATA");
+        if ((isShowingStaleData || isShowingCachedData) && energyRepository != null) {
+            long ageMinutes = Math.max(0, energyRepository.getDataAgeMillis(currentDormName) / 60000);
+            statusText += (isShowingStaleData ? " ⚠️ " : " 🕒 ") + ageMinutes + "m old";
+        }
+        return statusText;
+    }
+    
+    /**
+     * Rally points changed (only happens at 10pm daily, polled hourly)
+     */
+    private void onPotentialEnergyUpdated(Map<String, Integer> pointsByDorm) {
+        if (pointsByDorm == null || dashContentFragment == null || !dashContentFragment.isAdded()) return;
         
-        Log.d(TAG, "🌐 Fetching live energy data for " + currentDormName);
-        Log.d(TAG, "  📊 Power Twin: " + powerTwinId);
-        Log.d(TAG, "  🔋 Energy Twin: " + energyTwinId);
-
-        // Fetch power data (kW - for live usage display)
-        energyDataManager.getEnergyData(powerTwinId, new WillowEnergyDataManager.EnergyDataCallback() {
-            @Override
-            public void onSuccess(EnergyDataResponse powerData) {
-                Log.d(TAG, "✅ Power data received: " + powerData.getCurrentUsageKW() + " kW");
-                
-                // Now fetch energy consumption data (kWh - for daily totals)
-                energyDataManager.getEnergyConsumptionData(energyTwinId, new WillowEnergyDataManager.EnergyDataCallback() {
-                    @Override
-                    public void onSuccess(EnergyDataResponse energyData) {
-                        Log.d(TAG, "✅ Energy consumption data received: " + energyData.getDailyTotalKWh() + " kWh");
-                        
-                        // Combine both datasets and update UI
-                        runOnUiThread(() -> {
-                            updateUIWithCombinedData(powerData, energyData, updatePotentialEnergy, updateRankings);
-                        });
-                    }
-                    
-                    @Override
-                    public void onError(String error) {
-                        Log.w(TAG, "⚠️ Energy consumption data failed, using power data only: " + error);
-                        
-                        // Use power data only if energy data fails
-                        runOnUiThread(() -> {
-                            updateUIWithRealData(powerData, updatePotentialEnergy, updateRankings);
-                        });
-                    }
-                });
-            }
-            
-            @Override
-            public void onError(String error) {
-                Log.e(TAG, "❌ Failed to fetch power data: " + error);
-                runOnUiThread(() -> {
-                    dashContentFragment.updateYesterdaysTotal("Data fetch failed: " + error + " ❌");
-                });
-            }
-        });
+        Integer points = pointsByDorm.get(currentDormName);
+        cachedPotentialEnergy = points != null ? points : 0;
+        Log.d(TAG, "⚡ Rally points updated: " + cachedPotentialEnergy + " points");
+        dashContentFragment.updatePotentialEnergy(cachedPotentialEnergy + " Rally Points");
     }
     
     /**
@@ -1868,7 +1768,7 @@ public class DashboardActivity extends AppCompatActivity {
             Log.d(TAG, "🏆 Rankings updated - Position: " + position);
             
             // Update leaderboard display in fragment (on UI thread)
-            String[] leaderboard = getSortedDormLeaderboard(pointsManager);
+            String[] leaderboard = pointsManager.getSortedLeaderboard();
             if (dashContentFragment != null && dashContentFragment.isAdded() && leaderboard != null) {
                 final String[] finalLeaderboard = leaderboard;
                 runOnUiThread(() -> {
@@ -1964,13 +1864,13 @@ public class DashboardActivity extends AppCompatActivity {
         // 💰 Update shop points display to ensure it stays current with energy data updates
         updateShopPointsDisplay();
         
-        Log.v(TAG, "UI updated - Next live energy update in " + (LIVE_ENERGY_INTERVAL/1000) + "s");
+        Log.v(TAG, "UI updated - Next live energy update in " + (EnergyRepository.LIVE_ENERGY_INTERVAL/1000) + "s");
     }
 
     /**
      * Update UI with combined power (kW) and energy (kWh) data from separate twin IDs
      */
-    private void updateUIWithCombinedData(EnergyDataResponse powerData, EnergyDataResponse energyData, boolean updatePotentialEnergy, boolean updateRankings) {
+    private void updateUIWithCombinedData(EnergyDataResponse powerData, EnergyDataResponse energyData) {
         int liveUsage = powerData.getCurrentUsageAsInt(); // Use power data for live usage (kW)
         
         // Update the instance variable for meter updates
@@ -2030,31 +1930,8 @@ public class DashboardActivity extends AppCompatActivity {
         updateMeter(todayForMeter, yesterdayForMeter);
         Log.d(TAG, "🎯 METER BAR: Today " + todayForMeter + " kWh, Yesterday " + yesterdayForMeter + " kWh (CONVERTED)");
         
-        // 🎮 Update dorm status/position (conditional based on ranking update schedule)
-        if (updateRankings) {
-            String position = pointsManager.getDormPosition(buildingName);
-            cachedDormPosition = position;
-            Log.d(TAG, "🏆 Rankings updated - Position: " + position);
-            
-            // Update leaderboard display in fragment (on UI thread)
-            String[] leaderboard = getSortedDormLeaderboard(pointsManager);
-            if (dashContentFragment != null && dashContentFragment.isAdded() && leaderboard != null) {
-                final String[] finalLeaderboard = leaderboard;
-                runOnUiThread(() -> {
-                    dashContentFragment.updateLeaderboard(finalLeaderboard);
-                    Log.d(TAG, "🏆 Leaderboard display updated: 1st=" + finalLeaderboard[0] + 
-                               ", 2nd=" + finalLeaderboard[1] + ", 3rd=" + finalLeaderboard[2]);
-                });
-            }
-        }
-        String statusText = buildingName + " - " + (cachedDormPosition != null ? cachedDormPosition : "LIVE DATA");
-        dashContentFragment.updateDormStatus(statusText);
-        
-        // 🎮 Update rally points (conditional - only updates at 10pm daily)
-        if (updatePotentialEnergy) {
-            cachedPotentialEnergy = energyDataManager.getDormPotentialEnergy(buildingName);
-            Log.d(TAG, "⚡ Rally points updated: " + cachedPotentialEnergy + " points");
-        }
+        // 🎮 Dorm position and rally points arrive on their own schedules (onLeaderboardUpdated / onPotentialEnergyUpdated)
+        dashContentFragment.updateDormStatus(buildDormStatusText(buildingName));
         dashContentFragment.updatePotentialEnergy(cachedPotentialEnergy + " Rally Points");
         
         // 🎮 Enhanced display: Today's Total, Yesterday's Total, and Emissions using combined data
@@ -2117,50 +1994,35 @@ public class DashboardActivity extends AppCompatActivity {
      * Backward compatibility wrapper for old fetchRealEnergyData method
      */
     private void fetchRealEnergyData() {
-        fetchRealEnergyData(true, true);
+        if (energyRepository != null) {
+            energyRepository.refreshAll();
+        }
     }
     
     /**
      * Get current building twin ID for POWER data (kW) based on rotation
      */
     private String getCurrentBuildingTwinId() {
-        switch (currentDormIndex) {
-            case 0: return WillowApiV3Config.TWIN_ID_TINSLEY;
-            case 1: return WillowApiV3Config.TWIN_ID_GABALDON;
-            case 2: return WillowApiV3Config.TWIN_ID_SECHRIST;
-            default: 
-                // No dorm selected - return the first one as fallback
-                Log.w(TAG, "No dorm selected, using Tinsley as fallback");
-                return WillowApiV3Config.TWIN_ID_TINSLEY;
-        }
+        return getCurrentBuilding().getPowerTwinId();
     }
 
     /**
      * Get current building twin ID for ENERGY data (kWh) based on rotation
      */
     private String getCurrentBuildingEnergyTwinId() {
-        switch (currentDormIndex) {
-            case 0: return WillowApiV3Config.TWIN_ID_TINSLEY_ENERGY;
-            case 1: return WillowApiV3Config.TWIN_ID_GABALDON_ENERGY;
-            case 2: return WillowApiV3Config.TWIN_ID_SECHRIST_ENERGY;
-            default: 
-                // No dorm selected - return the first one as fallback
-                Log.w(TAG, "No dorm selected, using Tinsley Energy as fallback");
-                return WillowApiV3Config.TWIN_ID_TINSLEY_ENERGY;
-        }
+        return getCurrentBuilding().getEnergyTwinId();
     }
-    
+
     /**
-     * Update data for user's dorm without constant points updates
+     * The user's building from the registry, or the first registered building if none is selected
      */
-    private void rotateDorm() {
-        // Removed automatic dorm rotation - now shows only user's selected dorm
-        Log.d(TAG, "🏠 Updating data for user's dorm: " + currentDormName);
-
-        // Removed constant points update - this was causing spam every 10 seconds
-        // Points should only be updated during daily check-in or scheduled energy checks
-
-        //end of dorm points code
+    private Building getCurrentBuilding() {
+        Building building = buildingRegistry.get(currentDormName);
+        if (building == null) {
+            Log.w(TAG, "No dorm selected, using " + buildingRegistry.getBuildings().get(0).getKey() + " as fallback");
+            building = buildingRegistry.getBuildings().get(0);
+        }
+        return building;
     }
     
     /**
@@ -2169,8 +2031,10 @@ public class DashboardActivity extends AppCompatActivity {
     public void manualRefresh() {
         Log.d(TAG, "Manual refresh requested for user's dorm: " + currentDormName);
         
-        // Update UI immediately for current user's dorm (no dorm switching)
-        updateUIWithLiveData();
+        // Fetch immediately for current user's dorm (no dorm switching); ignored if a fetch is already running
+        if (energyRepository != null) {
+            energyRepository.refreshLiveEnergy();
+        }
         
         Log.d(TAG, "Manual refresh completed for: " + currentDormName);
     }
@@ -2203,35 +2067,15 @@ public class DashboardActivity extends AppCompatActivity {
             // Show debug info
             String debugInfo = energyDataManager.getGamificationDebugInfo();
             Log.d(TAG, "🎮 Gamification Debug:\n" + debugInfo);
+            Log.d(TAG, energyDataManager.getApiDiagnostics());
             
             // Update UI to reflect new positions
-            updateUIWithLiveData();
+            energyRepository.refreshAll();
         }
         
         Log.d(TAG, "🎮 Manual energy check completed");
     }
     
-    /**
-     * Get base energy usage for different dorms (dynamic calculation based on real factors)
-     */
-    private int getBaseUsageForDorm(int dormIndex) {
-        // Dynamic calculation based on time of day and building characteristics
-        // This removes hardcoded values and makes it more realistic
-        int timeOfDayMultiplier = java.util.Calendar.getInstance().get(java.util.Calendar.HOUR_OF_DAY);
-        int baseLoad = 200 + (timeOfDayMultiplier * 5); // Base load varies with time
-        
-        // Building efficiency factor (based on actual building characteristics)
-        double efficiencyFactor = 1.0;
-        switch (dormIndex) {
-            case 0: efficiencyFactor = 0.85; // Tinsley - newer building, more efficient
-            case 1: efficiencyFactor = 1.0;  // Gabaldon - average efficiency
-            case 2: efficiencyFactor = 1.15; // Sechrist - older building, less efficient
-            default: efficiencyFactor = 1.0;
-        }
-        
-        return (int) (baseLoad * efficiencyFactor);
-    }
-    
     /**
      * Animate click feedback for interactive elements
      * Creates a scale-down and scale-up effect for button press
@@ -2252,9 +2096,9 @@ public class DashboardActivity extends AppCompatActivity {
      @Override
     protected void onDestroy() {
         super.onDestroy();
-        // Clean up the update handler
-        if (updateHandler != null) {
-            updateHandler.removeCallbacksAndMessages(null);
+        // LiveData observers are removed with the lifecycle; only the rotating display handler needs clearing
+        if (rotatingDisplayHandler != null) {
+            rotatingDisplayHandler.removeCallbacksAndMessages(null);
         }
         Log.d(TAG, "Live data updates stopped");
     }
@@ -0,0 +1,78 @@
+package com.example.ecowattchtechdemo;
+
+import com.google.gson.annotations.SerializedName;
+import java.util.List;
+
+/**
+ * Precomputed readings and rankings from the backend's shared Willow poll (GET /dorm_standings)
+ */
+public class DormStandingsResponse {
+    private String status;
+    private String message;
+    private long generatedAt;    // epoch millis of the server poll
+    private long pollIntervalMs;
+
+    @SerializedName("dorms")
+    private List<DormStanding> dorms; // ordered by rank
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public long getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public long getPollIntervalMs() {
+        return pollIntervalMs;
+    }
+
+    public List<DormStanding> getDorms() {
+        return dorms;
+    }
+
+    /**
+     * One dorm's latest readings (null when the server has none) and its standing
+     */
+    public static class DormStanding {
+        private String dormName;
+        private int rank;
+        private int points;
+        private Double powerKw;
+        private long powerTimestamp;
+        private Double energyKwh;
+        private long energyTimestamp;
+
+        public String getDormName() {
+            return dormName;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+
+        public int getPoints() {
+            return points;
+        }
+
+        public Double getPowerKw() {
+            return powerKw;
+        }
+
+        public long getPowerTimestamp() {
+            return powerTimestamp;
+        }
+
+        public Double getEnergyKwh() {
+            return energyKwh;
+        }
+
+        public long getEnergyTimestamp() {
+            return energyTimestamp;
+        }
+    }
+}
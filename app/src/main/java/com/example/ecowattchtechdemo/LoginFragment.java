@@ -2,7 +2,6 @@ package com.example.ecowattchtechdemo;
 
 import android.animation.ObjectAnimator;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -13,14 +12,12 @@ import android.view.animation.AnimationUtils;
 import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
-import android.content.Context;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
 import com.google.android.material.textfield.TextInputEditText;
-import com.example.ecowattchtechdemo.gamification.DormPointsManager;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -50,80 +47,7 @@ public class LoginFragment extends Fragment {
             String username = loginUser.getText().toString().trim();
             String password = loginPass.getText().toString().trim();
 
-            LoginRequest request = new LoginRequest(username, password);
-
-            ApiService apiService = ApiClient.getClient().create(ApiService.class);
-            apiService.login(request).enqueue(new Callback<LoginResponse>() {
-                @Override
-                public void onResponse(Call<LoginResponse> call, Response<LoginResponse> response) {
-                    if (response.isSuccessful() && response.body() != null) {
-                        if ("success".equals(response.body().getStatus())) {
-                            Toast.makeText(requireContext(), "Login Successful", Toast.LENGTH_SHORT).show();
-
-                            //get the stuff from the response and put it into basically a global variable
-                            SharedPreferences prefs = requireActivity().getSharedPreferences("MyAppPrefs", Context.MODE_PRIVATE);
-                            SharedPreferences.Editor editor = prefs.edit();
-                            LoginResponse body = response.body();
-                            editor.putString("Username", body.getUser().getUsername());
-                            editor.putString("Dormitory", body.getUser().getDormName());
-                            editor.apply();
-
-                            //calculate each of if the user has done each of the daily tasks
-                            Integer completedTasks = body.getUser().getIsDone();
-
-                            //if completedTasks is greater than 7, put it to 7
-                            if(completedTasks > 7)
-                            {
-                                completedTasks = 7;
-                            }
-
-                            //the way this works is the number in it's binary representation corresponds to which tasks have been done
-                            // e.g. 5 = 101 in binary means tasks 1 and 3
-                            SharedPreferences tasks = requireActivity().getSharedPreferences("DailyTasks", Context.MODE_PRIVATE);
-                            SharedPreferences.Editor tasks_editor = tasks.edit();
-                            tasks_editor.putBoolean("checklist_item_1", (completedTasks & 0b001) != 0);
-                            tasks_editor.putBoolean("checklist_item_2", (completedTasks & 0b010) != 0);
-                            tasks_editor.putBoolean("checklist_item_3", (completedTasks & 0b100) != 0);
-
-                            if(completedTasks == 7)
-                            {
-                                //set everything complete if the number is 7 or more
-                                tasks_editor.putBoolean("all_tasks", true);
-                            }
-
-                            tasks_editor.apply();
-
-                            // Initialize user points from backend
-                            DormPointsManager pointsManager = new DormPointsManager(requireContext());
-                            pointsManager.initializePointsFromLogin(body.getUser().getSpendablePoints());
-
-                            // go to dashboard
-                            Intent intent = new Intent(requireContext(), DashboardActivity.class);
-                            startActivity(intent);
-                        } else {
-                            Toast.makeText(requireContext(), "Login Failed: " + response.body().getMessage(), Toast.LENGTH_SHORT).show();
-                            shakeLoginForm();
-                        }
-                    } else {
-                        Toast.makeText(requireContext(), "API Error", Toast.LENGTH_SHORT).show();
-                        shakeLoginForm();
-                    }
-                }
-
-                @Override
-                public void onFailure(Call<LoginResponse> call, Throwable t) {
-                    Toast.makeText(requireContext(), "Network Error: " + t.getMessage(), Toast.LENGTH_LONG).show();
-                    shakeLoginForm();
-                }
-
-            // go to dashboard
-
-                /*
-            Intent intent = new Intent(requireContext(), DashboardActivity.class);
-            startActivity(intent);
-
-                 */
-            });
+            login(username, password);
         });
 
         signupLink.setOnClickListener(v -> {
@@ -148,6 +72,87 @@ public class LoginFragment extends Fragment {
         return view;
     }
 
+    /**
+     * Sign in with POST /bootstrap, which also returns everything the dashboard and shop need,
+     * so the dashboard opens after a single round trip. Falls back to /login on older backends.
+     */
+    private void login(String username, String password) {
+        ApiService apiService = ApiClient.getApiService();
+        String catalogVersion = PaletteCatalogCache.getInstance(requireContext()).getVersion();
+
+        apiService.bootstrap(new BootstrapRequest(username, password, catalogVersion))
+                .enqueue(new Callback<BootstrapResponse>() {
+            @Override
+            public void onResponse(Call<BootstrapResponse> call, Response<BootstrapResponse> response) {
+                if (!isAdded()) return;
+                if (response.code() == 404) {
+                    loginWithoutBootstrap(apiService, username, password);
+                    return;
+                }
+
+                BootstrapResponse body = response.body();
+                if (response.isSuccessful() && body != null) {
+                    if ("success".equals(body.getStatus()) && body.getUser() != null) {
+                        SessionBootstrap.hydrate(requireContext(), body);
+                        onLoggedIn();
+                    } else {
+                        Toast.makeText(requireContext(), "Login Failed: " + body.getMessage(), Toast.LENGTH_SHORT).show();
+                        shakeLoginForm();
+                    }
+                } else {
+                    Toast.makeText(requireContext(), "API Error", Toast.LENGTH_SHORT).show();
+                    shakeLoginForm();
+                }
+            }
+
+            @Override
+            public void onFailure(Call<BootstrapResponse> call, Throwable t) {
+                if (!isAdded()) return;
+                Toast.makeText(requireContext(), "Network Error: " + t.getMessage(), Toast.LENGTH_LONG).show();
+                shakeLoginForm();
+            }
+        });
+    }
+
+    /**
+     * Plain /login for backends without /bootstrap; the shop and dashboard then load their own data
+     */
+    private void loginWithoutBootstrap(ApiService apiService, String username, String password) {
+        apiService.login(new LoginRequest(username, password)).enqueue(new Callback<LoginResponse>() {
+            @Override
+            public void onResponse(Call<LoginResponse> call, Response<LoginResponse> response) {
+                if (!isAdded()) return;
+                if (response.isSuccessful() && response.body() != null) {
+                    if ("success".equals(response.body().getStatus())) {
+                        SessionBootstrap.hydrateUser(requireContext(), response.body().getUser());
+                        onLoggedIn();
+                    } else {
+                        Toast.makeText(requireContext(), "Login Failed: " + response.body().getMessage(), Toast.LENGTH_SHORT).show();
+                        shakeLoginForm();
+                    }
+                } else {
+                    Toast.makeText(requireContext(), "API Error", Toast.LENGTH_SHORT).show();
+                    shakeLoginForm();
+                }
+            }
+
+            @Override
+            public void onFailure(Call<LoginResponse> call, Throwable t) {
+                if (!isAdded()) return;
+                Toast.makeText(requireContext(), "Network Error: " + t.getMessage(), Toast.LENGTH_LONG).show();
+                shakeLoginForm();
+            }
+        });
+    }
+
+    private void onLoggedIn() {
+        Toast.makeText(requireContext(), "Login Successful", Toast.LENGTH_SHORT).show();
+
+        // go to dashboard
+        Intent intent = new Intent(requireContext(), DashboardActivity.class);
+        startActivity(intent);
+    }
+
     /**
      * Adds subtle scale animation when input fields gain focus
      */
@@ -0,0 +1,182 @@
+package com.example.ecowattchtechdemo;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import com.example.ecowattchtechdemo.willow.models.Palette;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Versioned palette catalog, kept in memory and persisted to SharedPreferences.
+ * - The shop renders from the cached catalog immediately; refresh() then revalidates it with
+ *   the backend using the cached version as ETag, so an unchanged catalog costs a 304 with no body.
+ * - When the version changes, only the palettes that were added, changed or removed are reported,
+ *   so callers can update those items instead of rebuilding the whole shop.
+ *
+ * Palette names are trimmed and upper-cased; colors are the seven hex values in offerings order
+ * [primary, secondary, accent, background_main, background_light, gradient_start, gradient_end].
+ */
+public class PaletteCatalogCache {
+
+    private static final String TAG = "PaletteCatalogCache";
+    private static final String PREFS_NAME = "PaletteCatalog";
+    private static final String KEY_VERSION = "version";
+    private static final String KEY_PALETTES = "palettes";
+
+    public interface Listener {
+        /** The catalog has a new version; only these palettes differ from the previous one */
+        void onCatalogChanged(Set<String> changed, Set<String> removed);
+        /** The cached catalog is still current */
+        void onCatalogUnchanged();
+        void onError(String error);
+    }
+
+    private static PaletteCatalogCache instance;
+
+    private final SharedPreferences prefs;
+    private final Gson gson = new Gson();
+
+    private final Map<String, String[]> colors = new LinkedHashMap<>();
+    private String version;
+
+    public static synchronized PaletteCatalogCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new PaletteCatalogCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private PaletteCatalogCache(Context appContext) {
+        this.prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        restore();
+    }
+
+    /**
+     * Copy of the cached catalog, palette name to colors (empty before the first download)
+     */
+    public synchronized Map<String, String[]> getColors() {
+        return new LinkedHashMap<>(colors);
+    }
+
+    /**
+     * Version of the cached catalog, or null if none was downloaded yet
+     */
+    public synchronized String getVersion() {
+        return version;
+    }
+
+    /**
+     * Revalidate the cached catalog with the backend; the listener is called on the main thread
+     */
+    public void refresh(Listener listener) {
+        String cachedVersion = getVersion();
+        String etag = cachedVersion != null ? "\"" + cachedVersion + "\"" : null;
+
+        ApiClient.getApiService().getPalettes(etag).enqueue(new Callback<ApiResponse>() {
+            @Override
+            public void onResponse(Call<ApiResponse> call, Response<ApiResponse> response) {
+                if (response.code() == 304) {
+                    Log.d(TAG, "✅ Palette catalog " + cachedVersion + " is current");
+                    listener.onCatalogUnchanged();
+                    return;
+                }
+
+                ApiResponse body = response.body();
+                if (!response.isSuccessful() || body == null || !"success".equalsIgnoreCase(body.status)
+                        || body.palettes == null) {
+                    listener.onError("Palettes request failed with HTTP " + response.code());
+                    return;
+                }
+
+                Set<String> changed = new HashSet<>();
+                Set<String> removed = new HashSet<>();
+                apply(body.version, body.palettes, changed, removed);
+                if (changed.isEmpty() && removed.isEmpty()) {
+                    listener.onCatalogUnchanged();
+                } else {
+                    listener.onCatalogChanged(changed, removed);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<ApiResponse> call, Throwable t) {
+                listener.onError(t.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Store a catalog that arrived with another response (e.g. /bootstrap)
+     */
+    public void store(String newVersion, List<Palette> palettes) {
+        apply(newVersion, palettes, new HashSet<>(), new HashSet<>());
+    }
+
+    /**
+     * Replace the cached catalog and collect which palettes differ from the previous one
+     */
+    private synchronized void apply(String newVersion, List<Palette> palettes,
+                                    Set<String> changed, Set<String> removed) {
+        Map<String, String[]> updated = new LinkedHashMap<>();
+        for (Palette p : palettes) {
+            if (p == null || p.offeringName == null) continue;
+            String name = p.offeringName.trim().toUpperCase();
+            if (name.isEmpty()) continue;
+
+            updated.put(name, new String[]{
+                    safeHex(p.colorHex1), safeHex(p.colorHex2), safeHex(p.colorHex3), safeHex(p.colorHex4),
+                    safeHex(p.colorHex5), safeHex(p.colorHex6), safeHex(p.colorHex7)
+            });
+        }
+
+        for (Map.Entry<String, String[]> entry : updated.entrySet()) {
+            if (!Arrays.equals(colors.get(entry.getKey()), entry.getValue())) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String name : colors.keySet()) {
+            if (!updated.containsKey(name)) removed.add(name);
+        }
+
+        colors.clear();
+        colors.putAll(updated);
+        version = newVersion;
+        prefs.edit()
+                .putString(KEY_VERSION, newVersion)
+                .putString(KEY_PALETTES, gson.toJson(colors))
+                .apply();
+        Log.d(TAG, "🎨 Palette catalog " + newVersion + ": " + colors.size() + " palettes, "
+                + changed.size() + " changed, " + removed.size() + " removed");
+    }
+
+    private void restore() {
+        String json = prefs.getString(KEY_PALETTES, null);
+        if (json == null) return;
+        try {
+            Map<String, String[]> stored = gson.fromJson(json,
+                    new TypeToken<LinkedHashMap<String, String[]>>() {}.getType());
+            if (stored != null) {
+                colors.putAll(stored);
+                version = prefs.getString(KEY_VERSION, null);
+            }
+        } catch (JsonParseException e) {
+            Log.w(TAG, "Discarding unreadable palette catalog", e);
+            prefs.edit().clear().apply();
+        }
+    }
+
+    private static String safeHex(String hex) {
+        return (hex != null && !hex.isEmpty()) ? hex : "#000000";
+    }
+}
@@ -4,6 +4,7 @@ public class PurchaseRequest {
     private String username;
     private String paletteName;
     private int pointsToDeduct;
+    private String idempotencyKey;  // same key on every retry, so the backend charges once
 
     public PurchaseRequest(String username, String paletteName, int pointsToDeduct) {
         this.username = username;
@@ -11,6 +12,11 @@ public class PurchaseRequest {
         this.pointsToDeduct = pointsToDeduct;
     }
 
+    public PurchaseRequest(String username, String paletteName, int pointsToDeduct, String idempotencyKey) {
+        this(username, paletteName, pointsToDeduct);
+        this.idempotencyKey = idempotencyKey;
+    }
+
     // Getters and setters
     public String getUsername() {
         return username;
@@ -35,4 +41,12 @@ public class PurchaseRequest {
     public void setPointsToDeduct(int pointsToDeduct) {
         this.pointsToDeduct = pointsToDeduct;
     }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
 }
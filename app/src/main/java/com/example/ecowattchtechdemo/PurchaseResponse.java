@@ -3,7 +3,9 @@ package com.example.ecowattchtechdemo;
 public class PurchaseResponse {
     private String status;
     private String message;
-    private int newPointTotal;
+    private Integer newPointTotal;  // authoritative balance after the purchase (or at rejection)
+    private Long purchaseId;        // ledger entry of the purchase
+    private boolean replayed;       // true if this key was already charged earlier
 
     // Constructors
     public PurchaseResponse() {}
@@ -31,11 +33,22 @@ public class PurchaseResponse {
         this.message = message;
     }
 
-    public int getNewPointTotal() {
+    /**
+     * Balance the backend holds after this purchase; null if the user is unknown
+     */
+    public Integer getNewPointTotal() {
         return newPointTotal;
     }
 
-    public void setNewPointTotal(int newPointTotal) {
+    public void setNewPointTotal(Integer newPointTotal) {
         this.newPointTotal = newPointTotal;
     }
+
+    public Long getPurchaseId() {
+        return purchaseId;
+    }
+
+    public boolean isReplayed() {
+        return replayed;
+    }
 }
@@ -22,6 +22,8 @@ import java.util.Collections;
 import java.util.Comparator;
 
 import com.example.ecowattchtechdemo.gamification.DormPointsManager;
+import com.example.ecowattchtechdemo.gamification.EnergyHistoryAggregator;
+import java.util.Map;
 
 public class RecordsActivity extends AppCompatActivity {
 
@@ -47,9 +49,15 @@ public class RecordsActivity extends AppCompatActivity {
     private List<LeaderboardEntry> allTimeLeaderboard;
     private List<StreakEntry> streaksLeaderboard;
 
+    // All-time leaderboard rows to show (read straight from the ranking index, no sorting here)
+    private static final int MAX_LEADERBOARD_ENTRIES = 10;
+
     // theme manager
     private ThemeManager tm;
 
+    // Loads real daily totals in the background
+    private EnergyHistoryAggregator historyAggregator;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -67,6 +75,7 @@ public class RecordsActivity extends AppCompatActivity {
 
         // Initialize empty data structures for real API data
         initializeDataStructures();
+        initializeWeeklyEnergyData();
 
         // Setup UI
         setupBarChart();
@@ -89,6 +98,18 @@ public class RecordsActivity extends AppCompatActivity {
 
         // initialize themeManager
         tm = new ThemeManager(this);
+
+        // Fill the chart with real history as each day is computed
+        historyAggregator = new EnergyHistoryAggregator(this);
+        loadWeeklyEnergyData();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (historyAggregator != null) {
+            historyAggregator.cancel();
+        }
     }
 
     protected void onStart() {
@@ -237,7 +258,7 @@ public class RecordsActivity extends AppCompatActivity {
 
             // Calculate bar height (percentage of max)
             int maxBarHeight = 120; // dp - reduced to fit with day label
-            float heightPercentage = (float) data.energyUsageKwh / maxEnergy;
+            float heightPercentage = maxEnergy > 0 ? (float) data.energyUsageKwh / maxEnergy : 0f;
             int barHeight = (int) (maxBarHeight * heightPercentage);
 
             // Create the bar with rounded background
@@ -465,13 +486,9 @@ public class RecordsActivity extends AppCompatActivity {
         DormPointsManager pointsManager = new DormPointsManager(this);
         
         // Initialize lists
-        weeklyEnergyData = new ArrayList<>();
         allTimeLeaderboard = new ArrayList<>();
         streaksLeaderboard = new ArrayList<>();
         
-        // Load real weekly energy data for all dorms
-        loadWeeklyEnergyData(pointsManager);
-        
         // Load real leaderboard data
         loadRealLeaderboardData(pointsManager);
         
@@ -480,85 +497,59 @@ public class RecordsActivity extends AppCompatActivity {
     }
     
     /**
-     * Load real weekly energy data for the bar chart
+     * Start the week empty so the screen opens instantly; real totals arrive from loadWeeklyEnergyData()
      */
-    private void loadWeeklyEnergyData(DormPointsManager pointsManager) {
-        String[] dorms = {"TINSLEY", "GABALDON", "SECHRIST"};
-        
-        // Generate weekly data based on real current energy usage from each dorm
-        for (int dayIndex = 0; dayIndex < 7; dayIndex++) {
-            String dayName = dayNames[dayIndex];
-            int totalDailyUsage = 0;
-            
-            // Sum up accurate daily usage for all dorms
-            for (String dorm : dorms) {
-                double todayUsage = pointsManager.getTodayEnergyUsage(dorm);
+    private void initializeWeeklyEnergyData() {
+        weeklyEnergyData = new ArrayList<>();
+        for (String dayName : dayNames) {
+            weeklyEnergyData.add(new DailyEnergyData(dayName, 0));
+        }
+    }
+    
+    /**
+     * Load real weekly energy data for the bar chart (stored daily totals, Willow history for gaps)
+     */
+    private void loadWeeklyEnergyData() {
+        historyAggregator.loadCurrentWeek(new EnergyHistoryAggregator.DailyTotalsListener() {
+            @Override
+            public void onDayReady(int dayIndex, Map<String, Double> dormTotals) {
+                if (dayIndex < 0 || dayIndex >= weeklyEnergyData.size()) return;
                 
-                // Calculate accurate daily usage for each dorm
-                int dormDailyUsage;
-                if (todayUsage > 0) {
-                    // Convert cumulative to reasonable daily usage using accurate conversion
-                    dormDailyUsage = convertToReasonableDailyUsageForDorm((int)todayUsage, dorm);
-                } else {
-                    // Use realistic estimates based on dorm size and characteristics
-                    dormDailyUsage = getAccurateEstimatedUsageForDorm(dorm);
+                // Sum the kWh every dorm consumed that day
+                double totalDailyUsage = 0;
+                for (double dormUsage : dormTotals.values()) {
+                    if (dormUsage > 0) totalDailyUsage += dormUsage;
                 }
                 
-                // Add realistic daily variation (±15%) to simulate different weekdays/weekends
-                double dayVariation;
-                if (dayIndex == 0 || dayIndex == 6) { // Sunday/Saturday - lower usage
-                    dayVariation = 0.75 + (Math.random() * 0.3); // 75% to 105%
-                } else { // Weekdays - normal to high usage
-                    dayVariation = 0.9 + (Math.random() * 0.3); // 90% to 120%
+                weeklyEnergyData.get(dayIndex).energyUsageKwh = (int) Math.round(totalDailyUsage);
+                updateBarChart();
+                if (dayIndex == selectedDayIndex) {
+                    updateEnergyLabel();
                 }
-                
-                dormDailyUsage = (int)(dormDailyUsage * dayVariation);
-                totalDailyUsage += dormDailyUsage;
             }
             
-            weeklyEnergyData.add(new DailyEnergyData(dayName, totalDailyUsage));
-        }
+            @Override
+            public void onComplete() {
+                android.util.Log.d("RecordsActivity", "📊 Weekly energy history loaded");
+            }
+        });
     }
     
     /**
      * Load real leaderboard data based on actual dorm performance
      */
     private void loadRealLeaderboardData(DormPointsManager pointsManager) {
-        String[] dorms = {"TINSLEY", "GABALDON", "SECHRIST"};
         List<LeaderboardEntry> entries = new ArrayList<>();
         
-        // 🏆 Use the SAME ranking system as the dashboard header for consistency
+        // 🏆 Use the SAME ranking as the dashboard header (DormPointsManager's leaderboard index)
         android.util.Log.d("RecordsActivity", "🏆 LEADERBOARD DEBUG - Real rankings from DormPointsManager:");
-        android.util.Log.d("RecordsActivity", "🏆 BEFORE SORTING - Reading points for each dorm:");
         
-        for (String dorm : dorms) {
+        List<String> rankedDorms = pointsManager.getTopDorms(MAX_LEADERBOARD_ENTRIES);
+        for (int i = 0; i < rankedDorms.size(); i++) {
+            String dorm = rankedDorms.get(i);
             // Use actual rally points from gamification system
-            int potentialEnergyPoints = pointsManager.getDormTotalPoints(dorm);
-
-            android.util.Log.d("RecordsActivity", "🏆 " + dorm + " has " + potentialEnergyPoints + " rally points");
+            entries.add(new LeaderboardEntry(i + 1, dorm, pointsManager.getDormTotalPoints(dorm)));
             
-            entries.add(new LeaderboardEntry(0, dorm, potentialEnergyPoints));
-        }
-        
-        android.util.Log.d("RecordsActivity", "🏆 BEFORE SORTING - entries created with points:");
-        for (int i = 0; i < entries.size(); i++) {
-            LeaderboardEntry entry = entries.get(i);
-            android.util.Log.d("RecordsActivity", "🏆   " + entry.dormName + " = " + entry.potentialEnergy + " points");
-        }
-        
-        // Sort by rally points (highest first) - SAME as DormPointsManager.getDormPosition()
-        Collections.sort(entries, new Comparator<LeaderboardEntry>() {
-            @Override
-            public int compare(LeaderboardEntry a, LeaderboardEntry b) {
-                return Integer.compare(b.potentialEnergy, a.potentialEnergy); // Highest first
-            }
-        });
-        
-        android.util.Log.d("RecordsActivity", "🏆 AFTER SORTING - final leaderboard order:");
-        
-        // Set accurate ranks and log final sorted order for debugging
-        for (int i = 0; i < entries.size(); i++) {
-            entries.get(i).rank = i + 1;
             LeaderboardEntry entry = entries.get(i);
             String position = (i == 0) ? "1ST" : (i == 1) ? "2ND" : (i == 2) ? "3RD" : "UNRANKED";
             android.util.Log.d("RecordsActivity", "🏆 Final leaderboard position " + (i+1) + ": " + entry.dormName + " (" + position + ") with " + entry.potentialEnergy + " points");
@@ -607,109 +598,6 @@ public class RecordsActivity extends AppCompatActivity {
         }
     }
     
-    /**
-     * Convert massive cumulative values to reasonable daily usage with dorm-specific logic
-     */
-    private int convertToReasonableDailyUsageForDorm(int cumulativeValue, String dorm) {
-        if (cumulativeValue <= 0) return 0;
-        
-        // Handle extremely large values (millions of kWh) - these are cumulative totals
-        if (cumulativeValue > 100000) { // More than 100,000 kWh is definitely cumulative
-            // Use dorm-specific conversion based on real observed values
-            int dailyUsage;
-            switch (dorm) {
-                case "TINSLEY": 
-                    // Real: ~2,878,920 kWh → ~4,420 kWh daily
-                    dailyUsage = 4200 + (cumulativeValue % 1000); // 4200-5199 range
-                    break;
-                case "SECHRIST":
-                    // Real: ~8,765,518 kWh → ~4,018 kWh daily  
-                    dailyUsage = 3800 + (cumulativeValue % 800); // 3800-4599 range
-                    break;
-                case "GABALDON":
-                    // Real: ~11,700,000 kWh → ~1,500 kWh daily (most efficient)
-                    dailyUsage = 1400 + (cumulativeValue % 600); // 1400-1999 range  
-                    break;
-                default:
-                    dailyUsage = 3000 + (cumulativeValue % 1500); // Default range
-                    break;
-            }
-            return dailyUsage;
-        } else if (cumulativeValue > 10000) {
-            // Medium large values - scale down proportionally
-            return Math.min(5000, cumulativeValue / 3);
-        } else if (cumulativeValue > 1000) {
-            return cumulativeValue; // Already in reasonable daily range
-        } else {
-            return Math.max(cumulativeValue, 500); // Minimum 500 kWh for any active dorm
-        }
-    }
-    
-    /**
-     * Get accurate estimated daily usage for a dorm based on real characteristics
-     */
-    private int getAccurateEstimatedUsageForDorm(String dorm) {
-        switch (dorm) {
-            case "TINSLEY": 
-                return 4400; // Large dorm, high usage (based on real 2.8M cumulative)
-            case "SECHRIST": 
-                return 4000; // Large dorm, high usage (based on real 8.7M cumulative)
-            case "GABALDON": 
-                return 1700; // Most efficient dorm (based on real 11.7M cumulative)
-            default: 
-                return 3000; // Default reasonable usage
-        }
-    }
-    
-    /**
-     * Get maximum expected daily usage for each dorm for efficiency calculations
-     */
-    private int getMaxExpectedUsageForDorm(String dorm) {
-        switch (dorm) {
-            case "TINSLEY": 
-                return 5500; // Large dorm capacity
-            case "SECHRIST": 
-                return 5200; // Large dorm capacity  
-            case "GABALDON": 
-                return 2500; // Smaller/more efficient dorm
-            default: 
-                return 4000; // Default max capacity
-        }
-    }
-    
-    /**
-     * Convert massive cumulative values to reasonable daily usage (legacy method for compatibility)
-     */
-    private int convertToReasonableDailyUsage(int cumulativeValue) {
-        if (cumulativeValue <= 0) return 0;
-        
-        // Handle extremely large values (millions of kWh) - these are cumulative totals
-        if (cumulativeValue > 100000) { // More than 100,000 kWh is definitely cumulative
-            int dailyComponent = (cumulativeValue % 10000); // Get last 4 digits for variation
-            int baseDailyUsage = 1500; // Minimum daily usage for large dorm
-            int dailyVariation = dailyComponent % 3000; // 0-3000 kWh variation
-            return baseDailyUsage + dailyVariation;
-        } else if (cumulativeValue > 10000) {
-            return Math.min(4500, cumulativeValue / 3); // Cap at 4500 kWh daily
-        } else if (cumulativeValue > 1000) {
-            return cumulativeValue; // Already in reasonable daily range
-        } else {
-            return Math.max(cumulativeValue, 500); // Minimum 500 kWh for any active dorm
-        }
-    }
-    
-    /**
-     * Get estimated daily usage for a dorm when no real data is available (legacy method)
-     */
-    private int getEstimatedDailyUsageForDorm(String dorm) {
-        switch (dorm) {
-            case "TINSLEY": return 3800; // Large dorm
-            case "GABALDON": return 2900; // Medium dorm
-            case "SECHRIST": return 3200; // Large dorm
-            default: return 3000; // Default
-        }
-    }
-
     // ==================== Data Models ====================
     // TODO: BACKEND - Move these to separate model files when implementing API integration
 
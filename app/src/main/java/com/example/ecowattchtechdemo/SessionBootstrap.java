@@ -0,0 +1,82 @@
+package com.example.ecowattchtechdemo;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import com.example.ecowattchtechdemo.gamification.DormPointsManager;
+import com.example.ecowattchtechdemo.willow.EnergyRepository;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Fills every local store from the login response in one pass, so the dashboard and shop open
+ * without further requests:
+ * - MyAppPrefs (username, dorm), DailyTasks (checklist from isDone), spendable points
+ * - ShopPrefs owned palettes, the palette catalog cache and the live energy standings (bootstrap only)
+ */
+public final class SessionBootstrap {
+
+    private static final String TAG = "SessionBootstrap";
+
+    private SessionBootstrap() {
+    }
+
+    /**
+     * Hydrate from a POST /bootstrap response
+     */
+    public static void hydrate(Context context, BootstrapResponse response) {
+        User user = response.getUser();
+        hydrateUser(context, user);
+
+        if (response.getOwnedPalettes() != null) {
+            mergeOwnedPalettes(context, user.getUsername(), response.getOwnedPalettes());
+        }
+        if (response.getPalettes() != null) {
+            PaletteCatalogCache.getInstance(context).store(response.getCatalogVersion(), response.getPalettes());
+        }
+        if (response.getStandings() != null) {
+            EnergyRepository.getInstance(context).seedStandings(response.getStandings(), response.getStandingsEtag());
+        }
+        Log.d(TAG, "✅ Session hydrated for " + user.getUsername() + " (catalog "
+                + response.getCatalogVersion() + (response.getPalettes() != null ? ", updated" : ", cached")
+                + ", standings " + (response.getStandings() != null ? "seeded" : "pending") + ")");
+    }
+
+    /**
+     * Hydrate the user fields only (POST /login response)
+     */
+    public static void hydrateUser(Context context, User user) {
+        context.getSharedPreferences("MyAppPrefs", Context.MODE_PRIVATE).edit()
+                .putString("Username", user.getUsername())
+                .putString("Dormitory", user.getDormName())
+                .apply();
+
+        //the way this works is the number in it's binary representation corresponds to which tasks have been done
+        // e.g. 5 = 101 in binary means tasks 1 and 3; anything above 7 means all done
+        int completedTasks = user.getIsDone() != null ? Math.min(user.getIsDone(), 7) : 0;
+        SharedPreferences.Editor tasks = context.getSharedPreferences("DailyTasks", Context.MODE_PRIVATE).edit();
+        tasks.putBoolean("checklist_item_1", (completedTasks & 0b001) != 0);
+        tasks.putBoolean("checklist_item_2", (completedTasks & 0b010) != 0);
+        tasks.putBoolean("checklist_item_3", (completedTasks & 0b100) != 0);
+        if (completedTasks == 7) {
+            tasks.putBoolean("all_tasks", true);
+        }
+        tasks.apply();
+
+        new DormPointsManager(context).initializePointsFromLogin(user.getSpendablePoints());
+    }
+
+    /**
+     * Add the palettes bought on the backend to the owned set; local ones stay, since a purchase
+     * may still be waiting in the write queue
+     */
+    private static void mergeOwnedPalettes(Context context, String username, Iterable<String> owned) {
+        SharedPreferences prefs = context.getSharedPreferences("ShopPrefs", Context.MODE_PRIVATE);
+        String key = "owned_palettes_" + username;
+        Set<String> merged = new HashSet<>(prefs.getStringSet(key, new HashSet<>()));
+        for (String palette : owned) {
+            if (palette != null) merged.add(palette.trim().toUpperCase());
+        }
+        prefs.edit().putStringSet(key, merged).apply();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.ecowattchtechdemo;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Process-wide OkHttp stack shared by the backend ApiClient and the Willow API client.
+ * Clients derived with newBuilder() keep this connection pool and dispatcher, so TLS
+ * sessions and worker threads are reused instead of being created per screen.
+ */
+public class SharedHttpClient {
+
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_REQUESTS = 32;
+    private static final int MAX_REQUESTS_PER_HOST = 8;
+
+    private static OkHttpClient client;
+
+    /**
+     * Get the shared base client (connection pool, dispatcher limits, HTTP/2 when offered)
+     */
+    public static synchronized OkHttpClient getClient() {
+        if (client == null) {
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(MAX_REQUESTS);
+            dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+            client = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                    .dispatcher(dispatcher)
+                    // HTTP/2 is negotiated via ALPN on TLS hosts; plain-HTTP hosts stay on HTTP/1.1
+                    .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                    .retryOnConnectionFailure(true)
+                    .build();
+        }
+        return client;
+    }
+}
@@ -22,13 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import com.example.ecowattchtechdemo.gamification.DormPointsManager;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-import com.example.ecowattchtechdemo.ApiResponse;
-import com.example.ecowattchtechdemo.willow.models.Palette;
-import com.google.gson.Gson;
+import com.example.ecowattchtechdemo.sync.PendingWriteQueue;
 
 public class ShopActivity extends AppCompatActivity {
     private static final String TAG = "ShopActivity";
@@ -337,64 +331,112 @@ public class ShopActivity extends AppCompatActivity {
         selectedTab.setTypeface(matrixFont, Typeface.BOLD);
     }
 
-    // ---fetch palettes from API and then initialize UI ---
-    // BACKEND - have this use palettesList and ownedList instead
+    // --- palettes from the cached catalog, then revalidated with the API ---
     private void fetchPalettesFromApiAndInit() {
-        ApiService api = ApiClient.getClient().create(ApiService.class);
-        Call<ApiResponse> call = api.getPalettes();
-        call.enqueue(new Callback<ApiResponse>() {
+        PaletteCatalogCache catalog = PaletteCatalogCache.getInstance(this);
+
+        // Render instantly from the cached catalog (if any)
+        Map<String, String[]> cached = catalog.getColors();
+        if (!cached.isEmpty()) {
+            paletteColors.putAll(cached);
+            updatePalettesWithApiData();
+            Log.d(TAG, "Rendered " + cached.size() + " palettes from catalog " + catalog.getVersion());
+        }
+        // Without a previous catalog the first download is the whole shop, not a diff
+        final boolean coldCache = cached.isEmpty();
+
+        catalog.refresh(new PaletteCatalogCache.Listener() {
             @Override
-            public void onResponse(Call<ApiResponse> call, Response<ApiResponse> response) {
-                Log.d(TAG, "Palettes request URL: " + call.request().url());
-                if (response.isSuccessful() && response.body() != null) {
-                    Log.d(TAG, "Palettes response body: " + new Gson().toJson(response.body()));
+            public void onCatalogChanged(Set<String> changed, Set<String> removed) {
+                if (isFinishing() || isDestroyed()) return;
+                if (coldCache) {
+                    paletteColors.putAll(catalog.getColors());
+                    updatePalettesWithApiData();
                 } else {
-                    Log.w(TAG, "Palettes response unsuccessful. code=" + response.code()
-                            + " error=" + (response.errorBody() != null ? response.errorBody().toString() : "null"));
+                    applyCatalogChanges(changed, removed);
                 }
+            }
 
-                if (response.isSuccessful() && response.body() != null && "success".equalsIgnoreCase(response.body().status)) {
-                    if (response.body().palettes != null) {
-                        for (Palette p : response.body().palettes) {
-                            if (p == null || p.offeringName == null) continue;
-
-                            // Trim and normalize the offering name so it matches your keys
-                            String key = p.offeringName.trim().toUpperCase();
-                            if (key.isEmpty()) continue;
-
-                            String[] arr = new String[]{
-                                    safeHex(p.colorHex1),
-                                    safeHex(p.colorHex2),
-                                    safeHex(p.colorHex3),
-                                    safeHex(p.colorHex4),
-                                    safeHex(p.colorHex5),
-                                    safeHex(p.colorHex6),
-                                    safeHex(p.colorHex7)
-                            };
-
-                            paletteColors.put(key, arr);
-                            Log.d(TAG, "Updated paletteColors[" + key + "] = " + java.util.Arrays.toString(arr));
-                        }
-                        
-                        // IMPORTANT: Update UI with new palette data
-                        runOnUiThread(() -> {
-                            updatePalettesWithApiData();
-                        });
-                    }
-                } else {
-                    Log.w(TAG, "Palettes API response unsuccessful or empty");
-                }
+            @Override
+            public void onCatalogUnchanged() {
+                // Already showing the current catalog
             }
 
             @Override
-            public void onFailure(Call<ApiResponse> call, Throwable t) {
-                Log.w(TAG, "Failed to fetch palettes: " + t.getMessage());
+            public void onError(String error) {
+                Log.w(TAG, "Failed to fetch palettes: " + error);
             }
         });
     }
 
-    private String safeHex(String hex) {
-        return (hex != null && !hex.isEmpty()) ? hex : "#000000";
+    /**
+     * Apply only the palettes that changed in a new catalog version to the shop lists
+     */
+    private void applyCatalogChanges(Set<String> changed, Set<String> removed) {
+        Set<String> ownedPalettes = getOwnedPalettes();
+        boolean reordered = false;
+
+        for (String name : removed) {
+            paletteColors.remove(name);
+            for (int i = 0; i < palettesList.size(); i++) {
+                if (palettesList.get(i).getName().equals(name) && !palettesList.get(i).isOwned()) {
+                    palettesList.remove(i);
+                    reordered = true;
+                    break;
+                }
+            }
+        }
+
+        PaletteCatalogCache catalog = PaletteCatalogCache.getInstance(this);
+        Map<String, String[]> latest = catalog.getColors();
+        for (String name : changed) {
+            String[] colors = latest.get(name);
+            if (colors == null || colors.length < 7) continue;
+            paletteColors.put(name, colors);
+
+            boolean owned = ownedPalettes.contains(name) || "PEACH".equals(name);
+            int index = replaceItem(palettesList, name, owned, colors);
+            if (index >= 0) {
+                if (palletsAdapter != null) palletsAdapter.notifyItemChanged(index);
+            } else {
+                palettesList.add(shopItemFor(name, owned, colors));
+                reordered = true;
+            }
+
+            int ownedIndex = replaceItem(ownedList, name, true, colors);
+            if (ownedIndex >= 0) {
+                if (ownedAdapter != null) ownedAdapter.notifyItemChanged(ownedIndex);
+            } else if (owned) {
+                ownedList.add(shopItemFor(name, true, colors));
+                if (ownedAdapter != null) ownedAdapter.notifyItemInserted(ownedList.size() - 1);
+            }
+        }
+
+        if (reordered) {
+            sortPalettesByOwnership();
+        }
+        Log.d(TAG, "Catalog " + catalog.getVersion() + " applied: " + changed.size() + " changed, "
+                + removed.size() + " removed");
+    }
+
+    /**
+     * Swap the item with this name for one with the new colors
+     * @return its index, or -1 if the list has no such item
+     */
+    private int replaceItem(List<ShopItem> items, String name, boolean owned, String[] colors) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getName().equals(name)) {
+                items.set(i, shopItemFor(name, owned, colors));
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ShopItem shopItemFor(String name, boolean owned, String[] colors) {
+        ShopItem item = new ShopItem(name, 500, colors[5], colors[6]);
+        item.setOwned(owned);
+        return item;
     }
 
     /**
@@ -478,7 +520,7 @@ public class ShopActivity extends AppCompatActivity {
      * Process the actual purchase
      */
     private void processPurchase(ShopItem item, int position, DormPointsManager pointsManager, int itemCost) {
-        // Deduct points locally first
+        // Deduct points locally first - provisional until the backend answers with its balance
         boolean success = pointsManager.spendIndividualPoints(itemCost);
 
         if (success) {
@@ -572,7 +614,9 @@ public class ShopActivity extends AppCompatActivity {
     }
 
     /**
-     * Sync purchase with backend
+     * Sync purchase with backend - queued so it survives a flaky connection; PendingWriteWorker
+     * sends it with its idempotency key and replaces local points with the backend's balance
+     * (returning the palette if the backend rejects the purchase)
      */
     private void syncPurchaseWithBackend(String paletteName, int pointsDeducted) {
         SharedPreferences prefs = getSharedPreferences("MyAppPrefs", Context.MODE_PRIVATE);
@@ -583,37 +627,7 @@ public class ShopActivity extends AppCompatActivity {
             return;
         }
 
-        ApiService api = ApiClient.getClient().create(ApiService.class);
-        PurchaseRequest request = new PurchaseRequest(username, paletteName, pointsDeducted);
-
-        Call<PurchaseResponse> call = api.purchasePalette(request);
-        call.enqueue(new Callback<PurchaseResponse>() {
-            @Override
-            public void onResponse(Call<PurchaseResponse> call, Response<PurchaseResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    PurchaseResponse purchaseResponse = response.body();
-                    if ("success".equals(purchaseResponse.getStatus())) {
-                        Log.d(TAG, "Purchase synced with backend successfully");
-                        // Update local points to match backend
-                        DormPointsManager pointsManager = new DormPointsManager(ShopActivity.this);
-                        pointsManager.setIndividualSpendablePoints(purchaseResponse.getNewPointTotal());
-                        updateEnergyPointsDisplay();
-                    } else {
-                        Log.w(TAG, "Backend purchase failed: " + purchaseResponse.getMessage());
-                        Toast.makeText(ShopActivity.this, "Purchase saved locally, sync failed", Toast.LENGTH_SHORT).show();
-                    }
-                } else {
-                    Log.w(TAG, "Backend purchase request failed");
-                    Toast.makeText(ShopActivity.this, "Purchase saved locally, sync failed", Toast.LENGTH_SHORT).show();
-                }
-            }
-
-            @Override
-            public void onFailure(Call<PurchaseResponse> call, Throwable t) {
-                Log.w(TAG, "Backend purchase request error: " + t.getMessage());
-                Toast.makeText(ShopActivity.this, "Purchase saved locally, sync failed", Toast.LENGTH_SHORT).show();
-            }
-        });
+        PendingWriteQueue.getInstance(this).enqueuePurchase(username, paletteName, pointsDeducted);
     }
 
     /**
@@ -25,20 +25,23 @@ import androidx.work.ExistingPeriodicWorkPolicy;
 import androidx.work.PeriodicWorkRequest;
 import androidx.work.WorkManager;
 
-import com.android.volley.Request;
-import com.android.volley.toolbox.JsonObjectRequest;
-import com.android.volley.toolbox.Volley;
 import com.example.ecowattchtechdemo.gamification.DormPointsManager;
+import com.example.ecowattchtechdemo.willow.BuildingRegistry;
+import com.example.ecowattchtechdemo.willow.models.Building;
 import com.google.android.material.textfield.TextInputEditText;
 
-import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.Calendar;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import com.example.ecowattchtechdemo.ApiClient;
 
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
 public class SignupFragment extends Fragment {
     Button signupButton;
     TextView loginLink;
@@ -60,8 +63,12 @@ public class SignupFragment extends Fragment {
         confirmPass = view.findViewById(R.id.confirm_pass);
         dormDropdown = view.findViewById(R.id.dormitory);
 
-        // Setup dormitory dropdown with dorm options
-        String[] dormitories = {"Tinsley", "Gabaldon", "Sechrist"};
+        // Setup dormitory dropdown with every configured or discovered building
+        List<Building> buildings = BuildingRegistry.getInstance(requireContext()).getBuildings();
+        String[] dormitories = new String[buildings.size()];
+        for (int i = 0; i < dormitories.length; i++) {
+            dormitories[i] = buildings.get(i).getLabel();
+        }
         ArrayAdapter<String> adapter = new ArrayAdapter<>(
                 requireContext(),
                 R.layout.dropdown_item,
@@ -78,27 +85,32 @@ public class SignupFragment extends Fragment {
             String confirm = confirmPass.getText().toString().trim();
             String dormitory = dormDropdown.getText().toString().trim();
 
-            JSONObject jsonBody = new JSONObject();
-            try {
-                jsonBody.put("usernames", username);
-                jsonBody.put("passwords", password);
-                jsonBody.put("dormitory", dormitory);
-            } catch (JSONException e) {
-                e.printStackTrace();
-            }
+            SignupRequest request = new SignupRequest(username, password, dormitory);
+
+            //get the stuff from the sign up
+            SharedPreferences prefs = requireActivity().getSharedPreferences("MyAppPrefs", Context.MODE_PRIVATE);
+            SharedPreferences.Editor editor = prefs.edit();
+            editor.putString("Username", username);
+            editor.putString("Dormitory", dormitory);
+            editor.apply();
+
+            // Initialize user points from backend
+            DormPointsManager pointsManager = new DormPointsManager(requireContext());
+            pointsManager.initializePointsFromLogin(550); //new user start with 550, for demo purposes
 
-            String url = ApiClient.BASE_URL + "/signup";
+            ApiService apiService = ApiClient.getApiService();
+            apiService.signup(request).enqueue(new Callback<SignupResponse>() {
+                @Override
+                public void onResponse(Call<SignupResponse> call, Response<SignupResponse> response) {
+                    if (!isAdded()) return;
 
-            JsonObjectRequest request = new JsonObjectRequest(Request.Method.POST, url, jsonBody,
-                    response -> {
+                    if (response.isSuccessful()) {
                         Toast.makeText(requireContext(), "Sign-up successful!", Toast.LENGTH_SHORT).show();
-                    },
-                    error -> {
+                    } else {
                         String errorMsg = "Sign-up failed";
-                        if (error.networkResponse != null && error.networkResponse.data != null) {
+                        if (response.errorBody() != null) {
                             try {
-                                String responseBody = new String(error.networkResponse.data, "utf-8");
-                                JSONObject data = new JSONObject(responseBody);
+                                JSONObject data = new JSONObject(response.errorBody().string());
                                 errorMsg = data.optString("message", errorMsg);
                             } catch (Exception e) {
                                 // fallback to default errorMsg
@@ -106,22 +118,16 @@ public class SignupFragment extends Fragment {
                         }
                         Toast.makeText(requireContext(), errorMsg, Toast.LENGTH_LONG).show();
                         shakeSignupForm();
-                        //Toast.makeText(getApplicationContext(), "Sign-up failed: " + error.getMessage(), Toast.LENGTH_LONG).show();
                     }
-            );
-
-            //get the stuff from the sign up
-            SharedPreferences prefs = requireActivity().getSharedPreferences("MyAppPrefs", Context.MODE_PRIVATE);
-            SharedPreferences.Editor editor = prefs.edit();
-            editor.putString("Username", username);
-            editor.putString("Dormitory", dormitory);
-            editor.apply();
-
-            // Initialize user points from backend
-            DormPointsManager pointsManager = new DormPointsManager(requireContext());
-            pointsManager.initializePointsFromLogin(550); //new user start with 550, for demo purposes
-
-            Volley.newRequestQueue(requireContext()).add(request);
+                }
+
+                @Override
+                public void onFailure(Call<SignupResponse> call, Throwable t) {
+                    if (!isAdded()) return;
+                    Toast.makeText(requireContext(), "Sign-up failed", Toast.LENGTH_LONG).show();
+                    shakeSignupForm();
+                }
+            });
 
             // TEMP: reset checklist progress on signup
             SharedPreferences task_prefs = requireContext().getSharedPreferences("DailyTasks", Context.MODE_PRIVATE);
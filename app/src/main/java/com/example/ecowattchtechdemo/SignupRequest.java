@@ -0,0 +1,14 @@
+package com.example.ecowattchtechdemo;
+
+public class SignupRequest {
+    private String usernames;
+    private String passwords;
+    private String dormitory;
+
+
+    public SignupRequest(String usernames, String passwords, String dormitory) {
+        this.usernames = usernames;
+        this.passwords = passwords;
+        this.dormitory = dormitory;
+    }
+}
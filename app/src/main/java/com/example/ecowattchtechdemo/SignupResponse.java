@@ -0,0 +1,16 @@
+package com.example.ecowattchtechdemo;
+
+public class SignupResponse {
+    private String status;
+    private String message;
+
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+}
@@ -1,22 +1,26 @@
 package com.example.ecowattchtechdemo.gamification;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.util.Log;
+import com.example.ecowattchtechdemo.willow.BuildingRegistry;
 import java.text.SimpleDateFormat;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
 /**
  * Manages the gamification points system for dormitories
  * Handles daily energy comparison, potential energy calculation, and point tracking
+ * State is read from and written to the in-memory GamificationStateStore; read-modify-write
+ * updates run as store transactions so concurrent callers never lose points.
  */
 public class DormPointsManager {
     
     private static final String TAG = "DormPointsManager";
-    private static final String PREFS_NAME = "DormPointsPrefs";
     
     // Point values as per requirements
     private static final int POINTS_PENALTY_INCREASE = -25;  // When using more than yesterday
@@ -24,6 +28,7 @@ public class DormPointsManager {
     private static final int POINTS_DAILY_CHECKIN = 25;      // Daily check-in reward (+25 points)
     
     // Dorm names exactly as specified by Collin for database variables
+    // (other buildings from the registry use <KEY>_total_points)
     public static final String TINSLEY_TOTAL_POINTS = "Tinsley_total_points";
     public static final String GABALDON_TOTAL_POINTS = "Gabaldon_total_points";
     public static final String SECHRIST_TOTAL_POINTS = "Sechrist_total_points";
@@ -31,10 +36,14 @@ public class DormPointsManager {
     // Individual spendable points (earned from daily check-ins)
     private static final String INDIVIDUAL_SPENDABLE_POINTS = "individual_spendable_points";
     
-    // Energy tracking keys
-    private static final String TODAY_ENERGY_PREFIX = "today_energy_";
-    private static final String YESTERDAY_ENERGY_PREFIX = "yesterday_energy_";
+    // Energy tracking keys (meter history itself lives in EnergyHistoryStore; the readings behind
+    // today's and yesterday's consumption are mirrored here so the UI thread never queries SQLite)
     private static final String LAST_CHECK_DATE = "last_check_date";
+    private static final String ENERGY_DAY_PREFIX = "energy_meter_day_";            // date the meter values belong to
+    private static final String ENERGY_BASELINE_PREFIX = "energy_meter_baseline_";  // float kWh, previous day's last reading
+    private static final String ENERGY_FIRST_PREFIX = "energy_meter_first_";        // float kWh, the day's first reading
+    private static final String ENERGY_LAST_PREFIX = "energy_meter_last_";          // float kWh, the day's latest reading
+    private static final String ENERGY_YESTERDAY_PREFIX = "energy_used_yesterday_"; // float kWh consumed the day before
     
     // Daily check-in tracking keys
     private static final String DAILY_CHECKIN_PREFIX = "daily_checkin_";
@@ -46,27 +55,100 @@ public class DormPointsManager {
     private static final String RALLY_DURATION_DAYS = "rally_duration_days";
     private static final int DEFAULT_RALLY_DURATION = 14; // 2 weeks
     
-    private final SharedPreferences prefs;
+    private static final String TOTAL_POINTS_SUFFIX = "_total_points";
+    
+    // Process-wide ranking of dorms by total points, synced from the store after every committed write
+    private static LeaderboardIndex dormIndex;
+    
+    private final GamificationStateStore store;
     private final SimpleDateFormat dateFormat;
+    private final EnergyHistoryStore historyStore;
+    private final BuildingRegistry registry;
     
     public DormPointsManager(Context context) {
-        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.store = GamificationStateStore.getInstance(context);
         this.dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        this.historyStore = EnergyHistoryStore.getInstance(context);
+        this.registry = BuildingRegistry.getInstance(context);
+        initializeDormIndex(store, registry);
+        seedDailyEnergyTotals();
         
         // Initialize rally period if not set
         initializeRallyPeriod();
     }
     
+    /**
+     * Fill the in-memory meter readings from the history store for dorms that have none yet (first run
+     * after an upgrade, or a dorm that was just discovered), so today's and yesterday's consumption match
+     * what the history chart computes. The query runs off the main thread.
+     */
+    private void seedDailyEnergyTotals() {
+        String today = dateFormat.format(new Date());
+        String yesterday = yesterdayDate();
+        Calendar dayBeforeYesterday = Calendar.getInstance();
+        dayBeforeYesterday.add(Calendar.DAY_OF_MONTH, -2);
+        
+        for (String dorm : registry.getBuildingKeys()) {
+            String dayKey = ENERGY_DAY_PREFIX + dorm;
+            if (store.contains(dayKey)) continue;
+
+            // Days are [day before yesterday, yesterday, today]; seed the latest day that has readings
+            historyStore.loadDayReadings(dorm, dayBeforeYesterday.getTimeInMillis(), 3, (first, last) -> store.transact(tx -> {
+                if (tx.contains(dayKey)) return null; // a live reading got there first
+                int day = !Double.isNaN(last[2]) ? 2 : !Double.isNaN(last[1]) ? 1 : -1;
+                if (day < 0) return null;
+
+                double baseline = Double.isNaN(last[day - 1]) ? first[day] : last[day - 1];
+                double usedYesterday = day == 2 ? EnergyHistoryStore.consumed(last[0], first[1], last[1]) : 0.0;
+                tx.putString(dayKey, day == 2 ? today : yesterday)
+                        .putFloat(ENERGY_BASELINE_PREFIX + dorm, (float) baseline)
+                        .putFloat(ENERGY_FIRST_PREFIX + dorm, (float) first[day])
+                        .putFloat(ENERGY_LAST_PREFIX + dorm, (float) last[day])
+                        .putFloat(ENERGY_YESTERDAY_PREFIX + dorm, (float) usedYesterday);
+                return null;
+            }));
+        }
+    }
+    
+    /**
+     * Build the dorm ranking once per process. Writes below update it once their transaction has committed;
+     * the listener catches writes made outside this class (e.g. the store being cleared on logout).
+     */
+    private static synchronized void initializeDormIndex(GamificationStateStore store, BuildingRegistry registry) {
+        if (dormIndex != null) return;
+        
+        LeaderboardIndex index = new LeaderboardIndex();
+        for (String dorm : registry.getBuildingKeys()) {
+            index.update(dorm, store.getInt(getDormPointsKey(dorm), 0));
+        }
+        store.addListener(changedKeys -> {
+            for (String key : changedKeys) {
+                if (!key.endsWith(TOTAL_POINTS_SUFFIX)) continue;
+                String dorm = extractDormName(key).toUpperCase(Locale.US);
+                if (store.contains(key) || registry.contains(dorm)) {
+                    index.update(dorm, store.getInt(key, 0));
+                } else {
+                    index.remove(dorm);
+                }
+            }
+        });
+        dormIndex = index;
+    }
+    
     /**
      * Initialize rally period if it hasn't been set
      */
     private void initializeRallyPeriod() {
-        if (!prefs.contains(RALLY_START_DATE)) {
-            String today = dateFormat.format(new Date());
-            prefs.edit()
-                    .putString(RALLY_START_DATE, today)
-                    .putInt(RALLY_DURATION_DAYS, DEFAULT_RALLY_DURATION)
-                    .apply();
+        if (store.contains(RALLY_START_DATE)) return;
+
+        String today = dateFormat.format(new Date());
+        boolean initialized = store.transact(tx -> {
+            if (tx.contains(RALLY_START_DATE)) return false;
+            tx.putString(RALLY_START_DATE, today)
+                    .putInt(RALLY_DURATION_DAYS, DEFAULT_RALLY_DURATION);
+            return true;
+        });
+        if (initialized) {
             Log.d(TAG, "Initialized rally period starting: " + today);
         }
     }
@@ -76,7 +158,7 @@ public class DormPointsManager {
      */
     public int getDormTotalPoints(String dormName) {
         String key = getDormPointsKey(dormName);
-        int points = prefs.getInt(key, 0);
+        int points = store.getInt(key, 0);
         Log.d(TAG, "Retrieved points for " + dormName + ": " + points);
         return points;
     }
@@ -86,7 +168,8 @@ public class DormPointsManager {
      */
     public void setDormTotalPoints(String dormName, int points) {
         String key = getDormPointsKey(dormName);
-        prefs.edit().putInt(key, points).apply();
+        store.transact(tx -> tx.putInt(key, points));
+        syncDormIndex(dormName);
         Log.d(TAG, "Set points for " + dormName + ": " + points);
     }
     
@@ -94,19 +177,23 @@ public class DormPointsManager {
      * Add points to a dorm's total
      */
     public void addPointsToDorm(String dormName, int pointsToAdd) {
-        int currentPoints = getDormTotalPoints(dormName);
-        int newTotal = currentPoints + pointsToAdd;
-        setDormTotalPoints(dormName, newTotal);
+        String key = getDormPointsKey(dormName);
+        int currentPoints = store.transact(tx -> {
+            int current = tx.getInt(key, 0);
+            tx.putInt(key, current + pointsToAdd);
+            return current;
+        });
+        syncDormIndex(dormName);
         
         Log.d(TAG, String.format("Added %d points to %s: %d → %d", 
-                pointsToAdd, dormName, currentPoints, newTotal));
+                pointsToAdd, dormName, currentPoints, currentPoints + pointsToAdd));
     }
     
     /**
      * Get individual spendable points (earned from daily check-ins)
      */
     public int getIndividualSpendablePoints() {
-        int points = prefs.getInt(INDIVIDUAL_SPENDABLE_POINTS, 0);
+        int points = store.getInt(INDIVIDUAL_SPENDABLE_POINTS, 0);
         Log.d(TAG, "Retrieved individual spendable points: " + points);
         return points;
     }
@@ -115,7 +202,7 @@ public class DormPointsManager {
      * Set individual spendable points
      */
     public void setIndividualSpendablePoints(int points) {
-        prefs.edit().putInt(INDIVIDUAL_SPENDABLE_POINTS, points).apply();
+        store.transact(tx -> tx.putInt(INDIVIDUAL_SPENDABLE_POINTS, points));
         Log.d(TAG, "Set individual spendable points: " + points);
     }
     
@@ -125,9 +212,13 @@ public class DormPointsManager {
      */
     public void initializePointsFromLogin(int loginSpendablePoints) {
         // Only set if we don't already have points stored locally, or if backend has more
-        int currentPoints = getIndividualSpendablePoints();
-        if (currentPoints == 0 || loginSpendablePoints > currentPoints) {
-            setIndividualSpendablePoints(loginSpendablePoints);
+        boolean updated = store.transact(tx -> {
+            int currentPoints = tx.getInt(INDIVIDUAL_SPENDABLE_POINTS, 0);
+            if (currentPoints != 0 && loginSpendablePoints <= currentPoints) return false;
+            tx.putInt(INDIVIDUAL_SPENDABLE_POINTS, loginSpendablePoints);
+            return true;
+        });
+        if (updated) {
             Log.d(TAG, "Initialized spendable points from login: " + loginSpendablePoints);
         }
     }
@@ -136,26 +227,28 @@ public class DormPointsManager {
      * Add to individual spendable points (for daily check-ins)
      */
     public void addIndividualSpendablePoints(int pointsToAdd) {
-        int currentPoints = getIndividualSpendablePoints();
-        int newTotal = currentPoints + pointsToAdd;
-        setIndividualSpendablePoints(newTotal);
+        int currentPoints = store.transact(tx -> addSpendablePoints(tx, pointsToAdd));
         
         Log.d(TAG, String.format("💰 Added %d spendable points: %d → %d", 
-                pointsToAdd, currentPoints, newTotal));
+                pointsToAdd, currentPoints, currentPoints + pointsToAdd));
     }
     
     /**
      * Spend individual points (for shop purchases)
      */
     public boolean spendIndividualPoints(int pointsToSpend) {
-        int currentPoints = getIndividualSpendablePoints();
+        // Check and debit in one transaction so two purchases can't both pass the balance check
+        int currentPoints = store.transact(tx -> {
+            int current = tx.getInt(INDIVIDUAL_SPENDABLE_POINTS, 0);
+            if (current >= pointsToSpend) {
+                tx.putInt(INDIVIDUAL_SPENDABLE_POINTS, current - pointsToSpend);
+            }
+            return current;
+        });
         
         if (currentPoints >= pointsToSpend) {
-            int newTotal = currentPoints - pointsToSpend;
-            setIndividualSpendablePoints(newTotal);
-            
             Log.d(TAG, String.format("💸 Spent %d spendable points: %d → %d", 
-                    pointsToSpend, currentPoints, newTotal));
+                    pointsToSpend, currentPoints, currentPoints - pointsToSpend));
             return true;
         } else {
             Log.w(TAG, String.format("❌ Insufficient spendable points: Need %d, Have %d", 
@@ -165,61 +258,108 @@ public class DormPointsManager {
     }
     
     /**
-     * Record today's energy usage for a dorm (overwrites previous value)
+     * Record a dorm's latest energy meter reading (cumulative kWh); overwrites today's previous reading
      */
     public void recordTodayEnergyUsage(String dormName, double energyKWh) {
         String today = dateFormat.format(new Date());
-        String key = TODAY_ENERGY_PREFIX + dormName + "_" + today;
-        
-        prefs.edit()
-                .putFloat(key, (float) energyKWh)
-                .putString(LAST_CHECK_DATE, today)
-                .apply();
+        historyStore.recordReading(dormName, energyKWh);
+        store.transact(tx -> {
+            putMeterReading(tx, dormName, today, energyKWh);
+            return tx.putString(LAST_CHECK_DATE, today);
+        });
         
-        Log.d(TAG, String.format("Recorded today's energy for %s: %.2f kWh", dormName, energyKWh));
+        Log.d(TAG, String.format("Recorded meter reading for %s: %.2f kWh", dormName, energyKWh));
     }
     
     /**
-     * Update today's energy usage only if the new value is higher (proper accumulation)
+     * Record a meter reading only if it is higher than today's latest (the meter only counts up,
+     * so a lower value is a stale reading)
      */
     public void updateTodayEnergyUsageIfHigher(String dormName, double newEnergyKWh) {
         String today = dateFormat.format(new Date());
-        String key = TODAY_ENERGY_PREFIX + dormName + "_" + today;
         
-        double currentTotal = prefs.getFloat(key, 0.0f);
+        // Compare and write in one transaction so two updates can't both pass the check
+        double currentReading = store.transact(tx -> {
+            double current = today.equals(tx.getString(ENERGY_DAY_PREFIX + dormName, null))
+                    ? tx.getFloat(ENERGY_LAST_PREFIX + dormName, 0f) : 0.0;
+            if (newEnergyKWh > current) {
+                putMeterReading(tx, dormName, today, newEnergyKWh);
+                tx.putString(LAST_CHECK_DATE, today);
+            }
+            return current;
+        });
         
-        // Only update if the new value is higher (proper daily total behavior)
-        if (newEnergyKWh > currentTotal) {
-            prefs.edit()
-                    .putFloat(key, (float) newEnergyKWh)
-                    .putString(LAST_CHECK_DATE, today)
-                    .apply();
+        if (newEnergyKWh > currentReading) {
+            historyStore.recordReading(dormName, newEnergyKWh);
             
-            Log.d(TAG, String.format("Updated today's energy for %s: %.2f kWh (was %.2f kWh)", 
-                    dormName, newEnergyKWh, currentTotal));
+            Log.d(TAG, String.format("Updated meter reading for %s: %.2f kWh (was %.2f kWh)", 
+                    dormName, newEnergyKWh, currentReading));
         } else {
-            Log.d(TAG, String.format("Kept existing today's energy for %s: %.2f kWh (new value %.2f kWh was not higher)", 
-                    dormName, currentTotal, newEnergyKWh));
+            Log.d(TAG, String.format("Kept existing meter reading for %s: %.2f kWh (new value %.2f kWh was not higher)", 
+                    dormName, currentReading, newEnergyKWh));
         }
     }
     
     /**
-     * Get today's energy usage for a dorm
+     * Get the kWh a dorm has used today (in-memory, safe on the main thread)
      */
     public double getTodayEnergyUsage(String dormName) {
-        String today = dateFormat.format(new Date());
-        String key = TODAY_ENERGY_PREFIX + dormName + "_" + today;
-        return prefs.getFloat(key, 0.0f);
+        String day = store.getString(ENERGY_DAY_PREFIX + dormName, null);
+        return dateFormat.format(new Date()).equals(day) ? storedDayUsage(dormName) : 0.0;
     }
     
     /**
-     * Get yesterday's energy usage for a dorm
+     * Get the kWh a dorm used yesterday (in-memory, safe on the main thread)
      * Returns actual stored data or 0 if no data exists
      */
     public double getYesterdayEnergyUsage(String dormName) {
-        String yesterday = getYesterdayDate();
-        String key = TODAY_ENERGY_PREFIX + dormName + "_" + yesterday;
-        return prefs.getFloat(key, 0.0f);
+        String day = store.getString(ENERGY_DAY_PREFIX + dormName, null);
+        if (dateFormat.format(new Date()).equals(day)) {
+            return store.getFloat(ENERGY_YESTERDAY_PREFIX + dormName, 0f);
+        }
+        if (yesterdayDate().equals(day)) {
+            // No reading yet today - the stored readings are yesterday's
+            return storedDayUsage(dormName);
+        }
+        return 0.0;
+    }
+    
+    /**
+     * Consumption on the day the stored readings belong to, computed the way the history chart does
+     */
+    private double storedDayUsage(String dormName) {
+        return EnergyHistoryStore.consumed(store.getFloat(ENERGY_BASELINE_PREFIX + dormName, Float.NaN),
+                store.getFloat(ENERGY_FIRST_PREFIX + dormName, Float.NaN),
+                store.getFloat(ENERGY_LAST_PREFIX + dormName, Float.NaN));
+    }
+    
+    /**
+     * Store today's latest reading. When the date changed, the stored day's consumption first rolls over
+     * to yesterday and its last reading becomes the baseline for today (this reading, if that day wasn't yesterday).
+     */
+    private void putMeterReading(GamificationStateStore.Transaction tx, String dormName, String today, double energyKWh) {
+        String dayKey = ENERGY_DAY_PREFIX + dormName;
+        String baselineKey = ENERGY_BASELINE_PREFIX + dormName;
+        String firstKey = ENERGY_FIRST_PREFIX + dormName;
+        String lastKey = ENERGY_LAST_PREFIX + dormName;
+        String day = tx.getString(dayKey, null);
+        if (!today.equals(day)) {
+            boolean continues = yesterdayDate().equals(day);
+            double usedYesterday = continues ? EnergyHistoryStore.consumed(tx.getFloat(baselineKey, Float.NaN),
+                    tx.getFloat(firstKey, Float.NaN), tx.getFloat(lastKey, Float.NaN)) : 0.0;
+            float baseline = continues ? tx.getFloat(lastKey, (float) energyKWh) : (float) energyKWh;
+            tx.putFloat(ENERGY_YESTERDAY_PREFIX + dormName, (float) usedYesterday)
+                    .putFloat(baselineKey, baseline)
+                    .putFloat(firstKey, (float) energyKWh)
+                    .putString(dayKey, today);
+        }
+        tx.putFloat(lastKey, (float) energyKWh);
+    }
+    
+    private String yesterdayDate() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.DAY_OF_MONTH, -1);
+        return dateFormat.format(calendar.getTime());
     }
     
     /**
@@ -232,26 +372,29 @@ public class DormPointsManager {
         String lastCheckinKey = LAST_CHECKIN_DATE_PREFIX + dormName;
         String streakKey = CHECKIN_STREAK_PREFIX + dormName;
         
-        // Check if already checked in today
-        if (prefs.getBoolean(checkinKey, false)) {
+        // Check-in flag, streak and reward are committed together (or not at all)
+        int currentStreak = store.transact(tx -> {
+            // Check if already checked in today
+            if (tx.getBoolean(checkinKey, false)) return 0;
+            
+            // Calculate and update streak (before recording today's date)
+            int streak = calculateCheckinStreak(tx, dormName, today);
+            
+            // Record today's check-in
+            tx.putBoolean(checkinKey, true)
+                    .putString(lastCheckinKey, today)
+                    .putInt(streakKey, streak);
+            
+            // Award individual spendable points for check-in (NOT dorm points)
+            addSpendablePoints(tx, POINTS_DAILY_CHECKIN);
+            return streak;
+        });
+        
+        if (currentStreak == 0) {
             Log.d(TAG, "✋ " + dormName + " already checked in today - no additional points");
             return false; // Already checked in today
         }
         
-        // Record today's check-in
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putBoolean(checkinKey, true);
-        editor.putString(lastCheckinKey, today);
-        
-        // Calculate and update streak
-        int currentStreak = calculateCheckinStreak(dormName, today);
-        editor.putInt(streakKey, currentStreak);
-        
-        // Award individual spendable points for check-in (NOT dorm points)
-        addIndividualSpendablePoints(POINTS_DAILY_CHECKIN);
-        
-        editor.apply();
-        
         Log.d(TAG, String.format("🎯 Daily check-in recorded for %s: +%d spendable points (Streak: %d days)", 
                 dormName, POINTS_DAILY_CHECKIN, currentStreak));
         
@@ -263,7 +406,7 @@ public class DormPointsManager {
      */
     public int getCheckinStreak(String dormName) {
         String streakKey = CHECKIN_STREAK_PREFIX + dormName;
-        return prefs.getInt(streakKey, 0);
+        return store.getInt(streakKey, 0);
     }
     
     /**
@@ -272,15 +415,15 @@ public class DormPointsManager {
     public boolean hasCheckedInToday(String dormName) {
         String today = dateFormat.format(new Date());
         String checkinKey = DAILY_CHECKIN_PREFIX + dormName + "_" + today;
-        return prefs.getBoolean(checkinKey, false);
+        return store.getBoolean(checkinKey, false);
     }
     
     /**
      * Calculate check-in streak based on consecutive days
      */
-    private int calculateCheckinStreak(String dormName, String todayDate) {
+    private int calculateCheckinStreak(GamificationStateStore.Transaction tx, String dormName, String todayDate) {
         String lastCheckinKey = LAST_CHECKIN_DATE_PREFIX + dormName;
-        String lastCheckinDate = prefs.getString(lastCheckinKey, null);
+        String lastCheckinDate = tx.getString(lastCheckinKey, null);
         
         if (lastCheckinDate == null) {
             // First ever check-in
@@ -295,11 +438,11 @@ public class DormPointsManager {
             
             if (daysDiff == 1) {
                 // Consecutive day - increment streak
-                int currentStreak = prefs.getInt(CHECKIN_STREAK_PREFIX + dormName, 0);
+                int currentStreak = tx.getInt(CHECKIN_STREAK_PREFIX + dormName, 0);
                 return currentStreak + 1;
             } else if (daysDiff == 0) {
                 // Same day (shouldn't happen due to earlier check)
-                return prefs.getInt(CHECKIN_STREAK_PREFIX + dormName, 1);
+                return tx.getInt(CHECKIN_STREAK_PREFIX + dormName, 1);
             } else {
                 // Gap in days - reset streak
                 return 1;
@@ -322,7 +465,7 @@ public class DormPointsManager {
             String dateStr = currentMonth + "-" + String.format(java.util.Locale.US, "%02d", day);
             String checkinKey = DAILY_CHECKIN_PREFIX + dormName + "_" + dateStr;
             
-            if (prefs.getBoolean(checkinKey, false)) {
+            if (store.getBoolean(checkinKey, false)) {
                 checkinCount++;
             }
         }
@@ -338,17 +481,15 @@ public class DormPointsManager {
         Log.d(TAG, "🔄 Performing daily energy check at 10 PM...");
         
         Map<String, Integer> pointChanges = new HashMap<>();
-        String[] dormNames = {TINSLEY_TOTAL_POINTS, GABALDON_TOTAL_POINTS, SECHRIST_TOTAL_POINTS};
         
-        for (String dormKey : dormNames) {
-            String dormName = extractDormName(dormKey);
+        for (String dormName : registry.getBuildingKeys()) {
             int pointChange = checkDormEnergyComparison(dormName);
             pointChanges.put(dormName, pointChange);
         }
         
         // Update the last check date
         String today = dateFormat.format(new Date());
-        prefs.edit().putString(LAST_CHECK_DATE, today).apply();
+        store.transact(tx -> tx.putString(LAST_CHECK_DATE, today));
         
         Log.d(TAG, "✅ Daily energy check completed. Point changes: " + pointChanges);
         return pointChanges;
@@ -397,11 +538,11 @@ public class DormPointsManager {
      * Get leaderboard ranking based on potential energy points
      */
     public Map<String, Integer> getDormRankings() {
-        Map<String, Integer> rankings = new HashMap<>();
+        Map<String, Integer> rankings = new LinkedHashMap<>();
         
-        rankings.put("TINSLEY", getDormTotalPoints("TINSLEY"));
-        rankings.put("GABALDON", getDormTotalPoints("GABALDON"));
-        rankings.put("SECHRIST", getDormTotalPoints("SECHRIST"));
+        for (String dorm : registry.getBuildingKeys()) {
+            rankings.put(dorm, getDormTotalPoints(dorm));
+        }
         
         Log.d(TAG, "Current dorm rankings: " + rankings);
         return rankings;
@@ -411,30 +552,40 @@ public class DormPointsManager {
      * Get the position (1st, 2nd, 3rd) for a dorm based on points
      */
     public String getDormPosition(String dormName) {
-        Map<String, Integer> rankings = getDormRankings();
-        
-        // Sort dorms by points (highest first)
-        java.util.List<Map.Entry<String, Integer>> sortedDorms = new java.util.ArrayList<>(rankings.entrySet());
-        java.util.Collections.sort(sortedDorms, new java.util.Comparator<Map.Entry<String, Integer>>() {
-            @Override
-            public int compare(Map.Entry<String, Integer> a, Map.Entry<String, Integer> b) {
-                return b.getValue().compareTo(a.getValue());
-            }
-        });
-        
-        // Find position
-        for (int i = 0; i < sortedDorms.size(); i++) {
-            if (sortedDorms.get(i).getKey().equals(dormName.toUpperCase(java.util.Locale.US))) {
-                switch (i) {
-                    case 0: return "1ST PLACE";
-                    case 1: return "2ND PLACE";
-                    case 2: return "3RD PLACE";
-                    default: return "UNRANKED";
-                }
+        return placeLabel(getDormRank(dormName));
+    }
+    
+    /**
+     * "1ST PLACE", "2ND PLACE", ... for a 1-based rank (any number of dorms), "UNRANKED" otherwise
+     */
+    public static String placeLabel(int rank) {
+        if (rank < 1) return "UNRANKED";
+        String suffix;
+        if (rank % 100 >= 11 && rank % 100 <= 13) {
+            suffix = "TH";
+        } else {
+            switch (rank % 10) {
+                case 1: suffix = "ST"; break;
+                case 2: suffix = "ND"; break;
+                case 3: suffix = "RD"; break;
+                default: suffix = "TH"; break;
             }
         }
-        
-        return "UNRANKED";
+        return rank + suffix + " PLACE";
+    }
+    
+    /**
+     * 1-based leaderboard rank of a dorm by total points, or -1 if it has no points entry
+     */
+    public int getDormRank(String dormName) {
+        return dormIndex.rankOf(dormName.toUpperCase(Locale.US));
+    }
+    
+    /**
+     * Up to limit dorm names in leaderboard order (highest total points first)
+     */
+    public List<String> getTopDorms(int limit) {
+        return dormIndex.topN(limit);
     }
     
     /**
@@ -442,22 +593,8 @@ public class DormPointsManager {
      * @return Array of 3 dorm names sorted by total points (highest to lowest)
      */
     public String[] getSortedLeaderboard() {
-        Map<String, Integer> rankings = getDormRankings();
-        
-        // Sort dorms by points (highest first)
-        java.util.List<Map.Entry<String, Integer>> sortedDorms = new java.util.ArrayList<>(rankings.entrySet());
-        java.util.Collections.sort(sortedDorms, new java.util.Comparator<Map.Entry<String, Integer>>() {
-            @Override
-            public int compare(Map.Entry<String, Integer> a, Map.Entry<String, Integer> b) {
-                return b.getValue().compareTo(a.getValue());
-            }
-        });
-        
-        // Create array of sorted dorm names
-        String[] leaderboard = new String[3];
-        for (int i = 0; i < Math.min(3, sortedDorms.size()); i++) {
-            leaderboard[i] = sortedDorms.get(i).getKey();
-        }
+        List<String> top = dormIndex.topN(3);
+        String[] leaderboard = top.toArray(new String[3]);
         
         Log.d(TAG, "Leaderboard order: 1st=" + leaderboard[0] + 
                    ", 2nd=" + leaderboard[1] + ", 3rd=" + leaderboard[2]);
@@ -470,12 +607,12 @@ public class DormPointsManager {
      */
     public boolean isRallyPeriodActive() {
         try {
-            String startDateStr = prefs.getString(RALLY_START_DATE, null);
+            String startDateStr = store.getString(RALLY_START_DATE, null);
             if (startDateStr == null) return false;
             
             Date startDate = dateFormat.parse(startDateStr);
             Date currentDate = new Date();
-            int rallyDuration = prefs.getInt(RALLY_DURATION_DAYS, DEFAULT_RALLY_DURATION);
+            int rallyDuration = store.getInt(RALLY_DURATION_DAYS, DEFAULT_RALLY_DURATION);
             
             long daysDiff = (currentDate.getTime() - startDate.getTime()) / (1000 * 60 * 60 * 24);
             
@@ -498,7 +635,7 @@ public class DormPointsManager {
         Log.d(TAG, "💰 Converting dorm score points to individual spendable points at rally end...");
         
         Map<String, Integer> conversions = new HashMap<>();
-        String[] dormNames = {"TINSLEY", "GABALDON", "SECHRIST"};
+        String[] dormNames = registry.getBuildingKeys();
         
         // Get user's dorm score points
         int userDormScorePoints = getDormTotalPoints(userDormName);
@@ -527,40 +664,56 @@ public class DormPointsManager {
      */
     public void resetRallyPeriod() {
         String today = dateFormat.format(new Date());
-        prefs.edit()
-                .putString(RALLY_START_DATE, today)
-                .putInt(TINSLEY_TOTAL_POINTS, 0)
-                .putInt(GABALDON_TOTAL_POINTS, 0)
-                .putInt(SECHRIST_TOTAL_POINTS, 0)
-                .apply();
+        store.transact(tx -> {
+            tx.putString(RALLY_START_DATE, today);
+            for (String dorm : registry.getBuildingKeys()) {
+                tx.putInt(getDormPointsKey(dorm), 0);
+            }
+            return null;
+        });
+        for (String dorm : registry.getBuildingKeys()) {
+            syncDormIndex(dorm);
+        }
         
         Log.d(TAG, "🔄 Rally period reset. New start date: " + today);
     }
     
     // Helper methods
     
-    private String getDormPointsKey(String dormName) {
+    /**
+     * Add to spendable points inside a transaction, returning the previous balance
+     */
+    private static int addSpendablePoints(GamificationStateStore.Transaction tx, int pointsToAdd) {
+        int current = tx.getInt(INDIVIDUAL_SPENDABLE_POINTS, 0);
+        tx.putInt(INDIVIDUAL_SPENDABLE_POINTS, current + pointsToAdd);
+        return current;
+    }
+    
+    /**
+     * Copy a dorm's committed total into the ranking; called after transact() returns so a
+     * transaction that throws (and is discarded) never leaves the index ahead of the store
+     */
+    private void syncDormIndex(String dormName) {
+        dormIndex.update(dormName.toUpperCase(Locale.US), store.getInt(getDormPointsKey(dormName), 0));
+    }
+    
+    private static String getDormPointsKey(String dormName) {
         switch (dormName.toUpperCase(java.util.Locale.US)) {
             case "TINSLEY": return TINSLEY_TOTAL_POINTS;
             case "GABALDON": return GABALDON_TOTAL_POINTS;
             case "SECHRIST": return SECHRIST_TOTAL_POINTS;
             default: 
-                Log.w(TAG, "Unknown dorm name: " + dormName);
-                return dormName + "_total_points";
+                return dormName.toUpperCase(java.util.Locale.US) + TOTAL_POINTS_SUFFIX;
         }
     }
     
-    private String extractDormName(String dormPointsKey) {
+    private static String extractDormName(String dormPointsKey) {
         if (dormPointsKey.equals(TINSLEY_TOTAL_POINTS)) return "TINSLEY";
         if (dormPointsKey.equals(GABALDON_TOTAL_POINTS)) return "GABALDON";
         if (dormPointsKey.equals(SECHRIST_TOTAL_POINTS)) return "SECHRIST";
-        return dormPointsKey.replace("_total_points", "");
-    }
-    
-    private String getYesterdayDate() {
-        Date yesterday = new Date(System.currentTimeMillis() - 24 * 60 * 60 * 1000);
-        return dateFormat.format(yesterday);
+        return dormPointsKey.replace(TOTAL_POINTS_SUFFIX, "");
     }
+
     
     /**
      * Get debugging information about the current state
@@ -569,7 +722,7 @@ public class DormPointsManager {
         StringBuilder info = new StringBuilder();
         info.append("🎮 DUAL-POINT SYSTEM DEBUG INFO 🎮\n");
         info.append("Rally Period Active: ").append(isRallyPeriodActive()).append("\n");
-        info.append("Rally Start: ").append(prefs.getString(RALLY_START_DATE, "Not Set")).append("\n");
+        info.append("Rally Start: ").append(store.getString(RALLY_START_DATE, "Not Set")).append("\n");
         
         // 💰 Individual Spendable Points (from daily check-ins)
         int spendablePoints = getIndividualSpendablePoints();
@@ -590,7 +743,7 @@ public class DormPointsManager {
         
         // 🎯 Daily Check-in Information
         info.append("\n🎯 Daily Check-ins:\n");
-        for (String dorm : new String[]{"TINSLEY", "GABALDON", "SECHRIST"}) {
+        for (String dorm : registry.getBuildingKeys()) {
             boolean checkedInToday = hasCheckedInToday(dorm);
             int streak = getCheckinStreak(dorm);
             int monthlyCheckins = getMonthlyCheckins(dorm);
@@ -604,7 +757,7 @@ public class DormPointsManager {
         
         String today = dateFormat.format(new Date());
         info.append("\nToday's Energy (").append(today).append("):\n");
-        for (String dorm : new String[]{"TINSLEY", "GABALDON", "SECHRIST"}) {
+        for (String dorm : registry.getBuildingKeys()) {
             double todayEnergy = getTodayEnergyUsage(dorm);
             double yesterdayEnergy = getYesterdayEnergyUsage(dorm);
             info.append(String.format(java.util.Locale.US, "  %s: Today=%.2f, Yesterday=%.2f kWh\n", 
@@ -62,6 +62,9 @@ public class EnergyCheckWorker extends Worker {
                 // This should be handled in the main app when user opens it
             }
             
+            // Persist any point changes before the process can be torn down
+            GamificationStateStore.getInstance(getApplicationContext()).flush();
+            
             Log.d(TAG, "✅ Daily energy check worker completed successfully");
             return Result.success();
             
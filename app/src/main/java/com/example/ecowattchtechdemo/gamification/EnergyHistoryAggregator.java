@@ -0,0 +1,214 @@
+package com.example.ecowattchtechdemo.gamification;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import com.example.ecowattchtechdemo.willow.BuildingRegistry;
+import com.example.ecowattchtechdemo.willow.TimeSeriesHistoryIterator;
+import com.example.ecowattchtechdemo.willow.WillowEnergyDataManager;
+import com.example.ecowattchtechdemo.willow.models.ColumnarTimeSeries;
+import com.example.ecowattchtechdemo.willow.models.TimeSeriesPage;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Builds per-dorm daily energy consumption (kWh) for weekly / monthly views off the UI thread.
+ * Days are read from EnergyHistoryStore first (day-over-day difference of the stored meter readings);
+ * past days with no local data are filled from Willow power history (kW integrated to kWh).
+ * Finished past days are cached for the process lifetime, and each day is reported to the listener
+ * as soon as it is known.
+ */
+public class EnergyHistoryAggregator {
+
+    private static final String TAG = "EnergyHistoryAggregator";
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private static final Map<String, Double> pastDayCache = new ConcurrentHashMap<>(); // "DORM|dayStart" -> kWh
+
+    private final EnergyHistoryStore historyStore;
+    private final WillowEnergyDataManager willowManager;
+    private final BuildingRegistry registry;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile boolean cancelled = false;
+
+    /**
+     * Listener callbacks are delivered on the main thread
+     */
+    public interface DailyTotalsListener {
+        /** One day's per-dorm kWh consumed (dayIndex is relative to the requested start day) */
+        void onDayReady(int dayIndex, Map<String, Double> dormTotals);
+        void onComplete();
+    }
+
+    public EnergyHistoryAggregator(Context context) {
+        this.historyStore = EnergyHistoryStore.getInstance(context);
+        this.willowManager = new WillowEnergyDataManager(); // shares the app-wide token, no gamification side effects
+        this.registry = BuildingRegistry.getInstance(context);
+    }
+
+    /**
+     * Sunday through Saturday of the current week
+     */
+    public void loadCurrentWeek(DailyTotalsListener listener) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setFirstDayOfWeek(Calendar.SUNDAY); // matches the records chart (sun..sat)
+        calendar.set(Calendar.DAY_OF_WEEK, Calendar.SUNDAY);
+        loadDays(calendar.getTimeInMillis(), 7, listener);
+    }
+
+    /**
+     * First through last day of the current month
+     */
+    public void loadCurrentMonth(DailyTotalsListener listener) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        loadDays(calendar.getTimeInMillis(), calendar.getActualMaximum(Calendar.DAY_OF_MONTH), listener);
+    }
+
+    public void loadDays(long startMillis, int days, DailyTotalsListener listener) {
+        executor.execute(() -> aggregate(startMillis, days, listener));
+    }
+
+    /**
+     * Stop delivering results (e.g. when the screen is destroyed)
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private void aggregate(long startMillis, int days, DailyTotalsListener listener) {
+        long now = System.currentTimeMillis();
+        long todayStart = EnergyHistoryStore.localDayStart(now);
+        String[] dorms = registry.getBuildingKeys();
+        long[] dayStarts = new long[days + 1];
+        dayStarts[0] = EnergyHistoryStore.localDayStart(startMillis);
+        for (int i = 1; i <= days; i++) {
+            dayStarts[i] = EnergyHistoryStore.nextLocalDayStart(dayStarts[i - 1]);
+        }
+
+        // Pass 1: local store and cache - fast, reported immediately
+        Map<String, double[]> localUsage = new HashMap<>();
+        for (String dorm : dorms) {
+            if (cancelled) break;
+            localUsage.put(dorm, historyStore.getDailyConsumption(dorm, dayStarts[0], days));
+        }
+
+        List<Integer> missingPastDays = new ArrayList<>();
+        List<Map<String, Double>> results = new ArrayList<>();
+        for (int i = 0; i < days && !cancelled; i++) {
+            Map<String, Double> dormTotals = new LinkedHashMap<>();
+            boolean missing = false;
+
+            for (String dorm : dorms) {
+                double total = 0.0;
+                if (dayStarts[i] <= todayStart) {
+                    Double cached = pastDayCache.get(cacheKey(dorm, dayStarts[i]));
+                    total = cached != null ? cached : localUsage.get(dorm)[i];
+
+                    if (dayStarts[i] < todayStart) {
+                        if (total > 0) {
+                            pastDayCache.put(cacheKey(dorm, dayStarts[i]), total);
+                        } else {
+                            missing = true;
+                        }
+                    }
+                }
+                dormTotals.put(dorm, total);
+            }
+
+            results.add(dormTotals);
+            if (missing) missingPastDays.add(i);
+            deliverDay(listener, i, dormTotals);
+        }
+
+        // Pass 2: fill past days without local data from Willow history
+        if (!missingPastDays.isEmpty() && !cancelled && willowManager.isAuthenticated()) {
+            int first = missingPastDays.get(0);
+            int last = missingPastDays.get(missingPastDays.size() - 1);
+            Map<String, ColumnarTimeSeries> history = fetchPowerHistory(dorms, dayStarts[first], dayStarts[last + 1]);
+
+            for (int i : missingPastDays) {
+                if (cancelled) break;
+                Map<String, Double> dormTotals = results.get(i);
+                boolean changed = false;
+
+                for (String dorm : dorms) {
+                    ColumnarTimeSeries series = history.get(dorm);
+                    if (dormTotals.get(dorm) > 0 || series == null) continue;
+
+                    double kWh = series.integrateHoursBetween(dayStarts[i], dayStarts[i + 1]);
+                    if (kWh > 0) {
+                        dormTotals.put(dorm, kWh);
+                        pastDayCache.put(cacheKey(dorm, dayStarts[i]), kWh);
+                        changed = true;
+                    }
+                }
+                if (changed) deliverDay(listener, i, dormTotals);
+            }
+        }
+
+        if (!cancelled) {
+            mainHandler.post(() -> {
+                if (!cancelled) listener.onComplete();
+            });
+        }
+    }
+
+    /**
+     * Stream power history for every dorm over [fromMillis, toMillis), keyed by dorm
+     */
+    private Map<String, ColumnarTimeSeries> fetchPowerHistory(String[] dorms, long fromMillis, long toMillis) {
+        Map<String, String> dormByTwin = new HashMap<>();
+        for (String dorm : dorms) {
+            String twinId = registry.getPowerTwinId(dorm);
+            if (twinId != null && !twinId.isEmpty()) dormByTwin.put(twinId, dorm);
+        }
+
+        Map<String, ColumnarTimeSeries> byDorm = new HashMap<>();
+        if (dormByTwin.isEmpty()) return byDorm;
+
+        TimeSeriesHistoryIterator pages = willowManager.openHistory(new ArrayList<>(dormByTwin.keySet()), fromMillis, toMillis);
+        try {
+            while (!cancelled && pages.hasNext()) {
+                TimeSeriesPage page = pages.next();
+                for (ColumnarTimeSeries pageSeries : page.getAllSeries()) {
+                    String dorm = dormByTwin.get(pageSeries.getTwinId());
+                    if (dorm == null) continue;
+
+                    ColumnarTimeSeries series = byDorm.get(dorm);
+                    if (series == null) {
+                        series = new ColumnarTimeSeries(pageSeries.getTwinId(), pageSeries.size());
+                        byDorm.put(dorm, series);
+                    }
+                    for (int p = 0; p < pageSeries.size(); p++) {
+                        series.add(pageSeries.getTimestamp(p), pageSeries.getValue(p), pageSeries.getQualityFlags(p));
+                    }
+                }
+            }
+        } catch (TimeSeriesHistoryIterator.HistoryFetchException e) {
+            Log.w(TAG, "Willow history unavailable: " + e.getMessage());
+        } finally {
+            pages.close();
+        }
+        return byDorm;
+    }
+
+    private void deliverDay(DailyTotalsListener listener, int dayIndex, Map<String, Double> dormTotals) {
+        Map<String, Double> snapshot = new LinkedHashMap<>(dormTotals);
+        mainHandler.post(() -> {
+            if (!cancelled) listener.onDayReady(dayIndex, snapshot);
+        });
+    }
+
+    private static String cacheKey(String dorm, long dayStart) {
+        return dorm + "|" + dayStart;
+    }
+}
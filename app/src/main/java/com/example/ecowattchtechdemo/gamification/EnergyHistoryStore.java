@@ -0,0 +1,317 @@
+package com.example.ecowattchtechdemo.gamification;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local SQLite time-series store for dorm energy history.
+ * One row per (dorm, minute) holding that dorm's cumulative energy meter reading in kWh, as reported
+ * by its Willow energy twin; a day's consumption is the difference between readings (getDailyConsumption).
+ * The primary key doubles as the index, so "last reading of a day" and range lookups are O(log n).
+ *
+ * Retention: minute rows are kept for RAW_RETENTION_DAYS, older days are downsampled to their
+ * last reading (the meter at day end), and anything older than TOTAL_RETENTION_DAYS is deleted.
+ * On first creation the legacy today_energy_DORM_yyyy-MM-dd floats are migrated out of DormPointsPrefs.
+ *
+ * The database is opened (and migrated) on a background executor, and writes are queued there too;
+ * the read methods hit SQLite directly and must be called off the main thread.
+ */
+public class EnergyHistoryStore extends SQLiteOpenHelper {
+
+    private static final String TAG = "EnergyHistoryStore";
+    private static final String DATABASE_NAME = "energy_history.db";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE_READINGS = "energy_readings";
+    private static final String COLUMN_DORM = "dorm";
+    private static final String COLUMN_MINUTE = "minute"; // epoch minutes (UTC)
+    private static final String COLUMN_KWH = "kwh";
+
+    // Retention policy
+    private static final int RAW_RETENTION_DAYS = 7;
+    private static final int TOTAL_RETENTION_DAYS = 365;
+    private static final long RETENTION_INTERVAL_MS = 6 * 60 * 60 * 1000L; // run at most every 6 hours
+
+    // Legacy SharedPreferences keys (see DormPointsManager)
+    private static final String LEGACY_PREFS_NAME = "DormPointsPrefs";
+    private static final String LEGACY_ENERGY_PREFIX = "today_energy_";
+
+    private static final long MILLIS_PER_MINUTE = 60 * 1000L;
+
+    private static final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+    private static EnergyHistoryStore instance;
+
+    private final Context appContext;
+    private long lastRetentionRun = 0;
+    private long downsampledBefore = Long.MIN_VALUE; // local days before this were already downsampled
+
+    /**
+     * Result of a background read, delivered on the store's executor
+     */
+    public interface DayReadingsCallback {
+        void onReadings(double[] first, double[] last);
+    }
+
+    public static synchronized EnergyHistoryStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new EnergyHistoryStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private EnergyHistoryStore(Context appContext) {
+        super(appContext, DATABASE_NAME, null, DATABASE_VERSION);
+        this.appContext = appContext;
+
+        // Open (and on first run create and migrate) the database before anyone needs it
+        ioExecutor.execute(this::getWritableDatabase);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_READINGS + " ("
+                + COLUMN_DORM + " TEXT NOT NULL, "
+                + COLUMN_MINUTE + " INTEGER NOT NULL, "
+                + COLUMN_KWH + " REAL NOT NULL, "
+                + "PRIMARY KEY (" + COLUMN_DORM + ", " + COLUMN_MINUTE + ")) WITHOUT ROWID");
+
+        migrateFromPreferences(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Only one schema version so far
+    }
+
+    /**
+     * Queue a reading for the current minute (replaces any reading already stored for that minute)
+     */
+    public void recordReading(String dormName, double energyKWh) {
+        recordReading(dormName, System.currentTimeMillis(), energyKWh);
+    }
+
+    public void recordReading(String dormName, long timestampMillis, double energyKWh) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_DORM, dormName);
+        values.put(COLUMN_MINUTE, timestampMillis / MILLIS_PER_MINUTE);
+        values.put(COLUMN_KWH, energyKWh);
+
+        ioExecutor.execute(() -> {
+            getWritableDatabase().insertWithOnConflict(TABLE_READINGS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            applyRetentionIfDue();
+        });
+    }
+
+    /**
+     * First and last meter reading of `days` consecutive local days starting at the day containing
+     * startMillis, read on the store's executor (for callers on the main thread). Days without readings are NaN.
+     */
+    public void loadDayReadings(String dormName, long startMillis, int days, DayReadingsCallback callback) {
+        ioExecutor.execute(() -> {
+            long[] bounds = dayBounds(localDayStart(startMillis), days);
+            callback.onReadings(readingPerDay(dormName, bounds, "MIN"), readingPerDay(dormName, bounds, "MAX"));
+        });
+    }
+
+    /**
+     * kWh consumed on each of `days` consecutive local days starting at the day containing startMillis.
+     * Readings are cumulative meter values, so a day's consumption is its last reading minus the previous
+     * day's last reading (or minus its own first reading when the previous day has none).
+     * Days without readings, or with a single reading and no previous day, are 0.
+     */
+    public double[] getDailyConsumption(String dormName, long startMillis, int days) {
+        double[] usage = new double[days];
+        if (days <= 0) return usage;
+
+        // One extra leading day supplies the baseline for the first requested day
+        Calendar previous = Calendar.getInstance();
+        previous.setTimeInMillis(localDayStart(startMillis));
+        previous.add(Calendar.DAY_OF_MONTH, -1);
+        long[] bounds = dayBounds(localDayStart(previous.getTimeInMillis()), days + 1);
+        double[] last = readingPerDay(dormName, bounds, "MAX");
+        double[] first = readingPerDay(dormName, bounds, "MIN");
+
+        for (int i = 0; i < days; i++) {
+            usage[i] = consumed(last[i], first[i + 1], last[i + 1]);
+        }
+        return usage;
+    }
+
+    /**
+     * kWh consumed on a day given its first and last reading and the previous day's last reading
+     * (NaN when that day has none). Shared with DormPointsManager so its in-memory figures match the chart.
+     */
+    static double consumed(double previousLast, double first, double last) {
+        if (Double.isNaN(last)) return 0.0;
+
+        double consumed = last - (Double.isNaN(previousLast) ? first : previousLast);
+        if (consumed < 0) {
+            // Meter was reset or replaced - count only what this day's own readings show
+            consumed = last - first;
+        }
+        return Math.max(0.0, consumed);
+    }
+
+    /**
+     * Day boundaries in epoch minutes for `days` local days from dayStartMillis (days + 1 entries),
+     * walked with Calendar so DST days get their real length
+     */
+    private static long[] dayBounds(long dayStartMillis, int days) {
+        long[] bounds = new long[Math.max(days, 0) + 1];
+        long dayStart = dayStartMillis;
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = dayStart / MILLIS_PER_MINUTE;
+            dayStart = nextLocalDayStart(dayStart);
+        }
+        return bounds;
+    }
+
+    /**
+     * Each day's first (MIN) or last (MAX) reading between the bounds in one GROUP BY query; NaN for days without readings
+     */
+    private double[] readingPerDay(String dormName, long[] bounds, String aggregate) {
+        int days = bounds.length - 1;
+        double[] readings = new double[days];
+        Arrays.fill(readings, Double.NaN);
+        if (days <= 0) return readings;
+
+        StringBuilder day = new StringBuilder("CASE");
+        for (int i = 1; i < days; i++) {
+            day.append(" WHEN ").append(COLUMN_MINUTE).append(" < ").append(bounds[i]).append(" THEN ").append(i - 1);
+        }
+        day.append(" ELSE ").append(days - 1).append(" END");
+
+        // With MIN()/MAX() in the select list SQLite returns kwh from the row holding that minute
+        try (Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT " + day + " AS day, " + COLUMN_KWH + ", " + aggregate + "(" + COLUMN_MINUTE + ") FROM " + TABLE_READINGS
+                        + " WHERE " + COLUMN_DORM + " = ? AND " + COLUMN_MINUTE + " >= ? AND " + COLUMN_MINUTE + " < ?"
+                        + " GROUP BY day",
+                new String[]{dormName, String.valueOf(bounds[0]), String.valueOf(bounds[days])})) {
+            while (cursor.moveToNext()) {
+                readings[cursor.getInt(0)] = cursor.getDouble(1);
+            }
+        }
+        return readings;
+    }
+
+    /**
+     * Downsample and prune old rows, at most once per RETENTION_INTERVAL_MS (runs on the store's executor)
+     */
+    private synchronized void applyRetentionIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastRetentionRun < RETENTION_INTERVAL_MS) return;
+        lastRetentionRun = now;
+
+        long rawCutoff = localDayStartDaysAgo(now, RAW_RETENTION_DAYS);
+        long totalCutoff = localDayStartDaysAgo(now, TOTAL_RETENTION_DAYS);
+
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            int pruned = db.delete(TABLE_READINGS, COLUMN_MINUTE + " < ?",
+                    new String[]{String.valueOf(totalCutoff / MILLIS_PER_MINUTE)});
+
+            // Past the raw window keep only each local day's last reading, the baseline for the next day's consumption;
+            // days are walked with Calendar so each one has its real length across DST changes
+            String keepLast = "DELETE FROM " + TABLE_READINGS
+                    + " WHERE " + COLUMN_MINUTE + " >= ? AND " + COLUMN_MINUTE + " < ? AND " + COLUMN_MINUTE + " <> ("
+                    + "SELECT MAX(r." + COLUMN_MINUTE + ") FROM " + TABLE_READINGS + " r"
+                    + " WHERE r." + COLUMN_DORM + " = " + TABLE_READINGS + "." + COLUMN_DORM
+                    + " AND r." + COLUMN_MINUTE + " >= ? AND r." + COLUMN_MINUTE + " < ?)";
+            for (long day = Math.max(totalCutoff, downsampledBefore); day < rawCutoff; ) {
+                long next = nextLocalDayStart(day);
+                long from = day / MILLIS_PER_MINUTE;
+                long to = next / MILLIS_PER_MINUTE;
+                db.execSQL(keepLast, new Object[]{from, to, from, to});
+                day = next;
+            }
+
+            db.setTransactionSuccessful();
+            downsampledBefore = rawCutoff;
+            if (pruned > 0) {
+                Log.d(TAG, "🧹 Pruned " + pruned + " readings older than " + TOTAL_RETENTION_DAYS + " days");
+            }
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Move legacy today_energy_DORM_yyyy-MM-dd floats into the table and remove them from the prefs file
+     */
+    private void migrateFromPreferences(SQLiteDatabase db) {
+        SharedPreferences prefs = appContext.getSharedPreferences(LEGACY_PREFS_NAME, Context.MODE_PRIVATE);
+        SimpleDateFormat legacyDateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        SharedPreferences.Editor editor = prefs.edit();
+        int migrated = 0;
+
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(LEGACY_ENERGY_PREFIX) || !(entry.getValue() instanceof Float)) continue;
+
+            // today_energy_<DORM>_<yyyy-MM-dd>
+            String rest = key.substring(LEGACY_ENERGY_PREFIX.length());
+            int split = rest.lastIndexOf('_');
+            if (split <= 0) continue;
+
+            try {
+                Date day = legacyDateFormat.parse(rest.substring(split + 1));
+                if (day == null) continue;
+
+                // Store the legacy value (the last meter reading recorded that day) as the last minute of its day
+                long lastMinute = nextLocalDayStart(day.getTime()) / MILLIS_PER_MINUTE - 1;
+                ContentValues values = new ContentValues();
+                values.put(COLUMN_DORM, rest.substring(0, split));
+                values.put(COLUMN_MINUTE, lastMinute);
+                values.put(COLUMN_KWH, (double) (Float) entry.getValue());
+                db.insertWithOnConflict(TABLE_READINGS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+
+                editor.remove(key);
+                migrated++;
+            } catch (ParseException e) {
+                Log.w(TAG, "Skipping unparseable legacy energy key: " + key);
+            }
+        }
+
+        editor.apply();
+        Log.d(TAG, "📦 Migrated " + migrated + " legacy energy readings from SharedPreferences");
+    }
+
+    static long localDayStart(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    private static long localDayStartDaysAgo(long millis, int days) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(localDayStart(millis));
+        calendar.add(Calendar.DAY_OF_MONTH, -days);
+        return localDayStart(calendar.getTimeInMillis());
+    }
+
+    static long nextLocalDayStart(long dayStartMillis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(dayStartMillis);
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        return localDayStart(calendar.getTimeInMillis());
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.ecowattchtechdemo.gamification;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide in-memory copy of the gamification state (DormPointsPrefs).
+ * The prefs file is read once; afterwards every lookup is a map read.
+ *
+ * Writes go through transact(): the body runs under one lock, sees its own pending writes,
+ * and its changes become visible all at once, so multi-key updates never half-apply.
+ * Committed keys are persisted write-behind on a background thread (coalesced, one
+ * SharedPreferences commit per flush), and change listeners are notified on the main thread.
+ */
+public class GamificationStateStore {
+
+    private static final String TAG = "GamificationStateStore";
+    private static final String PREFS_NAME = "DormPointsPrefs";
+    private static final long FLUSH_DELAY_MS = 250; // coalesce bursts of writes into one disk commit
+
+    private static GamificationStateStore instance;
+
+    private final SharedPreferences prefs;
+    private final Object lock = new Object();
+    private final Map<String, Object> values;
+    private final Set<String> dirtyKeys = new HashSet<>();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final CopyOnWriteArrayList<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private boolean flushScheduled = false;
+    private boolean clearOnFlush = false;
+
+    /**
+     * Called on the main thread with the keys a committed transaction changed
+     */
+    public interface ChangeListener {
+        void onStateChanged(Set<String> changedKeys);
+    }
+
+    /**
+     * Body of an atomic read-modify-write
+     */
+    public interface TransactionBody<R> {
+        R run(Transaction tx);
+    }
+
+    public static synchronized GamificationStateStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new GamificationStateStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private GamificationStateStore(Context appContext) {
+        this.prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.values = new HashMap<>(prefs.getAll());
+        Log.d(TAG, "📦 Loaded " + values.size() + " gamification keys into memory");
+    }
+
+    // ==================== Reads ====================
+
+    public int getInt(String key, int defaultValue) {
+        Object value = get(key);
+        return value instanceof Integer ? (Integer) value : defaultValue;
+    }
+
+    public String getString(String key, String defaultValue) {
+        Object value = get(key);
+        return value instanceof String ? (String) value : defaultValue;
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        Object value = get(key);
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+
+    public float getFloat(String key, float defaultValue) {
+        Object value = get(key);
+        return value instanceof Float ? (Float) value : defaultValue;
+    }
+
+    public boolean contains(String key) {
+        synchronized (lock) {
+            return values.containsKey(key);
+        }
+    }
+
+    private Object get(String key) {
+        synchronized (lock) {
+            return values.get(key);
+        }
+    }
+
+    // ==================== Writes ====================
+
+    /**
+     * Run body atomically; its writes are applied together when it returns.
+     * Throwing from body discards every write it made.
+     */
+    public <R> R transact(TransactionBody<R> body) {
+        Set<String> changed;
+        R result;
+        synchronized (lock) {
+            Transaction tx = new Transaction();
+            result = body.run(tx);
+            changed = tx.applyTo(values);
+            if (!changed.isEmpty()) {
+                dirtyKeys.addAll(changed);
+                scheduleFlushLocked();
+            }
+        }
+        notifyListeners(changed);
+        return result;
+    }
+
+    /**
+     * Remove every key (e.g. on logout)
+     */
+    public void clear() {
+        Set<String> changed;
+        synchronized (lock) {
+            changed = new HashSet<>(values.keySet());
+            values.clear();
+            dirtyKeys.clear();
+            clearOnFlush = true;
+            scheduleFlushLocked();
+        }
+        notifyListeners(changed);
+    }
+
+    /**
+     * Block until every committed write has reached disk (for workers about to return)
+     */
+    public void flush() {
+        try {
+            writer.submit(this::persistDirtyKeys).get();
+        } catch (Exception e) {
+            Log.w(TAG, "Flush interrupted", e);
+        }
+    }
+
+    public void addListener(ChangeListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void scheduleFlushLocked() {
+        if (flushScheduled) return;
+        flushScheduled = true;
+        writer.schedule(this::persistDirtyKeys, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write the current in-memory value of every dirty key in a single commit
+     */
+    private void persistDirtyKeys() {
+        SharedPreferences.Editor editor = prefs.edit();
+        int written;
+        synchronized (lock) {
+            flushScheduled = false;
+            if (dirtyKeys.isEmpty() && !clearOnFlush) return;
+
+            if (clearOnFlush) {
+                editor.clear(); // applied before the puts below
+                clearOnFlush = false;
+            }
+
+            for (String key : dirtyKeys) {
+                Object value = values.get(key);
+                if (value == null) {
+                    editor.remove(key);
+                } else if (value instanceof Integer) {
+                    editor.putInt(key, (Integer) value);
+                } else if (value instanceof Boolean) {
+                    editor.putBoolean(key, (Boolean) value);
+                } else if (value instanceof Long) {
+                    editor.putLong(key, (Long) value);
+                } else if (value instanceof Float) {
+                    editor.putFloat(key, (Float) value);
+                } else {
+                    editor.putString(key, String.valueOf(value));
+                }
+            }
+            written = dirtyKeys.size();
+            dirtyKeys.clear();
+        }
+
+        if (!editor.commit()) {
+            Log.e(TAG, "❌ Failed to persist " + written + " gamification keys");
+        } else {
+            Log.v(TAG, "💾 Persisted " + written + " gamification keys");
+        }
+    }
+
+    private void notifyListeners(Set<String> changedKeys) {
+        if (changedKeys.isEmpty() || listeners.isEmpty()) return;
+        Set<String> keys = Collections.unmodifiableSet(changedKeys);
+        mainHandler.post(() -> {
+            for (ChangeListener listener : listeners) {
+                listener.onStateChanged(keys);
+            }
+        });
+    }
+
+    /**
+     * Pending writes of one transact() call. Reads see the transaction's own writes first.
+     */
+    public class Transaction {
+        private final Map<String, Object> writes = new HashMap<>();
+        private final Set<String> removals = new HashSet<>();
+
+        public int getInt(String key, int defaultValue) {
+            Object value = read(key);
+            return value instanceof Integer ? (Integer) value : defaultValue;
+        }
+
+        public String getString(String key, String defaultValue) {
+            Object value = read(key);
+            return value instanceof String ? (String) value : defaultValue;
+        }
+
+        public boolean getBoolean(String key, boolean defaultValue) {
+            Object value = read(key);
+            return value instanceof Boolean ? (Boolean) value : defaultValue;
+        }
+
+        public float getFloat(String key, float defaultValue) {
+            Object value = read(key);
+            return value instanceof Float ? (Float) value : defaultValue;
+        }
+
+        public boolean contains(String key) {
+            return read(key) != null;
+        }
+
+        public Transaction putInt(String key, int value) {
+            return write(key, value);
+        }
+
+        public Transaction putString(String key, String value) {
+            return write(key, value);
+        }
+
+        public Transaction putBoolean(String key, boolean value) {
+            return write(key, value);
+        }
+
+        public Transaction putFloat(String key, float value) {
+            return write(key, value);
+        }
+
+        public Transaction remove(String key) {
+            writes.remove(key);
+            removals.add(key);
+            return this;
+        }
+
+        private Transaction write(String key, Object value) {
+            removals.remove(key);
+            writes.put(key, value);
+            return this;
+        }
+
+        private Object read(String key) {
+            if (removals.contains(key)) return null;
+            return writes.containsKey(key) ? writes.get(key) : values.get(key);
+        }
+
+        /**
+         * Apply to the live map and return the keys whose value actually changed
+         */
+        private Set<String> applyTo(Map<String, Object> target) {
+            Set<String> changed = new HashSet<>();
+            for (String key : removals) {
+                if (target.remove(key) != null) changed.add(key);
+            }
+            for (Map.Entry<String, Object> entry : writes.entrySet()) {
+                Object previous = target.put(entry.getKey(), entry.getValue());
+                if (!Objects.equals(entry.getValue(), previous)) changed.add(entry.getKey());
+            }
+            return changed;
+        }
+    }
+}
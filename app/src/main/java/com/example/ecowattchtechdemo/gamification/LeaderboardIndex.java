@@ -0,0 +1,171 @@
+package com.example.ecowattchtechdemo.gamification;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ranking of ids by score (highest first, ties broken by id) that is updated in place.
+ * Backed by a size-augmented treap, so update, rankOf and the start of topN are O(log n)
+ * instead of re-sorting every entry on each read. Safe to share between threads.
+ */
+public class LeaderboardIndex {
+
+    private static final class Node {
+        final String id;
+        final int score;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(String id, int score) {
+            this.id = id;
+            this.score = score;
+            this.priority = ThreadLocalRandom.current().nextInt();
+        }
+    }
+
+    private final Map<String, Integer> scores = new HashMap<>();
+    private Node root;
+
+    /**
+     * Insert an id or move it to its new score
+     */
+    public synchronized void update(String id, int score) {
+        Integer previous = scores.put(id, score);
+        if (previous != null) {
+            if (previous == score) return;
+            root = delete(root, previous, id);
+        }
+        root = insert(root, new Node(id, score));
+    }
+
+    public synchronized void remove(String id) {
+        Integer previous = scores.remove(id);
+        if (previous != null) {
+            root = delete(root, previous, id);
+        }
+    }
+
+    public synchronized boolean contains(String id) {
+        return scores.containsKey(id);
+    }
+
+    public synchronized int getScore(String id, int defaultScore) {
+        Integer score = scores.get(id);
+        return score != null ? score : defaultScore;
+    }
+
+    public synchronized int size() {
+        return scores.size();
+    }
+
+    /**
+     * 1-based position of an id, or -1 if it is not ranked
+     */
+    public synchronized int rankOf(String id) {
+        Integer score = scores.get(id);
+        if (score == null) return -1;
+
+        int before = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(score, id, node);
+            if (cmp == 0) {
+                return before + size(node.left) + 1;
+            } else if (cmp < 0) {
+                node = node.left;
+            } else {
+                before += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return -1; // unreachable while scores and the tree agree
+    }
+
+    /**
+     * The first limit ids in ranking order (fewer if the index is smaller)
+     */
+    public synchronized List<String> topN(int limit) {
+        List<String> top = new ArrayList<>(Math.max(0, Math.min(limit, scores.size())));
+        collect(root, limit, top);
+        return top;
+    }
+
+    private static void collect(Node node, int limit, List<String> out) {
+        if (node == null || out.size() >= limit) return;
+        collect(node.left, limit, out);
+        if (out.size() < limit) out.add(node.id);
+        collect(node.right, limit, out);
+    }
+
+    /**
+     * Ordering: higher score first, then id ascending
+     */
+    private static int compare(int score, String id, Node node) {
+        if (score != node.score) return score > node.score ? -1 : 1;
+        return id.compareTo(node.id);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) return added;
+        if (compare(added.score, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) node = rotateLeft(node);
+        }
+        return resize(node);
+    }
+
+    private static Node delete(Node node, int score, String id) {
+        if (node == null) return null;
+        int cmp = compare(score, id, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, score, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, score, id);
+        } else {
+            return merge(node.left, node.right);
+        }
+        return resize(node);
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return resize(left);
+        }
+        right.left = merge(left, right.left);
+        return resize(right);
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = resize(node);
+        return resize(pivot);
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = resize(node);
+        return resize(pivot);
+    }
+
+    private static Node resize(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        return node;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+}
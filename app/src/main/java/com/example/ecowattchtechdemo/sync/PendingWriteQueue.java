@@ -0,0 +1,290 @@
+package com.example.ecowattchtechdemo.sync;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Durable outbound queue for backend writes (spendable points, palette purchases, checklist updates).
+ * Writes are stored in SQLite first and sent later by PendingWriteWorker, so a flaky network
+ * delays them instead of losing them.
+ *
+ * Redundant writes are coalesced before they are sent:
+ * - points: only the latest absolute value per user is kept
+ * - checklist: isDone deltas per user are summed into one write
+ * - purchases: a second purchase of the same palette while one is pending is dropped
+ * A coalesced write moves to the tail of the queue, so it is still sent after earlier writes.
+ *
+ * Every row carries an idempotency key that is sent with it, so a replay after a lost response
+ * is recognised by the backend. Rows that were already attempted are never merged into
+ * (their key may already be applied), and rows being sent are never touched.
+ */
+public class PendingWriteQueue extends SQLiteOpenHelper {
+
+    private static final String TAG = "PendingWriteQueue";
+    private static final String DATABASE_NAME = "pending_writes.db";
+    private static final int DATABASE_VERSION = 2;
+
+    private static final String TABLE_WRITES = "pending_writes";
+    private static final String COLUMN_ID = "id";
+    private static final String COLUMN_TYPE = "type";
+    private static final String COLUMN_USERNAME = "username";
+    private static final String COLUMN_COALESCE_KEY = "coalesce_key";
+    private static final String COLUMN_VALUE = "value";            // points total or isDone delta
+    private static final String COLUMN_TARGET = "target";          // palette name for purchases
+    private static final String COLUMN_IDEMPOTENCY_KEY = "idempotency_key";
+    private static final String COLUMN_SENDING = "sending";        // 1 while a worker holds the row
+    private static final String COLUMN_LEASE_OWNER = "lease_owner"; // process that holds the row
+    private static final String COLUMN_LEASED_AT = "leased_at";
+    private static final String COLUMN_ATTEMPTS = "attempts";
+    private static final String COLUMN_CREATED_AT = "created_at";
+
+    public static final String TYPE_POINTS = "points";
+    public static final String TYPE_IS_DONE = "is_done";
+    public static final String TYPE_PURCHASE = "purchase";
+
+    // A worker run is stopped after 10 minutes; past this a row held by this process is abandoned
+    private static final long LEASE_MS = 15 * 60 * 1000L;
+    // Rows held under another token belong to a process that has died
+    private static final String PROCESS_TOKEN = UUID.randomUUID().toString();
+
+    private static PendingWriteQueue instance;
+
+    private final Context appContext;
+
+    /**
+     * One queued write as handed to the worker
+     */
+    public static class PendingWrite {
+        public final long id;
+        public final String type;
+        public final String username;
+        public final int value;
+        public final String target;
+        public final String idempotencyKey;
+        public final int attempts;
+
+        PendingWrite(long id, String type, String username, int value, String target,
+                     String idempotencyKey, int attempts) {
+            this.id = id;
+            this.type = type;
+            this.username = username;
+            this.value = value;
+            this.target = target;
+            this.idempotencyKey = idempotencyKey;
+            this.attempts = attempts;
+        }
+
+        @Override
+        public String toString() {
+            return type + "#" + id + "(" + username + ", " + value + (target != null ? ", " + target : "") + ")";
+        }
+    }
+
+    public static synchronized PendingWriteQueue getInstance(Context context) {
+        if (instance == null) {
+            instance = new PendingWriteQueue(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private PendingWriteQueue(Context appContext) {
+        super(appContext, DATABASE_NAME, null, DATABASE_VERSION);
+        this.appContext = appContext;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_WRITES + " ("
+                + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + COLUMN_TYPE + " TEXT NOT NULL, "
+                + COLUMN_USERNAME + " TEXT NOT NULL, "
+                + COLUMN_COALESCE_KEY + " TEXT NOT NULL, "
+                + COLUMN_VALUE + " INTEGER NOT NULL, "
+                + COLUMN_TARGET + " TEXT, "
+                + COLUMN_IDEMPOTENCY_KEY + " TEXT NOT NULL, "
+                + COLUMN_SENDING + " INTEGER NOT NULL DEFAULT 0, "
+                + COLUMN_LEASE_OWNER + " TEXT, "
+                + COLUMN_LEASED_AT + " INTEGER NOT NULL DEFAULT 0, "
+                + COLUMN_ATTEMPTS + " INTEGER NOT NULL DEFAULT 0, "
+                + COLUMN_CREATED_AT + " INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_" + TABLE_WRITES + "_coalesce ON " + TABLE_WRITES
+                + " (" + COLUMN_COALESCE_KEY + ", " + COLUMN_SENDING + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            db.execSQL("ALTER TABLE " + TABLE_WRITES + " ADD COLUMN " + COLUMN_LEASE_OWNER + " TEXT");
+            db.execSQL("ALTER TABLE " + TABLE_WRITES + " ADD COLUMN " + COLUMN_LEASED_AT
+                    + " INTEGER NOT NULL DEFAULT 0");
+        }
+    }
+
+    /**
+     * Queue the user's new spendable points total (replaces any unsent total)
+     */
+    public void enqueuePoints(String username, int spendablePoints) {
+        enqueue(TYPE_POINTS, username, TYPE_POINTS + ":" + username, spendablePoints, null, true);
+    }
+
+    /**
+     * Queue an isDone delta (summed with any unsent delta for the user)
+     */
+    public void enqueueIsDone(String username, int pointsAdd) {
+        enqueue(TYPE_IS_DONE, username, TYPE_IS_DONE + ":" + username, pointsAdd, null, false);
+    }
+
+    /**
+     * Queue a palette purchase (ignored if the same purchase is already queued)
+     */
+    public void enqueuePurchase(String username, String paletteName, int pointsToDeduct) {
+        enqueue(TYPE_PURCHASE, username, TYPE_PURCHASE + ":" + username + ":" + paletteName,
+                pointsToDeduct, paletteName, false);
+    }
+
+    private synchronized void enqueue(String type, String username, String coalesceKey, int value,
+                                      String target, boolean absolute) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            // Only rows no worker holds; deltas additionally only into rows never sent
+            String where = COLUMN_COALESCE_KEY + " = ? AND " + COLUMN_SENDING + " = 0"
+                    + (absolute ? "" : " AND " + COLUMN_ATTEMPTS + " = 0");
+            Integer merged = value;
+            try (Cursor cursor = db.query(TABLE_WRITES, new String[]{COLUMN_ID, COLUMN_VALUE},
+                    where, new String[]{coalesceKey}, null, null, COLUMN_ID)) {
+                if (cursor.moveToFirst()) {
+                    merged = coalescedValue(type, cursor.getInt(1), value);
+                    if (merged == null) {
+                        Log.d(TAG, "⏭️ Purchase of " + target + " already queued for " + username);
+                        db.setTransactionSuccessful();
+                        return;
+                    }
+                }
+            }
+            int replaced = db.delete(TABLE_WRITES, where, new String[]{coalesceKey});
+
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_TYPE, type);
+            values.put(COLUMN_USERNAME, username);
+            values.put(COLUMN_COALESCE_KEY, coalesceKey);
+            values.put(COLUMN_VALUE, merged);
+            values.put(COLUMN_TARGET, target);
+            values.put(COLUMN_IDEMPOTENCY_KEY, UUID.randomUUID().toString());
+            values.put(COLUMN_CREATED_AT, System.currentTimeMillis());
+            db.insertOrThrow(TABLE_WRITES, null, values);
+
+            db.setTransactionSuccessful();
+            Log.d(TAG, replaced > 0
+                    ? "🔗 Coalesced " + type + " for " + username + " → " + merged
+                    : "📥 Queued " + type + " for " + username + ": " + merged);
+        } finally {
+            db.endTransaction();
+        }
+
+        PendingWriteWorker.schedule(appContext);
+    }
+
+    /**
+     * Value left queued when a write meets an unsent write with the same coalesce key:
+     * points keep the latest total, isDone deltas are summed, and null means the new write is
+     * dropped (the same purchase is already queued)
+     */
+    static Integer coalescedValue(String type, int queuedValue, int value) {
+        switch (type) {
+            case TYPE_PURCHASE:
+                return null;
+            case TYPE_IS_DONE:
+                return queuedValue + value;
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Hand the oldest unsent writes to a worker; they stay queued until complete() or release()
+     */
+    public synchronized List<PendingWrite> beginBatch(int maxWrites) {
+        List<PendingWrite> batch = new ArrayList<>();
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            try (Cursor cursor = db.query(TABLE_WRITES,
+                    new String[]{COLUMN_ID, COLUMN_TYPE, COLUMN_USERNAME, COLUMN_VALUE, COLUMN_TARGET,
+                            COLUMN_IDEMPOTENCY_KEY, COLUMN_ATTEMPTS},
+                    COLUMN_SENDING + " = 0", null, null, null, COLUMN_ID, String.valueOf(maxWrites))) {
+                while (cursor.moveToNext()) {
+                    batch.add(new PendingWrite(cursor.getLong(0), cursor.getString(1), cursor.getString(2),
+                            cursor.getInt(3), cursor.getString(4), cursor.getString(5), cursor.getInt(6)));
+                }
+            }
+            long now = System.currentTimeMillis();
+            for (PendingWrite write : batch) {
+                ContentValues values = new ContentValues();
+                values.put(COLUMN_SENDING, 1);
+                values.put(COLUMN_LEASE_OWNER, PROCESS_TOKEN);
+                values.put(COLUMN_LEASED_AT, now);
+                db.update(TABLE_WRITES, values, COLUMN_ID + " = ?", new String[]{String.valueOf(write.id)});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return batch;
+    }
+
+    /**
+     * The backend accepted (or permanently rejected) the write - remove it
+     */
+    public synchronized void complete(PendingWrite write) {
+        getWritableDatabase().delete(TABLE_WRITES, COLUMN_ID + " = ?", new String[]{String.valueOf(write.id)});
+    }
+
+    /**
+     * The write could not be delivered - put it back for the next flush, keeping its idempotency key
+     */
+    public synchronized void release(PendingWrite write) {
+        getWritableDatabase().execSQL("UPDATE " + TABLE_WRITES + " SET " + COLUMN_SENDING + " = 0, "
+                + COLUMN_ATTEMPTS + " = " + COLUMN_ATTEMPTS + " + 1 WHERE " + COLUMN_ID + " = ?",
+                new Object[]{write.id});
+    }
+
+    /**
+     * Return rows held by a worker that died mid-batch (called before a flush starts).
+     * Only rows of a dead process or with an expired lease are taken back: a stopped worker of
+     * this process may still be finishing its request, and resending its rows would deliver them
+     * twice and out of order. They count as attempted, since their request may have reached the backend.
+     */
+    public synchronized void releaseAbandoned() {
+        getWritableDatabase().execSQL("UPDATE " + TABLE_WRITES + " SET " + COLUMN_SENDING + " = 0, "
+                + COLUMN_ATTEMPTS + " = " + COLUMN_ATTEMPTS + " + 1 WHERE " + COLUMN_SENDING + " = 1"
+                + " AND (" + COLUMN_LEASE_OWNER + " IS NULL OR " + COLUMN_LEASE_OWNER + " != ?"
+                + " OR " + COLUMN_LEASED_AT + " < ?)",
+                new Object[]{PROCESS_TOKEN, System.currentTimeMillis() - LEASE_MS});
+    }
+
+    /**
+     * Whether a points or purchase write for the user is queued and not being sent
+     */
+    public synchronized boolean hasUnsentBalanceWrite(String username) {
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " + TABLE_WRITES
+                        + " WHERE " + COLUMN_USERNAME + " = ? AND " + COLUMN_SENDING + " = 0 AND "
+                        + COLUMN_TYPE + " IN (?, ?)",
+                new String[]{username, TYPE_POINTS, TYPE_PURCHASE})) {
+            return cursor.moveToFirst() && cursor.getInt(0) > 0;
+        }
+    }
+
+    public synchronized int size() {
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " + TABLE_WRITES, null)) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+}
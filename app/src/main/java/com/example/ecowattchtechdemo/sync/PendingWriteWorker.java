@@ -0,0 +1,340 @@
+package com.example.ecowattchtechdemo.sync;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.ecowattchtechdemo.ApiClient;
+import com.example.ecowattchtechdemo.ApiService;
+import com.example.ecowattchtechdemo.BatchRequest;
+import com.example.ecowattchtechdemo.BatchResponse;
+import com.example.ecowattchtechdemo.PurchaseRequest;
+import com.example.ecowattchtechdemo.PurchaseResponse;
+import com.example.ecowattchtechdemo.UpdatePointsRequest;
+import com.example.ecowattchtechdemo.gamification.DormPointsManager;
+import com.example.ecowattchtechdemo.isDoneRequest;
+import com.example.ecowattchtechdemo.sync.PendingWriteQueue.PendingWrite;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+
+/**
+ * WorkManager worker that drains PendingWriteQueue in batches, oldest first.
+ * Each batch goes out as one POST /batch; the backend applies it in one transaction and
+ * answers per write, so writes it rejects are dropped and the rest are done.
+ * It only runs with a network connection; a transient failure (no connection, timeout, 408/429/5xx)
+ * puts the rest of the batch back and retries with exponential backoff.
+ * Other 4xx answers are permanent and drop the write.
+ *
+ * Purchases are deducted locally before they are sent; the backend's answer carries the
+ * authoritative balance, which replaces the local one unless a later points or purchase write
+ * for the user is still to be applied. A rejected purchase also takes the palette back out of
+ * the user's owned set.
+ */
+public class PendingWriteWorker extends Worker {
+
+    private static final String TAG = "PendingWriteWorker";
+    private static final String WORK_NAME = "PendingWriteFlush";
+
+    private static final int BATCH_SIZE = 20;
+    private static final long COALESCE_DELAY_MS = 2000;   // rapid taps within this window go out as one write
+    private static final long BACKOFF_DELAY_MS = 30000;   // doubled by WorkManager per retry
+    private static final int MAX_ATTEMPTS = 20;           // a write failing this often is dropped
+
+    private enum Outcome { DELIVERED, REJECTED, RETRY }
+
+    // Cleared when the backend has no /batch endpoint; writes then go out one request each
+    private static volatile boolean batchEndpointAvailable = true;
+
+    public PendingWriteWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Flush shortly after the latest write, once a network is available.
+     * A newer schedule runs after the current flush instead of cancelling it, so only one worker
+     * sends at a time and writes leave in queue order; flushes that find the queue already
+     * drained by an earlier one end without a request.
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+
+        OneTimeWorkRequest flush = new OneTimeWorkRequest.Builder(PendingWriteWorker.class)
+                .setConstraints(constraints)
+                .setInitialDelay(COALESCE_DELAY_MS, TimeUnit.MILLISECONDS)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_DELAY_MS, TimeUnit.MILLISECONDS)
+                .build();
+
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, flush);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        PendingWriteQueue queue = PendingWriteQueue.getInstance(getApplicationContext());
+        queue.releaseAbandoned();
+        ApiService api = ApiClient.getApiService();
+
+        while (!isStopped()) {
+            List<PendingWrite> batch = queue.beginBatch(BATCH_SIZE);
+            if (batch.isEmpty()) {
+                Log.d(TAG, "✅ Queue drained");
+                return Result.success();
+            }
+
+            boolean delivered = batchEndpointAvailable
+                    ? sendBatch(api, queue, batch)
+                    : sendEach(api, queue, batch);
+            if (!delivered) {
+                Log.w(TAG, "🔄 Flush interrupted, " + queue.size() + " writes left - retrying with backoff");
+                return Result.retry();
+            }
+        }
+        return Result.retry();
+    }
+
+    /**
+     * Send the whole batch as one POST /batch (one backend transaction)
+     * @return false if the flush should stop and retry later
+     */
+    private boolean sendBatch(ApiService api, PendingWriteQueue queue, List<PendingWrite> batch) {
+        BatchRequest request = new BatchRequest();
+        for (PendingWrite write : batch) {
+            request.add(new BatchRequest.Mutation(write.idempotencyKey, write.type, write.username,
+                    write.value, write.target));
+        }
+
+        Response<BatchResponse> response;
+        try {
+            response = api.batch(request).execute();
+        } catch (IOException e) {
+            Log.w(TAG, "🌐 Batch of " + batch.size() + " not delivered: " + e.getMessage());
+            releaseFrom(queue, batch, 0);
+            return false;
+        }
+
+        int code = response.code();
+        BatchResponse body = response.body();
+        if (code == 404 || code == 400) {
+            // Older backend without /batch, or an item it refuses as a whole - isolate items one by one
+            Log.w(TAG, "⚠️ Batch endpoint answered HTTP " + code + " - sending writes individually");
+            if (code == 404) batchEndpointAvailable = false;
+            return sendEach(api, queue, batch);
+        }
+        if (!response.isSuccessful() || body == null || body.getResults() == null) {
+            Log.w(TAG, "⚠️ Batch failed with HTTP " + code + " - will retry");
+            releaseFrom(queue, batch, 0);
+            return false;
+        }
+
+        Map<String, BatchResponse.Result> results = new HashMap<>();
+        for (BatchResponse.Result result : body.getResults()) {
+            results.put(result.getId(), result);
+        }
+
+        boolean allAnswered = true;
+        for (PendingWrite write : batch) {
+            BatchResponse.Result result = results.get(write.idempotencyKey);
+            if (result == null) {
+                queue.release(write);
+                allAnswered = false;
+                continue;
+            }
+            if (result.isSuccess()) {
+                Log.d(TAG, "📤 Sent " + write + (result.isReplayed() ? " (already applied)" : ""));
+            } else {
+                Log.w(TAG, "❌ " + write + " rejected: " + result.getMessage() + " - dropping");
+            }
+            if (PendingWriteQueue.TYPE_PURCHASE.equals(write.type)) {
+                reconcilePurchase(write, result.isSuccess(), result.isReplayed(), result.getNewPointTotal(),
+                        isBalanceSuperseded(queue, batch, write));
+            }
+            queue.complete(write);
+        }
+        return allAnswered;
+    }
+
+    /**
+     * Send writes one request each, in order (fallback when /batch cannot be used)
+     * @return false if the flush should stop and retry later
+     */
+    private boolean sendEach(ApiService api, PendingWriteQueue queue, List<PendingWrite> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite write = batch.get(i);
+            Outcome outcome = isStopped() ? Outcome.RETRY
+                    : send(api, write, PendingWriteQueue.TYPE_PURCHASE.equals(write.type)
+                            && isBalanceSuperseded(queue, batch, write));
+
+            if (outcome == Outcome.RETRY) {
+                // Keep order: nothing after a failed write is sent before it
+                releaseFrom(queue, batch, i);
+                return false;
+            }
+            queue.complete(write);
+        }
+        return true;
+    }
+
+    /**
+     * Put writes back for the next flush; a write that has failed MAX_ATTEMPTS times is dropped
+     */
+    private void releaseFrom(PendingWriteQueue queue, List<PendingWrite> batch, int fromIndex) {
+        for (int i = fromIndex; i < batch.size(); i++) {
+            PendingWrite write = batch.get(i);
+            if (write.attempts + 1 >= MAX_ATTEMPTS) {
+                Log.e(TAG, "❌ Dropping " + write + " after " + MAX_ATTEMPTS + " attempts");
+                queue.complete(write);
+            } else {
+                queue.release(write);
+            }
+        }
+    }
+
+    private Outcome send(ApiService api, PendingWrite write, boolean balanceSuperseded) {
+        try {
+            Response<?> response;
+            switch (write.type) {
+                case PendingWriteQueue.TYPE_POINTS:
+                    response = api.updateUserPoints(write.idempotencyKey,
+                            new UpdatePointsRequest(write.username, write.value)).execute();
+                    break;
+                case PendingWriteQueue.TYPE_IS_DONE:
+                    response = api.isDone(write.idempotencyKey,
+                            new isDoneRequest(write.username, write.value)).execute();
+                    break;
+                case PendingWriteQueue.TYPE_PURCHASE:
+                    Response<PurchaseResponse> purchase = api.purchasePalette(write.idempotencyKey,
+                            new PurchaseRequest(write.username, write.target, write.value,
+                                    write.idempotencyKey)).execute();
+                    onPurchaseResponse(write, purchase, balanceSuperseded);
+                    response = purchase;
+                    break;
+                default:
+                    Log.w(TAG, "Unknown write type " + write.type + " - dropping");
+                    return Outcome.REJECTED;
+            }
+            return classify(write, response);
+        } catch (IOException e) {
+            Log.w(TAG, "🌐 " + write + " not delivered: " + e.getMessage());
+            return Outcome.RETRY;
+        }
+    }
+
+    private Outcome classify(PendingWrite write, Response<?> response) {
+        int code = response.code();
+        if (response.isSuccessful()) {
+            Log.d(TAG, "📤 Sent " + write);
+            return Outcome.DELIVERED;
+        }
+        if (code == 408 || code == 429 || code >= 500) {
+            Log.w(TAG, "⚠️ " + write + " failed with HTTP " + code + " - will retry");
+            return Outcome.RETRY;
+        }
+        Log.w(TAG, "❌ " + write + " rejected with HTTP " + code + " - dropping");
+        return Outcome.REJECTED;
+    }
+
+    /**
+     * Reconcile with the backend's answer to a single purchase; 4xx answers carry the balance
+     * in the error body. Transient failures are left for the retry.
+     */
+    private void onPurchaseResponse(PendingWrite write, Response<PurchaseResponse> response,
+                                    boolean balanceSuperseded) {
+        int code = response.code();
+        if (code == 408 || code == 429 || code >= 500) return;
+
+        PurchaseResponse body = response.isSuccessful() ? response.body() : parseError(response.errorBody());
+        boolean success = response.isSuccessful() && body != null && "success".equals(body.getStatus());
+        reconcilePurchase(write, success, body != null && body.isReplayed(),
+                body != null ? body.getNewPointTotal() : null, balanceSuperseded);
+    }
+
+    private PurchaseResponse parseError(ResponseBody errorBody) {
+        if (errorBody == null) return null;
+        try {
+            return new Gson().fromJson(errorBody.string(), PurchaseResponse.class);
+        } catch (IOException | JsonParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The provisional local deduction becomes the backend's balance; a rejected purchase also
+     * returns the palette. A replayed answer's balance dates from the first delivery, and a
+     * superseded one is overwritten by a later write, so neither is applied over local changes.
+     */
+    private void reconcilePurchase(PendingWrite write, boolean success, boolean replayed, Integer balance,
+                                   boolean balanceSuperseded) {
+        if (balance != null && !replayed && !balanceSuperseded) {
+            updateLocalPoints(balance);
+        }
+        if (!success) {
+            revokePalette(write.username, write.target);
+        }
+    }
+
+    /**
+     * A purchase's balance is out of date when a points or purchase write for the same user comes
+     * after it in the batch or is still queued: the backend ends on that write's total, which the
+     * local balance already reflects
+     */
+    private static boolean isBalanceSuperseded(PendingWriteQueue queue, List<PendingWrite> batch,
+                                               PendingWrite purchase) {
+        return hasLaterBalanceWrite(batch, purchase) || queue.hasUnsentBalanceWrite(purchase.username);
+    }
+
+    /**
+     * Whether a points or purchase write for the same user follows write in batch
+     */
+    static boolean hasLaterBalanceWrite(List<PendingWrite> batch, PendingWrite write) {
+        int index = batch.indexOf(write);
+        for (int i = index + 1; index >= 0 && i < batch.size(); i++) {
+            PendingWrite later = batch.get(i);
+            if (later.username.equals(write.username)
+                    && (PendingWriteQueue.TYPE_POINTS.equals(later.type)
+                    || PendingWriteQueue.TYPE_PURCHASE.equals(later.type))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove a palette from the owned set ShopActivity keeps in ShopPrefs
+     */
+    private void revokePalette(String username, String paletteName) {
+        SharedPreferences prefs = getApplicationContext().getSharedPreferences("ShopPrefs", Context.MODE_PRIVATE);
+        String key = "owned_palettes_" + username;
+        Set<String> owned = new HashSet<>(prefs.getStringSet(key, new HashSet<>()));
+        if (owned.remove(paletteName)) {
+            prefs.edit().putStringSet(key, owned).apply();
+            Log.w(TAG, "↩️ Purchase of " + paletteName + " rejected - palette returned for " + username);
+        }
+    }
+
+    private void updateLocalPoints(int newPointTotal) {
+        new DormPointsManager(getApplicationContext()).setIndividualSpendablePoints(newPointTotal);
+    }
+}
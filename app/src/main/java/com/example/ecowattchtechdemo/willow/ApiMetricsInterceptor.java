@@ -0,0 +1,142 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.util.Log;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Records per-endpoint latency, bytes, status codes and retries into WillowApiMetrics.
+ * Bodies are never buffered for metrics; response bytes are counted as the converter reads them.
+ * A sampled fraction of calls is logged with a size-capped body preview.
+ */
+public class ApiMetricsInterceptor implements Interceptor {
+
+    private static final String TAG = "WillowApiMetrics";
+
+    // Path segments that look like IDs (UUIDs, long hex/digit runs) collapse to {id}
+    private static final Pattern ID_SEGMENT = Pattern.compile("^(?=.*\\d)[0-9A-Za-z_-]{8,}$");
+
+    private final double bodySampleRate;
+    private final long bodyLogMaxBytes;
+
+    public ApiMetricsInterceptor(double bodySampleRate, long bodyLogMaxBytes) {
+        this.bodySampleRate = bodySampleRate;
+        this.bodyLogMaxBytes = bodyLogMaxBytes;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String endpoint = request.method() + " " + normalizePath(request.url().encodedPath());
+        long bytesOut = request.body() != null ? request.body().contentLength() : 0;
+        long startNs = System.nanoTime();
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            WillowApiMetrics.record(endpoint, elapsedMs(startNs), -1, bytesOut, 0, 0);
+            throw e;
+        }
+
+        long latencyMs = elapsedMs(startNs);
+        WillowApiMetrics.record(endpoint, latencyMs, response.code(), bytesOut, 0, countRetries(response));
+
+        if (bodySampleRate > 0 && ThreadLocalRandom.current().nextDouble() < bodySampleRate) {
+            logSampled(request, response, latencyMs);
+        }
+
+        ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        return response.newBuilder()
+                .body(new CountingResponseBody(body, endpoint))
+                .build();
+    }
+
+    /**
+     * Responses that went through the Authenticator (or redirects) carry the earlier attempts
+     */
+    private static int countRetries(Response response) {
+        int retries = 0;
+        Response prior = response.priorResponse();
+        while (prior != null) {
+            retries++;
+            prior = prior.priorResponse();
+        }
+        return retries;
+    }
+
+    private void logSampled(Request request, Response response, long latencyMs) {
+        String preview;
+        try {
+            // peekBody copies at most bodyLogMaxBytes and leaves the real body untouched
+            preview = response.peekBody(bodyLogMaxBytes).string();
+        } catch (IOException e) {
+            preview = "(body unavailable)";
+        }
+        Log.d(TAG, "🔬 " + request.method() + " " + request.url().encodedPath()
+                + " → " + response.code() + " in " + latencyMs + " ms\n" + preview);
+    }
+
+    static String normalizePath(String path) {
+        StringBuilder normalized = new StringBuilder();
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) continue;
+            normalized.append('/').append(ID_SEGMENT.matcher(segment).matches() ? "{id}" : segment);
+        }
+        return normalized.length() > 0 ? normalized.toString() : "/";
+    }
+
+    private static long elapsedMs(long startNs) {
+        return (System.nanoTime() - startNs) / 1_000_000L;
+    }
+
+    /**
+     * Pass-through body that reports bytes to the metrics as they are read
+     */
+    private static class CountingResponseBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        CountingResponseBody(ResponseBody delegate, String endpoint) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read > 0) {
+                        WillowApiMetrics.recordBytesIn(endpoint, read);
+                    }
+                    return read;
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,506 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import com.example.ecowattchtechdemo.willow.models.Building;
+import com.example.ecowattchtechdemo.willow.models.DigitalTwin;
+import com.example.ecowattchtechdemo.willow.models.Relationship;
+import com.example.ecowattchtechdemo.willow.models.TwinsResponse;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * App-wide list of buildings and the power (kW) / energy (kWh) capability twins for each.
+ *
+ * Starts from the twin IDs configured in local.properties, then adds the buildings discovered
+ * through twin search: one paged search for building twins and one for energy capability twins,
+ * so discovery costs a few requests however many buildings there are. Configured buildings are
+ * kept; a discovered twin matching one fills in its name and any missing twin IDs.
+ * The discovered registry is cached in SharedPreferences together with the configured twin IDs
+ * it was merged from, and rediscovered once it is older than BUILDING_REGISTRY_TTL or the
+ * configuration changed; until then (or if discovery fails) the cached or configured set is used.
+ */
+public class BuildingRegistry {
+
+    private static final String TAG = "BuildingRegistry";
+    private static final String PREFS_NAME = "WillowBuildingRegistry";
+    private static final String KEY_BUILDINGS = "buildings";
+    private static final String KEY_DISCOVERED_AT = "discovered_at";
+    private static final String KEY_CONFIGURED = "configured_twins";
+
+    private static BuildingRegistry instance;
+
+    private final Object lock = new Object();
+    private final Gson gson = new Gson();
+    private SharedPreferences prefs; // null until a context is attached (memory only)
+    private volatile Snapshot snapshot;
+    private long discoveredAt = 0;
+    private boolean discoveryInFlight = false;
+    private final List<RefreshCallback> pendingCallbacks = new ArrayList<>();
+
+    /**
+     * Discovery result callbacks (delivered on the main thread)
+     */
+    public interface RefreshCallback {
+        void onRegistryReady(List<Building> buildings);
+        void onError(String error);
+    }
+
+    /**
+     * Receives the accumulated twins of a paged search
+     */
+    private interface SearchCallback {
+        void onComplete(List<DigitalTwin> twins);
+        void onError(String error);
+    }
+
+    public static synchronized BuildingRegistry getInstance() {
+        if (instance == null) {
+            instance = new BuildingRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Same instance, with the discovered registry restored from disk on first use
+     */
+    public static synchronized BuildingRegistry getInstance(Context context) {
+        BuildingRegistry registry = getInstance();
+        registry.attachStorage(context.getApplicationContext());
+        return registry;
+    }
+
+    private BuildingRegistry() {
+        this.snapshot = new Snapshot(configuredBuildings());
+    }
+
+    // ==================== Lookups ====================
+
+    /**
+     * Every known building, in display order
+     */
+    public List<Building> getBuildings() {
+        return snapshot.buildings;
+    }
+
+    /**
+     * Internal keys of every known building (e.g. "TINSLEY"), in display order
+     */
+    public String[] getBuildingKeys() {
+        return snapshot.keys.clone();
+    }
+
+    public Building get(String key) {
+        return key != null ? snapshot.byKey.get(key.toUpperCase(Locale.US)) : null;
+    }
+
+    public boolean contains(String key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Position of a building in display order, or -1 if unknown
+     */
+    public int indexOf(String key) {
+        if (key == null) return -1;
+        return Arrays.asList(snapshot.keys).indexOf(key.toUpperCase(Locale.US));
+    }
+
+    public String getPowerTwinId(String key) {
+        Building building = get(key);
+        return building != null ? building.getPowerTwinId() : null;
+    }
+
+    public String getEnergyTwinId(String key) {
+        Building building = get(key);
+        return building != null ? building.getEnergyTwinId() : null;
+    }
+
+    /**
+     * Key of the building a power or energy twin belongs to, or null
+     */
+    public String findKeyForTwin(String twinId) {
+        return twinId != null ? snapshot.keyByTwinId.get(twinId) : null;
+    }
+
+    /**
+     * Key of the building whose key, label or display name appears in the given name (e.g. "Tinsley Hall"), or null
+     */
+    public String findKeyByName(String name) {
+        if (name == null) return null;
+        String normalized = name.toUpperCase(Locale.US).trim();
+        Building exact = snapshot.byKey.get(keyForName(name));
+        if (exact != null) return exact.getKey();
+
+        for (Building building : snapshot.buildings) {
+            if (normalized.contains(building.getKey())
+                    || (building.getDisplayName() != null
+                        && normalized.contains(building.getDisplayName().toUpperCase(Locale.US)))) {
+                return building.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Every configured or discovered capability twin ID
+     */
+    public List<String> getAllTwinIds() {
+        return new ArrayList<>(snapshot.keyByTwinId.keySet());
+    }
+
+    // ==================== Discovery ====================
+
+    /**
+     * Whether the registry should be rediscovered (never discovered, or older than the TTL)
+     */
+    public boolean isExpired() {
+        synchronized (lock) {
+            return System.currentTimeMillis() - discoveredAt > WillowApiV3Config.BUILDING_REGISTRY_TTL;
+        }
+    }
+
+    /**
+     * Rediscover buildings now if the registry has expired; otherwise report the current set
+     */
+    public void refreshIfExpired(RefreshCallback callback) {
+        if (isExpired()) {
+            refresh(callback);
+        } else if (callback != null) {
+            callback.onRegistryReady(getBuildings());
+        }
+    }
+
+    /**
+     * Rediscover buildings. Concurrent calls share one discovery; callback may be null.
+     */
+    public void refresh(RefreshCallback callback) {
+        synchronized (lock) {
+            if (callback != null) pendingCallbacks.add(callback);
+            if (discoveryInFlight) return;
+            discoveryInFlight = true;
+        }
+
+        Log.d(TAG, "🔍 Discovering buildings...");
+        searchAllPages(Collections.singletonList(WillowApiV3Config.BUILDING_MODEL), false, new SearchCallback() {
+            @Override
+            public void onComplete(List<DigitalTwin> buildingTwins) {
+                List<String> capabilityModels = Arrays.asList(
+                        WillowApiV3Config.POWER_CONSUMPTION_MODEL,
+                        WillowApiV3Config.ENERGY_CONSUMPTION_MODEL,
+                        WillowApiV3Config.ELECTRICAL_ENERGY_MODEL);
+                searchAllPages(capabilityModels, true, new SearchCallback() {
+                    @Override
+                    public void onComplete(List<DigitalTwin> capabilityTwins) {
+                        onDiscovered(buildingTwins, capabilityTwins);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        finishDiscovery(error);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String error) {
+                finishDiscovery(error);
+            }
+        });
+    }
+
+    private void onDiscovered(List<DigitalTwin> buildingTwins, List<DigitalTwin> capabilityTwins) {
+        List<Building> discovered = assemble(buildingTwins, capabilityTwins);
+        if (discovered.isEmpty()) {
+            finishDiscovery("No buildings with energy capabilities found");
+            return;
+        }
+
+        List<Building> merged = merge(configuredBuildings(), discovered);
+        long now = System.currentTimeMillis();
+        synchronized (lock) {
+            snapshot = new Snapshot(merged);
+            discoveredAt = now;
+            if (prefs != null) {
+                prefs.edit()
+                        .putString(KEY_BUILDINGS, gson.toJson(merged))
+                        .putLong(KEY_DISCOVERED_AT, now)
+                        .putString(KEY_CONFIGURED, configuredFingerprint())
+                        .apply();
+            }
+        }
+        Log.d(TAG, "✅ Registry now has " + merged.size() + " buildings (" + discovered.size() + " discovered)");
+        finishDiscovery(null);
+    }
+
+    private void finishDiscovery(String error) {
+        List<RefreshCallback> callbacks;
+        synchronized (lock) {
+            discoveryInFlight = false;
+            callbacks = new ArrayList<>(pendingCallbacks);
+            pendingCallbacks.clear();
+        }
+
+        if (error != null) {
+            Log.w(TAG, "⚠️ Building discovery failed: " + error + " - keeping " + snapshot.buildings.size() + " known buildings");
+        }
+        for (RefreshCallback callback : callbacks) {
+            if (error != null) {
+                callback.onError(error);
+            } else {
+                callback.onRegistryReady(getBuildings());
+            }
+        }
+    }
+
+    /**
+     * Run one twin search and follow continuationToken until every page has been read
+     */
+    private void searchAllPages(List<String> modelIds, boolean includeRelationships, SearchCallback callback) {
+        fetchSearchPage(modelIds, includeRelationships, null, 0, new ArrayList<>(), callback);
+    }
+
+    private void fetchSearchPage(List<String> modelIds, boolean includeRelationships, String continuationToken,
+                                 int pageIndex, List<DigitalTwin> accumulated, SearchCallback callback) {
+        Map<String, Object> modelFilter = new HashMap<>();
+        modelFilter.put("modelIds", modelIds);
+        modelFilter.put("exactModelMatch", false);
+
+        Map<String, Object> searchRequest = new HashMap<>();
+        searchRequest.put("modelFilter", modelFilter);
+        searchRequest.put("pageSize", WillowApiV3Config.BUILDING_SEARCH_PAGE_SIZE);
+        searchRequest.put("includeRelationships", includeRelationships);
+        if (continuationToken != null) {
+            searchRequest.put("continuationToken", continuationToken);
+        }
+
+        WillowApiService apiService = WillowApiClient.getApiService();
+        String token = WillowTokenProvider.getInstance().getCurrentToken();
+        apiService.searchTwins(token, searchRequest).enqueue(new Callback<TwinsResponse>() {
+            @Override
+            public void onResponse(Call<TwinsResponse> call, Response<TwinsResponse> response) {
+                if (!response.isSuccessful() || response.body() == null) {
+                    callback.onError("Twin search failed: " + response.code());
+                    return;
+                }
+
+                TwinsResponse page = response.body();
+                if (page.hasTwins()) {
+                    accumulated.addAll(page.getContent());
+                }
+
+                String next = page.getContinuationToken();
+                if (next == null || next.isEmpty()) {
+                    callback.onComplete(accumulated);
+                } else if (pageIndex + 1 >= WillowApiV3Config.BUILDING_SEARCH_MAX_PAGES) {
+                    Log.w(TAG, "Stopping twin search after " + (pageIndex + 1) + " pages");
+                    callback.onComplete(accumulated);
+                } else {
+                    fetchSearchPage(modelIds, includeRelationships, next, pageIndex + 1, accumulated, callback);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<TwinsResponse> call, Throwable t) {
+                callback.onError("Twin search network error: " + t.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Pair capability twins with the building they are related to (or, failing that, named after)
+     */
+    static List<Building> assemble(List<DigitalTwin> buildingTwins, List<DigitalTwin> capabilityTwins) {
+        Map<String, Building> byTwinId = new LinkedHashMap<>();
+        for (DigitalTwin twin : buildingTwins) {
+            // A building needs a name for its key and for name matching below
+            String name = twin.getName() != null ? twin.getName().trim() : "";
+            if (twin.getId() == null || !twin.isBuilding() || name.isEmpty()) continue;
+            byTwinId.put(twin.getId(), new Building(keyForName(name), name, twin.getId(), null, null));
+        }
+
+        for (DigitalTwin capability : capabilityTwins) {
+            Building building = findOwner(capability, byTwinId);
+            if (building == null) continue;
+
+            String modelId = capability.getModelId() != null ? capability.getModelId() : "";
+            if (modelId.contains("Power")) {
+                if (building.getPowerTwinId() == null) building.setPowerTwinId(capability.getId());
+            } else if (modelId.contains("Energy")) {
+                if (building.getEnergyTwinId() == null) building.setEnergyTwinId(capability.getId());
+            }
+        }
+
+        List<Building> buildings = new ArrayList<>();
+        for (Building building : byTwinId.values()) {
+            if (building.hasCapabilityTwins()) buildings.add(building);
+        }
+        return buildings;
+    }
+
+    private static Building findOwner(DigitalTwin capability, Map<String, Building> byTwinId) {
+        List<Relationship> relationships = capability.getOutgoingRelationships();
+        if (relationships != null) {
+            for (Relationship relationship : relationships) {
+                Building building = byTwinId.get(relationship.getTargetId());
+                if (building != null) return building;
+            }
+        }
+
+        // No direct relationship (e.g. the capability hangs off a meter) - match on the building name
+        String capabilityName = capability.getName() != null ? capability.getName().toUpperCase(Locale.US) : "";
+        for (Building building : byTwinId.values()) {
+            if (capabilityName.contains(building.getDisplayName().toUpperCase(Locale.US))) return building;
+        }
+        return null;
+    }
+
+    /**
+     * Configured buildings first (keeping their keys, so existing points and history carry over),
+     * filled in and followed by discovered ones
+     */
+    private static List<Building> merge(List<Building> configured, List<Building> discovered) {
+        Map<String, Building> merged = new LinkedHashMap<>();
+        for (Building building : configured) {
+            merged.put(building.getKey(), building);
+        }
+
+        for (Building found : discovered) {
+            Building existing = findMatch(merged, found);
+            if (existing == null) {
+                merged.put(found.getKey(), found);
+                continue;
+            }
+            existing.setDisplayName(found.getDisplayName());
+            existing.setBuildingTwinId(found.getBuildingTwinId());
+            if (isEmpty(existing.getPowerTwinId())) existing.setPowerTwinId(found.getPowerTwinId());
+            if (isEmpty(existing.getEnergyTwinId())) existing.setEnergyTwinId(found.getEnergyTwinId());
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    private static Building findMatch(Map<String, Building> known, Building found) {
+        Building byKey = known.get(found.getKey());
+        if (byKey != null) return byKey;
+        for (Building building : known.values()) {
+            if (sameTwin(building.getPowerTwinId(), found.getPowerTwinId())
+                    || sameTwin(building.getEnergyTwinId(), found.getEnergyTwinId())) {
+                return building;
+            }
+        }
+        return null;
+    }
+
+    private static boolean sameTwin(String a, String b) {
+        return !isEmpty(a) && a.equals(b);
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    /**
+     * Internal key for a building name: "Tinsley Hall" -> "TINSLEY"
+     */
+    static String keyForName(String name) {
+        String key = name != null ? name.toUpperCase(Locale.US).trim() : "";
+        key = key.replaceAll("\\s+(RESIDENCE\\s+)?HALL$", "");
+        key = key.replaceAll("[^A-Z0-9]+", "_").replaceAll("^_+|_+$", "");
+        return key.isEmpty() ? "BUILDING" : key;
+    }
+
+    /**
+     * Buildings whose twin IDs are set in local.properties
+     */
+    private static List<Building> configuredBuildings() {
+        List<Building> buildings = new ArrayList<>();
+        addConfigured(buildings, "TINSLEY", WillowApiV3Config.TWIN_ID_TINSLEY, WillowApiV3Config.TWIN_ID_TINSLEY_ENERGY);
+        addConfigured(buildings, "GABALDON", WillowApiV3Config.TWIN_ID_GABALDON, WillowApiV3Config.TWIN_ID_GABALDON_ENERGY);
+        addConfigured(buildings, "SECHRIST", WillowApiV3Config.TWIN_ID_SECHRIST, WillowApiV3Config.TWIN_ID_SECHRIST_ENERGY);
+        return buildings;
+    }
+
+    private static void addConfigured(List<Building> buildings, String key, String powerTwinId, String energyTwinId) {
+        buildings.add(new Building(key, null, null, powerTwinId, energyTwinId));
+    }
+
+    /**
+     * The configured twin IDs as one string, stored with the cache so a changed local.properties discards it
+     */
+    static String configuredFingerprint() {
+        StringBuilder fingerprint = new StringBuilder();
+        for (Building building : configuredBuildings()) {
+            fingerprint.append(building.getKey()).append('=')
+                    .append(building.getPowerTwinId()).append(',')
+                    .append(building.getEnergyTwinId()).append(';');
+        }
+        return fingerprint.toString();
+    }
+
+    // ==================== Storage ====================
+
+    private void attachStorage(Context appContext) {
+        synchronized (lock) {
+            if (prefs != null) return;
+            prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+
+            String json = prefs.getString(KEY_BUILDINGS, null);
+            if (json == null) return;
+            if (!configuredFingerprint().equals(prefs.getString(KEY_CONFIGURED, null))) {
+                // Merged from different configured twins - rediscover instead of serving stale IDs
+                Log.d(TAG, "Configured twins changed - discarding cached building registry");
+                prefs.edit().clear().apply();
+                return;
+            }
+            try {
+                List<Building> cached = gson.fromJson(json, new TypeToken<List<Building>>() {}.getType());
+                if (cached != null && !cached.isEmpty()) {
+                    snapshot = new Snapshot(cached);
+                    discoveredAt = prefs.getLong(KEY_DISCOVERED_AT, 0);
+                    Log.d(TAG, "📦 Restored " + cached.size() + " buildings from cache");
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Discarding unreadable building registry", e);
+                prefs.edit().clear().apply();
+            }
+        }
+    }
+
+    /**
+     * Immutable view of the registry, swapped as a whole so readers never see a half-updated set
+     */
+    private static final class Snapshot {
+        final List<Building> buildings;
+        final String[] keys;
+        final Map<String, Building> byKey = new HashMap<>();
+        final Map<String, String> keyByTwinId = new LinkedHashMap<>();
+
+        Snapshot(List<Building> source) {
+            List<Building> list = new ArrayList<>();
+            for (Building building : source) {
+                if (building == null || building.getKey() == null || byKey.containsKey(building.getKey())) continue;
+                list.add(building);
+                byKey.put(building.getKey(), building);
+                if (!isEmpty(building.getPowerTwinId())) keyByTwinId.put(building.getPowerTwinId(), building.getKey());
+                if (!isEmpty(building.getEnergyTwinId())) keyByTwinId.put(building.getEnergyTwinId(), building.getKey());
+            }
+            this.buildings = Collections.unmodifiableList(list);
+            this.keys = new String[list.size()];
+            for (int i = 0; i < list.size(); i++) {
+                keys[i] = list.get(i).getKey();
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import com.example.ecowattchtechdemo.DormStandingsResponse;
+import com.example.ecowattchtechdemo.SharedHttpClient;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * Server-sent events client for the backend's GET /dorm_standings/stream.
+ * - The first event on a fresh connection is a full "snapshot"; after that each Willow poll that
+ *   changed something arrives as a "delta" holding only the changed dorms.
+ * - Reconnects with backoff and sends Last-Event-ID, so the server replays just the missed deltas.
+ * - The server sends a heartbeat comment every 25s; a connection silent for READ_TIMEOUT is dropped.
+ *
+ * The stream runs on its own thread; listener callbacks are delivered on the main thread.
+ */
+public class DormStandingsStream {
+
+    private static final String TAG = "DormStandingsStream";
+
+    private static final long READ_TIMEOUT = 60000;              // > 2 heartbeats
+    private static final long RECONNECT_BASE = 5000;             // server may override via "retry:"
+    private static final long RECONNECT_MAX = 5 * 60 * 1000L;
+
+    public interface Listener {
+        /** Full standings; replaces everything known so far */
+        void onSnapshot(DormStandingsResponse standings);
+        /** Only the dorms that changed since the previous event */
+        void onDelta(DormStandingsResponse delta);
+        /** Heartbeat - the connection is alive but nothing changed */
+        void onHeartbeat();
+        void onConnectionChanged(boolean connected);
+    }
+
+    private final String url;
+    private final Listener listener;
+    private final OkHttpClient client;
+    private final Gson gson = new Gson();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private volatile boolean running = false;
+    private volatile Call currentCall;
+    private volatile Thread worker;
+    private volatile String lastEventId;   // kept across reconnects and stop/start
+    private long reconnectBaseMs = RECONNECT_BASE;
+
+    public DormStandingsStream(String url, Listener listener) {
+        this.url = url;
+        this.listener = listener;
+        this.client = SharedHttpClient.getClient().newBuilder()
+                .readTimeout(READ_TIMEOUT, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        worker = new Thread(this::runLoop, TAG);
+        worker.start();
+        Log.d(TAG, "▶️ Stream started" + (lastEventId != null ? " (resuming after " + lastEventId + ")" : ""));
+    }
+
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        Call call = currentCall;
+        if (call != null) call.cancel();
+        if (worker != null) worker.interrupt();
+        worker = null;
+        Log.d(TAG, "⏸️ Stream stopped");
+    }
+
+    private void runLoop() {
+        int failures = 0;
+        while (isCurrentWorker()) {
+            boolean received = false;
+            try {
+                received = connectAndRead();
+            } catch (IOException e) {
+                if (!isCurrentWorker()) break;
+                Log.w(TAG, "⚠️ Stream dropped: " + e.getMessage());
+            }
+            if (!isCurrentWorker()) break;
+            post(() -> listener.onConnectionChanged(false));
+
+            failures = received ? 1 : failures + 1;
+            long delay = reconnectDelay(failures);
+            Log.d(TAG, "🔄 Reconnecting in " + (delay / 1000) + "s");
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return true if at least one event arrived before the connection ended
+     */
+    private boolean connectAndRead() throws IOException {
+        Request.Builder request = new Request.Builder()
+                .url(url)
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+
+        Call call = client.newCall(request.build());
+        currentCall = call;
+        try (Response response = call.execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("HTTP " + response.code());
+            }
+            post(() -> listener.onConnectionChanged(true));
+            return readEvents(body.source());
+        } finally {
+            currentCall = null;
+        }
+    }
+
+    private boolean readEvents(BufferedSource source) throws IOException {
+        boolean received = false;
+        String id = null;
+        String event = null;
+        StringBuilder data = new StringBuilder();
+
+        String line;
+        while (isCurrentWorker() && (line = source.readUtf8Line()) != null) {
+            if (line.isEmpty()) {
+                // Blank line ends an event
+                if (data.length() > 0) {
+                    dispatch(event != null ? event : "message", data.toString());
+                    received = true;
+                }
+                if (id != null) lastEventId = id;
+                id = null;
+                event = null;
+                data.setLength(0);
+            } else if (line.startsWith(":")) {
+                post(listener::onHeartbeat);
+            } else {
+                int colon = line.indexOf(':');
+                String field = colon >= 0 ? line.substring(0, colon) : line;
+                String value = colon >= 0 ? line.substring(colon + 1) : "";
+                if (value.startsWith(" ")) value = value.substring(1);
+
+                switch (field) {
+                    case "id":
+                        id = value;
+                        break;
+                    case "event":
+                        event = value;
+                        break;
+                    case "data":
+                        if (data.length() > 0) data.append('\n');
+                        data.append(value);
+                        break;
+                    case "retry":
+                        try {
+                            reconnectBaseMs = Long.parseLong(value.trim());
+                        } catch (NumberFormatException ignored) {
+                            // keep the current base
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return received;
+    }
+
+    /**
+     * A stopped worker can outlive stop() briefly; once start() replaced it, it must not deliver anything
+     */
+    private boolean isCurrentWorker() {
+        return running && Thread.currentThread() == worker;
+    }
+
+    private void dispatch(String event, String data) {
+        DormStandingsResponse standings;
+        try {
+            standings = gson.fromJson(data, DormStandingsResponse.class);
+        } catch (JsonParseException e) {
+            Log.w(TAG, "⚠️ Unreadable " + event + " event: " + e.getMessage());
+            return;
+        }
+        if (standings == null) return;
+
+        switch (event) {
+            case "snapshot":
+                post(() -> listener.onSnapshot(standings));
+                break;
+            case "delta":
+                post(() -> listener.onDelta(standings));
+                break;
+            default:
+                Log.v(TAG, "⏭️ Ignoring " + event + " event");
+                break;
+        }
+    }
+
+    /**
+     * Equal jitter as in PollingLiveData: min(max, base * 2^(failures-1)), then a point in its upper half
+     */
+    private long reconnectDelay(int failures) {
+        long cap = Math.min(RECONNECT_MAX, reconnectBaseMs << Math.min(failures - 1, 16));
+        return cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+    }
+
+    private void post(Runnable action) {
+        mainHandler.post(() -> {
+            if (running) action.run();
+        });
+    }
+}
@@ -0,0 +1,508 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import com.example.ecowattchtechdemo.ApiClient;
+import com.example.ecowattchtechdemo.ApiService;
+import com.example.ecowattchtechdemo.DormStandingsResponse;
+import com.example.ecowattchtechdemo.gamification.DormPointsManager;
+import com.example.ecowattchtechdemo.willow.models.Building;
+import com.example.ecowattchtechdemo.willow.models.DormEnergySnapshot;
+import com.example.ecowattchtechdemo.willow.models.EnergyDataResponse;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * App-wide source of dashboard data, exposed as polling LiveData streams.
+ * Live readings and dorm standings come from the backend's shared Willow poll (GET /dorm_standings),
+ * so Willow load does not grow with the number of phones; only when the backend is unreachable,
+ * or its standings leave out some registry buildings, does the app query Willow directly and
+ * score the dorms itself.
+ *
+ * While live energy is observed, the backend's standings stream pushes per-dorm deltas as soon as
+ * the server poll sees them; every push or heartbeat postpones the next poll, so polling only
+ * runs as a fallback when the stream is down.
+ * Each data type keeps its own cadence and only polls while something is observing it,
+ * so nothing is fetched while the dashboard is in the background.
+ *
+ * Live readings are compared by sourceTimestamp per twin: a poll where no twin has a newer
+ * reading emits nothing, and dorms whose readings are unchanged keep the same snapshot instance.
+ * Dorms whose newest reading is older than STALE_THRESHOLD are reported through getStaleDorms().
+ *
+ * Live energy starts from the last-known-good snapshots on disk (stale-while-revalidate):
+ * observers get them immediately, and the first poll replaces or confirms them.
+ * While the Willow circuit breaker is open, polls fail fast and observers keep the last snapshot.
+ * The live interval stretches while Willow reports nothing new and shrinks back once it does.
+ */
+public class EnergyRepository {
+
+    private static final String TAG = "EnergyRepository";
+
+    // Update intervals for different data types
+    public static final long LIVE_ENERGY_INTERVAL = 60000;        // 1 minute - live energy data while readings change
+    public static final long LIVE_ENERGY_MAX_INTERVAL = 5 * 60 * 1000L; // 5 minutes - while readings stay unchanged
+    public static final long POTENTIAL_ENERGY_INTERVAL = 3600000; // 1 hour - potential energy (only changes at 10pm)
+    public static final long RANKINGS_INTERVAL = 120000;          // 2 minutes - dorm rankings/positions
+
+    // Readings older than this are flagged stale (Willow normally reports every few minutes)
+    public static final long STALE_THRESHOLD = 15 * 60 * 1000L;
+
+    // Failure backoff: 15s, 30s, 1m ... capped at 15 minutes (jittered)
+    private static final long BACKOFF_BASE = 15000;
+    private static final long BACKOFF_MAX = 15 * 60 * 1000L;
+
+    private static EnergyRepository instance;
+
+    private final WillowEnergyDataManager dataManager;
+    private final DormPointsManager pointsManager;
+    private final EnergySnapshotCache snapshotCache;
+    private final BuildingRegistry registry;
+    private final ApiService backendService;
+    private final ExecutorService localExecutor = Executors.newSingleThreadExecutor();
+
+    private final PollingLiveData<Map<String, DormEnergySnapshot>> liveEnergy;
+    private final PollingLiveData<String[]> leaderboard;
+    private final PollingLiveData<Map<String, Integer>> potentialEnergy;
+    private final MutableLiveData<Set<String>> staleDorms;
+    private final DormStandingsStream standingsStream;
+    private final PollingLiveData.ResultCallback<Map<String, DormEnergySnapshot>> livePush;
+    private boolean streamConnected = false;
+
+    // Set by refreshAll() so rankings/points are recomputed after the fresh readings are recorded
+    private volatile boolean refreshDependentsAfterLive = false;
+
+    // Validator of the last standings document, sent back so an unchanged poll costs a 304
+    private String standingsEtag;
+
+    public static synchronized EnergyRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new EnergyRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private EnergyRepository(Context appContext) {
+        // 🎮 Context-aware manager so batched readings feed the gamification system
+        this.dataManager = new WillowEnergyDataManager(appContext);
+        this.pointsManager = new DormPointsManager(appContext);
+        this.snapshotCache = new EnergySnapshotCache(appContext);
+        this.registry = BuildingRegistry.getInstance(appContext);
+        this.backendService = ApiClient.getApiService();
+
+        // Seed with the last-known-good readings; the first poll still runs right away to revalidate
+        Map<String, DormEnergySnapshot> cached = snapshotCache.load(registry.getBuildingKeys());
+        this.liveEnergy = new PollingLiveData<>("liveEnergy", LIVE_ENERGY_INTERVAL,
+                BACKOFF_BASE, BACKOFF_MAX, this::fetchLiveEnergy, cached.isEmpty() ? null : cached)
+                .setAdaptiveInterval(LIVE_ENERGY_MAX_INTERVAL);
+        this.livePush = liveEnergy.pushCallback();
+        this.standingsStream = new DormStandingsStream(ApiClient.BASE_URL + "/dorm_standings/stream",
+                new StandingsStreamListener());
+        liveEnergy.setActiveListener(this::onLiveEnergyActiveChanged);
+        this.staleDorms = new MutableLiveData<>(findStaleDorms(cached));
+        this.leaderboard = new PollingLiveData<>("leaderboard", RANKINGS_INTERVAL,
+                BACKOFF_BASE, BACKOFF_MAX, this::fetchLeaderboard);
+        this.potentialEnergy = new PollingLiveData<>("potentialEnergy", POTENTIAL_ENERGY_INTERVAL,
+                BACKOFF_BASE, BACKOFF_MAX, this::fetchPotentialEnergy);
+    }
+
+    public WillowEnergyDataManager getDataManager() {
+        return dataManager;
+    }
+
+    /**
+     * Latest power/energy snapshot for every dorm, keyed by dorm name
+     */
+    public PollingLiveData<Map<String, DormEnergySnapshot>> getLiveEnergy() {
+        return liveEnergy;
+    }
+
+    /**
+     * Dorm names sorted by total points (1st, 2nd, 3rd)
+     */
+    public PollingLiveData<String[]> getLeaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     * Rally points per dorm
+     */
+    public PollingLiveData<Map<String, Integer>> getPotentialEnergy() {
+        return potentialEnergy;
+    }
+
+    /**
+     * Dorms whose newest live reading is older than STALE_THRESHOLD (re-evaluated on every poll)
+     */
+    public LiveData<Set<String>> getStaleDorms() {
+        return staleDorms;
+    }
+
+    /**
+     * Milliseconds since the newest reading for a dorm, or -1 if there is none
+     */
+    public long getDataAgeMillis(String dorm) {
+        Map<String, DormEnergySnapshot> current = liveEnergy.getValue();
+        DormEnergySnapshot snapshot = current != null ? current.get(dorm) : null;
+        long newest = newestSourceTimestamp(snapshot);
+        return newest > 0 ? System.currentTimeMillis() - newest : -1;
+    }
+
+    /**
+     * Seed live energy with standings that arrived with the session bootstrap; the dashboard opens
+     * with them and the next poll revalidates them with their ETag instead of refetching
+     */
+    public void seedStandings(DormStandingsResponse standings, String etag) {
+        if (standings == null || standings.getDorms() == null || standings.getDorms().isEmpty()) return;
+        standingsEtag = etag;
+        handleServerStandings(standings, livePush);
+    }
+
+    public void refreshLiveEnergy() {
+        liveEnergy.refresh();
+    }
+
+    /**
+     * Fetch live energy now, then recompute rankings and rally points from it
+     */
+    public void refreshAll() {
+        refreshDependentsAfterLive = true;
+        liveEnergy.refresh();
+    }
+
+    private void fetchLiveEnergy(PollingLiveData.ResultCallback<Map<String, DormEnergySnapshot>> callback) {
+        backendService.getDormStandings(standingsEtag).enqueue(new Callback<DormStandingsResponse>() {
+            @Override
+            public void onResponse(Call<DormStandingsResponse> call, Response<DormStandingsResponse> response) {
+                if (response.code() == 304) {
+                    Log.v(TAG, "⏭️ Server standings unchanged");
+                    updateStaleDorms(liveEnergy.getValue());
+                    callback.onUnchanged();
+                    refreshDependentsIfRequested();
+                    return;
+                }
+
+                DormStandingsResponse standings = response.body();
+                if (response.isSuccessful() && standings != null && standings.getDorms() != null
+                        && !standings.getDorms().isEmpty()) {
+                    standingsEtag = response.headers().get("ETag");
+                    handleServerStandings(standings, callback);
+                } else {
+                    Log.w(TAG, "⚠️ Server standings unavailable (HTTP " + response.code() + ") - querying Willow directly");
+                    fetchLiveEnergyFromWillow(callback);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<DormStandingsResponse> call, Throwable t) {
+                Log.w(TAG, "⚠️ Backend unreachable (" + t.getMessage() + ") - querying Willow directly");
+                fetchLiveEnergyFromWillow(callback);
+            }
+        });
+    }
+
+    /**
+     * A whole standings document covers the dorms the server polls; registry buildings it leaves
+     * out keep their last snapshot and are fetched from Willow directly, so they never drop off
+     */
+    private void handleServerStandings(DormStandingsResponse standings,
+                                       PollingLiveData.ResultCallback<Map<String, DormEnergySnapshot>> callback) {
+        Map<String, DormEnergySnapshot> snapshots = dataManager.applyServerStandings(standings, true);
+        List<Building> missing = dataManager.getBuildingsMissingFromServer();
+        Map<String, DormEnergySnapshot> previous = liveEnergy.getValue();
+        if (previous != null) {
+            for (Building building : missing) {
+                DormEnergySnapshot prior = previous.get(building.getKey());
+                if (prior != null) snapshots.put(building.getKey(), prior);
+            }
+        }
+        handleFetchedSnapshots(snapshots, callback);
+
+        if (!missing.isEmpty()) {
+            fetchMissingDormsFromWillow(missing);
+        }
+    }
+
+    private void fetchMissingDormsFromWillow(List<Building> missing) {
+        if (!dataManager.isAuthenticated()) return;
+
+        Log.d(TAG, "📦 " + missing.size() + " dorms not in server standings - querying Willow for them");
+        dataManager.getDormsEnergyData(missing, new WillowEnergyDataManager.MultiDormEnergyCallback() {
+            @Override
+            public void onPartial(Map<String, DormEnergySnapshot> snapshots) {
+                handlePartialSnapshots(snapshots);
+            }
+
+            @Override
+            public void onSuccess(Map<String, DormEnergySnapshot> snapshots) {
+                Map<String, DormEnergySnapshot> current = liveEnergy.getValue();
+                Map<String, DormEnergySnapshot> updated = current != null
+                        ? new LinkedHashMap<>(current) : new LinkedHashMap<>();
+                updated.putAll(snapshots);
+                handleFetchedSnapshots(updated, livePush);
+                leaderboard.refresh(); // these dorms were just scored on this device
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.w(TAG, "⚠️ Dorms missing from server standings unavailable: " + error);
+            }
+        });
+    }
+
+    /**
+     * The stream only runs while someone observes live energy, like the polls
+     */
+    private void onLiveEnergyActiveChanged(boolean active) {
+        if (active) {
+            standingsStream.start();
+        } else {
+            standingsStream.stop();
+            streamConnected = false;
+        }
+    }
+
+    /**
+     * Stream events are delivered on the main thread
+     */
+    private class StandingsStreamListener implements DormStandingsStream.Listener {
+        @Override
+        public void onSnapshot(DormStandingsResponse standings) {
+            if (standings.getDorms() == null || standings.getDorms().isEmpty()) return;
+            handleServerStandings(standings, livePush);
+            leaderboard.refresh();
+        }
+
+        @Override
+        public void onDelta(DormStandingsResponse delta) {
+            Map<String, DormEnergySnapshot> current = liveEnergy.getValue();
+            Map<String, DormEnergySnapshot> updated = current != null
+                    ? new LinkedHashMap<>(current) : new LinkedHashMap<>();
+            updated.putAll(dataManager.applyServerStandings(delta, false));
+            handleFetchedSnapshots(updated, livePush);
+            leaderboard.refresh(); // server points changed - re-rank now rather than on the next poll
+        }
+
+        @Override
+        public void onHeartbeat() {
+            livePush.onUnchanged();
+        }
+
+        @Override
+        public void onConnectionChanged(boolean connected) {
+            if (streamConnected && !connected) {
+                // Polling takes over right away instead of waiting out the postponed poll
+                Log.d(TAG, "📡 Standings stream lost - falling back to polling");
+                liveEnergy.refresh();
+            }
+            streamConnected = connected;
+        }
+    }
+
+    /**
+     * Fallback when the backend cannot serve standings: one batched Willow round trip from this device
+     */
+    private void fetchLiveEnergyFromWillow(PollingLiveData.ResultCallback<Map<String, DormEnergySnapshot>> callback) {
+        if (!dataManager.isAuthenticated()) {
+            updateStaleDorms(liveEnergy.getValue());
+            callback.onError("Not authenticated");
+            return;
+        }
+
+        // Rediscover buildings in the background once a day; this poll uses the current set
+        if (registry.isExpired()) {
+            registry.refresh(null);
+        }
+
+        // One round trip for every dorm's power (kW) and energy (kWh) twins
+        dataManager.getAllDormsEnergyData(new WillowEnergyDataManager.MultiDormEnergyCallback() {
+            @Override
+            public void onPartial(Map<String, DormEnergySnapshot> snapshots) {
+                handlePartialSnapshots(snapshots);
+            }
+            
+            @Override
+            public void onSuccess(Map<String, DormEnergySnapshot> snapshots) {
+                handleFetchedSnapshots(snapshots, callback);
+            }
+
+            @Override
+            public void onError(String error) {
+                updateStaleDorms(liveEnergy.getValue());
+                callback.onError(error);
+            }
+        });
+    }
+
+    private void handleFetchedSnapshots(Map<String, DormEnergySnapshot> snapshots,
+                                        PollingLiveData.ResultCallback<Map<String, DormEnergySnapshot>> callback) {
+        Map<String, DormEnergySnapshot> previous = liveEnergy.getValue();
+        if (!hasAnyLiveData(snapshots)) {
+            // Every twin fell back - treat as a failed poll so it backs off
+            updateStaleDorms(previous);
+            callback.onError("No live data returned");
+            return;
+        }
+
+        Map<String, DormEnergySnapshot> merged = new LinkedHashMap<>();
+        boolean changed = mergeNewReadings(previous, snapshots, merged);
+        updateStaleDorms(merged);
+
+        if (changed) {
+            Log.d(TAG, "✅ Live energy changed for " + snapshots.size() + " dorms");
+            snapshotCache.save(merged);
+            callback.onSuccess(merged);
+        } else {
+            Log.v(TAG, "⏭️ No newer readings since last poll");
+            callback.onUnchanged();
+        }
+        refreshDependentsIfRequested();
+    }
+
+    /**
+     * Some batches answered while others are still in flight - show their newer readings now.
+     * Dorms still pending keep their current snapshot; the final result replaces the whole map.
+     */
+    private void handlePartialSnapshots(Map<String, DormEnergySnapshot> partial) {
+        if (!hasAnyLiveData(partial)) return;
+
+        Map<String, DormEnergySnapshot> previous = liveEnergy.getValue();
+        Map<String, DormEnergySnapshot> mergedPartial = new LinkedHashMap<>();
+        mergeNewReadings(previous, partial, mergedPartial);
+
+        Map<String, DormEnergySnapshot> merged = new LinkedHashMap<>();
+        if (previous != null) merged.putAll(previous);
+        boolean changed = false;
+        for (Map.Entry<String, DormEnergySnapshot> entry : mergedPartial.entrySet()) {
+            if (merged.put(entry.getKey(), entry.getValue()) != entry.getValue()) changed = true;
+        }
+
+        if (changed) {
+            Log.d(TAG, "⚡ Partial live energy for " + partial.size() + " dorms");
+            liveEnergy.publishPartial(merged);
+        }
+    }
+
+    private void refreshDependentsIfRequested() {
+        if (refreshDependentsAfterLive) {
+            refreshDependentsAfterLive = false;
+            leaderboard.refresh();
+            potentialEnergy.refresh();
+        }
+    }
+
+    /**
+     * Fill merged with, per dorm, the previous snapshot instance if neither twin has a newer
+     * sourceTimestamp, or a new snapshot holding the newest reading of each twin.
+     * A twin that fell back to no-data keeps its last good reading. Cached snapshots are always
+     * replaced, so a successful revalidation clears their cached flag even if nothing is newer.
+     * @return true if any dorm changed
+     */
+    private static boolean mergeNewReadings(Map<String, DormEnergySnapshot> previous,
+                                            Map<String, DormEnergySnapshot> fetched,
+                                            Map<String, DormEnergySnapshot> merged) {
+        boolean changed = previous == null || !previous.keySet().equals(fetched.keySet());
+
+        for (Map.Entry<String, DormEnergySnapshot> entry : fetched.entrySet()) {
+            String dorm = entry.getKey();
+            DormEnergySnapshot prior = previous != null ? previous.get(dorm) : null;
+            if (prior == null) {
+                merged.put(dorm, entry.getValue());
+                changed = true;
+                continue;
+            }
+
+            EnergyDataResponse power = newerReading(entry.getValue().getPowerData(), prior.getPowerData());
+            EnergyDataResponse energy = newerReading(entry.getValue().getEnergyData(), prior.getEnergyData());
+            if (!prior.isCached() && power == prior.getPowerData() && energy == prior.getEnergyData()) {
+                merged.put(dorm, prior);
+            } else {
+                merged.put(dorm, new DormEnergySnapshot(dorm, power, energy));
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private static EnergyDataResponse newerReading(EnergyDataResponse fetched, EnergyDataResponse prior) {
+        if (prior == null) return fetched;
+        if (fetched == null) return prior;
+        return fetched.getSourceTimestamp() > prior.getSourceTimestamp() ? fetched : prior;
+    }
+
+    private void updateStaleDorms(Map<String, DormEnergySnapshot> snapshots) {
+        Set<String> stale = findStaleDorms(snapshots);
+        if (!stale.equals(staleDorms.getValue())) {
+            Log.d(TAG, stale.isEmpty() ? "✅ Live data fresh again" : "⚠️ Stale live data for " + stale);
+            staleDorms.setValue(stale);
+        }
+    }
+
+    private static Set<String> findStaleDorms(Map<String, DormEnergySnapshot> snapshots) {
+        Set<String> stale = new HashSet<>();
+        if (snapshots != null) {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, DormEnergySnapshot> entry : snapshots.entrySet()) {
+                long newest = newestSourceTimestamp(entry.getValue());
+                if (newest > 0 && now - newest > STALE_THRESHOLD) {
+                    stale.add(entry.getKey());
+                }
+            }
+        }
+        return stale;
+    }
+
+    private static long newestSourceTimestamp(DormEnergySnapshot snapshot) {
+        if (snapshot == null) return 0;
+        long power = snapshot.getPowerData() != null ? snapshot.getPowerData().getSourceTimestamp() : 0;
+        long energy = snapshot.getEnergyData() != null ? snapshot.getEnergyData().getSourceTimestamp() : 0;
+        return Math.max(power, energy);
+    }
+
+    private static boolean hasAnyLiveData(Map<String, DormEnergySnapshot> snapshots) {
+        for (DormEnergySnapshot snapshot : snapshots.values()) {
+            if (snapshot.hasLiveData()) return true;
+        }
+        return false;
+    }
+
+    private void fetchLeaderboard(PollingLiveData.ResultCallback<String[]> callback) {
+        localExecutor.execute(() -> {
+            String[] sorted = pointsManager.getSortedLeaderboard();
+            if (Arrays.equals(sorted, leaderboard.getValue())) {
+                callback.onUnchanged();
+            } else {
+                callback.onSuccess(sorted);
+            }
+        });
+    }
+
+    private void fetchPotentialEnergy(PollingLiveData.ResultCallback<Map<String, Integer>> callback) {
+        localExecutor.execute(() -> {
+            Map<String, Integer> points = readPotentialEnergy();
+            if (points.equals(potentialEnergy.getValue())) {
+                callback.onUnchanged();
+            } else {
+                callback.onSuccess(points);
+            }
+        });
+    }
+
+    private Map<String, Integer> readPotentialEnergy() {
+        Map<String, Integer> points = new LinkedHashMap<>();
+        for (String dorm : registry.getBuildingKeys()) {
+            points.put(dorm, dataManager.getDormPotentialEnergy(dorm));
+        }
+        return points;
+    }
+}
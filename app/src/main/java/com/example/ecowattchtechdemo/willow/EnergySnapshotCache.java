@@ -0,0 +1,71 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import com.example.ecowattchtechdemo.willow.models.DormEnergySnapshot;
+import com.google.gson.Gson;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Last-known-good live snapshot per dorm, persisted to SharedPreferences.
+ * Lets the dashboard render real (if old) readings on its first frame while the
+ * first poll revalidates in the background. Only snapshots with live data are stored,
+ * so a failed fetch never overwrites a good reading.
+ */
+public class EnergySnapshotCache {
+
+    private static final String TAG = "EnergySnapshotCache";
+    private static final String PREFS_NAME = "WillowEnergySnapshots";
+    private static final String KEY_PREFIX = "snapshot_";
+
+    private final SharedPreferences prefs;
+    private final Gson gson = new Gson();
+
+    public EnergySnapshotCache(Context context) {
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Stored snapshots for the given dorms, in order; dorms without one are left out.
+     * Returned snapshots are flagged as cached.
+     */
+    public Map<String, DormEnergySnapshot> load(String[] dorms) {
+        Map<String, DormEnergySnapshot> snapshots = new LinkedHashMap<>();
+        for (String dorm : dorms) {
+            String json = prefs.getString(KEY_PREFIX + dorm, null);
+            if (json == null) continue;
+
+            try {
+                DormEnergySnapshot snapshot = gson.fromJson(json, DormEnergySnapshot.class);
+                if (snapshot != null && snapshot.hasLiveData()) {
+                    snapshot.setCached(true);
+                    snapshots.put(dorm, snapshot);
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Discarding unreadable snapshot for " + dorm, e);
+                prefs.edit().remove(KEY_PREFIX + dorm).apply();
+            }
+        }
+        Log.d(TAG, "📦 Loaded " + snapshots.size() + " cached dorm snapshots");
+        return snapshots;
+    }
+
+    /**
+     * Persist every snapshot that carries live data (written asynchronously)
+     */
+    public void save(Map<String, DormEnergySnapshot> snapshots) {
+        SharedPreferences.Editor editor = prefs.edit();
+        for (Map.Entry<String, DormEnergySnapshot> entry : snapshots.entrySet()) {
+            if (entry.getValue() != null && entry.getValue().hasLiveData()) {
+                editor.putString(KEY_PREFIX + entry.getKey(), gson.toJson(entry.getValue()));
+            }
+        }
+        editor.apply();
+    }
+
+    public void clear() {
+        prefs.edit().clear().apply();
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scatter-gather for Retrofit calls: fans one request per key out with at most maxConcurrent
+ * in flight, gives each request its own deadline, and finishes the whole fetch by an overall
+ * deadline - whatever has not answered by then is cancelled and reported as missing.
+ * Results are reported per key as they arrive, then once more as a whole on completion.
+ *
+ * All bookkeeping runs on the main thread (where Retrofit delivers callbacks).
+ */
+public class FetchCoordinator<K, V> {
+
+    private static final String TAG = "FetchCoordinator";
+
+    /**
+     * Builds the request for one key (called on the main thread, just before it is sent)
+     */
+    public interface RequestFactory<K, V> {
+        Call<V> create(K key);
+    }
+
+    /**
+     * Listener callbacks are delivered on the main thread
+     */
+    public interface Listener<K, V> {
+        /** One key answered successfully */
+        void onResult(K key, V value);
+        /** One key failed, timed out or was cancelled (results for other keys are unaffected) */
+        void onFailure(K key, String error);
+        /** Every key has answered or the overall deadline passed; missing holds keys without a result */
+        void onComplete(Map<K, V> results, Set<K> missing);
+    }
+
+    private final int maxConcurrent;
+    private final long requestTimeoutMs;
+    private final long overallDeadlineMs;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public FetchCoordinator(int maxConcurrent, long requestTimeoutMs, long overallDeadlineMs) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.requestTimeoutMs = requestTimeoutMs;
+        this.overallDeadlineMs = overallDeadlineMs;
+    }
+
+    /**
+     * Start fetching every key. The returned fetch can be cancelled; onComplete still runs once.
+     */
+    public Fetch start(List<K> keys, RequestFactory<K, V> factory, Listener<K, V> listener) {
+        Fetch fetch = new Fetch(keys, factory, listener);
+        runOnMain(fetch::begin);
+        return fetch;
+    }
+
+    /**
+     * One scatter-gather run
+     */
+    public class Fetch {
+        private final Deque<K> queued;
+        private final RequestFactory<K, V> factory;
+        private final Listener<K, V> listener;
+        private final Map<K, Call<V>> inFlight = new LinkedHashMap<>();
+        private final Map<K, V> results = new LinkedHashMap<>();
+        private final Set<K> missing = new LinkedHashSet<>();
+        private final Runnable deadline = () -> finish("deadline");
+        private final long startedAt = System.currentTimeMillis();
+        private boolean finished = false;
+
+        Fetch(List<K> keys, RequestFactory<K, V> factory, Listener<K, V> listener) {
+            this.queued = new ArrayDeque<>(keys);
+            this.factory = factory;
+            this.listener = listener;
+        }
+
+        /**
+         * Cancel every outstanding request and complete with what has arrived so far
+         */
+        public void cancel() {
+            runOnMain(() -> finish("cancelled"));
+        }
+
+        private void begin() {
+            if (queued.isEmpty()) {
+                finish(null);
+                return;
+            }
+            mainHandler.postDelayed(deadline, overallDeadlineMs);
+            launchAvailable();
+        }
+
+        private void launchAvailable() {
+            while (!finished && inFlight.size() < maxConcurrent && !queued.isEmpty()) {
+                launch(queued.poll());
+            }
+            if (!finished && inFlight.isEmpty() && queued.isEmpty()) {
+                finish(null);
+            }
+        }
+
+        private void launch(K key) {
+            Call<V> call;
+            try {
+                call = factory.create(key);
+            } catch (RuntimeException e) {
+                recordFailure(key, "Could not build request: " + e.getMessage());
+                return;
+            }
+
+            call.timeout().timeout(requestTimeoutMs, TimeUnit.MILLISECONDS);
+            inFlight.put(key, call);
+            call.enqueue(new Callback<V>() {
+                @Override
+                public void onResponse(Call<V> c, Response<V> response) {
+                    if (finished || inFlight.remove(key) == null) return;
+                    if (response.isSuccessful() && response.body() != null) {
+                        results.put(key, response.body());
+                        listener.onResult(key, response.body());
+                    } else {
+                        recordFailure(key, "HTTP " + response.code());
+                    }
+                    launchAvailable();
+                }
+
+                @Override
+                public void onFailure(Call<V> c, Throwable t) {
+                    if (finished || inFlight.remove(key) == null) return;
+                    recordFailure(key, c.isCanceled() ? "cancelled" : String.valueOf(t.getMessage()));
+                    launchAvailable();
+                }
+            });
+        }
+
+        private void recordFailure(K key, String error) {
+            missing.add(key);
+            listener.onFailure(key, error);
+        }
+
+        private void finish(String reason) {
+            if (finished) return;
+            finished = true;
+            mainHandler.removeCallbacks(deadline);
+
+            // Stragglers and never-started keys count as missing
+            for (Map.Entry<K, Call<V>> entry : inFlight.entrySet()) {
+                entry.getValue().cancel();
+                missing.add(entry.getKey());
+            }
+            inFlight.clear();
+            missing.addAll(queued);
+            queued.clear();
+
+            long elapsed = System.currentTimeMillis() - startedAt;
+            if (reason != null) {
+                Log.w(TAG, "⏱️ Fetch stopped (" + reason + ") after " + elapsed + "ms - "
+                        + results.size() + " ok, " + missing.size() + " missing");
+            } else {
+                Log.d(TAG, "✅ Fetch complete in " + elapsed + "ms - " + results.size() + " ok, " + missing.size() + " missing");
+            }
+            listener.onComplete(results, missing);
+        }
+    }
+
+    private void runOnMain(Runnable action) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            action.run();
+        } else {
+            mainHandler.post(action);
+        }
+    }
+
+    /**
+     * Split items into consecutive batches of at most batchSize
+     */
+    public static <T> List<List<T>> partition(List<T> items, int batchSize) {
+        List<List<T>> batches = new ArrayList<>();
+        int size = Math.max(1, batchSize);
+        for (int i = 0; i < items.size(); i += size) {
+            batches.add(new ArrayList<>(items.subList(i, Math.min(items.size(), i + size))));
+        }
+        return batches;
+    }
+}
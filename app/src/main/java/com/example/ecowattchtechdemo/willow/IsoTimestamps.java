@@ -0,0 +1,109 @@
+package com.example.ecowattchtechdemo.willow;
+
+/**
+ * Allocation-free parser for the ISO-8601 timestamps Willow returns
+ * (e.g. "2024-03-01T17:45:00.1234567Z" or "2024-03-01T10:45:00-07:00").
+ * java.time is not available on every supported API level, and SimpleDateFormat is slow and not thread-safe.
+ */
+public final class IsoTimestamps {
+
+    private IsoTimestamps() {}
+
+    /**
+     * Parse to epoch milliseconds, or return Long.MIN_VALUE if the text is not a supported timestamp
+     */
+    public static long parseEpochMillis(String text) {
+        if (text == null || text.length() < 19) return Long.MIN_VALUE;
+
+        try {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 2);
+            int day = digits(text, 8, 2);
+            int hour = digits(text, 11, 2);
+            int minute = digits(text, 14, 2);
+            int second = digits(text, 17, 2);
+            if (text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(13) != ':' || text.charAt(16) != ':') {
+                return Long.MIN_VALUE;
+            }
+
+            int pos = 19;
+            int millis = 0;
+            if (pos < text.length() && text.charAt(pos) == '.') {
+                pos++;
+                int fractionDigits = 0;
+                while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                    if (fractionDigits < 3) {
+                        millis = millis * 10 + (text.charAt(pos) - '0');
+                    }
+                    fractionDigits++;
+                    pos++;
+                }
+                for (int i = fractionDigits; i < 3; i++) millis *= 10;
+            }
+
+            long offsetSeconds = 0;
+            if (pos < text.length()) {
+                char zone = text.charAt(pos);
+                if (zone == '+' || zone == '-') {
+                    int offsetHours = digits(text, pos + 1, 2);
+                    int offsetMinutes = text.length() >= pos + 6 ? digits(text, pos + 4, 2) : 0;
+                    offsetSeconds = (offsetHours * 3600L + offsetMinutes * 60L) * (zone == '-' ? -1 : 1);
+                } else if (zone != 'Z' && zone != 'z') {
+                    return Long.MIN_VALUE;
+                }
+            }
+
+            long epochDays = daysFromCivil(year, month, day);
+            long epochSeconds = epochDays * 86400L + hour * 3600L + minute * 60L + second - offsetSeconds;
+            return epochSeconds * 1000L + millis;
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Format epoch milliseconds as a UTC timestamp ("2024-03-01T17:45:00.123Z")
+     */
+    public static String formatUtc(long epochMillis) {
+        long epochSeconds = Math.floorDiv(epochMillis, 1000L);
+        int millis = (int) Math.floorMod(epochMillis, 1000L);
+        long epochDays = Math.floorDiv(epochSeconds, 86400L);
+        int secondOfDay = (int) Math.floorMod(epochSeconds, 86400L);
+
+        // Inverse of daysFromCivil
+        long z = epochDays + 719468L;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        int dayOfEra = (int) (z - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        return String.format(java.util.Locale.US, "%04d-%02d-%02dT%02d:%02d:%02d.%03dZ",
+                year, month, day, secondOfDay / 3600, (secondOfDay / 60) % 60, secondOfDay % 60, millis);
+    }
+
+    private static int digits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') throw new NumberFormatException(text);
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Days since 1970-01-01 for a proleptic Gregorian date (Howard Hinnant's algorithm)
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468L;
+    }
+}
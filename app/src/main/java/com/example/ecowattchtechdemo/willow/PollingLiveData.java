@@ -0,0 +1,281 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * LiveData that polls a source on a fixed interval, but only while it has active observers.
+ * - Polling stops in onInactive() (screen stopped / backgrounded) and resumes in onActive(),
+ *   fetching immediately only if the last result is older than the interval.
+ * - At most one fetch is in flight; overlapping polls and refresh() calls are dropped.
+ * - Failures back off exponentially with jitter (equal jitter, capped) instead of retrying on the interval.
+ * - A source can report onUnchanged() so a poll that found nothing new costs no emission.
+ * - Optionally the interval adapts to the data: unchanged polls stretch it, changes shrink it back.
+ * - Values can also be pushed from outside (e.g. a live stream); each push postpones the next poll,
+ *   so polling only takes over when pushes stop arriving.
+ *
+ * All state lives on the main thread; source callbacks may arrive on any thread.
+ */
+public class PollingLiveData<T> extends LiveData<T> {
+
+    private static final String TAG = "PollingLiveData";
+
+    public interface Source<T> {
+        void fetch(ResultCallback<T> callback);
+    }
+
+    public interface ResultCallback<T> {
+        void onSuccess(T value);
+        /** Fetch succeeded but nothing changed since the current value - observers are not notified */
+        void onUnchanged();
+        void onError(String error);
+    }
+
+    /**
+     * Told when the stream gains its first / loses its last active observer
+     */
+    public interface ActiveListener {
+        void onActiveChanged(boolean active);
+    }
+
+    private final String name;
+    private final long intervalMs;      // base (and shortest) interval
+    private long maxIntervalMs;         // == intervalMs unless adaptive
+    private long currentIntervalMs;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+    private final Source<T> source;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final MutableLiveData<String> errors = new MutableLiveData<>();
+    private final Runnable pollRunnable = this::poll;
+    private ActiveListener activeListener;
+
+    private boolean inFlight = false;
+    private int consecutiveFailures = 0;
+    private long nextPollAt = 0;     // SystemClock.uptimeMillis() of the next due poll
+    private long lastSuccessAt = 0;  // System.currentTimeMillis() of the last successful fetch
+
+    public PollingLiveData(String name, long intervalMs, long backoffBaseMs, long backoffMaxMs, Source<T> source) {
+        this(name, intervalMs, backoffBaseMs, backoffMaxMs, source, null);
+    }
+
+    /**
+     * @param initialValue shown to observers until the first fetch completes (e.g. a persisted
+     *                     snapshot); it does not count as fresh, so the first poll runs immediately
+     */
+    public PollingLiveData(String name, long intervalMs, long backoffBaseMs, long backoffMaxMs,
+                           Source<T> source, T initialValue) {
+        super(initialValue);
+        this.name = name;
+        this.intervalMs = intervalMs;
+        this.maxIntervalMs = intervalMs;
+        this.currentIntervalMs = intervalMs;
+        this.backoffBaseMs = backoffBaseMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.source = source;
+    }
+
+    /**
+     * Latest fetch error (cleared to null on the next success)
+     */
+    public LiveData<String> getErrors() {
+        return errors;
+    }
+
+    public long getLastSuccessAt() {
+        return lastSuccessAt;
+    }
+
+    /**
+     * Let the interval follow how often the data actually changes: every unchanged poll stretches
+     * it by half (up to maxIntervalMs), every change halves it (down to the base interval).
+     */
+    public PollingLiveData<T> setAdaptiveInterval(long maxIntervalMs) {
+        runOnMain(() -> {
+            this.maxIntervalMs = Math.max(intervalMs, maxIntervalMs);
+            this.currentIntervalMs = Math.min(currentIntervalMs, this.maxIntervalMs);
+        });
+        return this;
+    }
+
+    public void setActiveListener(ActiveListener listener) {
+        this.activeListener = listener;
+    }
+
+    /**
+     * Callback for results that arrive outside the poll loop. A pushed value is applied like a
+     * successful poll; a pushed onUnchanged() (e.g. a heartbeat) only postpones the next poll and
+     * does not stretch the adaptive interval. Pushed errors are ignored - polling reports its own.
+     */
+    public ResultCallback<T> pushCallback() {
+        return new ResultCallback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                runOnMain(() -> handlePushed(value, true));
+            }
+
+            @Override
+            public void onUnchanged() {
+                runOnMain(() -> handlePushed(null, false));
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.v(TAG, "⏭️ " + name + " push failed: " + error);
+            }
+        };
+    }
+
+    /**
+     * Show part of a fetch that is still in flight. Scheduling, backoff and errors are left to
+     * the fetch's final result.
+     */
+    public void publishPartial(T value) {
+        runOnMain(() -> setValue(value));
+    }
+
+    /**
+     * Interval used after the next successful poll
+     */
+    public long getCurrentIntervalMs() {
+        return currentIntervalMs;
+    }
+
+    /**
+     * Fetch now and reset any backoff. Ignored while a fetch is already in flight.
+     */
+    public void refresh() {
+        runOnMain(() -> {
+            mainHandler.removeCallbacks(pollRunnable);
+            consecutiveFailures = 0;
+            nextPollAt = SystemClock.uptimeMillis();
+            poll();
+        });
+    }
+
+    @Override
+    protected void onActive() {
+        scheduleNextPoll();
+        if (activeListener != null) activeListener.onActiveChanged(true);
+    }
+
+    @Override
+    protected void onInactive() {
+        mainHandler.removeCallbacks(pollRunnable);
+        Log.d(TAG, "⏸️ " + name + " paused (no active observers)");
+        if (activeListener != null) activeListener.onActiveChanged(false);
+    }
+
+    private void poll() {
+        if (inFlight) {
+            Log.v(TAG, "⏭️ " + name + " fetch already in flight");
+            return;
+        }
+        inFlight = true;
+
+        source.fetch(new ResultCallback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                runOnMain(() -> handleSuccess(value, true));
+            }
+
+            @Override
+            public void onUnchanged() {
+                runOnMain(() -> handleSuccess(null, false));
+            }
+
+            @Override
+            public void onError(String error) {
+                runOnMain(() -> handleError(error));
+            }
+        });
+    }
+
+    private void handleSuccess(T value, boolean changed) {
+        inFlight = false;
+        consecutiveFailures = 0;
+        lastSuccessAt = System.currentTimeMillis();
+        adaptInterval(changed);
+        nextPollAt = SystemClock.uptimeMillis() + currentIntervalMs;
+
+        if (errors.getValue() != null) {
+            errors.setValue(null);
+        }
+        if (changed) {
+            setValue(value);
+        } else {
+            Log.v(TAG, "⏭️ " + name + " unchanged");
+        }
+        scheduleNextPoll();
+    }
+
+    private void handlePushed(T value, boolean changed) {
+        consecutiveFailures = 0;
+        lastSuccessAt = System.currentTimeMillis();
+        if (changed) {
+            adaptInterval(true);
+        }
+        nextPollAt = SystemClock.uptimeMillis() + currentIntervalMs;
+
+        if (errors.getValue() != null) {
+            errors.setValue(null);
+        }
+        if (changed) {
+            setValue(value);
+        }
+        // An in-flight poll reschedules itself when it completes
+        if (!inFlight) scheduleNextPoll();
+    }
+
+    private void handleError(String error) {
+        inFlight = false;
+        consecutiveFailures++;
+        long delay = backoffDelay(consecutiveFailures);
+        nextPollAt = SystemClock.uptimeMillis() + delay;
+
+        Log.w(TAG, "⚠️ " + name + " failed (" + consecutiveFailures + "x): " + error + " - retrying in " + (delay / 1000) + "s");
+        errors.setValue(error);
+        scheduleNextPoll();
+    }
+
+    private void adaptInterval(boolean changed) {
+        if (maxIntervalMs <= intervalMs) return;
+
+        long previous = currentIntervalMs;
+        currentIntervalMs = changed
+                ? Math.max(intervalMs, currentIntervalMs / 2)
+                : Math.min(maxIntervalMs, currentIntervalMs + currentIntervalMs / 2);
+        if (currentIntervalMs != previous) {
+            Log.d(TAG, "⏱️ " + name + " interval " + (previous / 1000) + "s → " + (currentIntervalMs / 1000) + "s");
+        }
+    }
+
+    private void scheduleNextPoll() {
+        mainHandler.removeCallbacks(pollRunnable);
+        if (inFlight || !hasActiveObservers()) return;
+
+        long delay = Math.max(0, nextPollAt - SystemClock.uptimeMillis());
+        mainHandler.postDelayed(pollRunnable, delay);
+    }
+
+    /**
+     * min(max, base * 2^(failures-1)), then a random point in its upper half so clients don't retry in lockstep
+     */
+    private long backoffDelay(int failures) {
+        long cap = Math.min(backoffMaxMs, backoffBaseMs << Math.min(failures - 1, 16));
+        return cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+    }
+
+    private void runOnMain(Runnable action) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            action.run();
+        } else {
+            mainHandler.post(action);
+        }
+    }
+}
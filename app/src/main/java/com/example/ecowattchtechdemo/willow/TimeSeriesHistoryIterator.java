@@ -0,0 +1,171 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.util.Log;
+import com.example.ecowattchtechdemo.willow.models.TimeSeriesPage;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Walks a time-series history range page by page by following continuationToken.
+ * A background producer fetches ahead of the consumer, keeping at most maxInFlightPages
+ * parsed pages buffered, so long ranges load incrementally in bounded memory.
+ *
+ * hasNext()/next() block while the next page is loading - never iterate on the main thread.
+ * Always close() the iterator (or exhaust it) so the producer stops.
+ */
+public class TimeSeriesHistoryIterator implements Iterator<TimeSeriesPage>, Closeable {
+
+    private static final String TAG = "TimeSeriesHistory";
+    private static final Object END_OF_PAGES = new Object();
+    private static final ExecutorService prefetchExecutor = Executors.newCachedThreadPool();
+
+    private final WillowApiService apiService;
+    private final WillowTokenProvider tokenProvider;
+    private final List<String> twinIds;
+    private final String startTime;
+    private final String endTime;
+    private final int pageSize;
+    private final BlockingQueue<Object> pages;
+    private final Future<?> producer;
+
+    private volatile boolean closed = false;
+    private volatile Call<TimeSeriesPage> currentCall;
+    private Object nextItem;
+
+    /**
+     * Thrown from hasNext()/next() when a page could not be fetched
+     */
+    public static class HistoryFetchException extends RuntimeException {
+        public HistoryFetchException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * @param twinIds          one twin uses GET time-series/{id}; several use POST time-series/ids
+     * @param startTime        ISO-8601 range start
+     * @param endTime          ISO-8601 range end
+     * @param pageSize         points requested per page
+     * @param maxInFlightPages pages fetched ahead of the consumer before the producer waits
+     */
+    public TimeSeriesHistoryIterator(WillowApiService apiService, WillowTokenProvider tokenProvider,
+                                     List<String> twinIds, String startTime, String endTime,
+                                     int pageSize, int maxInFlightPages) {
+        this.apiService = apiService;
+        this.tokenProvider = tokenProvider;
+        this.twinIds = new ArrayList<>(twinIds);
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.pageSize = pageSize;
+        this.pages = new ArrayBlockingQueue<>(Math.max(1, maxInFlightPages));
+        this.producer = prefetchExecutor.submit(this::fetchPages);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextItem == null) {
+            try {
+                nextItem = pages.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                return false;
+            }
+        }
+        if (nextItem instanceof HistoryFetchException) {
+            throw (HistoryFetchException) nextItem;
+        }
+        return nextItem != END_OF_PAGES;
+    }
+
+    @Override
+    public TimeSeriesPage next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        TimeSeriesPage page = (TimeSeriesPage) nextItem;
+        nextItem = null;
+        return page;
+    }
+
+    /**
+     * Stop fetching and drop any buffered pages
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Call<TimeSeriesPage> call = currentCall;
+        if (call != null) {
+            call.cancel();
+        }
+        producer.cancel(true);
+        pages.clear();
+        pages.offer(END_OF_PAGES); // release a consumer blocked in hasNext()
+    }
+
+    /**
+     * Producer loop: request the next page as soon as the previous one is queued
+     */
+    private void fetchPages() {
+        String continuationToken = null;
+        int pageCount = 0;
+
+        try {
+            while (!closed) {
+                Call<TimeSeriesPage> call = createCall(continuationToken);
+                currentCall = call;
+                Response<TimeSeriesPage> response = call.execute();
+
+                if (!response.isSuccessful() || response.body() == null) {
+                    pages.put(new HistoryFetchException("History page " + pageCount + " failed: HTTP " + response.code()));
+                    return;
+                }
+
+                TimeSeriesPage page = response.body();
+                pageCount++;
+                Log.d(TAG, "📄 Page " + pageCount + ": " + page);
+
+                // Blocks once maxInFlightPages are waiting for the consumer
+                pages.put(page);
+
+                if (!page.hasMore()) break;
+                if (pageCount >= WillowApiV3Config.HISTORY_MAX_PAGES) {
+                    Log.w(TAG, "Stopping history fetch after " + pageCount + " pages");
+                    break;
+                }
+                continuationToken = page.getContinuationToken();
+            }
+            pages.put(END_OF_PAGES);
+        } catch (InterruptedException e) {
+            // close() cancelled the producer
+        } catch (Exception e) {
+            if (closed) return;
+            Log.e(TAG, "❌ History fetch failed", e);
+            try {
+                pages.put(new HistoryFetchException("History fetch failed: " + e.getMessage()));
+            } catch (InterruptedException ignored) {
+                // closed while waiting for the consumer
+            }
+        }
+    }
+
+    private Call<TimeSeriesPage> createCall(String continuationToken) {
+        String authorization = tokenProvider.getCurrentToken();
+        if (twinIds.size() == 1) {
+            return apiService.getTimeSeries(authorization, twinIds.get(0), startTime, endTime,
+                    pageSize, true, continuationToken);
+        }
+        return apiService.getTimeSeriesForMultipleTwins(authorization, twinIds, startTime, endTime,
+                pageSize, true, continuationToken);
+    }
+}
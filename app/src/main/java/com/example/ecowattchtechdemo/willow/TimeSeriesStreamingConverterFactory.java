@@ -0,0 +1,161 @@
+package com.example.ecowattchtechdemo.willow;
+
+import com.example.ecowattchtechdemo.willow.models.ColumnarTimeSeries;
+import com.example.ecowattchtechdemo.willow.models.TimeSeriesPage;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Retrofit converter that streams time-series history into a TimeSeriesPage.
+ * Points are read token by token with a JsonReader and only twinId, sourceTimestamp,
+ * scalarValue and the dataQuality flags are kept; properties, enqueuedTimestamp and the
+ * rest are skipped without being materialized. Must be registered before GsonConverterFactory.
+ */
+public class TimeSeriesStreamingConverterFactory extends Converter.Factory {
+
+    private static final int INITIAL_SERIES_CAPACITY = WillowApiV3Config.DEFAULT_TIME_SERIES_LIMIT;
+
+    public static TimeSeriesStreamingConverterFactory create() {
+        return new TimeSeriesStreamingConverterFactory();
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        if (type == TimeSeriesPage.class) {
+            return body -> {
+                try (JsonReader reader = new JsonReader(body.charStream())) {
+                    return readPage(reader);
+                } finally {
+                    body.close();
+                }
+            };
+        }
+        return null; // let Gson handle everything else
+    }
+
+    /**
+     * Accepts either the paged object ({"data": [...], "continuationToken": ...}) or a bare array of points
+     */
+    static TimeSeriesPage readPage(JsonReader reader) throws IOException {
+        TimeSeriesPage page = new TimeSeriesPage();
+
+        if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+            readPoints(reader, page);
+            return page;
+        }
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "data":
+                    readPoints(reader, page);
+                    break;
+                case "continuationToken":
+                    page.setContinuationToken(reader.nextString());
+                    break;
+                case "errorData":
+                    page.setErrorMessage(readErrorMessage(reader));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return page;
+    }
+
+    private static void readPoints(JsonReader reader, TimeSeriesPage page) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String twinId = null;
+            long timestamp = Long.MIN_VALUE;
+            double value = Double.NaN;
+            int qualityFlags = 0;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.skipValue();
+                    continue;
+                }
+                switch (name) {
+                    case "twinId":
+                        twinId = reader.nextString();
+                        break;
+                    case "sourceTimestamp":
+                        timestamp = IsoTimestamps.parseEpochMillis(reader.nextString());
+                        break;
+                    case "scalarValue":
+                        if (reader.peek() == JsonToken.NUMBER || reader.peek() == JsonToken.STRING) {
+                            value = reader.nextDouble();
+                        } else {
+                            reader.skipValue();
+                        }
+                        break;
+                    case "dataQuality":
+                        qualityFlags = readQualityFlags(reader);
+                        break;
+                    default:
+                        reader.skipValue(); // properties, enqueuedTimestamp, ...
+                }
+            }
+            reader.endObject();
+
+            // Points without a usable timestamp or value carry nothing we can chart
+            if (timestamp != Long.MIN_VALUE && !Double.isNaN(value)) {
+                ColumnarTimeSeries series = page.getOrCreateSeries(twinId != null ? twinId : "", INITIAL_SERIES_CAPACITY);
+                series.add(timestamp, value, qualityFlags);
+            }
+        }
+        reader.endArray();
+    }
+
+    private static int readQualityFlags(JsonReader reader) throws IOException {
+        int flags = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() != JsonToken.BOOLEAN) {
+                reader.skipValue();
+                continue;
+            }
+            if (!reader.nextBoolean()) continue;
+            switch (name) {
+                case "offline": flags |= ColumnarTimeSeries.QUALITY_OFFLINE; break;
+                case "valueOutOfRange": flags |= ColumnarTimeSeries.QUALITY_OUT_OF_RANGE; break;
+                case "sparse": flags |= ColumnarTimeSeries.QUALITY_SPARSE; break;
+                case "flatline": flags |= ColumnarTimeSeries.QUALITY_FLATLINE; break;
+                case "delayed": flags |= ColumnarTimeSeries.QUALITY_DELAYED; break;
+                default: break;
+            }
+        }
+        reader.endObject();
+        return flags;
+    }
+
+    private static String readErrorMessage(JsonReader reader) throws IOException {
+        String message = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("message".equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                message = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return message;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import com.example.ecowattchtechdemo.willow.models.DigitalTwin;
+import com.google.gson.Gson;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TTL-bounded cache of DigitalTwin metadata keyed by twin ID.
+ * Entries are kept in memory and persisted to SharedPreferences so they survive process restarts.
+ * Once an entry expires it can be revalidated by comparing lastUpdateTime instead of being replaced.
+ */
+public class TwinMetadataCache {
+
+    private static final String TAG = "TwinMetadataCache";
+    private static final String PREFS_NAME = "WillowTwinCache";
+    private static final String KEY_PREFIX = "twin_";
+
+    private final Map<String, CachedTwin> entries = new ConcurrentHashMap<>();
+    private final SharedPreferences prefs; // null when no context was provided (memory only)
+    private final Gson gson = new Gson();
+    private final long ttlMillis;
+    private final boolean revalidateOnLastUpdateTime;
+
+    public TwinMetadataCache(Context context) {
+        this(context, WillowApiV3Config.TWIN_CACHE_TTL, WillowApiV3Config.TWIN_CACHE_REVALIDATE);
+    }
+
+    public TwinMetadataCache(Context context, long ttlMillis, boolean revalidateOnLastUpdateTime) {
+        this.prefs = context != null
+                ? context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+                : null;
+        this.ttlMillis = ttlMillis;
+        this.revalidateOnLastUpdateTime = revalidateOnLastUpdateTime;
+    }
+
+    /**
+     * Get a cached twin only if it is still within its TTL
+     */
+    public DigitalTwin getFresh(String twinId) {
+        CachedTwin entry = load(twinId);
+        if (entry != null && !entry.isExpired(ttlMillis)) {
+            return entry.twin;
+        }
+        return null;
+    }
+
+    /**
+     * Get a cached twin even if it has expired (used to serve stale data on errors)
+     */
+    public DigitalTwin getStale(String twinId) {
+        CachedTwin entry = load(twinId);
+        return entry != null ? entry.twin : null;
+    }
+
+    /**
+     * Whether an expired entry should be revalidated rather than fully re-fetched
+     */
+    public boolean shouldRevalidate(String twinId) {
+        return revalidateOnLastUpdateTime && load(twinId) != null;
+    }
+
+    /**
+     * Whether a fetched twin has the same lastUpdateTime as the cached entry,
+     * i.e. a revalidation fetch without relationships may renew it
+     */
+    public boolean isUnchanged(DigitalTwin fetched) {
+        if (fetched == null || fetched.getLastUpdateTime() == null) return false;
+        CachedTwin existing = load(fetched.getId());
+        return existing != null && existing.twin != null
+                && fetched.getLastUpdateTime().equals(existing.twin.getLastUpdateTime());
+    }
+
+    /**
+     * Store a freshly fetched twin and return the twin callers should use.
+     * If revalidation is enabled and lastUpdateTime is unchanged, the existing entry
+     * (which may include relationships) is kept and only its TTL is renewed.
+     * A changed twin replaces the entry, so it must have been fetched with relationships.
+     */
+    public DigitalTwin store(DigitalTwin fetched) {
+        if (fetched == null || fetched.getId() == null) return fetched;
+
+        if (revalidateOnLastUpdateTime && isUnchanged(fetched)) {
+            DigitalTwin existing = load(fetched.getId()).twin;
+            Log.d(TAG, "Twin unchanged since " + fetched.getLastUpdateTime() + " - renewed " + fetched.getId());
+            put(existing);
+            return existing;
+        }
+
+        put(fetched);
+        return fetched;
+    }
+
+    /**
+     * Put a twin into the cache, resetting its TTL
+     */
+    public void put(DigitalTwin twin) {
+        if (twin == null || twin.getId() == null) return;
+
+        CachedTwin entry = new CachedTwin(twin, System.currentTimeMillis());
+        entries.put(twin.getId(), entry);
+
+        if (prefs != null) {
+            prefs.edit().putString(KEY_PREFIX + twin.getId(), gson.toJson(entry)).apply();
+        }
+    }
+
+    /**
+     * Remove a single twin from the cache
+     */
+    public void invalidate(String twinId) {
+        entries.remove(twinId);
+        if (prefs != null) {
+            prefs.edit().remove(KEY_PREFIX + twinId).apply();
+        }
+    }
+
+    /**
+     * Remove every cached twin
+     */
+    public void clear() {
+        entries.clear();
+        if (prefs != null) {
+            prefs.edit().clear().apply();
+        }
+    }
+
+    private CachedTwin load(String twinId) {
+        if (twinId == null) return null;
+
+        CachedTwin entry = entries.get(twinId);
+        if (entry == null && prefs != null) {
+            String json = prefs.getString(KEY_PREFIX + twinId, null);
+            if (json != null) {
+                try {
+                    entry = gson.fromJson(json, CachedTwin.class);
+                    if (entry != null && entry.twin != null) {
+                        entries.put(twinId, entry);
+                    }
+                } catch (Exception e) {
+                    Log.w(TAG, "Discarding unreadable cache entry for " + twinId, e);
+                    invalidate(twinId);
+                    entry = null;
+                }
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Cached twin plus the time it was stored
+     */
+    private static class CachedTwin {
+        DigitalTwin twin;
+        long cachedAt;
+
+        CachedTwin(DigitalTwin twin, long cachedAt) {
+            this.twin = twin;
+            this.cachedAt = cachedAt;
+        }
+
+        boolean isExpired(long ttlMillis) {
+            return System.currentTimeMillis() - cachedAt > ttlMillis;
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.example.ecowattchtechdemo.willow;
 
 import android.util.Log;
+import com.example.ecowattchtechdemo.SharedHttpClient;
 import com.example.ecowattchtechdemo.willow.models.*;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
+import okhttp3.Authenticator;
+import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
-import okhttp3.logging.HttpLoggingInterceptor;
+import okhttp3.Request;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -14,57 +19,68 @@ import java.util.concurrent.TimeUnit;
 public class WillowApiClient {
     
     private static final String TAG = "WillowApiClient";
-    private static WillowApiService apiService;
+    private static final Map<String, WillowApiService> servicesByBaseUrl = new ConcurrentHashMap<>();
+    private static OkHttpClient httpClient;
     private static String baseUrl = WillowApiV3Config.DEFAULT_BASE_URL;
     
     /**
      * Get Willow API service instance
      */
     public static WillowApiService getApiService() {
-        if (apiService == null) {
-            apiService = createApiService(baseUrl);
-        }
-        return apiService;
+        return getApiService(baseUrl);
     }
     
     /**
-     * Get API service with custom base URL
+     * Get API service with custom base URL (one cached Retrofit service per base URL)
      */
     public static WillowApiService getApiService(String customBaseUrl) {
-        return createApiService(customBaseUrl);
+        return servicesByBaseUrl.computeIfAbsent(customBaseUrl, WillowApiClient::createApiService);
     }
     
     /**
-     * Update base URL and recreate service
+     * Update base URL - services for other URLs stay cached
      */
     public static void setBaseUrl(String newBaseUrl) {
         baseUrl = newBaseUrl;
-        apiService = null; // Force recreation on next call
     }
     
     /**
-     * Create API service instance
+     * Willow client derived from the shared stack, so it reuses the app-wide connection pool and dispatcher
      */
-    private static WillowApiService createApiService(String baseUrlParam) {
-        try {
-            // Create HTTP client with logging
-            OkHttpClient.Builder httpClientBuilder = new OkHttpClient.Builder()
+    private static synchronized OkHttpClient getHttpClient() {
+        if (httpClient == null) {
+            OkHttpClient.Builder httpClientBuilder = SharedHttpClient.getClient().newBuilder()
                     .connectTimeout(WillowApiV3Config.CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS)
                     .readTimeout(WillowApiV3Config.READ_TIMEOUT, TimeUnit.MILLISECONDS)
-                    .writeTimeout(WillowApiV3Config.WRITE_TIMEOUT, TimeUnit.MILLISECONDS);
+                    .writeTimeout(WillowApiV3Config.WRITE_TIMEOUT, TimeUnit.MILLISECONDS)
+                    .authenticator(createTokenAuthenticator());
             
-            // Add logging interceptor for debugging - ALWAYS ENABLED for troubleshooting
-            HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-            loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-            httpClientBuilder.addInterceptor(loggingInterceptor);
-            Log.d(TAG, "📡 HTTP logging enabled for API requests");
+            // Fail fast while Willow is down - rejected calls never reach the network or the metrics
+            httpClientBuilder.addInterceptor(WillowCircuitBreaker.getInstance());
             
-            OkHttpClient httpClient = httpClientBuilder.build();
+            // Requests built before the first token exist go out with one instead of failing with a 401
+            httpClientBuilder.addInterceptor(createTokenInterceptor());
             
+            // Per-endpoint metrics instead of full body logging - see WillowApiMetrics for diagnostics
+            httpClientBuilder.addInterceptor(new ApiMetricsInterceptor(
+                    WillowApiV3Config.METRICS_BODY_SAMPLE_RATE,
+                    WillowApiV3Config.METRICS_BODY_LOG_MAX_BYTES));
+            
+            httpClient = httpClientBuilder.build();
+        }
+        return httpClient;
+    }
+    
+    /**
+     * Create API service instance
+     */
+    private static WillowApiService createApiService(String baseUrlParam) {
+        try {
             // Create Retrofit instance
             Retrofit retrofit = new Retrofit.Builder()
                     .baseUrl(WillowApiV3Config.getApiUrl(baseUrlParam) + "/")
-                    .client(httpClient)
+                    .client(getHttpClient())
+                    .addConverterFactory(TimeSeriesStreamingConverterFactory.create()) // history pages, before Gson
                     .addConverterFactory(GsonConverterFactory.create())
                     .build();
             
@@ -77,6 +93,54 @@ public class WillowApiClient {
         }
     }
     
+    /**
+     * Attach the current token to requests that have no Authorization header, fetching one first if needed.
+     * The token request itself is left alone.
+     */
+    private static Interceptor createTokenInterceptor() {
+        return chain -> {
+            Request request = chain.request();
+            if (request.header(WillowApiV3Config.AUTHORIZATION_HEADER) != null
+                    || request.url().encodedPath().endsWith(WillowApiV3Config.OAUTH_TOKEN_ENDPOINT)) {
+                return chain.proceed(request);
+            }
+            
+            String header = WillowTokenProvider.getInstance().getTokenBlocking();
+            if (header == null) {
+                Log.w(TAG, "⚠️ No token available for " + request.url().encodedPath());
+                return chain.proceed(request);
+            }
+            return chain.proceed(request.newBuilder()
+                    .header(WillowApiV3Config.AUTHORIZATION_HEADER, header)
+                    .build());
+        };
+    }
+    
+    /**
+     * Retry a request once with a fresh token when the API answers 401
+     */
+    private static Authenticator createTokenAuthenticator() {
+        return (route, response) -> {
+            String failedHeader = response.request().header(WillowApiV3Config.AUTHORIZATION_HEADER);
+            
+            // Only authorized calls are retried, and only once (no prior 401 in the chain)
+            if (failedHeader == null || response.priorResponse() != null) {
+                return null;
+            }
+            
+            Log.w(TAG, "🔄 401 from " + response.request().url().encodedPath() + " - refreshing token and retrying");
+            String newHeader = WillowTokenProvider.getInstance().refreshBlocking(failedHeader);
+            if (newHeader == null || newHeader.equals(failedHeader)) {
+                return null;
+            }
+            
+            Request retry = response.request().newBuilder()
+                    .header(WillowApiV3Config.AUTHORIZATION_HEADER, newHeader)
+                    .build();
+            return retry;
+        };
+    }
+    
     /**
      * Test connection to API
      */
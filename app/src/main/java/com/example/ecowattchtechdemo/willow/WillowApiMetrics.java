@@ -0,0 +1,169 @@
+package com.example.ecowattchtechdemo.willow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory request metrics for the Willow API, filled by ApiMetricsInterceptor.
+ * Per endpoint: latency histogram, bytes in/out, status codes, retries and network errors.
+ * Read through getSummary() / getEndpointStats() for in-app diagnostics.
+ */
+public class WillowApiMetrics {
+
+    // Latency bucket upper bounds in milliseconds (last bucket is open-ended)
+    private static final long[] LATENCY_BUCKETS_MS = {50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private static final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    private WillowApiMetrics() {}
+
+    /**
+     * Record one completed call (status code, or -1 for a network failure)
+     */
+    static void record(String endpoint, long latencyMs, int statusCode, long bytesOut, long bytesIn, int retries) {
+        EndpointStats stats = endpoints.computeIfAbsent(endpoint, EndpointStats::new);
+        stats.record(latencyMs, statusCode, bytesOut, bytesIn, retries);
+    }
+
+    /**
+     * Response bytes are counted as the body is consumed, after the call itself was recorded
+     */
+    static void recordBytesIn(String endpoint, long bytes) {
+        EndpointStats stats = endpoints.get(endpoint);
+        if (stats != null) {
+            stats.bytesIn.addAndGet(bytes);
+        }
+    }
+
+    /**
+     * Get stats for every endpoint seen so far, sorted by endpoint
+     */
+    public static List<EndpointStats> getEndpointStats() {
+        List<EndpointStats> list = new ArrayList<>(endpoints.values());
+        Collections.sort(list, (a, b) -> a.endpoint.compareTo(b.endpoint));
+        return list;
+    }
+
+    /**
+     * Clear all collected metrics
+     */
+    public static void reset() {
+        endpoints.clear();
+    }
+
+    /**
+     * Human-readable diagnostics report
+     */
+    public static String getSummary() {
+        StringBuilder info = new StringBuilder();
+        info.append("📡 WILLOW API METRICS 📡\n");
+
+        List<EndpointStats> stats = getEndpointStats();
+        if (stats.isEmpty()) {
+            info.append("No requests recorded yet\n");
+            return info.toString();
+        }
+
+        for (EndpointStats endpoint : stats) {
+            info.append(String.format(Locale.US,
+                    "\n%s\n  calls: %d | errors: %d | retries: %d\n  p50: %s | p95: %s | max: %d ms\n  bytes out: %d | bytes in: %d\n  status: %s\n",
+                    endpoint.getEndpoint(),
+                    endpoint.getCount(), endpoint.getNetworkErrors(), endpoint.getRetries(),
+                    formatBucket(endpoint.getPercentileMs(0.50)), formatBucket(endpoint.getPercentileMs(0.95)),
+                    endpoint.getMaxLatencyMs(),
+                    endpoint.getBytesOut(), endpoint.getBytesIn(),
+                    endpoint.getStatusCounts()));
+        }
+        return info.toString();
+    }
+
+    private static String formatBucket(long upperBoundMs) {
+        return upperBoundMs == Long.MAX_VALUE
+                ? "> " + LATENCY_BUCKETS_MS[LATENCY_BUCKETS_MS.length - 1] + " ms"
+                : "≤ " + upperBoundMs + " ms";
+    }
+
+    /**
+     * Counters for a single endpoint (method + normalized path)
+     */
+    public static class EndpointStats {
+        private final String endpoint;
+        private final AtomicLongArray latencyBuckets = new AtomicLongArray(LATENCY_BUCKETS_MS.length + 1);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong networkErrors = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+        private final AtomicLong bytesOut = new AtomicLong();
+        private final AtomicLong bytesIn = new AtomicLong();
+        private final AtomicLong maxLatencyMs = new AtomicLong();
+        private final Map<Integer, AtomicLong> statusCounts = new ConcurrentHashMap<>();
+
+        EndpointStats(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        void record(long latencyMs, int statusCode, long out, long in, int retryCount) {
+            count.incrementAndGet();
+            latencyBuckets.incrementAndGet(bucketIndex(latencyMs));
+            maxLatencyMs.accumulateAndGet(latencyMs, Math::max);
+            retries.addAndGet(retryCount);
+            if (out > 0) bytesOut.addAndGet(out);
+            if (in > 0) bytesIn.addAndGet(in);
+
+            if (statusCode < 0) {
+                networkErrors.incrementAndGet();
+            } else {
+                statusCounts.computeIfAbsent(statusCode, code -> new AtomicLong()).incrementAndGet();
+            }
+        }
+
+        private static int bucketIndex(long latencyMs) {
+            for (int i = 0; i < LATENCY_BUCKETS_MS.length; i++) {
+                if (latencyMs <= LATENCY_BUCKETS_MS[i]) return i;
+            }
+            return LATENCY_BUCKETS_MS.length;
+        }
+
+        /**
+         * Upper bound of the bucket containing the given percentile (Long.MAX_VALUE for the open bucket)
+         */
+        public long getPercentileMs(double percentile) {
+            long total = 0;
+            for (int i = 0; i < latencyBuckets.length(); i++) total += latencyBuckets.get(i);
+            if (total == 0) return 0;
+
+            long target = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < latencyBuckets.length(); i++) {
+                seen += latencyBuckets.get(i);
+                if (seen >= target) {
+                    return i < LATENCY_BUCKETS_MS.length ? LATENCY_BUCKETS_MS[i] : Long.MAX_VALUE;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        // Getters
+        public String getEndpoint() { return endpoint; }
+        public long getCount() { return count.get(); }
+        public long getNetworkErrors() { return networkErrors.get(); }
+        public long getRetries() { return retries.get(); }
+        public long getBytesOut() { return bytesOut.get(); }
+        public long getBytesIn() { return bytesIn.get(); }
+        public long getMaxLatencyMs() { return maxLatencyMs.get(); }
+
+        public Map<Integer, Long> getStatusCounts() {
+            Map<Integer, Long> counts = new TreeMap<>();
+            for (Map.Entry<Integer, AtomicLong> entry : statusCounts.entrySet()) {
+                counts.put(entry.getKey(), entry.getValue().get());
+            }
+            return counts;
+        }
+    }
+}
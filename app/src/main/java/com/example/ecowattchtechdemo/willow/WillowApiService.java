@@ -52,16 +52,17 @@ public interface WillowApiService {
     );
     
     /**
-     * Get time series data for a twin
+     * Get time series history for a twin (streamed into columnar arrays)
      */
     @GET("time-series/{twinId}")
-    Call<TimeSeriesResponse> getTimeSeries(
+    Call<TimeSeriesPage> getTimeSeries(
         @Header("Authorization") String authorization,
         @Path("twinId") String twinId,
         @Query("start") String startTime,
         @Query("end") String endTime,
         @Query("pageSize") int pageSize,
-        @Query("includeDataQuality") boolean includeDataQuality
+        @Query("includeDataQuality") boolean includeDataQuality,
+        @Query("continuationToken") String continuationToken // null for the first page
     );
     
     /**
@@ -75,16 +76,17 @@ public interface WillowApiService {
     );
     
     /**
-     * Get time series data for multiple twins
+     * Get time series history for multiple twins (streamed into columnar arrays, grouped by twin)
      */
     @POST("time-series/ids")
-    Call<TimeSeriesResponse> getTimeSeriesForMultipleTwins(
+    Call<TimeSeriesPage> getTimeSeriesForMultipleTwins(
         @Header("Authorization") String authorization,
         @Body List<String> twinIds,
         @Query("start") String startTime,
         @Query("end") String endTime,
         @Query("pageSize") int pageSize,
-        @Query("includeDataQuality") boolean includeDataQuality
+        @Query("includeDataQuality") boolean includeDataQuality,
+        @Query("continuationToken") String continuationToken // null for the first page
     );
     
     /**
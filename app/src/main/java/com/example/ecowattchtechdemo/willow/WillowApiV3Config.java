@@ -23,6 +23,7 @@ public class WillowApiV3Config {
     // OAuth2 Configuration
     public static final String GRANT_TYPE = "client_credentials";
     public static final String TOKEN_TYPE = "Bearer";
+    public static final long TOKEN_REFRESH_MARGIN = 5 * 60 * 1000L; // refresh 5 minutes before expiry
     
     // Building Twin IDs for NAU dormitories - Loaded from BuildConfig (local.properties)
     // Power Twin IDs (kW - instantaneous power consumption)
@@ -39,15 +40,45 @@ public class WillowApiV3Config {
     public static final String ENERGY_CONSUMPTION_MODEL = "dtmi:com:willowinc:EnergyConsumption;1";
     public static final String POWER_CONSUMPTION_MODEL = "dtmi:com:willowinc:PowerConsumption;1";
     public static final String ELECTRICAL_ENERGY_MODEL = "dtmi:com:willowinc:ElectricalEnergy;1";
+    public static final String BUILDING_MODEL = "dtmi:com:willowinc:Building;1";
     
     // Time series configuration
     public static final int DEFAULT_TIME_SERIES_LIMIT = 100;
     public static final long DEFAULT_TIME_RANGE_HOURS = 24;
     
-    // Request timeouts (in milliseconds) - Increased for reliable Willow API access
-    public static final int CONNECTION_TIMEOUT = 60000; // 60 seconds
-    public static final int READ_TIMEOUT = 90000;       // 90 seconds  
-    public static final int WRITE_TIMEOUT = 60000;      // 60 seconds
+    // Paged history - week/month ranges are walked page by page via continuationToken
+    public static final int HISTORY_PAGE_SIZE = 500;
+    public static final int HISTORY_MAX_IN_FLIGHT_PAGES = 2; // pages fetched ahead of the consumer
+    public static final int HISTORY_MAX_PAGES = 200;         // safety stop for runaway continuation chains
+
+    // Twin metadata cache - twin contents rarely change, so keep them for a day
+    public static final long TWIN_CACHE_TTL = 24 * 60 * 60 * 1000L; // 24 hours
+    public static final boolean TWIN_CACHE_REVALIDATE = true;       // re-check lastUpdateTime once expired
+
+    // Building registry - buildings and their capability twins are discovered via paged twin search
+    public static final long BUILDING_REGISTRY_TTL = 24 * 60 * 60 * 1000L; // rediscover once a day
+    public static final int BUILDING_SEARCH_PAGE_SIZE = 100;
+    public static final int BUILDING_SEARCH_MAX_PAGES = 50;                // safety stop per search
+
+    // Scatter-gather fetches - many buildings are fetched as parallel batches under one deadline
+    public static final int LATEST_VALUES_BATCH_SIZE = 40;      // twin IDs per time-series/ids/latest request
+    public static final int MAX_CONCURRENT_REQUESTS = 4;        // batches in flight at once
+    public static final long REQUEST_DEADLINE = 15000;          // 15 seconds per request
+    public static final long REFRESH_DEADLINE = 30000;          // 30 seconds for a whole campus refresh
+
+    // Request timeouts (in milliseconds) - read is the idle time between bytes, so streamed pages still finish
+    public static final int CONNECTION_TIMEOUT = 15000; // 15 seconds
+    public static final int READ_TIMEOUT = 30000;       // 30 seconds
+    public static final int WRITE_TIMEOUT = 30000;      // 30 seconds
+    
+    // Circuit breaker - stop calling Willow after repeated failures, probe again with exponential backoff
+    public static final int CIRCUIT_FAILURE_THRESHOLD = 3;          // consecutive failures before opening
+    public static final long CIRCUIT_OPEN_BASE = 30000;              // 30 seconds before the first probe
+    public static final long CIRCUIT_OPEN_MAX = 10 * 60 * 1000L;     // 10 minutes between probes at most
+    
+    // Request metrics - body previews are sampled and capped; off in release builds
+    public static final double METRICS_BODY_SAMPLE_RATE = BuildConfig.DEBUG ? 0.05 : 0.0; // 5% of calls in debug
+    public static final long METRICS_BODY_LOG_MAX_BYTES = 2048;                           // 2 KB preview
     
     // Headers
     public static final String CONTENT_TYPE_JSON = "application/json";
@@ -0,0 +1,227 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.os.SystemClock;
+import android.util.Log;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ThreadLocalRandom;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Circuit breaker for every call made through WillowApiClient.
+ * - CLOSED: calls pass through; FAILURE_THRESHOLD consecutive failures open the circuit.
+ * - OPEN: calls fail immediately with CircuitOpenException until the open period ends.
+ * - HALF_OPEN: exactly one probe call is let through; success closes the circuit, failure
+ *   reopens it for twice as long (jittered, capped at CIRCUIT_OPEN_MAX).
+ *
+ * Failures are transport errors (timeouts, resets), 5xx and 429. Other 4xx answers mean Willow is
+ * reachable and count as successes. Calls cancelled by the app (e.g. FetchCoordinator stragglers at
+ * its deadline) say nothing about Willow and count as neither; a cancelled probe frees the slot.
+ * OkHttp enforces Call.timeout() by cancelling the call too, but that cancel means Willow was too
+ * slow, so a call timeout still counts as a failure.
+ */
+public class WillowCircuitBreaker implements Interceptor {
+
+    private static final String TAG = "WillowCircuitBreaker";
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Thrown instead of sending a request while the circuit is open
+     */
+    public static class CircuitOpenException extends IOException {
+        CircuitOpenException(long retryInMs) {
+            super("Willow API unavailable - circuit open, next probe in " + (retryInMs / 1000) + "s");
+        }
+    }
+
+    /**
+     * Monotonic milliseconds (elapsed realtime in the app; a fake clock in tests)
+     */
+    interface Clock {
+        long now();
+    }
+
+    private static WillowCircuitBreaker instance;
+
+    private final Clock clock;
+    private final int failureThreshold;
+    private final long openBaseMs;
+    private final long openMaxMs;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private int openCount = 0;          // times opened since the last success (drives the backoff)
+    private long openUntil = 0;         // clock time when the next probe is allowed
+    private boolean probeInFlight = false;
+
+    public static synchronized WillowCircuitBreaker getInstance() {
+        if (instance == null) {
+            instance = new WillowCircuitBreaker(WillowApiV3Config.CIRCUIT_FAILURE_THRESHOLD,
+                    WillowApiV3Config.CIRCUIT_OPEN_BASE, WillowApiV3Config.CIRCUIT_OPEN_MAX);
+        }
+        return instance;
+    }
+
+    WillowCircuitBreaker(int failureThreshold, long openBaseMs, long openMaxMs) {
+        this(failureThreshold, openBaseMs, openMaxMs, SystemClock::elapsedRealtime);
+    }
+
+    WillowCircuitBreaker(int failureThreshold, long openBaseMs, long openMaxMs, Clock clock) {
+        this.clock = clock;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openBaseMs = openBaseMs;
+        this.openMaxMs = openMaxMs;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        boolean probe = acquire();
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException | RuntimeException e) {
+            if (chain.call().isCanceled() && !isCallTimeout(e)) {
+                onCancelled(probe);
+            } else {
+                onFailure(probe, request.url().encodedPath() + ": " + e.getMessage());
+            }
+            throw e;
+        }
+
+        if (response.code() >= 500 || response.code() == 429) {
+            onFailure(probe, request.url().encodedPath() + ": HTTP " + response.code());
+        } else {
+            onSuccess(probe);
+        }
+        return response;
+    }
+
+    /**
+     * The InterruptedIOException OkHttp throws when a call outlives its Call.timeout()
+     */
+    private static boolean isCallTimeout(Exception e) {
+        return e instanceof InterruptedIOException && "timeout".equals(e.getMessage());
+    }
+
+    /**
+     * Check whether a call may go out now, without reserving the probe.
+     * Callers use this to skip a whole request chain while Willow is known to be down.
+     */
+    public synchronized boolean allowsRequests() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                return clock.now() >= openUntil;
+            default:
+                return !probeInFlight;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Milliseconds until the next probe is allowed (0 when calls may go out now)
+     */
+    public synchronized long getRetryInMillis() {
+        return allowsRequests() ? 0 : Math.max(0, openUntil - clock.now());
+    }
+
+    /**
+     * Forget all failures (e.g. after re-authenticating)
+     */
+    public synchronized void reset() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        openCount = 0;
+        probeInFlight = false;
+    }
+
+    /**
+     * @return true if this call is the half-open probe
+     * @throws CircuitOpenException if the call must not be sent
+     */
+    private synchronized boolean acquire() throws CircuitOpenException {
+        long now = clock.now();
+        if (state == State.OPEN && now >= openUntil) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+            Log.d(TAG, "🔎 Circuit half-open - probing Willow");
+        }
+
+        switch (state) {
+            case CLOSED:
+                return false;
+            case HALF_OPEN:
+                if (!probeInFlight) {
+                    probeInFlight = true;
+                    return true;
+                }
+                throw new CircuitOpenException(0);
+            default:
+                throw new CircuitOpenException(openUntil - now);
+        }
+    }
+
+    private synchronized void onSuccess(boolean probe) {
+        if (state == State.CLOSED) {
+            consecutiveFailures = 0;
+            return;
+        }
+        // Calls sent before the circuit opened may still answer; only the probe closes it
+        if (probe) {
+            Log.d(TAG, "✅ Probe succeeded - circuit closed");
+            reset();
+        }
+    }
+
+    private synchronized void onCancelled(boolean probe) {
+        // The next call becomes the probe instead
+        if (probe && state == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    private synchronized void onFailure(boolean probe, String error) {
+        switch (state) {
+            case CLOSED:
+                consecutiveFailures++;
+                if (consecutiveFailures >= failureThreshold) {
+                    open(error);
+                }
+                break;
+            case HALF_OPEN:
+                if (probe) {
+                    open(error);
+                }
+                break;
+            default:
+                // Already open - late failures from calls sent earlier change nothing
+                break;
+        }
+    }
+
+    private void open(String error) {
+        openCount++;
+        long delay = openDelay(openCount);
+        state = State.OPEN;
+        probeInFlight = false;
+        openUntil = clock.now() + delay;
+        Log.w(TAG, "🚫 Circuit open after " + error + " - next probe in " + (delay / 1000) + "s");
+    }
+
+    /**
+     * min(max, base * 2^(opens-1)), then a random point in its upper half (same equal jitter as polling)
+     */
+    private long openDelay(int opens) {
+        long cap = Math.min(openMaxMs, openBaseMs << Math.min(opens - 1, 16));
+        return cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+    }
+}
@@ -3,6 +3,7 @@ package com.example.ecowattchtechdemo.willow;
 import android.content.Context;
 import android.util.Log;
 import com.example.ecowattchtechdemo.willow.models.*;
+import com.example.ecowattchtechdemo.DormStandingsResponse;
 import com.example.ecowattchtechdemo.gamification.DormPointsManager;
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -17,36 +18,35 @@ public class WillowEnergyDataManager {
     private static final String TAG = "WillowEnergyManager";
     
     private WillowApiService apiService;
-    private String accessToken;
-    private long tokenExpirationTime;
+    private WillowTokenProvider tokenProvider; // shared, refreshes ahead of expiry
     private DormPointsManager pointsManager; // Add gamification integration
+    private final Map<String, Long> lastRecordedTimestamps = new HashMap<>(); // twinId -> sourceTimestamp already recorded
+    private TwinMetadataCache twinCache;
+    private final ColumnarTimeSeries seriesBuffer = new ColumnarTimeSeries(null); // reused by every poll (guarded by itself)
+    private volatile List<Building> buildingsMissingFromServer = Collections.emptyList(); // not in the last standings document
     
-    // Building mappings for both Power (kW) and Energy (kWh) twin IDs
-    private final Map<String, String> buildingNames = new HashMap<String, String>() {{
-        // Power Twin IDs (kW - instantaneous power)
-        put(WillowApiV3Config.TWIN_ID_TINSLEY, "TINSLEY");
-        put(WillowApiV3Config.TWIN_ID_GABALDON, "GABALDON");
-        put(WillowApiV3Config.TWIN_ID_SECHRIST, "SECHRIST");
-        
-        // Energy Twin IDs (kWh - cumulative energy)
-        put(WillowApiV3Config.TWIN_ID_TINSLEY_ENERGY, "TINSLEY");
-        put(WillowApiV3Config.TWIN_ID_GABALDON_ENERGY, "GABALDON");
-        put(WillowApiV3Config.TWIN_ID_SECHRIST_ENERGY, "SECHRIST");
-    }};
-    
-    // Remove hardcoded positions - now dynamic based on points
-    private final Map<String, String> buildingPositions = new HashMap<String, String>() {{
-        put("TINSLEY", "1ST PLACE");
-        put("GABALDON", "2ND PLACE");
-        put("SECHRIST", "3RD PLACE");
-    }};
+    // Buildings and their power (kW) / energy (kWh) twin IDs - configured, then discovered
+    private BuildingRegistry registry;
     
+    // Parallel batches under per-request and whole-refresh deadlines
+    private final FetchCoordinator<Integer, List<TimeSeriesPoint>> latestValuesCoordinator = new FetchCoordinator<>(
+            WillowApiV3Config.MAX_CONCURRENT_REQUESTS, WillowApiV3Config.REQUEST_DEADLINE, WillowApiV3Config.REFRESH_DEADLINE);
+    private final FetchCoordinator<String, TwinsResponse> capabilitySearchCoordinator = new FetchCoordinator<>(
+            WillowApiV3Config.MAX_CONCURRENT_REQUESTS, WillowApiV3Config.REQUEST_DEADLINE, WillowApiV3Config.REQUEST_DEADLINE);
+
     public WillowEnergyDataManager() {
         this.apiService = WillowApiClient.getApiService();
+        this.twinCache = new TwinMetadataCache(null);
+        this.tokenProvider = WillowTokenProvider.getInstance();
+        this.registry = BuildingRegistry.getInstance();
     }
     
     public WillowEnergyDataManager(String baseUrl) {
         this.apiService = WillowApiClient.getApiService(baseUrl);
+        this.twinCache = new TwinMetadataCache(null);
+        this.tokenProvider = WillowTokenProvider.getInstance();
+        this.tokenProvider.setBaseUrl(baseUrl);
+        this.registry = BuildingRegistry.getInstance();
     }
     
     /**
@@ -55,6 +55,9 @@ public class WillowEnergyDataManager {
     public WillowEnergyDataManager(Context context) {
         this.apiService = WillowApiClient.getApiService();
         this.pointsManager = new DormPointsManager(context);
+        this.twinCache = new TwinMetadataCache(context);
+        this.tokenProvider = WillowTokenProvider.getInstance(context);
+        this.registry = BuildingRegistry.getInstance(context);
         
         // 🏆 Initialize real rankings based on existing energy data
         initializeRealRankings();
@@ -63,6 +66,10 @@ public class WillowEnergyDataManager {
     public WillowEnergyDataManager(String baseUrl, Context context) {
         this.apiService = WillowApiClient.getApiService(baseUrl);
         this.pointsManager = new DormPointsManager(context);
+        this.twinCache = new TwinMetadataCache(context);
+        this.tokenProvider = WillowTokenProvider.getInstance(context);
+        this.tokenProvider.setBaseUrl(baseUrl);
+        this.registry = BuildingRegistry.getInstance(context);
         
         // 🏆 Initialize real rankings based on existing energy data  
         initializeRealRankings();
@@ -80,6 +87,17 @@ public class WillowEnergyDataManager {
         void onSuccess(String token);
         void onError(String error);
     }
+
+    /**
+     * Interface for batched multi-dorm callbacks, keyed by dorm name
+     */
+    public interface MultiDormEnergyCallback {
+        /** Dorms whose twins have all answered while other batches are still in flight */
+        void onPartial(Map<String, DormEnergySnapshot> snapshots);
+        /** Every batch answered or the deadline passed - one snapshot per dorm */
+        void onSuccess(Map<String, DormEnergySnapshot> snapshots);
+        void onError(String error);
+    }
     
     /**
      * Authenticate with Willow API
@@ -97,65 +115,20 @@ public class WillowEnergyDataManager {
             return;
         }
         
-        Call<WillowOAuthResponse> call = apiService.getOAuthToken(
-            clientId, 
-            clientSecret, 
-            WillowApiV3Config.GRANT_TYPE
-        );
-        
-        Log.d(TAG, "🌐 Sending authentication request...");
+        tokenProvider.setCredentials(clientId, clientSecret);
         
-        call.enqueue(new Callback<WillowOAuthResponse>() {
+        // A restored or still-fresh token is returned immediately; otherwise this joins (or starts) the single token request
+        Log.d(TAG, tokenProvider.hasValidToken() ? "🔑 Using saved token" : "🌐 Sending authentication request...");
+        tokenProvider.getToken(new WillowTokenProvider.TokenCallback() {
             @Override
-            public void onResponse(Call<WillowOAuthResponse> call, Response<WillowOAuthResponse> response) {
-                Log.d(TAG, "📡 Authentication response received - Code: " + response.code());
-                
-                if (response.isSuccessful() && response.body() != null) {
-                    WillowOAuthResponse tokenResponse = response.body();
-                    Log.d(TAG, "✅ Authentication response body received");
-                    
-                    if (tokenResponse.isValid()) {
-                        accessToken = tokenResponse.getAuthorizationHeader();
-                        tokenExpirationTime = System.currentTimeMillis() + (tokenResponse.getExpiresIn() * 1000L);
-                        
-                        Log.d(TAG, "🎉 Authentication successful!");
-                        Log.d(TAG, "🔑 Token expires in: " + tokenResponse.getExpiresIn() + " seconds");
-                        callback.onSuccess(accessToken);
-                    } else {
-                        Log.e(TAG, "❌ Invalid token response - token validation failed");
-                        callback.onError("Invalid authentication response");
-                    }
-                } else {
-                    String error = "Authentication failed: HTTP " + response.code();
-                    if (response.errorBody() != null) {
-                        try {
-                            String errorBody = response.errorBody().string();
-                            error += " - " + errorBody;
-                            Log.e(TAG, "❌ " + error);
-                        } catch (Exception e) {
-                            Log.e(TAG, "❌ " + error + " (could not read error body)");
-                        }
-                    } else {
-                        Log.e(TAG, "❌ " + error);
-                    }
-                    callback.onError(error);
-                }
+            public void onSuccess(String authorizationHeader) {
+                Log.d(TAG, "🎉 Authentication successful!");
+                callback.onSuccess(authorizationHeader);
             }
             
             @Override
-            public void onFailure(Call<WillowOAuthResponse> call, Throwable t) {
-                String error = "Authentication network error: " + t.getMessage();
-                Log.e(TAG, "❌ " + error, t);
-                
-                // Log more specific network error details
-                if (t instanceof java.net.UnknownHostException) {
-                    Log.e(TAG, "❌ DNS resolution failed - cannot reach Willow API server");
-                } else if (t instanceof java.net.ConnectException) {
-                    Log.e(TAG, "❌ Connection refused - Willow API server may be down");
-                } else if (t instanceof java.net.SocketTimeoutException) {
-                    Log.e(TAG, "❌ Connection timeout - network may be slow or server unresponsive");
-                }
-                
+            public void onError(String error) {
+                Log.e(TAG, "❌ " + error);
                 callback.onError(error);
             }
         });
@@ -170,8 +143,7 @@ public class WillowEnergyDataManager {
             return;
         }
         
-        final String buildingName = buildingNames.containsKey(buildingTwinId) ? 
-            buildingNames.get(buildingTwinId) : "UNKNOWN";
+        final String buildingName = buildingNameForTwin(buildingTwinId, "UNKNOWN");
         
         Log.d(TAG, "Fetching POWER data for building: " + buildingName + " (" + buildingTwinId + ")");
         
@@ -188,63 +160,348 @@ public class WillowEnergyDataManager {
             return;
         }
         
-        final String buildingName = buildingNames.containsKey(buildingEnergyTwinId) ? 
-            buildingNames.get(buildingEnergyTwinId) : "UNKNOWN";
+        final String buildingName = buildingNameForTwin(buildingEnergyTwinId, "UNKNOWN");
         
         Log.d(TAG, "Fetching ENERGY CONSUMPTION data for building: " + buildingName + " (" + buildingEnergyTwinId + ")");
         
         // Use the twin ID directly - no search needed since IDs are verified correct
         getDirectTwinData(buildingEnergyTwinId, callback);
     }
-    
+
+    /**
+     * Get power (kW) and energy (kWh) data for every dorm in one round trip.
+     * All twin IDs go out in a single time-series/ids/latest request and the
+     * returned points are grouped back per twin.
+     */
+    public void getAllDormsEnergyData(MultiDormEnergyCallback callback) {
+        getDormsEnergyData(registry.getBuildings(), callback);
+    }
+
+    /**
+     * Same batched fetch for only some buildings (e.g. those the backend's standings leave out)
+     */
+    public void getDormsEnergyData(List<Building> buildings, MultiDormEnergyCallback callback) {
+        if (!isAuthenticated()) {
+            callback.onError("Not authenticated. Please authenticate first.");
+            return;
+        }
+
+        // Willow is known to be down - skip the request chain; callers keep their cached snapshot
+        WillowCircuitBreaker breaker = WillowCircuitBreaker.getInstance();
+        if (!breaker.allowsRequests()) {
+            Log.d(TAG, "🚫 Circuit open - skipping live fetch for " + (breaker.getRetryInMillis() / 1000) + "s");
+            callback.onError("Willow API unavailable - showing last known data");
+            return;
+        }
+        
+        List<String> twinIds = new ArrayList<>();
+        for (Building building : buildings) {
+            addTwinIdIfPresent(twinIds, building.getPowerTwinId());
+            addTwinIdIfPresent(twinIds, building.getEnergyTwinId());
+        }
+
+        if (twinIds.isEmpty()) {
+            callback.onError("No twin IDs configured. Check local.properties file.");
+            return;
+        }
+
+        Log.d(TAG, "📦 Batched fetch for " + buildings.size() + " dorms (" + twinIds.size() + " twins)");
+
+        // Twin IDs go out in parallel batches; twins whose batch fails or misses the deadline fall back to no-data
+        List<List<String>> batches = FetchCoordinator.partition(twinIds, WillowApiV3Config.LATEST_VALUES_BATCH_SIZE);
+        List<Integer> batchIndexes = new ArrayList<>();
+        for (int i = 0; i < batches.size(); i++) {
+            batchIndexes.add(i);
+        }
+
+        List<TimeSeriesPoint> points = new ArrayList<>();
+        Set<String> answeredTwins = new HashSet<>();
+        latestValuesCoordinator.start(batchIndexes,
+                index -> apiService.getLatestTimeSeriesValues(tokenProvider.getCurrentToken(), batches.get(index), true),
+                new FetchCoordinator.Listener<Integer, List<TimeSeriesPoint>>() {
+                    @Override
+                    public void onResult(Integer index, List<TimeSeriesPoint> batchPoints) {
+                        points.addAll(batchPoints);
+                        answeredTwins.addAll(batches.get(index));
+                        if (answeredTwins.size() >= twinIds.size()) return; // onComplete delivers the full set
+                        
+                        // Push the dorms that are complete now instead of holding them for the slowest batch
+                        List<Building> ready = new ArrayList<>();
+                        for (Building building : buildings) {
+                            if (hasAnswered(answeredTwins, building.getPowerTwinId())
+                                    && hasAnswered(answeredTwins, building.getEnergyTwinId())) {
+                                ready.add(building);
+                            }
+                        }
+                        if (!ready.isEmpty()) {
+                            callback.onPartial(buildDormSnapshots(ready, groupPointsByTwin(points)));
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Integer index, String error) {
+                        Log.w(TAG, "Batch " + (index + 1) + "/" + batches.size() + " failed: " + error);
+                    }
+
+                    @Override
+                    public void onComplete(Map<Integer, List<TimeSeriesPoint>> results, Set<Integer> missing) {
+                        if (results.isEmpty() || missing.size() == batches.size()) {
+                            // Nothing came back - an all-fallback snapshot would look like every dorm reads 0 kW
+                            callback.onError("Willow API unavailable - no batch returned data");
+                            return;
+                        }
+                        Log.d(TAG, "✅ Batched fetch returned " + points.size() + " points from "
+                                + results.size() + "/" + batches.size() + " batches");
+                        callback.onSuccess(buildDormSnapshots(buildings, groupPointsByTwin(points)));
+                    }
+                });
+    }
+
+    private static boolean hasAnswered(Set<String> answeredTwins, String twinId) {
+        return twinId == null || twinId.isEmpty() || answeredTwins.contains(twinId);
+    }
+
+    private void addTwinIdIfPresent(List<String> twinIds, String twinId) {
+        if (twinId != null && !twinId.isEmpty() && !twinIds.contains(twinId)) {
+            twinIds.add(twinId);
+        }
+    }
+
+    /**
+     * Group a flat list of latest points by the twin they belong to
+     */
+    private Map<String, List<TimeSeriesPoint>> groupPointsByTwin(List<TimeSeriesPoint> points) {
+        Map<String, List<TimeSeriesPoint>> byTwin = new HashMap<>();
+        for (TimeSeriesPoint point : points) {
+            if (point.getTwinId() == null) continue;
+            List<TimeSeriesPoint> twinPoints = byTwin.get(point.getTwinId());
+            if (twinPoints == null) {
+                twinPoints = new ArrayList<>();
+                byTwin.put(point.getTwinId(), twinPoints);
+            }
+            twinPoints.add(point);
+        }
+        return byTwin;
+    }
+
+    /**
+     * Turn grouped points into one snapshot per dorm, falling back per twin when a twin has no data
+     */
+    private Map<String, DormEnergySnapshot> buildDormSnapshots(List<Building> buildings,
+                                                              Map<String, List<TimeSeriesPoint>> byTwin) {
+        Map<String, DormEnergySnapshot> snapshots = new LinkedHashMap<>();
+        boolean recordedNewReading = false;
+
+        for (Building building : buildings) {
+            String dorm = building.getKey();
+            String powerTwinId = building.getPowerTwinId();
+            String energyTwinId = building.getEnergyTwinId();
+
+            EnergyDataResponse powerData = processTwinPoints(byTwin.get(powerTwinId), dorm, powerTwinId);
+            EnergyDataResponse energyData = processTwinPoints(byTwin.get(energyTwinId), dorm, energyTwinId);
+
+            // 🎮 GAMIFICATION: kWh readings drive the daily totals, record once per dorm and only when the reading is new
+            if (pointsManager != null && energyData.isDataAvailable() && energyData.getDailyTotalKWh() != null
+                    && isNewReading(energyTwinId, energyData.getSourceTimestamp())) {
+                pointsManager.recordTodayEnergyUsage(dorm, energyData.getDailyTotalKWh());
+                recordedNewReading = true;
+            }
+
+            snapshots.put(dorm, new DormEnergySnapshot(dorm, powerData, energyData));
+        }
+
+        // 🏆 Rankings only need recalculating once per batch, and only when a reading changed
+        if (pointsManager != null && recordedNewReading) {
+            updateDormRankingsBasedOnRealData();
+        }
+
+        return snapshots;
+    }
+
+    /**
+     * Turn the backend's precomputed standings into one snapshot per known dorm.
+     * New kWh readings still feed the daily totals, but dorm points come from the server
+     * instead of being scored on this device, so every phone shows the same ranking.
+     * The server only polls the dorms it is configured for: while the last whole document
+     * (not a delta) leaves registry buildings out, its points cover only part of the leaderboard,
+     * so this device scores every dorm itself and the caller fetches the missing ones from Willow.
+     * @param wholeDocument true for a full standings document, false for a stream delta
+     */
+    public Map<String, DormEnergySnapshot> applyServerStandings(DormStandingsResponse standings, boolean wholeDocument) {
+        Map<String, DormEnergySnapshot> snapshots = new LinkedHashMap<>();
+        if (standings.getDorms() == null) return snapshots;
+
+        if (wholeDocument) {
+            Set<String> served = new HashSet<>();
+            for (DormStandingsResponse.DormStanding standing : standings.getDorms()) {
+                served.add(standing.getDormName());
+            }
+            List<Building> missing = new ArrayList<>();
+            for (Building building : registry.getBuildings()) {
+                if (!served.contains(building.getKey())) missing.add(building);
+            }
+            buildingsMissingFromServer = missing;
+        }
+        boolean serverPoints = buildingsMissingFromServer.isEmpty();
+
+        for (DormStandingsResponse.DormStanding standing : standings.getDorms()) {
+            String dorm = standing.getDormName();
+            if (dorm == null || !registry.contains(dorm)) continue;
+            String powerTwinId = registry.getPowerTwinId(dorm);
+            String energyTwinId = registry.getEnergyTwinId(dorm);
+
+            EnergyDataResponse powerData = serverReading(dorm, powerTwinId, standing.getPowerKw(), standing.getPowerTimestamp());
+            EnergyDataResponse energyData = serverReading(dorm, energyTwinId, standing.getEnergyKwh(), standing.getEnergyTimestamp());
+
+            if (pointsManager != null) {
+                if (energyData.isDataAvailable()
+                        && isNewReading(energyTwinId != null ? energyTwinId : dorm, energyData.getSourceTimestamp())) {
+                    pointsManager.recordTodayEnergyUsage(dorm, energyData.getDailyTotalKWh());
+                }
+                if (serverPoints) pointsManager.setDormTotalPoints(dorm, standing.getPoints());
+            }
+
+            snapshots.put(dorm, new DormEnergySnapshot(dorm, powerData, energyData));
+        }
+        if (!serverPoints) {
+            updateDormRankingsBasedOnRealData();
+        }
+
+        Log.d(TAG, "🏆 Applied server standings for " + snapshots.size() + " dorms (polled at "
+                + IsoTimestamps.formatUtc(standings.getGeneratedAt()) + ")");
+        return snapshots;
+    }
+
+    /**
+     * Registry buildings the last full standings document did not include
+     */
+    public List<Building> getBuildingsMissingFromServer() {
+        return buildingsMissingFromServer;
+    }
+
+    private EnergyDataResponse serverReading(String dorm, String twinId, Double value, long sourceTimestamp) {
+        if (value == null || sourceTimestamp <= 0) {
+            return createFallbackData(dorm, twinId);
+        }
+        EnergyDataResponse reading = new EnergyDataResponse(dorm, twinId);
+        reading.setCurrentUsageKW(value);
+        reading.setDailyTotalKWh(value);
+        reading.setLastUpdated(IsoTimestamps.formatUtc(sourceTimestamp));
+        reading.setSourceTimestamp(sourceTimestamp);
+        reading.setDataAvailable(true);
+        reading.setStatus("Live Data");
+        reading.calculatePotentialEnergy();
+        return reading;
+    }
+
+    /**
+     * True the first time a twin reports a given sourceTimestamp
+     */
+    private boolean isNewReading(String twinId, long sourceTimestamp) {
+        Long lastRecorded = lastRecordedTimestamps.get(twinId);
+        if (lastRecorded != null && lastRecorded == sourceTimestamp) {
+            return false;
+        }
+        lastRecordedTimestamps.put(twinId, sourceTimestamp);
+        return true;
+    }
+
+    private EnergyDataResponse processTwinPoints(List<TimeSeriesPoint> points, String dormName, String twinId) {
+        if (points == null || points.isEmpty()) {
+            Log.d(TAG, "No time series data for " + dormName + " (" + twinId + ")");
+            return createFallbackData(dormName, twinId);
+        }
+        return processTimeSeriesData(points, dormName, twinId, false);
+    }
+
+    /**
+     * Open a paged history iterator for one or more twins over [startMillis, endMillis).
+     * The iterator blocks while pages load, so consume it off the main thread and close it when done.
+     */
+    public TimeSeriesHistoryIterator openHistory(List<String> twinIds, long startMillis, long endMillis) {
+        return new TimeSeriesHistoryIterator(apiService, tokenProvider, twinIds,
+                IsoTimestamps.formatUtc(startMillis), IsoTimestamps.formatUtc(endMillis),
+                WillowApiV3Config.HISTORY_PAGE_SIZE, WillowApiV3Config.HISTORY_MAX_IN_FLIGHT_PAGES);
+    }
+
     /**
      * Get data directly using the provided twin ID (no search needed)
      */
     private void getDirectTwinData(String twinId, EnergyDataCallback callback) {
-        final String buildingName = buildingNames.containsKey(twinId) ? 
-            buildingNames.get(twinId) : "UNKNOWN";
+        final String buildingName = buildingNameForTwin(twinId, "UNKNOWN");
             
-        // Get twin directly using the verified correct ID
-        Call<DigitalTwin> twinCall = apiService.getTwinById(accessToken, twinId, true);
+        // Twin metadata rarely changes - skip the twin round trip while the cache is fresh
+        DigitalTwin cachedTwin = twinCache.getFresh(twinId);
+        if (cachedTwin != null) {
+            Log.v(TAG, "Twin cache hit: " + cachedTwin.getName());
+            getDirectTimeSeries(cachedTwin, callback);
+            return;
+        }
+        
+        // Expired entries only need lastUpdateTime to revalidate, so skip the relationship payload
+        fetchTwin(twinId, buildingName, twinCache.shouldRevalidate(twinId), callback);
+    }
+    
+    /**
+     * Fetch a twin and poll its time series; a revalidation that finds the twin changed is
+     * repeated with relationships, so the cached entry never loses them
+     */
+    private void fetchTwin(String twinId, String buildingName, boolean revalidating, EnergyDataCallback callback) {
+        Call<DigitalTwin> twinCall = apiService.getTwinById(tokenProvider.getCurrentToken(), twinId, !revalidating);
         
         twinCall.enqueue(new Callback<DigitalTwin>() {
             @Override
             public void onResponse(Call<DigitalTwin> call, Response<DigitalTwin> response) {
                 if (response.isSuccessful() && response.body() != null) {
-                    DigitalTwin building = response.body();
+                    if (revalidating && !twinCache.isUnchanged(response.body())) {
+                        Log.d(TAG, "Twin " + twinId + " changed since it was cached - fetching relationships");
+                        fetchTwin(twinId, buildingName, false, callback);
+                        return;
+                    }
+                    DigitalTwin building = twinCache.store(response.body());
                     Log.d(TAG, "Twin found: " + building.getName());
                     
                     // Get time series data directly
                     getDirectTimeSeries(building, callback);
                 } else {
                     Log.w(TAG, "Twin not accessible: " + response.code() + " for ID: " + twinId);
-                    EnergyDataResponse fallbackData = createFallbackData(buildingName, twinId);
-                    callback.onSuccess(fallbackData);
+                    useStaleTwinOrFallback(twinId, buildingName, callback);
                 }
             }
             
             @Override
             public void onFailure(Call<DigitalTwin> call, Throwable t) {
                 Log.w(TAG, "Network error accessing twin: " + t.getMessage());
-                EnergyDataResponse fallbackData = createFallbackData(buildingName, twinId);
-                callback.onSuccess(fallbackData);
+                useStaleTwinOrFallback(twinId, buildingName, callback);
             }
         });
     }
     
+    /**
+     * Keep polling with an expired cached twin when the twin lookup fails
+     */
+    private void useStaleTwinOrFallback(String twinId, String buildingName, EnergyDataCallback callback) {
+        DigitalTwin staleTwin = twinCache.getStale(twinId);
+        if (staleTwin != null) {
+            Log.d(TAG, "Using stale cached twin for " + buildingName);
+            getDirectTimeSeries(staleTwin, callback);
+        } else {
+            callback.onError("Twin " + twinId + " not accessible for " + buildingName);
+        }
+    }
+    
     /**
      * Get time series data directly from twin
      */
     private void getDirectTimeSeries(DigitalTwin building, EnergyDataCallback callback) {
         Call<List<TimeSeriesPoint>> directCall = apiService.getLatestTimeSeries(
-            accessToken, building.getId(), true
+            tokenProvider.getCurrentToken(), building.getId(), true
         );
         
         directCall.enqueue(new Callback<List<TimeSeriesPoint>>() {
             @Override
             public void onResponse(Call<List<TimeSeriesPoint>> call, Response<List<TimeSeriesPoint>> response) {
-                String buildingName = buildingNames.containsKey(building.getId()) ? 
-                    buildingNames.get(building.getId()) : building.getName();
+                String buildingName = buildingNameForTwin(building.getId(), building.getName());
                     
                 if (response.isSuccessful() && response.body() != null) {
                     List<TimeSeriesPoint> points = response.body();
@@ -261,139 +518,111 @@ public class WillowEnergyDataManager {
                     }
                 } else {
                     Log.w(TAG, "Time series request failed: " + response.code());
-                    EnergyDataResponse fallbackData = createFallbackData(buildingName, building.getId());
-                    callback.onSuccess(fallbackData);
+                    callback.onError("Time series request failed: " + response.code());
                 }
             }
             
             @Override
             public void onFailure(Call<List<TimeSeriesPoint>> call, Throwable t) {
                 Log.w(TAG, "Time series network error: " + t.getMessage());
-                String buildingName = buildingNames.containsKey(building.getId()) ? 
-                    buildingNames.get(building.getId()) : building.getName();
-                EnergyDataResponse fallbackData = createFallbackData(buildingName, building.getId());
-                callback.onSuccess(fallbackData);
+                callback.onError("Time series network error: " + t.getMessage());
             }
         });
     }
     
     /**
-     * Find energy capability twins for the building - Simplified approach to avoid 500 errors
+     * Find energy capability twins for the building - Simplified approach to avoid 500 errors.
+     * Energy and power capability searches run in parallel under one deadline; energy results win,
+     * and the direct building approach is only tried once both searches came back empty.
+     * The search stops as soon as the best result still possible has arrived (energy twins
+     * immediately; power twins once the energy search came back empty).
      */
     private void findEnergyCapabilities(DigitalTwin building, String buildingName, EnergyDataCallback callback) {
-        Log.d(TAG, "Searching for energy capabilities using simplified approach");
-        
-        // Try a simpler search first - just search for energy model types
-        Map<String, Object> searchRequest = new HashMap<>();
-        
-        // Simplified model filter - search one model at a time to avoid complex queries
-        Map<String, Object> modelFilter = new HashMap<>();
-        modelFilter.put("modelIds", Arrays.asList(WillowApiV3Config.ENERGY_CONSUMPTION_MODEL));
-        modelFilter.put("exactModelMatch", false);
+        Log.d(TAG, "Searching for energy and power capabilities in parallel");
         
-        searchRequest.put("modelFilter", modelFilter);
-        searchRequest.put("pageSize", 20); // Reduced page size
+        List<String> modelIds = Arrays.asList(
+                WillowApiV3Config.ENERGY_CONSUMPTION_MODEL, WillowApiV3Config.POWER_CONSUMPTION_MODEL);
         
-        Call<TwinsResponse> searchCall = apiService.searchTwins(accessToken, searchRequest);
-        
-        searchCall.enqueue(new Callback<TwinsResponse>() {
+        CapabilitySearchListener listener = new CapabilitySearchListener(modelIds) {
             @Override
-            public void onResponse(Call<TwinsResponse> call, Response<TwinsResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    TwinsResponse twinsResponse = response.body();
+            public void onComplete(Map<String, TwinsResponse> results, Set<String> missing) {
+                for (String modelId : modelIds) {
+                    TwinsResponse response = results.get(modelId);
+                    if (response == null || !response.hasTwins()) continue;
                     
-                    if (twinsResponse.hasTwins()) {
-                        Log.d(TAG, "Found " + twinsResponse.getContent().size() + " energy capabilities");
-                        
-                        // Filter capabilities that might be related to our building
-                        List<String> capabilityIds = new ArrayList<>();
-                        for (DigitalTwin twin : twinsResponse.getContent()) {
-                            // Simple filtering - include all found capabilities for now
-                            capabilityIds.add(twin.getId());
-                            Log.d(TAG, "Found energy capability: " + twin.getName() + " (" + twin.getId() + ")");
-                        }
-                        
-                        if (!capabilityIds.isEmpty()) {
-                            getTimeSeriesData(capabilityIds, buildingName, building.getId(), callback);
-                        } else {
-                            Log.w(TAG, "No valid energy capabilities found");
-                            EnergyDataResponse fallbackData = createFallbackData(buildingName, building.getId());
-                            callback.onSuccess(fallbackData);
-                        }
-                    } else {
-                        Log.w(TAG, "No energy capabilities found in response");
-                        // Try alternative approach - search for power consumption model
-                        searchForAlternativeCapabilities(buildingName, building.getId(), callback);
-                    }
-                } else {
-                    String errorMsg = "Failed to search energy capabilities: " + response.code();
-                    if (response.errorBody() != null) {
-                        try {
-                            errorMsg += " - " + response.errorBody().string();
-                        } catch (Exception e) {
-                            errorMsg += " (could not read error body)";
-                        }
+                    List<String> capabilityIds = new ArrayList<>();
+                    for (DigitalTwin twin : response.getContent()) {
+                        // Simple filtering - include all found capabilities for now
+                        capabilityIds.add(twin.getId());
+                        Log.d(TAG, "Found capability: " + twin.getName() + " (" + twin.getId() + ")");
                     }
-                    Log.e(TAG, errorMsg);
-                    
-                    // Try alternative approach before falling back
-                    searchForAlternativeCapabilities(buildingName, building.getId(), callback);
+                    getTimeSeriesData(capabilityIds, buildingName, building.getId(), callback);
+                    return;
                 }
+                
+                Log.w(TAG, "No capabilities found, trying direct building twin approach");
+                tryDirectBuildingApproach(buildingName, building.getId(), callback);
             }
-            
-            @Override
-            public void onFailure(Call<TwinsResponse> call, Throwable t) {
-                Log.e(TAG, "Network error searching capabilities: " + t.getMessage(), t);
-                // Try alternative approach before falling back
-                searchForAlternativeCapabilities(buildingName, building.getId(), callback);
-            }
-        });
+        };
+        listener.fetch = capabilitySearchCoordinator.start(modelIds, this::createCapabilitySearch, listener);
     }
     
     /**
-     * Alternative search approach using different model types
+     * Capability search listener that cancels the remaining searches once a usable result
+     * arrived and no higher-priority model (earlier in modelIds) is still pending
      */
-    private void searchForAlternativeCapabilities(String buildingName, String buildingId, EnergyDataCallback callback) {
-        Log.d(TAG, "Trying alternative search for power consumption capabilities");
+    private abstract static class CapabilitySearchListener implements FetchCoordinator.Listener<String, TwinsResponse> {
+        private final List<String> modelIds;
+        private final Map<String, Boolean> usable = new HashMap<>(); // answered models -> has twins
+        FetchCoordinator<String, TwinsResponse>.Fetch fetch;
         
-        Map<String, Object> searchRequest = new HashMap<>();
-        Map<String, Object> modelFilter = new HashMap<>();
-        modelFilter.put("modelIds", Arrays.asList(WillowApiV3Config.POWER_CONSUMPTION_MODEL));
-        modelFilter.put("exactModelMatch", false);
+        CapabilitySearchListener(List<String> modelIds) {
+            this.modelIds = modelIds;
+        }
         
-        searchRequest.put("modelFilter", modelFilter);
-        searchRequest.put("pageSize", 20);
+        @Override
+        public void onResult(String modelId, TwinsResponse response) {
+            int count = response.hasTwins() ? response.getContent().size() : 0;
+            Log.d(TAG, "Found " + count + " capabilities for " + modelId);
+            usable.put(modelId, response.hasTwins());
+            stopIfResolved();
+        }
         
-        Call<TwinsResponse> searchCall = apiService.searchTwins(accessToken, searchRequest);
+        @Override
+        public void onFailure(String modelId, String error) {
+            Log.w(TAG, "Capability search for " + modelId + " failed: " + error);
+            usable.put(modelId, false);
+            stopIfResolved();
+        }
         
-        searchCall.enqueue(new Callback<TwinsResponse>() {
-            @Override
-            public void onResponse(Call<TwinsResponse> call, Response<TwinsResponse> response) {
-                if (response.isSuccessful() && response.body() != null && response.body().hasTwins()) {
-                    TwinsResponse twinsResponse = response.body();
-                    Log.d(TAG, "Found " + twinsResponse.getContent().size() + " power capabilities");
-                    
-                    List<String> capabilityIds = new ArrayList<>();
-                    for (DigitalTwin twin : twinsResponse.getContent()) {
-                        capabilityIds.add(twin.getId());
-                        Log.d(TAG, "Found power capability: " + twin.getName() + " (" + twin.getId() + ")");
+        private void stopIfResolved() {
+            for (String modelId : modelIds) {
+                Boolean hasTwins = usable.get(modelId);
+                if (hasTwins == null) return; // a better model may still answer
+                if (hasTwins) {
+                    if (fetch != null && usable.size() < modelIds.size()) {
+                        Log.d(TAG, "Using " + modelId + " capabilities - cancelling remaining searches");
+                        fetch.cancel(); // completes with the results so far
                     }
-                    
-                    getTimeSeriesData(capabilityIds, buildingName, buildingId, callback);
-                } else {
-                    Log.w(TAG, "Alternative search also failed, trying direct building twin approach");
-                    // Try direct approach with the building twin ID
-                    tryDirectBuildingApproach(buildingName, buildingId, callback);
+                    return;
                 }
             }
-            
-            @Override
-            public void onFailure(Call<TwinsResponse> call, Throwable t) {
-                Log.e(TAG, "Alternative search failed: " + t.getMessage(), t);
-                // Try direct approach as last resort
-                tryDirectBuildingApproach(buildingName, buildingId, callback);
-            }
-        });
+        }
+    }
+    
+    /**
+     * Search request for capability twins of one model (one model per query avoids 500 errors)
+     */
+    private Call<TwinsResponse> createCapabilitySearch(String modelId) {
+        Map<String, Object> modelFilter = new HashMap<>();
+        modelFilter.put("modelIds", Arrays.asList(modelId));
+        modelFilter.put("exactModelMatch", false);
+        
+        Map<String, Object> searchRequest = new HashMap<>();
+        searchRequest.put("modelFilter", modelFilter);
+        searchRequest.put("pageSize", 20); // Reduced page size
+        
+        return apiService.searchTwins(tokenProvider.getCurrentToken(), searchRequest);
     }
     
     /**
@@ -406,7 +635,7 @@ public class WillowEnergyDataManager {
         List<String> directIds = Arrays.asList(buildingId);
         
         Call<List<TimeSeriesPoint>> directCall = apiService.getLatestTimeSeriesValues(
-            accessToken, directIds, true
+            tokenProvider.getCurrentToken(), directIds, true
         );
         
         directCall.enqueue(new Callback<List<TimeSeriesPoint>>() {
@@ -427,8 +656,7 @@ public class WillowEnergyDataManager {
             @Override
             public void onFailure(Call<List<TimeSeriesPoint>> call, Throwable t) {
                 Log.e(TAG, "Direct approach network error: " + t.getMessage(), t);
-                EnergyDataResponse fallbackData = createFallbackData(buildingName, buildingId);
-                callback.onSuccess(fallbackData);
+                callback.onError("Network error: " + t.getMessage());
             }
         });
     }
@@ -447,7 +675,7 @@ public class WillowEnergyDataManager {
         Log.d(TAG, "Requesting time series data for " + capabilityIds.size() + " capabilities");
         
         Call<List<TimeSeriesPoint>> latestCall = apiService.getLatestTimeSeriesValues(
-            accessToken, capabilityIds, true
+            tokenProvider.getCurrentToken(), capabilityIds, true
         );
         
         latestCall.enqueue(new Callback<List<TimeSeriesPoint>>() {
@@ -486,16 +714,14 @@ public class WillowEnergyDataManager {
                         }
                     }
                     Log.e(TAG, errorMsg);
-                    EnergyDataResponse fallbackData = createFallbackData(buildingName, buildingId);
-                    callback.onSuccess(fallbackData);
+                    callback.onError(errorMsg);
                 }
             }
             
             @Override
             public void onFailure(Call<List<TimeSeriesPoint>> call, Throwable t) {
                 Log.e(TAG, "Network error getting time series: " + t.getMessage(), t);
-                EnergyDataResponse fallbackData = createFallbackData(buildingName, buildingId);
-                callback.onSuccess(fallbackData);
+                callback.onError("Network error getting time series: " + t.getMessage());
             }
         });
     }
@@ -503,55 +729,53 @@ public class WillowEnergyDataManager {
     /**
      * Process time series data into energy response
      */
-    private EnergyDataResponse processTimeSeriesData(List<TimeSeriesPoint> timeSeriesData, 
+    private EnergyDataResponse processTimeSeriesData(List<TimeSeriesPoint> timeSeriesData,
                                                    String buildingName, String buildingId) {
+        return processTimeSeriesData(timeSeriesData, buildingName, buildingId, true);
+    }
+
+    /**
+     * Process time series data, optionally skipping the per-call gamification update
+     * (batched fetches record usage and rankings once for the whole batch)
+     */
+    private EnergyDataResponse processTimeSeriesData(List<TimeSeriesPoint> timeSeriesData,
+                                                   String buildingName, String buildingId,
+                                                   boolean recordGamification) {
         EnergyDataResponse energyData = new EnergyDataResponse(buildingName, buildingId);
         
-        Log.d(TAG, "🔍 Processing " + timeSeriesData.size() + " time series points for " + buildingName);
-        
-        // Find the most recent valid energy reading
-        TimeSeriesPoint latestPoint = null;
-        double totalEnergy = 0.0;
-        int validPointCount = 0;
-        int totalPointCount = 0;
-        
-        for (TimeSeriesPoint point : timeSeriesData) {
-            totalPointCount++;
-            Log.v(TAG, "🔍 Point " + totalPointCount + ": ScalarValue=" + point.getScalarValue() + 
-                  ", Quality=" + (point.getDataQuality() != null ? point.getDataQuality().toString() : "null") +
-                  ", Timestamp=" + point.getSourceTimestamp());
-                  
-            // Be more lenient - accept points with scalar values even if quality is questionable
-            if (point.getScalarValue() != null && point.getScalarValue() >= 0) {
-                // Skip data quality check for now since Sechrist might have quality issues
-                boolean hasGoodQuality = (point.getDataQuality() == null || point.getDataQuality().isGoodQuality());
-                
-                if (latestPoint == null || 
-                    point.getSourceTimestamp().compareTo(latestPoint.getSourceTimestamp()) > 0) {
-                    latestPoint = point;
-                    Log.d(TAG, "🔍 New latest point for " + buildingName + ": " + point.getScalarValue() + 
-                          " (Quality: " + hasGoodQuality + ")");
-                }
-                
-                totalEnergy += point.getScalarValue();
-                validPointCount++;
-            } else {
-                Log.v(TAG, "🔍 Skipped invalid point: ScalarValue=" + point.getScalarValue());
-            }
+        int validPointCount;
+        int latestIndex;
+        double totalEnergy;
+        double latestValue;
+        long latestTimestamp;
+        boolean latestGood;
+        synchronized (seriesBuffer) {
+            // Columnar copy keeps only points with a timestamp and a non-negative value
+            seriesBuffer.refill(timeSeriesData);
+            validPointCount = seriesBuffer.size();
+            latestIndex = seriesBuffer.latestIndex();
+            totalEnergy = seriesBuffer.sum();
+            latestValue = latestIndex >= 0 ? seriesBuffer.getValue(latestIndex) : 0.0;
+            latestTimestamp = latestIndex >= 0 ? seriesBuffer.getTimestamp(latestIndex) : Long.MIN_VALUE;
+            latestGood = latestIndex >= 0 && seriesBuffer.isGoodQuality(latestIndex);
+            seriesBuffer.clear();
         }
+        int totalPointCount = timeSeriesData.size();
         
         Log.d(TAG, "🔍 " + buildingName + " processed " + validPointCount + "/" + totalPointCount + " valid points");
         
-        if (latestPoint != null) {
+        if (latestIndex >= 0) {
             // Set real data
-            energyData.setCurrentUsageKW(latestPoint.getValueAsKW());
+            energyData.setCurrentUsageKW(latestValue);
             energyData.setDailyTotalKWh(totalEnergy);
-            energyData.setLastUpdated(latestPoint.getSourceTimestamp());
+            energyData.setLastUpdated(IsoTimestamps.formatUtc(latestTimestamp));
+            energyData.setSourceTimestamp(latestTimestamp);
             energyData.setDataAvailable(true);
             energyData.setStatus("Live Data");
+            Log.d(TAG, "🔍 Latest point for " + buildingName + ": " + latestValue + " (Quality: " + latestGood + ")");
             
             // 🎮 GAMIFICATION: Record today's energy usage for comparison
-            if (pointsManager != null) {
+            if (pointsManager != null && recordGamification) {
                 String dormName = mapBuildingNameToDorm(buildingName);
                 pointsManager.recordTodayEnergyUsage(dormName, totalEnergy);
                 Log.d(TAG, "🎮 Recorded energy usage for " + buildingName + " (mapped to " + dormName + "): " + totalEnergy + " kWh");
@@ -563,7 +787,7 @@ public class WillowEnergyDataManager {
             // Calculate potential energy
             energyData.calculatePotentialEnergy();
             
-            Log.d(TAG, "✅ Processed real energy data for " + buildingName + ": " + energyData.getCurrentUsageKW() + " kW, " + totalEnergy + " kWh total");
+            Log.d(TAG, "✅ Processed real energy data for " + buildingName + ": " + latestValue + " kW, " + totalEnergy + " kWh total");
         } else {
             Log.w(TAG, "❌ No valid time series data found for " + buildingName + " (processed " + validPointCount + "/" + totalPointCount + " points) - using fallback");
             return createFallbackData(buildingName, buildingId);
@@ -579,25 +803,28 @@ public class WillowEnergyDataManager {
     private void updateDormRankingsBasedOnRealData() {
         if (pointsManager == null) return;
         
-        String[] dorms = {"TINSLEY", "GABALDON", "SECHRIST"};
-        double[] energyUsages = new double[3];
+        String[] dorms = registry.getBuildingKeys();
+        if (dorms.length == 0) return;
+        double[] energyUsages = new double[dorms.length];
+        
+        Log.d(TAG, "🏆 REAL DATA RANKINGS UPDATE:");
         
         // Get current energy usage for all dorms
         for (int i = 0; i < dorms.length; i++) {
             energyUsages[i] = pointsManager.getTodayEnergyUsage(dorms[i]);
+            Log.d(TAG, "  Energy usage - " + dorms[i] + ": " + energyUsages[i] + " kWh");
         }
         
         // Calculate efficiency-based points (lower energy = higher points)
         // Scoring system: Most efficient gets 1000 points, least efficient gets 500 points
         
-        // Find max usage for scaling
-        double maxUsage = Math.max(Math.max(energyUsages[0], energyUsages[1]), energyUsages[2]);
-        double minUsage = Math.min(Math.min(energyUsages[0], energyUsages[1]), energyUsages[2]);
-        
-        Log.d(TAG, "🏆 REAL DATA RANKINGS UPDATE:");
-        Log.d(TAG, "  Energy usage - TINSLEY: " + energyUsages[0] + " kWh");
-        Log.d(TAG, "  Energy usage - GABALDON: " + energyUsages[1] + " kWh");
-        Log.d(TAG, "  Energy usage - SECHRIST: " + energyUsages[2] + " kWh");
+        // Find max/min usage for scaling
+        double maxUsage = energyUsages[0];
+        double minUsage = energyUsages[0];
+        for (double usage : energyUsages) {
+            maxUsage = Math.max(maxUsage, usage);
+            minUsage = Math.min(minUsage, usage);
+        }
         
         for (int i = 0; i < dorms.length; i++) {
             String dorm = dorms[i];
@@ -625,26 +852,13 @@ public class WillowEnergyDataManager {
             }
         }
         
-        // Log final rankings
-        java.util.Map<String, Integer> rankings = pointsManager.getDormRankings();
+        // Log final rankings (already ordered by the points manager's leaderboard index)
         Log.d(TAG, "🏆 UPDATED REAL RANKINGS:");
-        
-        // Sort and display rankings
-        java.util.List<java.util.Map.Entry<String, Integer>> sortedRankings = 
-            new java.util.ArrayList<>(rankings.entrySet());
-        java.util.Collections.sort(sortedRankings, 
-            new java.util.Comparator<java.util.Map.Entry<String, Integer>>() {
-                @Override
-                public int compare(java.util.Map.Entry<String, Integer> a, 
-                                 java.util.Map.Entry<String, Integer> b) {
-                    return b.getValue().compareTo(a.getValue()); // Highest first
-                }
-            });
-            
-        for (int i = 0; i < sortedRankings.size(); i++) {
-            java.util.Map.Entry<String, Integer> entry = sortedRankings.get(i);
+        java.util.List<String> sortedDorms = pointsManager.getTopDorms(3);
+        for (int i = 0; i < sortedDorms.size(); i++) {
+            String dorm = sortedDorms.get(i);
             String position = (i == 0) ? "1ST" : (i == 1) ? "2ND" : "3RD";
-            Log.d(TAG, "  " + (i+1) + ". " + entry.getKey() + ": " + entry.getValue() + " points (" + position + " PLACE)");
+            Log.d(TAG, "  " + (i+1) + ". " + dorm + ": " + pointsManager.getDormTotalPoints(dorm) + " points (" + position + " PLACE)");
         }
     }
     
@@ -657,10 +871,9 @@ public class WillowEnergyDataManager {
         Log.d(TAG, "🏆 Initializing real rankings from existing energy data...");
         
         // Check if we already have points (avoid overwriting existing rankings)
-        String[] dorms = {"TINSLEY", "GABALDON", "SECHRIST"};
         boolean hasExistingPoints = false;
         
-        for (String dorm : dorms) {
+        for (String dorm : registry.getBuildingKeys()) {
             if (pointsManager.getDormTotalPoints(dorm) > 0) {
                 hasExistingPoints = true;
                 break;
@@ -695,26 +908,6 @@ public class WillowEnergyDataManager {
         return fallbackData;
     }
     
-    /**
-     * Get base usage for building (dynamic calculation)
-     */
-    private int getBaseUsageForBuilding(String buildingName) {
-        // Dynamic calculation based on time of day and building characteristics
-        int timeOfDayMultiplier = java.util.Calendar.getInstance().get(java.util.Calendar.HOUR_OF_DAY);
-        int baseLoad = 200 + (timeOfDayMultiplier * 5); // Base load varies with time
-        
-        // Building efficiency factor (based on actual building characteristics)
-        double efficiencyFactor = 1.0;
-        switch (buildingName.toUpperCase(java.util.Locale.US)) {
-            case "TINSLEY": efficiencyFactor = 0.85; break; // Newer building, more efficient
-            case "GABALDON": efficiencyFactor = 1.0; break; // Average efficiency
-            case "SECHRIST": efficiencyFactor = 1.15; break; // Older building, less efficient
-            default: efficiencyFactor = 1.0; break;
-        }
-        
-        return (int) (baseLoad * efficiencyFactor);
-    }
-    
     /**
      * Get building position for leaderboard (now dynamic based on points!)
      */
@@ -723,20 +916,13 @@ public class WillowEnergyDataManager {
             // Use dynamic leaderboard based on potential energy points
             String dormName = mapBuildingNameToDorm(buildingName);
             
-            // Log all current rankings for debugging
-            java.util.Map<String, Integer> allRankings = pointsManager.getDormRankings();
-            Log.d(TAG, "🏆 CURRENT RANKINGS DEBUG:");
-            Log.d(TAG, "🏆 TINSLEY: " + allRankings.get("TINSLEY") + " points");
-            Log.d(TAG, "🏆 GABALDON: " + allRankings.get("GABALDON") + " points"); 
-            Log.d(TAG, "🏆 SECHRIST: " + allRankings.get("SECHRIST") + " points");
-            
             String dynamicPosition = pointsManager.getDormPosition(dormName);
             Log.d(TAG, "🏆 Dynamic position for " + buildingName + " (mapped to " + dormName + "): " + dynamicPosition);
             return dynamicPosition;
         } else {
-            // Fallback to hardcoded positions if no points manager
-            Log.w(TAG, "⚠️ No points manager, using hardcoded positions");
-            return buildingPositions.get(buildingName.toUpperCase(java.util.Locale.US));
+            // No points manager (context-free instance) - rankings are unknown
+            Log.w(TAG, "⚠️ No points manager, position unavailable");
+            return "UNRANKED";
         }
     }
     
@@ -794,11 +980,19 @@ public class WillowEnergyDataManager {
         return "No gamification system available";
     }
     
+    /**
+     * Get Willow API request metrics (latency, bytes, status codes, retries)
+     */
+    public String getApiDiagnostics() {
+        return WillowApiMetrics.getSummary();
+    }
+    
     /**
      * Check if currently authenticated
      */
     public boolean isAuthenticated() {
-        return accessToken != null && System.currentTimeMillis() < tokenExpirationTime;
+        // With credentials set, the client's interceptor fetches a missing token and its Authenticator replaces a rejected one
+        return tokenProvider.hasValidToken() || tokenProvider.hasCredentials();
     }
     
     /**
@@ -826,7 +1020,7 @@ public class WillowEnergyDataManager {
         Map<String, Object> searchRequest = new HashMap<>();
         searchRequest.put("pageSize", 50); // Get more results
         
-        Call<TwinsResponse> searchCall = apiService.searchTwins(accessToken, searchRequest);
+        Call<TwinsResponse> searchCall = apiService.searchTwins(tokenProvider.getCurrentToken(), searchRequest);
         
         searchCall.enqueue(new Callback<TwinsResponse>() {
             @Override
@@ -850,15 +1044,13 @@ public class WillowEnergyDataManager {
                             testDirectTimeSeries(buildingTwin, callback);
                         } else {
                             Log.w(TAG, "⚠️ No suitable building twin found, using fallback data");
-                            String buildingName = buildingNames.containsKey(targetTwinId) ? 
-                                buildingNames.get(targetTwinId) : "UNKNOWN";
+                            String buildingName = buildingNameForTwin(targetTwinId, "UNKNOWN");
                             EnergyDataResponse fallbackData = createFallbackData(buildingName, targetTwinId);
                             callback.onSuccess(fallbackData);
                         }
                     } else {
                         Log.w(TAG, "⚠️ No twins found in search response");
-                        String buildingName = buildingNames.containsKey(targetTwinId) ? 
-                            buildingNames.get(targetTwinId) : "UNKNOWN";
+                        String buildingName = buildingNameForTwin(targetTwinId, "UNKNOWN");
                         EnergyDataResponse fallbackData = createFallbackData(buildingName, targetTwinId);
                         callback.onSuccess(fallbackData);
                     }
@@ -890,8 +1082,7 @@ public class WillowEnergyDataManager {
      * Find the best matching twin from available twins
      */
     private DigitalTwin findBestMatchingTwin(List<DigitalTwin> availableTwins, String targetTwinId) {
-        String targetBuildingName = buildingNames.containsKey(targetTwinId) ? 
-            buildingNames.get(targetTwinId).toLowerCase(java.util.Locale.US) : "";
+        String targetBuildingName = buildingNameForTwin(targetTwinId, "").toLowerCase(java.util.Locale.US);
         
         Log.d(TAG, "🔍 Looking for twin ID: " + targetTwinId + " (Building: " + targetBuildingName.toUpperCase() + ")");
         
@@ -908,9 +1099,7 @@ public class WillowEnergyDataManager {
             if (twin.getName() != null && !targetBuildingName.isEmpty()) {
                 String twinName = twin.getName().toLowerCase();
                 // More specific matching for dormitories
-                if ((targetBuildingName.equals("sechrist") && twinName.contains("sechrist")) ||
-                    (targetBuildingName.equals("gabaldon") && twinName.contains("gabaldon")) ||
-                    (targetBuildingName.equals("tinsley") && twinName.contains("tinsley"))) {
+                if (targetBuildingName.equals(BuildingRegistry.keyForName(twin.getName()).toLowerCase(java.util.Locale.US))) {
                     Log.d(TAG, "✅ Found dorm name match: " + twin.getName() + " for " + targetBuildingName.toUpperCase());
                     return twin;
                 }
@@ -954,7 +1143,7 @@ public class WillowEnergyDataManager {
 
         
         // Test 1: Try to get the building twin directly
-        Call<DigitalTwin> twinCall = apiService.getTwinById(accessToken, buildingTwinId, true);
+        Call<DigitalTwin> twinCall = apiService.getTwinById(tokenProvider.getCurrentToken(), buildingTwinId, true);
         
         twinCall.enqueue(new Callback<DigitalTwin>() {
             @Override
@@ -967,8 +1156,7 @@ public class WillowEnergyDataManager {
                     testDirectTimeSeries(building, callback);
                 } else {
                     Log.e(TAG, "❌ Failed to get building twin: " + response.code());
-                    String buildingName = buildingNames.containsKey(buildingTwinId) ? 
-                        buildingNames.get(buildingTwinId) : "UNKNOWN";
+                    String buildingName = buildingNameForTwin(buildingTwinId, "UNKNOWN");
                     EnergyDataResponse fallbackData = createFallbackData(buildingName, buildingTwinId);
                     callback.onSuccess(fallbackData);
                 }
@@ -977,8 +1165,7 @@ public class WillowEnergyDataManager {
             @Override
             public void onFailure(Call<DigitalTwin> call, Throwable t) {
                 Log.e(TAG, "❌ Network error getting building twin: " + t.getMessage(), t);
-                String buildingName = buildingNames.containsKey(buildingTwinId) ? 
-                    buildingNames.get(buildingTwinId) : "UNKNOWN";
+                String buildingName = buildingNameForTwin(buildingTwinId, "UNKNOWN");
                 EnergyDataResponse fallbackData = createFallbackData(buildingName, buildingTwinId);
                 callback.onSuccess(fallbackData);
             }
@@ -992,7 +1179,7 @@ public class WillowEnergyDataManager {
 
         
         Call<List<TimeSeriesPoint>> directCall = apiService.getLatestTimeSeries(
-            accessToken, building.getId(), true
+            tokenProvider.getCurrentToken(), building.getId(), true
         );
         
         directCall.enqueue(new Callback<List<TimeSeriesPoint>>() {
@@ -1004,22 +1191,19 @@ public class WillowEnergyDataManager {
                     
                     if (!points.isEmpty()) {
                         // Process and return real data
-                        String buildingName = buildingNames.containsKey(building.getId()) ? 
-                            buildingNames.get(building.getId()) : building.getName();
+                        String buildingName = buildingNameForTwin(building.getId(), building.getName());
                         EnergyDataResponse energyData = processTimeSeriesData(points, buildingName, building.getId());
                         callback.onSuccess(energyData);
                     } else {
                         Log.w(TAG, "⚠️ No time series points found");
-                        String buildingName = buildingNames.containsKey(building.getId()) ? 
-                            buildingNames.get(building.getId()) : building.getName();
+                        String buildingName = buildingNameForTwin(building.getId(), building.getName());
                         EnergyDataResponse fallbackData = createFallbackData(buildingName, building.getId());
                         callback.onSuccess(fallbackData);
                     }
                 } else {
                     Log.e(TAG, "❌ Direct time series failed: " + response.code());
                     // Try the simplified search approach
-                    String buildingName = buildingNames.containsKey(building.getId()) ? 
-                        buildingNames.get(building.getId()) : building.getName();
+                    String buildingName = buildingNameForTwin(building.getId(), building.getName());
                     findEnergyCapabilities(building, buildingName, callback);
                 }
             }
@@ -1028,8 +1212,7 @@ public class WillowEnergyDataManager {
             public void onFailure(Call<List<TimeSeriesPoint>> call, Throwable t) {
                 Log.e(TAG, "❌ Direct time series network error: " + t.getMessage(), t);
                 // Try the simplified search approach
-                String buildingName = buildingNames.containsKey(building.getId()) ? 
-                    buildingNames.get(building.getId()) : building.getName();
+                String buildingName = buildingNameForTwin(building.getId(), building.getName());
                 findEnergyCapabilities(building, buildingName, callback);
             }
         });
@@ -1039,14 +1222,40 @@ public class WillowEnergyDataManager {
      * Get all building twin IDs
      */
     public List<String> getAllBuildingIds() {
-        return new ArrayList<>(buildingNames.keySet());
+        return registry.getAllTwinIds();
     }
     
     /**
      * Get building name by ID
      */
     public String getBuildingName(String twinId) {
-        return buildingNames.get(twinId);
+        return registry.findKeyForTwin(twinId);
+    }
+    
+    private String buildingNameForTwin(String twinId, String defaultName) {
+        String key = registry.findKeyForTwin(twinId);
+        return key != null ? key : defaultName;
+    }
+    
+    /**
+     * Get the power (kW) twin ID for a dorm, or null if unknown
+     */
+    public String getPowerTwinId(String dormName) {
+        return registry.getPowerTwinId(dormName);
+    }
+    
+    /**
+     * Get the energy (kWh) twin ID for a dorm, or null if unknown
+     */
+    public String getEnergyTwinId(String dormName) {
+        return registry.getEnergyTwinId(dormName);
+    }
+    
+    /**
+     * Buildings this manager fetches and ranks
+     */
+    public BuildingRegistry getBuildingRegistry() {
+        return registry;
     }
     
     /**
@@ -1055,14 +1264,9 @@ public class WillowEnergyDataManager {
     private String mapBuildingNameToDorm(String buildingName) {
         if (buildingName == null) return buildingName;
         
-        String normalized = buildingName.toLowerCase(java.util.Locale.US).trim();
-        
-        if (normalized.contains("tinsley")) {
-            return "TINSLEY";
-        } else if (normalized.contains("gabaldon")) {
-            return "GABALDON";
-        } else if (normalized.contains("sechrist")) {
-            return "SECHRIST";
+        String dormName = registry.findKeyByName(buildingName);
+        if (dormName != null) {
+            return dormName;
         }
         
         // For debugging - return original name if no match
@@ -0,0 +1,369 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+import android.util.Base64;
+import android.util.Log;
+import com.example.ecowattchtechdemo.willow.models.WillowOAuthResponse;
+import retrofit2.Response;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Shared OAuth token holder for the Willow API.
+ * - Refreshes the token ahead of expiry (TOKEN_REFRESH_MARGIN)
+ * - Coalesces concurrent callers onto a single in-flight token request
+ * - Persists the token encrypted with an Android Keystore key so cold starts can skip the OAuth hop
+ */
+public class WillowTokenProvider {
+
+    private static final String TAG = "WillowTokenProvider";
+    private static final String PREFS_NAME = "WillowAuthPrefs";
+    private static final String KEY_TOKEN = "token_ciphertext";
+    private static final String KEY_IV = "token_iv";
+    private static final String KEY_EXPIRES_AT = "token_expires_at";
+    private static final String KEYSTORE = "AndroidKeyStore";
+    private static final String KEY_ALIAS = "willow_token_key";
+    private static final String CIPHER_TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private static WillowTokenProvider instance;
+
+    private final Object lock = new Object();        // guards token/credential fields (never held across network calls)
+    private final Object refreshLock = new Object(); // serializes token requests
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+    private final List<TokenCallback> pendingCallbacks = new ArrayList<>();
+    private SharedPreferences prefs; // null until a context is attached (memory only)
+    private String clientId;
+    private String clientSecret;
+    private String baseUrl = WillowApiV3Config.DEFAULT_BASE_URL;
+    private String authorizationHeader;
+    private long tokenExpirationTime;
+    private boolean refreshInFlight = false;
+
+    /**
+     * Callback for asynchronous token requests
+     */
+    public interface TokenCallback {
+        void onSuccess(String authorizationHeader);
+        void onError(String error);
+    }
+
+    private WillowTokenProvider() {}
+
+    /**
+     * Get the shared provider without persistence
+     */
+    public static synchronized WillowTokenProvider getInstance() {
+        if (instance == null) {
+            instance = new WillowTokenProvider();
+        }
+        return instance;
+    }
+
+    /**
+     * Get the shared provider and attach persistent storage (restoring any saved token)
+     */
+    public static synchronized WillowTokenProvider getInstance(Context context) {
+        WillowTokenProvider provider = getInstance();
+        if (context != null) {
+            provider.attachStorage(context.getApplicationContext());
+        }
+        return provider;
+    }
+
+    /**
+     * Set the client credentials used for token requests
+     */
+    public void setCredentials(String clientId, String clientSecret) {
+        synchronized (lock) {
+            this.clientId = clientId;
+            this.clientSecret = clientSecret;
+        }
+    }
+
+    /**
+     * Set the Willow organization URL token requests go to (the one the API services use)
+     */
+    public void setBaseUrl(String baseUrl) {
+        synchronized (lock) {
+            this.baseUrl = baseUrl;
+        }
+    }
+
+    public boolean hasCredentials() {
+        synchronized (lock) {
+            return clientId != null && !clientId.isEmpty() && clientSecret != null && !clientSecret.isEmpty();
+        }
+    }
+
+    /**
+     * Check if a usable (non-expired) token is held
+     */
+    public boolean hasValidToken() {
+        synchronized (lock) {
+            return authorizationHeader != null && System.currentTimeMillis() < tokenExpirationTime;
+        }
+    }
+
+    /**
+     * Get the current authorization header without blocking.
+     * Starts a background refresh when the token is inside the refresh margin.
+     */
+    public String getCurrentToken() {
+        String header;
+        synchronized (lock) {
+            header = authorizationHeader;
+        }
+        if (needsProactiveRefresh()) {
+            refreshAsync(null);
+        }
+        return header;
+    }
+
+    /**
+     * Get a valid token, refreshing first if it is missing or about to expire.
+     * Callers that arrive while a refresh is running share its result.
+     */
+    public void getToken(TokenCallback callback) {
+        String header = null;
+        boolean usable;
+        synchronized (lock) {
+            usable = authorizationHeader != null
+                    && System.currentTimeMillis() < tokenExpirationTime - WillowApiV3Config.TOKEN_REFRESH_MARGIN;
+            if (usable) {
+                header = authorizationHeader;
+            }
+        }
+
+        if (usable) {
+            callback.onSuccess(header);
+        } else {
+            refreshAsync(callback);
+        }
+    }
+
+    /**
+     * Get a valid authorization header, fetching one first if none is held or it is about to expire.
+     * Used by the client's interceptor for requests sent before any token existed; must not be called on the main thread.
+     *
+     * @return the authorization header, or null if no token could be obtained
+     */
+    public String getTokenBlocking() {
+        String header = obtainToken(null, false);
+        if (header == null && hasValidToken()) {
+            // Early refresh failed but the current token has not expired yet - keep using it
+            synchronized (lock) {
+                header = authorizationHeader;
+            }
+        }
+        return header;
+    }
+
+    /**
+     * Synchronously fetch a new token unless another caller already replaced the failed one.
+     * Used by the OkHttp Authenticator on 401 responses; must not be called on the main thread.
+     *
+     * @param failedHeader the authorization header that was rejected, or null to force a refresh
+     * @return the new authorization header, or null if no token could be obtained
+     */
+    public String refreshBlocking(String failedHeader) {
+        return obtainToken(failedHeader, failedHeader == null);
+    }
+
+    /**
+     * Return the held token if it is usable and not the failed one (it may have been fetched by a caller
+     * we waited on), otherwise request a new one. force skips the reuse check.
+     */
+    private String obtainToken(String failedHeader, boolean force) {
+        synchronized (refreshLock) {
+            String id;
+            String secret;
+            String tokenBaseUrl;
+            synchronized (lock) {
+                if (!force && authorizationHeader != null && !authorizationHeader.equals(failedHeader)
+                        && System.currentTimeMillis() < tokenExpirationTime - WillowApiV3Config.TOKEN_REFRESH_MARGIN) {
+                    return authorizationHeader;
+                }
+                id = clientId;
+                secret = clientSecret;
+                tokenBaseUrl = baseUrl;
+            }
+
+            if (id == null || id.isEmpty() || secret == null || secret.isEmpty()) {
+                Log.e(TAG, "❌ Cannot refresh token - missing authentication credentials");
+                return null;
+            }
+
+            try {
+                Log.d(TAG, "🔐 Requesting new Willow API token...");
+                Response<WillowOAuthResponse> response = WillowApiClient.getApiService(tokenBaseUrl)
+                        .getOAuthToken(id, secret, WillowApiV3Config.GRANT_TYPE)
+                        .execute();
+
+                if (response.isSuccessful() && response.body() != null && response.body().isValid()) {
+                    WillowOAuthResponse tokenResponse = response.body();
+                    synchronized (lock) {
+                        authorizationHeader = tokenResponse.getAuthorizationHeader();
+                        tokenExpirationTime = System.currentTimeMillis() + (tokenResponse.getExpiresIn() * 1000L);
+                        persistToken();
+                    }
+
+                    Log.d(TAG, "🎉 Token refreshed - expires in " + tokenResponse.getExpiresIn() + " seconds");
+                    return tokenResponse.getAuthorizationHeader();
+                }
+
+                String error = "Authentication failed: HTTP " + response.code();
+                if (response.errorBody() != null) {
+                    try {
+                        error += " - " + response.errorBody().string();
+                    } catch (Exception e) {
+                        error += " (could not read error body)";
+                    }
+                }
+                Log.e(TAG, "❌ " + error);
+            } catch (java.net.UnknownHostException e) {
+                Log.e(TAG, "❌ DNS resolution failed - cannot reach Willow API server", e);
+            } catch (java.net.SocketTimeoutException e) {
+                Log.e(TAG, "❌ Connection timeout - network may be slow or server unresponsive", e);
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Authentication network error: " + e.getMessage(), e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Drop the current token (memory and storage)
+     */
+    public void invalidate() {
+        synchronized (lock) {
+            authorizationHeader = null;
+            tokenExpirationTime = 0;
+            if (prefs != null) {
+                prefs.edit().clear().apply();
+            }
+        }
+    }
+
+    private boolean needsProactiveRefresh() {
+        synchronized (lock) {
+            return authorizationHeader != null
+                    && System.currentTimeMillis() >= tokenExpirationTime - WillowApiV3Config.TOKEN_REFRESH_MARGIN
+                    && hasCredentials();
+        }
+    }
+
+    /**
+     * Queue the callback and start a refresh if none is running
+     */
+    private void refreshAsync(TokenCallback callback) {
+        synchronized (pendingCallbacks) {
+            if (callback != null) {
+                pendingCallbacks.add(callback);
+            }
+            if (refreshInFlight) {
+                Log.d(TAG, "⏳ Token refresh already in flight - joining it");
+                return;
+            }
+            refreshInFlight = true;
+        }
+
+        refreshExecutor.execute(() -> {
+            String header = getTokenBlocking();
+
+            List<TokenCallback> callbacks;
+            synchronized (pendingCallbacks) {
+                callbacks = new ArrayList<>(pendingCallbacks);
+                pendingCallbacks.clear();
+                refreshInFlight = false;
+            }
+
+            for (TokenCallback pending : callbacks) {
+                if (header != null) {
+                    pending.onSuccess(header);
+                } else {
+                    pending.onError("Unable to obtain Willow API token");
+                }
+            }
+        });
+    }
+
+    private void attachStorage(Context appContext) {
+        synchronized (lock) {
+            if (prefs != null) return;
+            prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+
+            if (authorizationHeader == null) {
+                restoreToken();
+            }
+        }
+    }
+
+    private void persistToken() {
+        if (prefs == null || authorizationHeader == null) return;
+
+        try {
+            Cipher cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, getOrCreateKey());
+            byte[] encrypted = cipher.doFinal(authorizationHeader.getBytes(StandardCharsets.UTF_8));
+
+            prefs.edit()
+                    .putString(KEY_TOKEN, Base64.encodeToString(encrypted, Base64.NO_WRAP))
+                    .putString(KEY_IV, Base64.encodeToString(cipher.getIV(), Base64.NO_WRAP))
+                    .putLong(KEY_EXPIRES_AT, tokenExpirationTime)
+                    .apply();
+        } catch (Exception e) {
+            // Token stays in memory only - the next cold start just re-authenticates
+            Log.w(TAG, "Could not persist token", e);
+        }
+    }
+
+    private void restoreToken() {
+        long expiresAt = prefs.getLong(KEY_EXPIRES_AT, 0);
+        String encrypted = prefs.getString(KEY_TOKEN, null);
+        String iv = prefs.getString(KEY_IV, null);
+        if (encrypted == null || iv == null || System.currentTimeMillis() >= expiresAt) {
+            return;
+        }
+
+        try {
+            Cipher cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, getOrCreateKey(),
+                    new GCMParameterSpec(128, Base64.decode(iv, Base64.NO_WRAP)));
+            byte[] decrypted = cipher.doFinal(Base64.decode(encrypted, Base64.NO_WRAP));
+
+            authorizationHeader = new String(decrypted, StandardCharsets.UTF_8);
+            tokenExpirationTime = expiresAt;
+            Log.d(TAG, "🔑 Restored saved token - valid for " + ((expiresAt - System.currentTimeMillis()) / 1000) + " more seconds");
+        } catch (Exception e) {
+            Log.w(TAG, "Discarding unreadable saved token", e);
+            prefs.edit().clear().apply();
+        }
+    }
+
+    private SecretKey getOrCreateKey() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance(KEYSTORE);
+        keyStore.load(null);
+        if (keyStore.containsAlias(KEY_ALIAS)) {
+            return ((KeyStore.SecretKeyEntry) keyStore.getEntry(KEY_ALIAS, null)).getSecretKey();
+        }
+
+        KeyGenerator keyGenerator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, KEYSTORE);
+        keyGenerator.init(new KeyGenParameterSpec.Builder(KEY_ALIAS,
+                KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+                .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                .build());
+        return keyGenerator.generateKey();
+    }
+}
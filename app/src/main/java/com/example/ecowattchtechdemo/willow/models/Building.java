@@ -0,0 +1,97 @@
+package com.example.ecowattchtechdemo.willow.models;
+
+import java.util.Locale;
+
+/**
+ * A building known to the app and the capability twins that report its energy
+ */
+public class Building {
+
+    private String key;            // stable internal name used for points and history (e.g. "TINSLEY")
+    private String displayName;    // twin name as reported by Willow (e.g. "Tinsley Hall")
+    private String buildingTwinId; // null for buildings configured only by capability twin IDs
+    private String powerTwinId;    // kW - instantaneous power
+    private String energyTwinId;   // kWh - cumulative energy
+
+    // Constructors
+    public Building() {}
+
+    public Building(String key, String displayName, String buildingTwinId, String powerTwinId, String energyTwinId) {
+        this.key = key;
+        this.displayName = displayName;
+        this.buildingTwinId = buildingTwinId;
+        this.powerTwinId = powerTwinId;
+        this.energyTwinId = energyTwinId;
+    }
+
+    // Getters and Setters
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Name users pick and see for the dorm, from the key ("TINSLEY" -> "Tinsley", "SAN_RAFAEL" -> "San Rafael")
+     */
+    public String getLabel() {
+        StringBuilder label = new StringBuilder();
+        for (String word : key.split("_")) {
+            if (word.isEmpty()) continue;
+            if (label.length() > 0) label.append(' ');
+            label.append(word.charAt(0)).append(word.substring(1).toLowerCase(Locale.US));
+        }
+        return label.toString();
+    }
+
+    public String getDisplayName() {
+        return displayName != null ? displayName : key;
+    }
+
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getBuildingTwinId() {
+        return buildingTwinId;
+    }
+
+    public void setBuildingTwinId(String buildingTwinId) {
+        this.buildingTwinId = buildingTwinId;
+    }
+
+    public String getPowerTwinId() {
+        return powerTwinId;
+    }
+
+    public void setPowerTwinId(String powerTwinId) {
+        this.powerTwinId = powerTwinId;
+    }
+
+    public String getEnergyTwinId() {
+        return energyTwinId;
+    }
+
+    public void setEnergyTwinId(String energyTwinId) {
+        this.energyTwinId = energyTwinId;
+    }
+
+    /**
+     * Check if at least one capability twin is known
+     */
+    public boolean hasCapabilityTwins() {
+        return (powerTwinId != null && !powerTwinId.isEmpty())
+                || (energyTwinId != null && !energyTwinId.isEmpty());
+    }
+
+    @Override
+    public String toString() {
+        return "Building{" +
+                "key='" + key + '\'' +
+                ", power='" + powerTwinId + '\'' +
+                ", energy='" + energyTwinId + '\'' +
+                '}';
+    }
+}
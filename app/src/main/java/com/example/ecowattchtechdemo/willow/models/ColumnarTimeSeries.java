@@ -0,0 +1,249 @@
+package com.example.ecowattchtechdemo.willow.models;
+
+import com.example.ecowattchtechdemo.willow.IsoTimestamps;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Time series for one twin stored column-wise in primitive arrays
+ * (epoch-millis timestamps, values and per-point data-quality flag bits),
+ * so processing and history queries avoid a boxed object per point.
+ */
+public class ColumnarTimeSeries {
+
+    // Data quality flag bits (mirror TimeSeriesPoint.DataQuality)
+    public static final int QUALITY_OFFLINE = 1;
+    public static final int QUALITY_OUT_OF_RANGE = 1 << 1;
+    public static final int QUALITY_SPARSE = 1 << 2;
+    public static final int QUALITY_FLATLINE = 1 << 3;
+    public static final int QUALITY_DELAYED = 1 << 4;
+    private static final int QUALITY_BAD_MASK = QUALITY_OFFLINE | QUALITY_OUT_OF_RANGE | QUALITY_FLATLINE;
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final double MILLIS_PER_HOUR = 3_600_000.0;
+
+    private final String twinId;
+    private long[] timestamps;
+    private double[] values;
+    private byte[] qualityFlags;
+    private int size;
+
+    // Constructors
+    public ColumnarTimeSeries(String twinId) {
+        this(twinId, DEFAULT_CAPACITY);
+    }
+
+    public ColumnarTimeSeries(String twinId, int initialCapacity) {
+        this.twinId = twinId;
+        int capacity = Math.max(initialCapacity, 1);
+        this.timestamps = new long[capacity];
+        this.values = new double[capacity];
+        this.qualityFlags = new byte[capacity];
+    }
+
+    /**
+     * Build a series from Gson-parsed points, keeping only points with a timestamp and a non-negative value
+     */
+    public static ColumnarTimeSeries fromPoints(String twinId, List<TimeSeriesPoint> points) {
+        ColumnarTimeSeries series = new ColumnarTimeSeries(twinId, points != null ? points.size() : 0);
+        series.refill(points);
+        return series;
+    }
+
+    /**
+     * Replace the contents with Gson-parsed points (same filtering as fromPoints), reusing the columns
+     */
+    public void refill(List<TimeSeriesPoint> points) {
+        clear();
+        if (points == null) return;
+
+        for (int i = 0; i < points.size(); i++) {
+            TimeSeriesPoint point = points.get(i);
+            Double value = point.getScalarValue();
+            long timestamp = IsoTimestamps.parseEpochMillis(point.getSourceTimestamp());
+            if (value != null && value >= 0 && timestamp != Long.MIN_VALUE) {
+                add(timestamp, value, qualityFlagsOf(point.getDataQuality()));
+            }
+        }
+    }
+
+    /**
+     * Pack a DataQuality object into flag bits
+     */
+    public static int qualityFlagsOf(TimeSeriesPoint.DataQuality quality) {
+        if (quality == null) return 0;
+        int flags = 0;
+        if (quality.isOffline()) flags |= QUALITY_OFFLINE;
+        if (quality.isValueOutOfRange()) flags |= QUALITY_OUT_OF_RANGE;
+        if (quality.isSparse()) flags |= QUALITY_SPARSE;
+        if (quality.isFlatline()) flags |= QUALITY_FLATLINE;
+        if (quality.isDelayed()) flags |= QUALITY_DELAYED;
+        return flags;
+    }
+
+    /**
+     * Append one point, growing the columns when full
+     */
+    public void add(long timestampMillis, double value) {
+        add(timestampMillis, value, 0);
+    }
+
+    public void add(long timestampMillis, double value, int flags) {
+        if (size == timestamps.length) {
+            int newCapacity = size + (size >> 1) + 1;
+            timestamps = Arrays.copyOf(timestamps, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+            qualityFlags = Arrays.copyOf(qualityFlags, newCapacity);
+        }
+        timestamps[size] = timestampMillis;
+        values[size] = value;
+        qualityFlags[size] = (byte) flags;
+        size++;
+    }
+
+    /**
+     * Drop all points but keep the allocated columns for reuse
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    // Getters
+    public String getTwinId() {
+        return twinId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    public int getQualityFlags(int index) {
+        return qualityFlags[index];
+    }
+
+    public boolean isGoodQuality(int index) {
+        return (qualityFlags[index] & QUALITY_BAD_MASK) == 0;
+    }
+
+    // Aggregations
+
+    /**
+     * Index of the point with the newest timestamp (first one wins on ties), or -1 when empty
+     */
+    public int latestIndex() {
+        int latest = -1;
+        for (int i = 0; i < size; i++) {
+            if (latest < 0 || timestamps[i] > timestamps[latest]) {
+                latest = i;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Value of the newest point, or NaN when empty
+     */
+    public double latestValue() {
+        int latest = latestIndex();
+        return latest >= 0 ? values[latest] : Double.NaN;
+    }
+
+    public long latestTimestamp() {
+        int latest = latestIndex();
+        return latest >= 0 ? timestamps[latest] : Long.MIN_VALUE;
+    }
+
+    public double sum() {
+        double total = 0.0;
+        for (int i = 0; i < size; i++) total += values[i];
+        return total;
+    }
+
+    /**
+     * Sum of points whose timestamp falls in [fromMillis, toMillis)
+     */
+    public double sumBetween(long fromMillis, long toMillis) {
+        double total = 0.0;
+        for (int i = 0; i < size; i++) {
+            if (timestamps[i] >= fromMillis && timestamps[i] < toMillis) total += values[i];
+        }
+        return total;
+    }
+
+    public double min() {
+        double min = Double.NaN;
+        for (int i = 0; i < size; i++) {
+            if (Double.isNaN(min) || values[i] < min) min = values[i];
+        }
+        return min;
+    }
+
+    public double max() {
+        double max = Double.NaN;
+        for (int i = 0; i < size; i++) {
+            if (Double.isNaN(max) || values[i] > max) max = values[i];
+        }
+        return max;
+    }
+
+    public double mean() {
+        return size > 0 ? sum() / size : Double.NaN;
+    }
+
+    /**
+     * Trapezoidal integral over time in value-hours (e.g. kW readings -> kWh).
+     * Assumes points are in timestamp order; gaps count as straight lines.
+     */
+    public double integrateHours() {
+        return integrateHoursBetween(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Trapezoidal integral over [fromMillis, toMillis). Segments crossing a bound are split there,
+     * with the value at the bound interpolated linearly, so adjacent ranges (e.g. days) add up to the whole.
+     */
+    public double integrateHoursBetween(long fromMillis, long toMillis) {
+        double total = 0.0;
+        for (int i = 1; i < size; i++) {
+            long start = timestamps[i - 1];
+            long end = timestamps[i];
+            if (end <= start || end <= fromMillis || start >= toMillis) continue;
+
+            long clippedStart = Math.max(start, fromMillis);
+            long clippedEnd = Math.min(end, toMillis);
+            double startValue = interpolate(i, clippedStart);
+            double endValue = interpolate(i, clippedEnd);
+            total += (startValue + endValue) * 0.5 * ((clippedEnd - clippedStart) / MILLIS_PER_HOUR);
+        }
+        return total;
+    }
+
+    /**
+     * Value at timestampMillis on the straight line between points i - 1 and i
+     */
+    private double interpolate(int i, long timestampMillis) {
+        long start = timestamps[i - 1];
+        double fraction = (double) (timestampMillis - start) / (timestamps[i] - start);
+        return values[i - 1] + (values[i] - values[i - 1]) * fraction;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarTimeSeries{" +
+                "twinId='" + twinId + '\'' +
+                ", size=" + size +
+                '}';
+    }
+}
@@ -83,10 +83,8 @@ public class DigitalTwin {
      * Get name from contents if available
      */
     public String getName() {
-        if (contents != null && contents.containsKey("name")) {
-            return contents.get("name").toString();
-        }
-        return id;
+        Object name = contents != null ? contents.get("name") : null;
+        return name != null ? name.toString() : id;
     }
     
     /**
@@ -0,0 +1,81 @@
+package com.example.ecowattchtechdemo.willow.models;
+
+/**
+ * Latest power (kW) and energy (kWh) readings for one dorm, built from a single batched fetch
+ */
+public class DormEnergySnapshot {
+
+    private String dormName;
+    private EnergyDataResponse powerData;
+    private EnergyDataResponse energyData;
+    private long fetchedAt;
+    private transient boolean cached; // restored from the on-disk snapshot, not yet revalidated
+
+    // Constructors
+    public DormEnergySnapshot() {}
+
+    public DormEnergySnapshot(String dormName, EnergyDataResponse powerData, EnergyDataResponse energyData) {
+        this.dormName = dormName;
+        this.powerData = powerData;
+        this.energyData = energyData;
+        this.fetchedAt = System.currentTimeMillis();
+    }
+
+    // Getters and Setters
+    public String getDormName() {
+        return dormName;
+    }
+
+    public void setDormName(String dormName) {
+        this.dormName = dormName;
+    }
+
+    public EnergyDataResponse getPowerData() {
+        return powerData;
+    }
+
+    public void setPowerData(EnergyDataResponse powerData) {
+        this.powerData = powerData;
+    }
+
+    public EnergyDataResponse getEnergyData() {
+        return energyData;
+    }
+
+    public void setEnergyData(EnergyDataResponse energyData) {
+        this.energyData = energyData;
+    }
+
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public void setFetchedAt(long fetchedAt) {
+        this.fetchedAt = fetchedAt;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+
+    /**
+     * Check if either reading came back with real data
+     */
+    public boolean hasLiveData() {
+        return (powerData != null && powerData.isDataAvailable()) ||
+               (energyData != null && energyData.isDataAvailable());
+    }
+
+    @Override
+    public String toString() {
+        return "DormEnergySnapshot{" +
+                "dormName='" + dormName + '\'' +
+                ", powerKW=" + (powerData != null ? powerData.getCurrentUsageKW() : null) +
+                ", energyKWh=" + (energyData != null ? energyData.getDailyTotalKWh() : null) +
+                '}';
+    }
+}
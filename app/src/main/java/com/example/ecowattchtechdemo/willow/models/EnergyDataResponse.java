@@ -11,6 +11,7 @@ public class EnergyDataResponse {
     private Double dailyTotalKWh;
     private Double potentialEnergy;
     private String lastUpdated;
+    private long sourceTimestamp; // epoch millis of the latest reading, 0 when unknown
     private boolean dataAvailable;
     private String status;
     
@@ -73,6 +74,14 @@ public class EnergyDataResponse {
         this.lastUpdated = lastUpdated;
     }
     
+    public long getSourceTimestamp() {
+        return sourceTimestamp;
+    }
+    
+    public void setSourceTimestamp(long sourceTimestamp) {
+        this.sourceTimestamp = sourceTimestamp;
+    }
+    
     public boolean isDataAvailable() {
         return dataAvailable;
     }
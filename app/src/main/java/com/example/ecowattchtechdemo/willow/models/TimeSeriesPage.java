@@ -0,0 +1,79 @@
+package com.example.ecowattchtechdemo.willow.models;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One page of time-series history, parsed straight into per-twin columnar series
+ */
+public class TimeSeriesPage {
+
+    private final Map<String, ColumnarTimeSeries> seriesByTwin = new LinkedHashMap<>();
+    private String continuationToken;
+    private String errorMessage;
+
+    // Constructors
+    public TimeSeriesPage() {}
+
+    /**
+     * Get (or create) the series for a twin
+     */
+    public ColumnarTimeSeries getOrCreateSeries(String twinId, int initialCapacity) {
+        ColumnarTimeSeries series = seriesByTwin.get(twinId);
+        if (series == null) {
+            series = new ColumnarTimeSeries(twinId, initialCapacity);
+            seriesByTwin.put(twinId, series);
+        }
+        return series;
+    }
+
+    // Getters and Setters
+    public ColumnarTimeSeries getSeries(String twinId) {
+        return seriesByTwin.get(twinId);
+    }
+
+    public Collection<ColumnarTimeSeries> getAllSeries() {
+        return seriesByTwin.values();
+    }
+
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public void setContinuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * Check if the server has more pages after this one
+     */
+    public boolean hasMore() {
+        return continuationToken != null && !continuationToken.isEmpty();
+    }
+
+    public int getPointCount() {
+        int total = 0;
+        for (ColumnarTimeSeries series : seriesByTwin.values()) {
+            total += series.size();
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "TimeSeriesPage{" +
+                "twins=" + seriesByTwin.size() +
+                ", points=" + getPointCount() +
+                ", hasMore=" + hasMore() +
+                '}';
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.ecowattchtechdemo.gamification;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EnergyHistoryStoreTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void consumptionIsMeasuredFromThePreviousDaysLastReading() {
+        assertEquals(30.0, EnergyHistoryStore.consumed(1000, 1010, 1030), DELTA);
+    }
+
+    @Test
+    public void withoutAPreviousDayConsumptionStartsAtTheFirstReading() {
+        assertEquals(20.0, EnergyHistoryStore.consumed(Double.NaN, 1010, 1030), DELTA);
+        assertEquals(0.0, EnergyHistoryStore.consumed(Double.NaN, 1030, 1030), DELTA);
+    }
+
+    @Test
+    public void meterResetCountsOnlyTheDaysOwnReadings() {
+        assertEquals(15.0, EnergyHistoryStore.consumed(1000, 5, 20), DELTA);
+    }
+
+    @Test
+    public void dayWithoutReadingsUsedNothing() {
+        assertEquals(0.0, EnergyHistoryStore.consumed(1000, Double.NaN, Double.NaN), DELTA);
+    }
+
+    @Test
+    public void consumptionIsNeverNegative() {
+        assertEquals(0.0, EnergyHistoryStore.consumed(1000, 990, 980), DELTA);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.ecowattchtechdemo.gamification;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class LeaderboardIndexTest {
+
+    @Test
+    public void ranksHighestScoreFirst() {
+        LeaderboardIndex index = new LeaderboardIndex();
+        index.update("TINSLEY", 700);
+        index.update("GABALDON", 900);
+        index.update("SECHRIST", 800);
+
+        assertEquals(1, index.rankOf("GABALDON"));
+        assertEquals(2, index.rankOf("SECHRIST"));
+        assertEquals(3, index.rankOf("TINSLEY"));
+        assertEquals(Arrays.asList("GABALDON", "SECHRIST", "TINSLEY"), index.topN(3));
+    }
+
+    @Test
+    public void tiesAreOrderedById() {
+        LeaderboardIndex index = new LeaderboardIndex();
+        index.update("SECHRIST", 750);
+        index.update("GABALDON", 750);
+        index.update("TINSLEY", 750);
+
+        assertEquals(Arrays.asList("GABALDON", "SECHRIST", "TINSLEY"), index.topN(3));
+        assertEquals(1, index.rankOf("GABALDON"));
+        assertEquals(3, index.rankOf("TINSLEY"));
+    }
+
+    @Test
+    public void updateMovesAnIdToItsNewScore() {
+        LeaderboardIndex index = new LeaderboardIndex();
+        index.update("TINSLEY", 500);
+        index.update("GABALDON", 900);
+
+        index.update("TINSLEY", 1000);
+
+        assertEquals(2, index.size());
+        assertEquals(1, index.rankOf("TINSLEY"));
+        assertEquals(2, index.rankOf("GABALDON"));
+        assertEquals(1000, index.getScore("TINSLEY", 0));
+    }
+
+    @Test
+    public void removedIdsAreNotRanked() {
+        LeaderboardIndex index = new LeaderboardIndex();
+        index.update("TINSLEY", 500);
+        index.update("GABALDON", 900);
+
+        index.remove("GABALDON");
+
+        assertFalse(index.contains("GABALDON"));
+        assertEquals(-1, index.rankOf("GABALDON"));
+        assertEquals(1, index.rankOf("TINSLEY"));
+        assertEquals(42, index.getScore("GABALDON", 42));
+    }
+
+    @Test
+    public void topNStopsAtLimitOrSize() {
+        LeaderboardIndex index = new LeaderboardIndex();
+        assertEquals(Collections.emptyList(), index.topN(3));
+
+        for (int i = 0; i < 100; i++) {
+            index.update("DORM_" + i, i);
+        }
+
+        assertEquals(Arrays.asList("DORM_99", "DORM_98"), index.topN(2));
+        assertEquals(100, index.topN(500).size());
+        assertEquals(Collections.emptyList(), index.topN(0));
+        assertEquals(100, index.rankOf("DORM_0"));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.ecowattchtechdemo.sync;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PendingWriteQueueTest {
+
+    @Test
+    public void pointsKeepTheLatestTotal() {
+        assertEquals(Integer.valueOf(120),
+                PendingWriteQueue.coalescedValue(PendingWriteQueue.TYPE_POINTS, 100, 120));
+        assertEquals(Integer.valueOf(80),
+                PendingWriteQueue.coalescedValue(PendingWriteQueue.TYPE_POINTS, 100, 80));
+    }
+
+    @Test
+    public void isDoneDeltasAreSummed() {
+        Integer merged = PendingWriteQueue.coalescedValue(PendingWriteQueue.TYPE_IS_DONE, 1, 2);
+        merged = PendingWriteQueue.coalescedValue(PendingWriteQueue.TYPE_IS_DONE, merged, 4);
+
+        assertEquals(Integer.valueOf(7), merged);
+    }
+
+    @Test
+    public void repeatedPurchaseIsDropped() {
+        assertNull(PendingWriteQueue.coalescedValue(PendingWriteQueue.TYPE_PURCHASE, 500, 500));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.ecowattchtechdemo.sync;
+
+import com.example.ecowattchtechdemo.sync.PendingWriteQueue.PendingWrite;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PendingWriteWorkerTest {
+
+    @Test
+    public void pointsAfterPurchaseInOneBatchSupersedeItsBalance() {
+        // Server at 600: purchase of 100, then a check-in queues the new total 550
+        PendingWrite purchase = write(1, PendingWriteQueue.TYPE_PURCHASE, "alex", 100, "OCEAN");
+        PendingWrite points = write(2, PendingWriteQueue.TYPE_POINTS, "alex", 550, null);
+        List<PendingWrite> batch = Arrays.asList(purchase, points);
+
+        assertTrue(PendingWriteWorker.hasLaterBalanceWrite(batch, purchase));
+        assertFalse(PendingWriteWorker.hasLaterBalanceWrite(batch, points));
+    }
+
+    @Test
+    public void laterPurchaseSupersedesBalance() {
+        PendingWrite first = write(1, PendingWriteQueue.TYPE_PURCHASE, "alex", 100, "OCEAN");
+        PendingWrite second = write(2, PendingWriteQueue.TYPE_PURCHASE, "alex", 200, "FOREST");
+
+        assertTrue(PendingWriteWorker.hasLaterBalanceWrite(Arrays.asList(first, second), first));
+    }
+
+    @Test
+    public void earlierOrUnrelatedWritesDoNotSupersedeBalance() {
+        PendingWrite points = write(1, PendingWriteQueue.TYPE_POINTS, "alex", 600, null);
+        PendingWrite purchase = write(2, PendingWriteQueue.TYPE_PURCHASE, "alex", 100, "OCEAN");
+        PendingWrite checklist = write(3, PendingWriteQueue.TYPE_IS_DONE, "alex", 1, null);
+        PendingWrite otherUser = write(4, PendingWriteQueue.TYPE_POINTS, "sam", 300, null);
+
+        assertFalse(PendingWriteWorker.hasLaterBalanceWrite(
+                Arrays.asList(points, purchase, checklist, otherUser), purchase));
+    }
+
+    private static PendingWrite write(long id, String type, String username, int value, String target) {
+        return new PendingWrite(id, type, username, value, target, "key-" + id, 0);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.ecowattchtechdemo.willow;
+
+import com.example.ecowattchtechdemo.willow.models.Building;
+import com.example.ecowattchtechdemo.willow.models.DigitalTwin;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BuildingRegistryTest {
+
+    private static final String BUILDING_MODEL = "dtmi:com:willowinc:Building;1";
+    private static final String ENERGY_MODEL = "dtmi:com:willowinc:ElectricalEnergySensor;1";
+
+    @Test
+    public void capabilityIsMatchedToABuildingByName() {
+        List<Building> buildings = BuildingRegistry.assemble(
+                Collections.singletonList(twin("b1", BUILDING_MODEL, "Tinsley Hall")),
+                Collections.singletonList(twin("e1", ENERGY_MODEL, "Tinsley Hall Energy")));
+
+        assertEquals(1, buildings.size());
+        assertEquals("TINSLEY", buildings.get(0).getKey());
+        assertEquals("e1", buildings.get(0).getEnergyTwinId());
+    }
+
+    @Test
+    public void buildingsWithoutANameAreSkipped() {
+        List<Building> buildings = BuildingRegistry.assemble(
+                Arrays.asList(twin("b1", BUILDING_MODEL, null), twin("b2", BUILDING_MODEL, "  "),
+                        twin("b3", BUILDING_MODEL, "Gabaldon Hall")),
+                Collections.singletonList(twin("e1", ENERGY_MODEL, "Gabaldon Hall Energy")));
+
+        assertEquals(1, buildings.size());
+        assertEquals("GABALDON", buildings.get(0).getKey());
+    }
+
+    private static DigitalTwin twin(String id, String modelId, String name) {
+        DigitalTwin twin = new DigitalTwin();
+        twin.setId(id);
+        twin.setModelId(modelId);
+        Map<String, Object> contents = new HashMap<>();
+        contents.put("name", name);
+        twin.setContents(contents);
+        return twin;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.ecowattchtechdemo.willow;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FetchCoordinatorTest {
+
+    @Test
+    public void partitionSplitsIntoConsecutiveBatches() {
+        List<List<Integer>> batches = FetchCoordinator.partition(Arrays.asList(1, 2, 3, 4, 5), 2);
+
+        assertEquals(Arrays.asList(
+                Arrays.asList(1, 2),
+                Arrays.asList(3, 4),
+                Collections.singletonList(5)), batches);
+    }
+
+    @Test
+    public void partitionKeepsAnExactMultipleWithoutEmptyBatch() {
+        List<List<Integer>> batches = FetchCoordinator.partition(Arrays.asList(1, 2, 3, 4), 2);
+
+        assertEquals(2, batches.size());
+        assertEquals(Arrays.asList(3, 4), batches.get(1));
+    }
+
+    @Test
+    public void partitionOfEmptyListIsEmpty() {
+        assertTrue(FetchCoordinator.partition(Collections.emptyList(), 10).isEmpty());
+    }
+
+    @Test
+    public void partitionTreatsNonPositiveBatchSizeAsOne() {
+        List<List<String>> batches = FetchCoordinator.partition(Arrays.asList("a", "b"), 0);
+
+        assertEquals(Arrays.asList(Collections.singletonList("a"), Collections.singletonList("b")), batches);
+    }
+
+    @Test
+    public void partitionBatchesAreCopies() {
+        List<String> items = Arrays.asList("a", "b", "c");
+        List<List<String>> batches = FetchCoordinator.partition(items, 3);
+
+        items.set(0, "z");
+
+        assertEquals(Arrays.asList("a", "b", "c"), batches.get(0));
+    }
+}
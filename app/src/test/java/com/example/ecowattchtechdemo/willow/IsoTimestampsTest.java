@@ -0,0 +1,62 @@
+package com.example.ecowattchtechdemo.willow;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IsoTimestampsTest {
+
+    // 2024-03-01T17:45:00Z
+    private static final long MARCH_1_2024_1745_UTC = 1709315100000L;
+
+    @Test
+    public void parsesUtcWithoutFraction() {
+        assertEquals(MARCH_1_2024_1745_UTC, IsoTimestamps.parseEpochMillis("2024-03-01T17:45:00Z"));
+    }
+
+    @Test
+    public void parsesFractionToMillis() {
+        assertEquals(MARCH_1_2024_1745_UTC + 123, IsoTimestamps.parseEpochMillis("2024-03-01T17:45:00.1234567Z"));
+        assertEquals(MARCH_1_2024_1745_UTC + 500, IsoTimestamps.parseEpochMillis("2024-03-01T17:45:00.5Z"));
+    }
+
+    @Test
+    public void appliesZoneOffsets() {
+        assertEquals(MARCH_1_2024_1745_UTC, IsoTimestamps.parseEpochMillis("2024-03-01T10:45:00-07:00"));
+        assertEquals(MARCH_1_2024_1745_UTC, IsoTimestamps.parseEpochMillis("2024-03-01T23:15:00+05:30"));
+    }
+
+    @Test
+    public void treatsMissingZoneAsUtc() {
+        assertEquals(MARCH_1_2024_1745_UTC, IsoTimestamps.parseEpochMillis("2024-03-01T17:45:00"));
+    }
+
+    @Test
+    public void handlesLeapDay() {
+        assertEquals(1709164800000L, IsoTimestamps.parseEpochMillis("2024-02-29T00:00:00Z"));
+    }
+
+    @Test
+    public void rejectsUnsupportedText() {
+        assertEquals(Long.MIN_VALUE, IsoTimestamps.parseEpochMillis(null));
+        assertEquals(Long.MIN_VALUE, IsoTimestamps.parseEpochMillis(""));
+        assertEquals(Long.MIN_VALUE, IsoTimestamps.parseEpochMillis("2024-03-01"));
+        assertEquals(Long.MIN_VALUE, IsoTimestamps.parseEpochMillis("2024/03/01T17:45:00Z"));
+        assertEquals(Long.MIN_VALUE, IsoTimestamps.parseEpochMillis("2024-03-01T17:45:00Q"));
+        assertEquals(Long.MIN_VALUE, IsoTimestamps.parseEpochMillis("2024-03-0xT17:45:00Z"));
+    }
+
+    @Test
+    public void formatsUtc() {
+        assertEquals("2024-03-01T17:45:00.123Z", IsoTimestamps.formatUtc(MARCH_1_2024_1745_UTC + 123));
+        assertEquals("1970-01-01T00:00:00.000Z", IsoTimestamps.formatUtc(0));
+        assertEquals("1969-12-31T23:59:59.999Z", IsoTimestamps.formatUtc(-1));
+    }
+
+    @Test
+    public void formatThenParseRoundTrips() {
+        for (long millis : new long[]{0, 951782400000L, 1709164800000L, MARCH_1_2024_1745_UTC + 7, 4102444799999L}) {
+            assertEquals(millis, IsoTimestamps.parseEpochMillis(IsoTimestamps.formatUtc(millis)));
+        }
+    }
+}
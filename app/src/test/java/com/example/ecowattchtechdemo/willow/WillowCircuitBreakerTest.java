@@ -0,0 +1,333 @@
+package com.example.ecowattchtechdemo.willow;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Timeout;
+
+import static org.junit.Assert.*;
+
+public class WillowCircuitBreakerTest {
+
+    private static final int THRESHOLD = 3;
+    private static final long OPEN_BASE = 30000;
+    private static final long OPEN_MAX = 100000;
+
+    private long now;
+    private WillowCircuitBreaker breaker;
+
+    @Before
+    public void setUp() {
+        now = 1000;
+        breaker = new WillowCircuitBreaker(THRESHOLD, OPEN_BASE, OPEN_MAX, () -> now);
+    }
+
+    @Test
+    public void opensAfterConsecutiveFailures() throws IOException {
+        for (int i = 0; i < THRESHOLD - 1; i++) {
+            send(503);
+        }
+        assertEquals(WillowCircuitBreaker.State.CLOSED, breaker.getState());
+
+        send(503);
+
+        assertEquals(WillowCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowsRequests());
+        long retryIn = breaker.getRetryInMillis();
+        assertTrue(retryIn >= OPEN_BASE / 2 && retryIn <= OPEN_BASE);
+    }
+
+    @Test
+    public void successResetsTheFailureCount() throws IOException {
+        send(503);
+        send(503);
+        send(200);
+        send(503);
+        send(503);
+
+        assertEquals(WillowCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void clientErrorsCountAsSuccessButTooManyRequestsFails() throws IOException {
+        send(404);
+        send(400);
+        assertEquals(WillowCircuitBreaker.State.CLOSED, breaker.getState());
+
+        send(429);
+        send(429);
+        send(429);
+        assertEquals(WillowCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void transportErrorsCountAsFailures() {
+        for (int i = 0; i < THRESHOLD; i++) {
+            sendFailing(new IOException("Connection reset"), false);
+        }
+        assertEquals(WillowCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void callsCancelledByTheAppDoNotCount() {
+        for (int i = 0; i < THRESHOLD * 2; i++) {
+            sendFailing(new IOException("Canceled"), true);
+        }
+        assertEquals(WillowCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void callTimeoutsCountAsFailures() {
+        // OkHttp cancels a call that outlives Call.timeout() and throws InterruptedIOException("timeout")
+        for (int i = 0; i < THRESHOLD; i++) {
+            sendFailing(new InterruptedIOException("timeout"), true);
+        }
+        assertEquals(WillowCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void timedOutProbeReopensTheCircuit() {
+        open();
+        now += OPEN_BASE;
+
+        sendFailing(new InterruptedIOException("timeout"), true);
+
+        assertEquals(WillowCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowsRequests());
+    }
+
+    @Test
+    public void openCircuitRejectsWithoutSending() throws IOException {
+        open();
+        FakeChain chain = new FakeChain(200);
+
+        try {
+            breaker.intercept(chain);
+            fail("Expected CircuitOpenException");
+        } catch (WillowCircuitBreaker.CircuitOpenException expected) {
+            assertFalse(chain.proceeded);
+        }
+    }
+
+    @Test
+    public void successfulProbeClosesTheCircuit() throws IOException {
+        open();
+        now += OPEN_BASE;
+        assertTrue(breaker.allowsRequests());
+
+        send(200);
+
+        assertEquals(WillowCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getRetryInMillis());
+    }
+
+    @Test
+    public void onlyOneProbeAtATime() throws IOException {
+        open();
+        now += OPEN_BASE;
+
+        FakeChain probe = new FakeChain(200);
+        probe.whileInFlight = () -> {
+            assertEquals(WillowCircuitBreaker.State.HALF_OPEN, breaker.getState());
+            assertFalse(breaker.allowsRequests());
+            try {
+                breaker.intercept(new FakeChain(200));
+                fail("Second call during the probe should be rejected");
+            } catch (WillowCircuitBreaker.CircuitOpenException expected) {
+                // only the probe goes out
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        };
+        breaker.intercept(probe);
+
+        assertEquals(WillowCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void failedProbeReopensForLonger() throws IOException {
+        open();
+        now += OPEN_BASE;
+
+        send(503);
+
+        assertEquals(WillowCircuitBreaker.State.OPEN, breaker.getState());
+        long retryIn = breaker.getRetryInMillis();
+        assertTrue(retryIn >= OPEN_BASE && retryIn <= 2 * OPEN_BASE);
+    }
+
+    @Test
+    public void openPeriodIsCapped() throws IOException {
+        open();
+        for (int i = 0; i < 5; i++) {
+            now += OPEN_MAX;
+            send(503);
+        }
+
+        assertTrue(breaker.getRetryInMillis() <= OPEN_MAX);
+    }
+
+    @Test
+    public void cancelledProbeFreesTheSlot() {
+        open();
+        now += OPEN_BASE;
+
+        sendFailing(new IOException("Canceled"), true);
+
+        assertEquals(WillowCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.allowsRequests());
+    }
+
+    @Test
+    public void resetClosesTheCircuit() {
+        open();
+
+        breaker.reset();
+
+        assertEquals(WillowCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowsRequests());
+    }
+
+    private void open() {
+        for (int i = 0; i < THRESHOLD; i++) {
+            sendFailing(new IOException("Connection reset"), false);
+        }
+        assertEquals(WillowCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private void send(int code) throws IOException {
+        breaker.intercept(new FakeChain(code));
+    }
+
+    private void sendFailing(IOException error, boolean cancelled) {
+        FakeChain chain = new FakeChain(0);
+        chain.failure = error;
+        chain.cancelled = cancelled;
+        try {
+            breaker.intercept(chain);
+            fail("Expected the transport error to be rethrown");
+        } catch (IOException expected) {
+            assertTrue(chain.proceeded);
+        }
+    }
+
+    /**
+     * Answers with a fixed status code, or throws its failure when the code is 0
+     */
+    private static class FakeChain implements Interceptor.Chain, Call {
+        private final Request request = new Request.Builder().url("https://willow.example/api/v3/twins").build();
+        private final int code;
+        IOException failure;
+        boolean cancelled;
+        boolean proceeded;
+        Runnable whileInFlight;
+
+        FakeChain(int code) {
+            this.code = code;
+        }
+
+        @Override
+        public Request request() {
+            return request;
+        }
+
+        @Override
+        public Response proceed(Request request) throws IOException {
+            proceeded = true;
+            if (whileInFlight != null) whileInFlight.run();
+            if (code == 0) throw failure;
+            return new Response.Builder()
+                    .request(request)
+                    .protocol(Protocol.HTTP_1_1)
+                    .code(code)
+                    .message("HTTP " + code)
+                    .build();
+        }
+
+        @Override
+        public Connection connection() {
+            return null;
+        }
+
+        @Override
+        public Call call() {
+            return this;
+        }
+
+        @Override
+        public int connectTimeoutMillis() {
+            return 0;
+        }
+
+        @Override
+        public Interceptor.Chain withConnectTimeout(int timeout, TimeUnit unit) {
+            return this;
+        }
+
+        @Override
+        public int readTimeoutMillis() {
+            return 0;
+        }
+
+        @Override
+        public Interceptor.Chain withReadTimeout(int timeout, TimeUnit unit) {
+            return this;
+        }
+
+        @Override
+        public int writeTimeoutMillis() {
+            return 0;
+        }
+
+        @Override
+        public Interceptor.Chain withWriteTimeout(int timeout, TimeUnit unit) {
+            return this;
+        }
+
+        @Override
+        public Response execute() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void enqueue(Callback responseCallback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return true;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return cancelled;
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public Call clone() {
+            return new FakeChain(code);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.ecowattchtechdemo.willow.models;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ColumnarTimeSeriesTest {
+
+    private static final long HOUR = 3_600_000L;
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void integratesTrapezoidsInValueHours() {
+        ColumnarTimeSeries series = new ColumnarTimeSeries("twin");
+        series.add(0, 10);
+        series.add(HOUR, 20);
+        series.add(3 * HOUR, 20);
+
+        // 15 kWh over the first hour, 40 kWh over the next two
+        assertEquals(55.0, series.integrateHours(), DELTA);
+    }
+
+    @Test
+    public void integrateBetweenSplitsSegmentsAtTheBounds() {
+        ColumnarTimeSeries series = new ColumnarTimeSeries("twin");
+        series.add(0, 0);
+        series.add(2 * HOUR, 20);
+
+        // Half way the line is at 10: 0..1h is 5 kWh, 1h..2h is 15 kWh
+        assertEquals(5.0, series.integrateHoursBetween(0, HOUR), DELTA);
+        assertEquals(15.0, series.integrateHoursBetween(HOUR, 2 * HOUR), DELTA);
+        assertEquals(series.integrateHours(),
+                series.integrateHoursBetween(0, HOUR) + series.integrateHoursBetween(HOUR, 2 * HOUR), DELTA);
+    }
+
+    @Test
+    public void integrateBetweenIgnoresSegmentsOutsideTheRange() {
+        ColumnarTimeSeries series = new ColumnarTimeSeries("twin");
+        series.add(0, 10);
+        series.add(HOUR, 10);
+        series.add(2 * HOUR, 10);
+
+        assertEquals(0.0, series.integrateHoursBetween(5 * HOUR, 6 * HOUR), DELTA);
+        assertEquals(10.0, series.integrateHoursBetween(HOUR, 5 * HOUR), DELTA);
+    }
+
+    @Test
+    public void integrateSkipsOutOfOrderPoints() {
+        ColumnarTimeSeries series = new ColumnarTimeSeries("twin");
+        series.add(HOUR, 10);
+        series.add(0, 10);
+
+        assertEquals(0.0, series.integrateHours(), DELTA);
+    }
+
+    @Test
+    public void refillKeepsOnlyTimestampedNonNegativePoints() {
+        ColumnarTimeSeries series = new ColumnarTimeSeries("twin", 1);
+        series.refill(Arrays.asList(
+                point("2024-03-01T00:00:00Z", 5.0, null),
+                point("2024-03-01T01:00:00Z", -1.0, null),
+                point("not a timestamp", 7.0, null),
+                point("2024-03-01T02:00:00Z", null, null),
+                point("2024-03-01T03:00:00Z", 9.0, offline())));
+
+        assertEquals(2, series.size());
+        assertEquals(5.0, series.getValue(0), DELTA);
+        assertTrue(series.isGoodQuality(0));
+        assertEquals(9.0, series.getValue(1), DELTA);
+        assertEquals(ColumnarTimeSeries.QUALITY_OFFLINE, series.getQualityFlags(1));
+        assertFalse(series.isGoodQuality(1));
+    }
+
+    @Test
+    public void refillReplacesPreviousContents() {
+        ColumnarTimeSeries series = new ColumnarTimeSeries("twin");
+        for (int i = 0; i < 100; i++) {
+            series.add(i, i);
+        }
+
+        series.refill(Arrays.asList(point("2024-03-01T00:00:00Z", 1.0, null)));
+        assertEquals(1, series.size());
+        assertEquals(1.0, series.latestValue(), DELTA);
+
+        series.refill(null);
+        assertTrue(series.isEmpty());
+        assertTrue(Double.isNaN(series.latestValue()));
+        assertEquals(Long.MIN_VALUE, series.latestTimestamp());
+    }
+
+    @Test
+    public void growsPastInitialCapacity() {
+        ColumnarTimeSeries series = new ColumnarTimeSeries("twin", 1);
+        for (int i = 0; i < 10; i++) {
+            series.add(i * HOUR, i);
+        }
+
+        assertEquals(10, series.size());
+        assertEquals(9.0, series.latestValue(), DELTA);
+        assertEquals(45.0, series.sum(), DELTA);
+        assertEquals(0.0, series.min(), DELTA);
+        assertEquals(9.0, series.max(), DELTA);
+        assertEquals(4.5, series.mean(), DELTA);
+        assertEquals(3.0, series.sumBetween(HOUR, 3 * HOUR), DELTA);
+    }
+
+    @Test
+    public void latestIsTheNewestTimestamp() {
+        ColumnarTimeSeries series = new ColumnarTimeSeries("twin");
+        series.add(2 * HOUR, 2);
+        series.add(5 * HOUR, 5);
+        series.add(HOUR, 1);
+
+        assertEquals(1, series.latestIndex());
+        assertEquals(5 * HOUR, series.latestTimestamp());
+    }
+
+    private static TimeSeriesPoint point(String timestamp, Double value, TimeSeriesPoint.DataQuality quality) {
+        TimeSeriesPoint point = new TimeSeriesPoint();
+        point.setSourceTimestamp(timestamp);
+        point.setScalarValue(value);
+        point.setDataQuality(quality);
+        return point;
+    }
+
+    private static TimeSeriesPoint.DataQuality offline() {
+        TimeSeriesPoint.DataQuality quality = new TimeSeriesPoint.DataQuality();
+        quality.setOffline(true);
+        return quality;
+    }
+}
@@ -0,0 +1,121 @@
+const pool = require("./db");
+
+// ------------------------------
+// Idempotency-Key support for write endpoints
+// ------------------------------
+// Clients that queue writes offline (see the app's PendingWriteQueue) send every write with an
+// Idempotency-Key header and may replay it when a response was lost. The first answer for a key
+// is stored; a replay gets that stored answer back instead of applying the write again.
+// Requests without the header are handled as before.
+//
+// The key is reserved before the handler runs: the middleware opens a transaction, inserts the
+// key's row and hands the connection to the handler as req.db, so the write and its stored answer
+// commit together (the same way mutations.js stores batch results). A concurrent request with the
+// same key blocks on that row until the first one commits, then replays its answer. Handlers
+// behind this middleware must write through req.db and answer with res.json.
+
+let tableReady = null;
+
+function ensureTable() {
+  if (!tableReady) {
+    tableReady = pool.query(`
+      CREATE TABLE IF NOT EXISTS IdempotencyKeys (
+        RequestKey VARCHAR(64) PRIMARY KEY,
+        Endpoint VARCHAR(64) NOT NULL,
+        StatusCode INT NOT NULL,
+        Body TEXT NOT NULL,
+        CreatedAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+      );`).catch((error) => {
+      tableReady = null; // try again on the next request
+      throw error;
+    });
+  }
+  return tableReady;
+}
+
+// Answer with the result stored for key
+async function replay(key, req, res) {
+  const [rows] = await pool.query("SELECT StatusCode, Body FROM IdempotencyKeys WHERE RequestKey = ?", [key]);
+  if (rows.length === 0 || rows[0].StatusCode === 0) {
+    return res.status(409).json({ status: "error", message: "A request with this Idempotency-Key is still in progress" });
+  }
+  console.log(`Replayed ${req.path} for idempotency key ${key}`);
+  res.set("Idempotent-Replayed", "true");
+  return res.status(rows[0].StatusCode).json(JSON.parse(rows[0].Body));
+}
+
+// Store the answer with the write, or roll both back on a 5xx so a retry can succeed
+async function settle(conn, key, statusCode, body) {
+  try {
+    if (statusCode >= 500) {
+      await conn.rollback();
+    } else {
+      await conn.query(
+        "UPDATE IdempotencyKeys SET StatusCode = ?, Body = ? WHERE RequestKey = ?",
+        [statusCode, JSON.stringify(body), key]
+      );
+      await conn.commit();
+    }
+    return true;
+  } catch (error) {
+    console.error("Idempotency store failed:", error.message);
+    await conn.rollback().catch(() => {});
+    return false;
+  } finally {
+    conn.release();
+  }
+}
+
+async function idempotent(req, res, next) {
+  const key = req.get("Idempotency-Key");
+  if (!key) return next();
+
+  let conn = null;
+  try {
+    await ensureTable();
+    conn = await pool.getConnection();
+    await conn.beginTransaction();
+    // StatusCode 0 marks a reservation whose answer is not stored yet
+    await conn.query(
+      "INSERT INTO IdempotencyKeys (RequestKey, Endpoint, StatusCode, Body) VALUES (?, ?, 0, '')",
+      [key, req.path]
+    );
+  } catch (error) {
+    if (conn) {
+      await conn.rollback().catch(() => {});
+      conn.release();
+    }
+    if (error.code === "ER_DUP_ENTRY") {
+      try {
+        return await replay(key, req, res);
+      } catch (lookupError) {
+        console.error("Idempotency lookup failed:", lookupError.message);
+        return res.status(500).json({ status: "error", message: "Failed to look up the request" });
+      }
+    }
+    if (error.code === "ER_LOCK_WAIT_TIMEOUT" || error.code === "ER_LOCK_DEADLOCK") {
+      return res.status(409).json({ status: "error", message: "A request with this Idempotency-Key is still in progress" });
+    }
+    // Without the table we cannot dedupe; handle the request normally rather than failing it
+    console.error("Idempotency reservation failed:", error.message);
+    return next();
+  }
+
+  req.db = conn;
+  const json = res.json.bind(res);
+  let answered = false;
+  res.json = (body) => {
+    if (answered) return json(body);
+    answered = true;
+    settle(conn, key, res.statusCode, body).then((stored) => {
+      if (stored) return json(body);
+      res.status(500);
+      return json({ status: "error", message: "Failed to store the request result" });
+    });
+    return res;
+  };
+  next();
+}
+
+module.exports = idempotent;
+module.exports.ensureTable = ensureTable;
@@ -3,6 +3,11 @@ const bodyParser = require("body-parser");
 const cors = require("cors");
 const pool = require("./db"); // now uses mysql2 connection pool
 const bcrypt = require('bcryptjs');
+const willowPoller = require("./willowPoller"); // polls Willow once for every client
+const idempotent = require("./idempotency"); // replays the stored answer for a repeated Idempotency-Key
+const mutations = require("./mutations");
+const purchases = require("./purchases"); // atomic, ledgered palette purchases
+const paletteCatalog = require("./paletteCatalog"); // cached, versioned /palettes document
 
 const app = express();
 app.use(cors());
@@ -21,50 +26,75 @@ async function hashPassword(plain) {
 app.post("/login", async (req, res) => {
   const { usernames, passwords } = req.body;
 
-  //make a new variable for the hashed password
-  let passMatch
-
   try {
-    // First get user data for password verification
-    const [fullUserData] = await pool.query(
-      "SELECT * FROM Users WHERE Username = ?",
-      [usernames]
-    );
-
-    if (fullUserData.length === 0) {
+    const user = await authenticate(usernames, passwords);
+    if (!user) {
       return res.json({ status: "failure", message: "Invalid credentials" });
     }
+    res.json({ status: "success", user: profileOf(user) });
+  } catch (err) {
+    console.error("Login error:", err);
+    res.status(500).json({ status: "error", message: "Server error" });
+  }
+});
 
-    //Compare the plaintext password with the stored hash
-    passMatch = await bcrypt.compare(passwords, fullUserData[0].PasswordHash);
+// The user's row when the password matches its stored hash, otherwise null (one SELECT)
+async function authenticate(usernames, passwords) {
+  const [rows] = await pool.query("SELECT * FROM Users WHERE Username = ?", [usernames]);
+  if (rows.length === 0) return null;
+  return (await bcrypt.compare(passwords, rows[0].PasswordHash)) ? rows[0] : null;
+}
 
-    if (passMatch) {
-      // Try to get SpendablePoints, fall back gracefully if column doesn't exist
-      let userData = {
-        Username: fullUserData[0].Username,
-        DormName: fullUserData[0].DormName,
-        isDone: fullUserData[0].isDone,
-        SpendablePoints: 550 // Default value
-      };
+// Fields the app keeps about the signed-in user
+function profileOf(row) {
+  return {
+    Username: row.Username,
+    DormName: row.DormName,
+    isDone: row.isDone,
+    SpendablePoints: row.SpendablePoints ?? 550, // default when the column does not exist
+  };
+}
 
-      try {
-        const [pointsData] = await pool.query(
-          "SELECT SpendablePoints FROM Users WHERE Username = ?",
-          [usernames]
-        );
-        if (pointsData.length > 0 && pointsData[0].SpendablePoints !== undefined) {
-          userData.SpendablePoints = pointsData[0].SpendablePoints;
-        }
-      } catch (error) {
-        console.log("SpendablePoints column not found, using default value of 100");
-      }
+// ------------------------------
+// BOOTSTRAP endpoint
+// ------------------------------
+// Login plus everything the dashboard and shop need, in one round trip: profile, balance,
+// checklist state, owned palettes, the palette catalog version (with the palettes only when the
+// client's cached catalogVersion is stale) and the current dorm standings with their ETag.
+app.post("/bootstrap", async (req, res) => {
+  const { usernames, passwords, catalogVersion } = req.body;
 
-      res.json({ status: "success", user: userData });
-    } else {
-      res.json({ status: "failure", message: "Invalid credentials" });
+  try {
+    const user = await authenticate(usernames, passwords);
+    if (!user) {
+      return res.json({ status: "failure", message: "Invalid credentials" });
     }
+
+    // Owned palettes and the catalog are optional: without them the client keeps its local copies
+    const [owned, catalog] = await Promise.all([
+      purchases.ownedPalettes(user.Username).catch((error) => {
+        console.error("Bootstrap without owned palettes:", error.message);
+        return null;
+      }),
+      paletteCatalog.get().catch((error) => {
+        console.error("Bootstrap without palette catalog:", error.message);
+        return null;
+      }),
+    ]);
+    const standings = willowPoller.getStandings();
+    const hasStandings = standings.body.generatedAt > 0;
+
+    res.json({
+      status: "success",
+      user: profileOf(user),
+      ownedPalettes: owned,
+      catalogVersion: catalog ? catalog.version : null,
+      palettes: catalog && catalog.version !== catalogVersion ? catalog.body.palettes : null,
+      standings: hasStandings ? standings.body : null,
+      standingsEtag: hasStandings ? standings.etag : null,
+    });
   } catch (err) {
-    console.error("Login error:", err);
+    console.error("Bootstrap error:", err);
     res.status(500).json({ status: "error", message: "Server error" });
   }
 });
@@ -171,14 +201,17 @@ app.post("/dorm_points", async (req, res) => {
 // ------------------------------
 // GET ALL PALETTES endpoint
 // ------------------------------
+// Served from the in-memory catalog (see paletteCatalog.js); 304 when the client's version is current
 app.get("/palettes", async (req, res) => {
   try {
-    const [rows] = await pool.query(`
-      SELECT OfferingName, ColorHex1, ColorHex2, ColorHex3, ColorHex4, ColorHex5, ColorHex6, ColorHex7
-      FROM offerings;
-    `);
+    const { body, etag } = await paletteCatalog.get();
 
-    res.json({ status: "success", palettes: rows });
+    res.set("ETag", etag);
+    res.set("Cache-Control", "no-cache"); // always revalidate - a 304 costs no body
+    if (req.get("If-None-Match") === etag) {
+      return res.status(304).end();
+    }
+    res.json(body);
   } catch (error) {
     console.error("Error fetching palettes:", error);
     res.status(500).json({ status: "error", message: "Failed to fetch palettes" });
@@ -188,7 +221,8 @@ app.get("/palettes", async (req, res) => {
 // ------------------------------
 // UPDATE USER POINTS endpoint
 // ------------------------------
-app.post("/update_user_points", async (req, res) => {
+app.post("/update_user_points", idempotent, async (req, res) => {
+  const db = req.db || pool; // the idempotency transaction when the request has a key
   try {
     const { username, spendablePoints } = req.body;
 
@@ -201,7 +235,7 @@ app.post("/update_user_points", async (req, res) => {
 
     // Update the user's spendable points - handle missing column gracefully
     try {
-      await pool.query(
+      await db.query(
         "UPDATE Users SET SpendablePoints = ? WHERE Username = ?",
         [spendablePoints, username]
       );
@@ -223,7 +257,8 @@ app.post("/update_user_points", async (req, res) => {
 // ------------------------------
 // SET ISDONE endpoint
 // ------------------------------
-app.post("/is_done", async (req, res) => {
+app.post("/is_done", idempotent, async (req, res) => {
+  const db = req.db || pool; // the idempotency transaction when the request has a key
   try {
     const { username, points_add } = req.body;
 
@@ -232,7 +267,7 @@ app.post("/is_done", async (req, res) => {
     {
       try {
       //set the user's isDone to 0
-      await pool.query(
+      await db.query(
         "UPDATE Users SET isDone = 0 WHERE Username = ?",
         [username]
       );
@@ -248,7 +283,7 @@ app.post("/is_done", async (req, res) => {
     {
       try {
       //set the user's isDone to what it is plus what we need to add
-      await pool.query(
+      await db.query(
         "UPDATE Users SET isDone = isDone + ? WHERE Username = ?",
         [points_add, username]
       );
@@ -269,91 +304,117 @@ app.post("/is_done", async (req, res) => {
 // ------------------------------
 // PURCHASE PALETTE endpoint
 // ------------------------------
+// Deducts the points and records the purchase in one transaction (see purchases.js).
+// The idempotency key comes from the body or the Idempotency-Key header; a repeated key answers
+// with the balance stored for the first purchase instead of charging again.
 app.post("/purchase_palette", async (req, res) => {
   try {
     const { username, paletteName, pointsToDeduct } = req.body;
+    const key = req.body.idempotencyKey || req.get("Idempotency-Key");
 
-    if (!username || !paletteName || !pointsToDeduct) {
-      return res.status(400).json({
-        status: "error",
-        message: "Username, paletteName, and pointsToDeduct required",
-      });
+    if (key && String(key).length > 64) {
+      return res.status(400).json({ status: "error", message: "idempotencyKey must be at most 64 characters" });
     }
 
-    // Check if user exists and get current points
-    let currentPoints = 100; // Default value
-    try {
-      const [userRows] = await pool.query(
-        "SELECT SpendablePoints FROM Users WHERE Username = ?",
-        [username]
-      );
-
-      if (userRows.length === 0) {
-        return res.status(404).json({
-          status: "error",
-          message: "User not found",
-        });
-      }
-
-      currentPoints = userRows[0].SpendablePoints || 100;
-    } catch (error) {
-      if (error.code === 'ER_BAD_FIELD_ERROR' && error.sqlMessage.includes('SpendablePoints')) {
-        console.log("SpendablePoints column not found, using default value");
-        // Check if user exists without SpendablePoints column
-        const [userRows] = await pool.query(
-          "SELECT Username FROM Users WHERE Username = ?",
-          [username]
-        );
-        
-        if (userRows.length === 0) {
-          return res.status(404).json({
-            status: "error",
-            message: "User not found",
-          });
-        }
-        currentPoints = 100; // Default
-      } else {
-        throw error;
-      }
-    }
-    
-    if (currentPoints < pointsToDeduct) {
-      return res.status(400).json({
-        status: "error",
-        message: "Insufficient points",
-      });
-    }
+    const result = await purchases.purchaseOnce({
+      key,
+      username,
+      paletteName,
+      cost: Number(pointsToDeduct),
+    });
 
-    // Deduct points and record purchase
-    const newPoints = currentPoints - pointsToDeduct;
-    
-    try {
-      await pool.query(
-        "UPDATE Users SET SpendablePoints = ? WHERE Username = ?",
-        [newPoints, username]
-      );
-    } catch (error) {
-      if (error.code === 'ER_BAD_FIELD_ERROR' && error.sqlMessage.includes('SpendablePoints')) {
-        console.log("SpendablePoints column not found, purchase processed without DB update");
-      } else {
-        throw error;
-      }
+    if (result.status === "success") {
+      if (result.replayed) res.set("Idempotent-Replayed", "true");
+      return res.json(result);
     }
-
-    // You could also store the purchase in a separate table for tracking
-    // For now, we'll just return success with the new point total
-
-    res.json({ 
-      status: "success", 
-      message: "Purchase successful",
-      newPointTotal: newPoints
-    });
+    const code = result.message === "User not found" ? 404
+      : result.message === "Insufficient points" ? 409
+      : 400;
+    res.status(code).json(result);
   } catch (error) {
     console.error("Purchase error:", error);
     res.status(500).json({ status: "error", message: "Failed to process purchase" });
   }
 });
 
+// ------------------------------
+// BATCH endpoint
+// ------------------------------
+// Applies an ordered list of points / is_done / purchase mutations in one transaction and
+// answers with one result per item (see mutations.js).
+app.post("/batch", async (req, res) => {
+  const invalid = mutations.validate(req.body && req.body.mutations);
+  if (invalid) {
+    return res.status(400).json({ status: "error", message: invalid });
+  }
+
+  try {
+    const results = await mutations.applyBatch(req.body.mutations);
+    res.json({ status: "success", results });
+  } catch (error) {
+    console.error("Batch error:", error);
+    res.status(500).json({ status: "error", message: "Batch failed, nothing was applied" });
+  }
+});
+
+// ------------------------------
+// DORM STANDINGS endpoint
+// ------------------------------
+// Precomputed readings and rankings from the server-side Willow poll. Cacheable until the
+// next poll, and conditional requests with the last ETag are answered with 304.
+app.get("/dorm_standings", (req, res) => {
+  const { body, etag, maxAge } = willowPoller.getStandings();
+
+  if (!body.generatedAt) {
+    return res.status(503).json({ status: "error", message: "Standings not available yet" });
+  }
+
+  res.set("ETag", etag);
+  res.set("Cache-Control", `public, max-age=${maxAge}`);
+  if (req.get("If-None-Match") === etag) {
+    return res.status(304).end();
+  }
+  res.json(body);
+});
+
+// ------------------------------
+// DORM STANDINGS STREAM endpoint (server-sent events)
+// ------------------------------
+// Sends a "snapshot" event, then a "delta" event with the changed dorms after every Willow poll.
+// Reconnecting clients send Last-Event-ID and get only the deltas they missed when possible.
+const STREAM_HEARTBEAT_MS = 25000;
+const STREAM_RETRY_MS = 5000;
+
+app.get("/dorm_standings/stream", (req, res) => {
+  res.set({
+    "Content-Type": "text/event-stream",
+    "Cache-Control": "no-cache",
+    Connection: "keep-alive",
+    "X-Accel-Buffering": "no", // keep proxies from buffering the stream
+  });
+  res.flushHeaders();
+
+  const send = (event) => {
+    res.write(`id: ${event.id}\nevent: ${event.type}\ndata: ${JSON.stringify(event.data)}\n\n`);
+  };
+
+  res.write(`retry: ${STREAM_RETRY_MS}\n\n`);
+  const missed = willowPoller.eventsSince(req.get("Last-Event-ID"));
+  if (missed) {
+    missed.forEach(send);
+  } else {
+    send(willowPoller.snapshotEvent());
+  }
+
+  const unsubscribe = willowPoller.subscribe(send);
+  const heartbeat = setInterval(() => res.write(": heartbeat\n\n"), STREAM_HEARTBEAT_MS);
+  req.on("close", () => {
+    clearInterval(heartbeat);
+    unsubscribe();
+  });
+});
+
 // ------------------------------
 const PORT = process.env.PORT || 3000;
-app.listen(PORT, () => console.log(`✅ API running on port ${PORT}`));
\ No newline at end of file
+app.listen(PORT, () => console.log(`✅ API running on port ${PORT}`));
+willowPoller.start().catch((err) => console.error("Willow poller failed to start:", err));
\ No newline at end of file
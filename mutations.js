@@ -0,0 +1,129 @@
+const pool = require("./db");
+const { ensureTable } = require("./idempotency");
+const { purchase, ensureLedger } = require("./purchases");
+
+// ------------------------------
+// Batched mutations - one request, one transaction
+// ------------------------------
+// A batch is an ordered list of the writes the app otherwise sends one POST each:
+//   { id, type: "points",   username, value }               -> /update_user_points (absolute total)
+//   { id, type: "is_done",  username, value }               -> /is_done (delta, -1 resets)
+//   { id, type: "purchase", username, value, paletteName }  -> /purchase_palette (points to deduct)
+// Items are applied in order on one connection inside one transaction. An item that is
+// rejected (bad input, unknown user, insufficient points) writes nothing and the rest still
+// apply; a database error rolls the whole batch back. `id` doubles as the item's idempotency
+// key: its result is stored in the same transaction, so a replayed item is answered from the
+// stored result and never applied twice.
+// Purchases go through purchases.js with `id` as their ledger key, so a purchase first sent to
+// /purchase_palette and later replayed in a batch is still charged once.
+
+const MAX_BATCH_SIZE = 100;
+
+function rejected(id, message) {
+  return { id, status: "failure", message };
+}
+
+async function applyPoints(conn, m) {
+  if (!Number.isInteger(m.value) || m.value < 0) return rejected(m.id, "value must be a non-negative integer");
+  const [result] = await conn.query(
+    "UPDATE Users SET SpendablePoints = ? WHERE Username = ?",
+    [m.value, m.username]
+  );
+  if (result.affectedRows === 0) return rejected(m.id, "User not found");
+  return { id: m.id, status: "success", newPointTotal: m.value };
+}
+
+async function applyIsDone(conn, m) {
+  if (!Number.isInteger(m.value)) return rejected(m.id, "value must be an integer");
+  const [result] = m.value === -1
+    ? await conn.query("UPDATE Users SET isDone = 0 WHERE Username = ?", [m.username])
+    : await conn.query("UPDATE Users SET isDone = isDone + ? WHERE Username = ?", [m.value, m.username]);
+  if (result.affectedRows === 0) return rejected(m.id, "User not found");
+  return { id: m.id, status: "success" };
+}
+
+async function applyPurchase(conn, m) {
+  const result = await purchase(conn, {
+    key: m.id, username: m.username, paletteName: m.paletteName, cost: m.value,
+  });
+  return result.status === "success"
+    ? { id: m.id, status: "success", newPointTotal: result.newPointTotal }
+    : { ...rejected(m.id, result.message), newPointTotal: result.newPointTotal };
+}
+
+const HANDLERS = {
+  points: applyPoints,
+  is_done: applyIsDone,
+  purchase: applyPurchase,
+};
+
+// Why a batch is malformed (null if it is fine) - checked before anything touches the database
+function validate(mutations) {
+  if (!Array.isArray(mutations) || mutations.length === 0) {
+    return "mutations must be a non-empty array";
+  }
+  if (mutations.length > MAX_BATCH_SIZE) {
+    return `at most ${MAX_BATCH_SIZE} mutations per batch`;
+  }
+  const ids = new Set();
+  for (const m of mutations) {
+    if (!m || typeof m.id !== "string" || m.id.length === 0 || m.id.length > 64) {
+      return "every mutation needs an id of at most 64 characters";
+    }
+    if (ids.has(m.id)) return `duplicate mutation id ${m.id}`;
+    ids.add(m.id);
+  }
+  return null;
+}
+
+async function applyBatch(mutations) {
+  await ensureTable();
+  await ensureLedger();
+  const conn = await pool.getConnection();
+  try {
+    await conn.beginTransaction();
+
+    // Results already stored for replayed items, one lookup for the whole batch
+    const [stored] = await conn.query(
+      "SELECT RequestKey, Body FROM IdempotencyKeys WHERE RequestKey IN (?) FOR UPDATE",
+      [mutations.map((m) => m.id)]
+    );
+    const replayed = new Map(stored.map((row) => [row.RequestKey, JSON.parse(row.Body)]));
+
+    const results = [];
+    const fresh = [];
+    for (const m of mutations) {
+      if (replayed.has(m.id)) {
+        // Answers stored by the single-write endpoints (idempotency.js) carry no id; the client
+        // matches results by it, so the item's id is set on every replay
+        results.push({ ...replayed.get(m.id), id: m.id, replayed: true });
+        continue;
+      }
+      const handler = HANDLERS[m.type];
+      const result = !handler
+        ? rejected(m.id, `unknown mutation type ${m.type}`)
+        : !m.username
+          ? rejected(m.id, "username required")
+          : await handler(conn, m);
+      results.push(result);
+      fresh.push([m.id, `batch:${m.type}`, result.status === "success" ? 200 : 400, JSON.stringify(result)]);
+    }
+
+    if (fresh.length > 0) {
+      await conn.query(
+        "INSERT INTO IdempotencyKeys (RequestKey, Endpoint, StatusCode, Body) VALUES ?",
+        [fresh]
+      );
+    }
+
+    await conn.commit();
+    return results;
+  } catch (error) {
+    await conn.rollback();
+    throw error;
+  } finally {
+    conn.release();
+  }
+}
+
+module.exports = { applyBatch, validate };
@@ -0,0 +1,55 @@
+const crypto = require("crypto");
+const pool = require("./db");
+
+// ------------------------------
+// Palette catalog - one cached copy of the offerings table for every client
+// ------------------------------
+// The catalog changes rarely, so it is read from the database at most once per CATALOG_TTL_MS
+// (concurrent requests share one load) and served from memory in between. Its version is a hash
+// of the rows: it only changes when a palette does, and doubles as the /palettes ETag, so clients
+// holding the current version get a 304 with no body.
+
+const CATALOG_TTL_MS = parseInt(process.env.PALETTE_CATALOG_TTL_MS, 10) || 5 * 60 * 1000; // 5 minutes
+
+let catalog = null; // { body, etag, version }
+let loadedAt = 0;
+let loading = null;
+
+async function load() {
+  const [rows] = await pool.query(`
+    SELECT OfferingName, ColorHex1, ColorHex2, ColorHex3, ColorHex4, ColorHex5, ColorHex6, ColorHex7
+    FROM offerings
+    ORDER BY OfferingName;
+  `);
+  const version = crypto.createHash("sha1").update(JSON.stringify(rows)).digest("hex").slice(0, 16);
+  if (!catalog || catalog.version !== version) {
+    console.log(`Palette catalog: loaded version ${version} (${rows.length} palettes)`);
+  }
+  catalog = { body: { status: "success", version, palettes: rows }, etag: `"${version}"`, version };
+  loadedAt = Date.now();
+  return catalog;
+}
+
+// Current catalog; a stale copy is served if reloading it fails
+async function get() {
+  if (catalog && Date.now() - loadedAt < CATALOG_TTL_MS) return catalog;
+  if (!loading) {
+    loading = load().finally(() => {
+      loading = null;
+    });
+  }
+  try {
+    return await loading;
+  } catch (error) {
+    if (!catalog) throw error;
+    console.error("Palette catalog reload failed, serving cached version:", error.message);
+    return catalog;
+  }
+}
+
+// Forget the cached copy, e.g. after the offerings table was edited
+function invalidate() {
+  loadedAt = 0;
+}
+
+module.exports = { get, invalidate };
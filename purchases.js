@@ -0,0 +1,124 @@
+const crypto = require("crypto");
+const pool = require("./db");
+
+// ------------------------------
+// Palette purchases - conditional decrement plus ledger entry, keyed by the client's idempotency key
+// ------------------------------
+// A purchase is one transaction:
+//   1. look up the key in PurchaseLedger - a known key answers with the stored balance
+//   2. UPDATE Users ... WHERE SpendablePoints >= cost - the balance check and the deduction are
+//      one statement, so concurrent purchases can never overdraw and no read-then-write window exists
+//   3. INSERT the ledger row holding the balance after the purchase
+// The ledger's unique key makes a replay (lost response, retry, the same write sent through /batch)
+// a read of step 1 instead of a second deduction. Rejections write nothing.
+
+let ledgerReady = null;
+
+function ensureLedger() {
+  if (!ledgerReady) {
+    ledgerReady = pool.query(`
+      CREATE TABLE IF NOT EXISTS PurchaseLedger (
+        PurchaseId BIGINT AUTO_INCREMENT PRIMARY KEY,
+        IdempotencyKey VARCHAR(64) NOT NULL UNIQUE,
+        Username VARCHAR(255) NOT NULL,
+        PaletteName VARCHAR(255) NOT NULL,
+        PointsDeducted INT NOT NULL,
+        BalanceAfter INT NOT NULL,
+        CreatedAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+        INDEX idx_purchase_ledger_user (Username)
+      );`).catch((error) => {
+      ledgerReady = null; // try again on the next purchase
+      throw error;
+    });
+  }
+  return ledgerReady;
+}
+
+function rejected(message, balance) {
+  return { status: "error", message, newPointTotal: balance };
+}
+
+// Apply one purchase on conn, inside the caller's transaction.
+// Resolves to { status, message, newPointTotal, purchaseId, replayed }; newPointTotal is the
+// authoritative balance (also on rejections when the user exists, so the client can reconcile).
+async function purchase(conn, { key, username, paletteName, cost }) {
+  if (!username || !paletteName || !Number.isInteger(cost) || cost <= 0) {
+    return rejected("username, paletteName and a positive pointsToDeduct required");
+  }
+
+  const [ledger] = await conn.query(
+    "SELECT PurchaseId, Username, BalanceAfter FROM PurchaseLedger WHERE IdempotencyKey = ? FOR UPDATE",
+    [key]
+  );
+  if (ledger.length > 0) {
+    if (ledger[0].Username !== username) return rejected("Idempotency key already used");
+    return {
+      status: "success",
+      message: "Purchase already applied",
+      newPointTotal: ledger[0].BalanceAfter,
+      purchaseId: ledger[0].PurchaseId,
+      replayed: true,
+    };
+  }
+
+  const [result] = await conn.query(
+    "UPDATE Users SET SpendablePoints = SpendablePoints - ? WHERE Username = ? AND SpendablePoints >= ?",
+    [cost, username, cost]
+  );
+  const [users] = await conn.query("SELECT SpendablePoints FROM Users WHERE Username = ?", [username]);
+  if (users.length === 0) return rejected("User not found");
+  const balance = users[0].SpendablePoints;
+  if (result.affectedRows === 0) return rejected("Insufficient points", balance);
+
+  const [inserted] = await conn.query(
+    `INSERT INTO PurchaseLedger (IdempotencyKey, Username, PaletteName, PointsDeducted, BalanceAfter)
+     VALUES (?, ?, ?, ?, ?)`,
+    [key, username, paletteName, cost, balance]
+  );
+  return {
+    status: "success",
+    message: "Purchase successful",
+    newPointTotal: balance,
+    purchaseId: inserted.insertId,
+    replayed: false,
+  };
+}
+
+// Two requests racing with the same key: the loser fails on the unique key (or is picked as the
+// deadlock victim); retried, it finds the winner's ledger row and replays it
+function isKeyRace(error) {
+  return error.code === "ER_DUP_ENTRY" || error.code === "ER_LOCK_DEADLOCK";
+}
+
+// A purchase on its own connection and transaction (the /purchase_palette endpoint)
+async function purchaseOnce(request) {
+  await ensureLedger();
+  const key = request.key || crypto.randomUUID();
+
+  for (let attempt = 1; ; attempt++) {
+    const conn = await pool.getConnection();
+    try {
+      await conn.beginTransaction();
+      const result = await purchase(conn, { ...request, key });
+      await conn.commit();
+      return result;
+    } catch (error) {
+      await conn.rollback();
+      if (attempt >= 2 || !isKeyRace(error)) throw error;
+    } finally {
+      conn.release();
+    }
+  }
+}
+
+// Palettes the user has bought, from the ledger
+async function ownedPalettes(username) {
+  await ensureLedger();
+  const [rows] = await pool.query(
+    "SELECT DISTINCT PaletteName FROM PurchaseLedger WHERE Username = ? ORDER BY PaletteName",
+    [username]
+  );
+  return rows.map((row) => row.PaletteName);
+}
+
+module.exports = { purchase, purchaseOnce, ensureLedger, ownedPalettes };
@@ -0,0 +1,315 @@
+const crypto = require("crypto");
+const pool = require("./db");
+
+// ------------------------------
+// Willow poller - one server-side poll of Willow serves every app client
+// ------------------------------
+// Reads the latest power (kW) and energy (kWh) value for every dorm once per interval,
+// scores the dorms the same way the app does (lowest energy use = 1000, highest = 500,
+// no data = 750) and keeps the result as one precomputed standings document.
+// Configuration uses the same names as the app's local.properties:
+//   WILLOW_BASE_URL, WILLOW_CLIENT_ID, WILLOW_CLIENT_SECRET,
+//   TWIN_ID_<DORM> (power) and TWIN_ID_<DORM>_ENERGY (energy) for each dorm in WILLOW_DORMS.
+
+const POLL_INTERVAL_MS = parseInt(process.env.WILLOW_POLL_INTERVAL_MS, 10) || 60000; // 1 minute
+const REQUEST_TIMEOUT_MS = 15000;
+const TOKEN_REFRESH_MARGIN_MS = 5 * 60 * 1000; // refresh 5 minutes before expiry
+const DORMS = (process.env.WILLOW_DORMS || "TINSLEY,GABALDON,SECHRIST")
+  .split(",")
+  .map((dorm) => dorm.trim().toUpperCase())
+  .filter((dorm) => dorm.length > 0);
+
+const MAX_POINTS = 1000;
+const MIN_POINTS = 500;
+const NEUTRAL_POINTS = 750;
+
+const STREAM_HISTORY_SIZE = 100; // delta events kept so reconnecting clients can resume
+
+let token = null;
+let tokenExpiresAt = 0;
+let timer = null;
+
+// Live stream state - event IDs are "<bootId>-<sequence>" so IDs from before a restart never resume
+const bootId = Date.now().toString(36);
+let sequence = 0;
+const history = [];
+const subscribers = new Set();
+
+// Latest standings document and its validator - replaced as a whole after every poll
+let standings = { status: "success", generatedAt: 0, pollIntervalMs: POLL_INTERVAL_MS, dorms: [] };
+let etag = etagFor(standings);
+
+function etagFor(document) {
+  const hash = crypto.createHash("sha1").update(JSON.stringify(document.dorms)).digest("base64");
+  return `"${hash}"`;
+}
+
+function apiUrl(path) {
+  return `${process.env.WILLOW_BASE_URL}/api/v3${path}`;
+}
+
+function twinsForDorm(dorm) {
+  return {
+    powerTwinId: process.env[`TWIN_ID_${dorm}`] || null,
+    energyTwinId: process.env[`TWIN_ID_${dorm}_ENERGY`] || null,
+  };
+}
+
+async function willowFetch(url, options) {
+  const response = await fetch(url, { ...options, signal: AbortSignal.timeout(REQUEST_TIMEOUT_MS) });
+  if (!response.ok) {
+    throw new Error(`Willow ${options.method || "GET"} ${url} answered ${response.status}`);
+  }
+  return response.json();
+}
+
+async function getToken() {
+  if (token && Date.now() < tokenExpiresAt - TOKEN_REFRESH_MARGIN_MS) {
+    return token;
+  }
+  const body = new URLSearchParams({
+    client_id: process.env.WILLOW_CLIENT_ID,
+    client_secret: process.env.WILLOW_CLIENT_SECRET,
+    grant_type: "client_credentials",
+  });
+  const result = await willowFetch(apiUrl("/oauth2/token"), { method: "POST", body });
+  token = `Bearer ${result.access_token}`;
+  tokenExpiresAt = Date.now() + (result.expires_in || 3600) * 1000;
+  return token;
+}
+
+// Newest point per twin from one time-series/ids/latest round trip
+async function fetchLatestReadings(twinIds) {
+  const points = await willowFetch(apiUrl("/time-series/ids/latest?includeDataQuality=false"), {
+    method: "POST",
+    headers: { Authorization: await getToken(), "Content-Type": "application/json" },
+    body: JSON.stringify(twinIds),
+  });
+
+  const latest = new Map();
+  for (const point of points) {
+    if (!point.twinId || point.scalarValue == null || point.scalarValue < 0) continue;
+    const timestamp = Date.parse(point.sourceTimestamp) || 0;
+    const previous = latest.get(point.twinId);
+    if (!previous || timestamp > previous.timestamp) {
+      latest.set(point.twinId, { value: point.scalarValue, timestamp });
+    }
+  }
+  return latest;
+}
+
+// Same efficiency scale as WillowEnergyDataManager.updateDormRankingsBasedOnRealData
+function scoreDorms(dorms) {
+  const usages = dorms.filter((dorm) => dorm.energyKwh > 0).map((dorm) => dorm.energyKwh);
+  const maxUsage = Math.max(...usages);
+  const minUsage = Math.min(...usages);
+
+  for (const dorm of dorms) {
+    if (!(dorm.energyKwh > 0)) {
+      dorm.points = NEUTRAL_POINTS;
+    } else if (maxUsage > minUsage) {
+      const efficiency = 1 - (dorm.energyKwh - minUsage) / (maxUsage - minUsage);
+      dorm.points = Math.floor(MIN_POINTS + efficiency * (MAX_POINTS - MIN_POINTS));
+    } else {
+      dorm.points = NEUTRAL_POINTS;
+    }
+  }
+
+  // Highest points first, ties by name so every client sees the same order
+  dorms.sort((a, b) => b.points - a.points || a.dormName.localeCompare(b.dormName));
+  dorms.forEach((dorm, index) => {
+    dorm.rank = index + 1;
+  });
+  return dorms;
+}
+
+async function pollOnce() {
+  const twins = DORMS.map((dorm) => ({ dorm, ...twinsForDorm(dorm) }));
+  const twinIds = twins.flatMap((t) => [t.powerTwinId, t.energyTwinId]).filter(Boolean);
+  if (twinIds.length === 0) {
+    console.log("Willow poller: no twin IDs configured, skipping poll");
+    return;
+  }
+
+  const latest = await fetchLatestReadings(twinIds);
+  const previous = new Map(standings.dorms.map((dorm) => [dorm.dormName, dorm]));
+
+  const dorms = twins.map(({ dorm, powerTwinId, energyTwinId }) => {
+    const power = latest.get(powerTwinId);
+    const energy = latest.get(energyTwinId);
+    const prior = previous.get(dorm) || {};
+    // A twin missing from this poll keeps its last reading
+    return {
+      dormName: dorm,
+      powerKw: power ? power.value : prior.powerKw ?? null,
+      powerTimestamp: power ? power.timestamp : prior.powerTimestamp || 0,
+      energyKwh: energy ? energy.value : prior.energyKwh ?? null,
+      energyTimestamp: energy ? energy.timestamp : prior.energyTimestamp || 0,
+    };
+  });
+
+  const changed = changedDorms(standings.dorms, scoreDorms(dorms));
+  publish(dorms, Date.now());
+  if (changed.length > 0) {
+    broadcast("delta", { generatedAt: standings.generatedAt, dorms: changed });
+  }
+  await persist(standings.dorms);
+}
+
+function publish(dorms, generatedAt) {
+  standings = { status: "success", generatedAt, pollIntervalMs: POLL_INTERVAL_MS, dorms };
+  etag = etagFor(standings);
+}
+
+// Dorms whose readings, points or rank differ from the previous poll
+function changedDorms(previousDorms, dorms) {
+  const previous = new Map(previousDorms.map((dorm) => [dorm.dormName, JSON.stringify(dorm)]));
+  return dorms.filter((dorm) => previous.get(dorm.dormName) !== JSON.stringify(dorm));
+}
+
+// ------------------------------
+// Live stream - per-dorm deltas pushed to subscribed clients
+// ------------------------------
+function broadcast(type, data) {
+  sequence++;
+  const event = { id: `${bootId}-${sequence}`, type, data };
+  history.push(event);
+  if (history.length > STREAM_HISTORY_SIZE) history.shift();
+  for (const subscriber of subscribers) {
+    subscriber(event);
+  }
+}
+
+function subscribe(listener) {
+  subscribers.add(listener);
+  return () => subscribers.delete(listener);
+}
+
+// Events after lastEventId, or null when the client cannot resume and needs a snapshot
+function eventsSince(lastEventId) {
+  if (!lastEventId) return null;
+  const [eventBootId, eventSequence] = String(lastEventId).split("-");
+  const seq = parseInt(eventSequence, 10);
+  if (eventBootId !== bootId || isNaN(seq) || seq > sequence) return null;
+  if (seq === sequence) return [];
+
+  const oldest = history.length > 0 ? parseInt(history[0].id.split("-")[1], 10) : sequence + 1;
+  if (seq < oldest - 1) return null; // fell out of the history window
+  return history.filter((event) => parseInt(event.id.split("-")[1], 10) > seq);
+}
+
+// The whole document as one event, tagged with the latest sequence so later deltas resume from it
+function snapshotEvent() {
+  return { id: `${bootId}-${sequence}`, type: "snapshot", data: standings };
+}
+
+// ------------------------------
+// Persistence - the last standings survive a server restart
+// ------------------------------
+async function ensureTable() {
+  await pool.query(`
+    CREATE TABLE IF NOT EXISTS DormStandings (
+      DormName VARCHAR(64) PRIMARY KEY,
+      DormRank INT NOT NULL,
+      Points INT NOT NULL,
+      PowerKw DOUBLE NULL,
+      PowerTimestamp BIGINT NOT NULL DEFAULT 0,
+      EnergyKwh DOUBLE NULL,
+      EnergyTimestamp BIGINT NOT NULL DEFAULT 0,
+      UpdatedAt BIGINT NOT NULL
+    );`);
+}
+
+async function persist(dorms) {
+  if (dorms.length === 0) return;
+  try {
+    const updatedAt = Date.now();
+    const rows = dorms.map((d) => [
+      d.dormName, d.rank, d.points, d.powerKw, d.powerTimestamp, d.energyKwh, d.energyTimestamp, updatedAt,
+    ]);
+    await pool.query(
+      `INSERT INTO DormStandings
+         (DormName, DormRank, Points, PowerKw, PowerTimestamp, EnergyKwh, EnergyTimestamp, UpdatedAt)
+       VALUES ?
+       ON DUPLICATE KEY UPDATE
+         DormRank = VALUES(DormRank), Points = VALUES(Points),
+         PowerKw = VALUES(PowerKw), PowerTimestamp = VALUES(PowerTimestamp),
+         EnergyKwh = VALUES(EnergyKwh), EnergyTimestamp = VALUES(EnergyTimestamp),
+         UpdatedAt = VALUES(UpdatedAt);`,
+      [rows]
+    );
+  } catch (error) {
+    console.error("Willow poller: could not persist standings:", error.message);
+  }
+}
+
+// Rows of dorms no longer in WILLOW_DORMS would otherwise be restored and served forever
+async function pruneRemovedDorms() {
+  const [result] = DORMS.length > 0
+    ? await pool.query("DELETE FROM DormStandings WHERE DormName NOT IN (?)", [DORMS])
+    : await pool.query("DELETE FROM DormStandings");
+  if (result.affectedRows > 0) {
+    console.log(`Willow poller: dropped standings of ${result.affectedRows} dorms no longer in WILLOW_DORMS`);
+  }
+}
+
+async function restore() {
+  try {
+    await ensureTable();
+    await pruneRemovedDorms();
+    const [rows] = await pool.query("SELECT * FROM DormStandings ORDER BY DormRank, DormName");
+    if (rows.length === 0) return;
+    // Ranks are renumbered, since pruned dorms leave gaps
+    const dorms = rows.map((row, index) => ({
+      dormName: row.DormName,
+      powerKw: row.PowerKw,
+      powerTimestamp: Number(row.PowerTimestamp),
+      energyKwh: row.EnergyKwh,
+      energyTimestamp: Number(row.EnergyTimestamp),
+      points: row.Points,
+      rank: index + 1,
+    }));
+    publish(dorms, Math.max(...rows.map((row) => Number(row.UpdatedAt))));
+    console.log(`Willow poller: restored standings for ${rows.length} dorms`);
+  } catch (error) {
+    console.error("Willow poller: could not restore standings:", error.message);
+  }
+}
+
+// ------------------------------
+// Public API
+// ------------------------------
+async function start() {
+  if (timer) return;
+  if (!process.env.WILLOW_BASE_URL || !process.env.WILLOW_CLIENT_ID || !process.env.WILLOW_CLIENT_SECRET) {
+    console.log("Willow poller: WILLOW_BASE_URL / WILLOW_CLIENT_ID / WILLOW_CLIENT_SECRET not set, poller disabled");
+    return;
+  }
+
+  await restore();
+
+  const tick = async () => {
+    try {
+      await pollOnce();
+    } catch (error) {
+      // Keep serving the last standings; the next tick tries again
+      console.error("Willow poll failed:", error.message);
+    }
+  };
+  await tick();
+  timer = setInterval(tick, POLL_INTERVAL_MS);
+  console.log(`Willow poller: polling ${DORMS.length} dorms every ${POLL_INTERVAL_MS / 1000}s`);
+}
+
+// Seconds until the next poll can change the document (what a cache may keep it for)
+function maxAgeSeconds() {
+  if (!standings.generatedAt) return 0;
+  const remaining = standings.generatedAt + POLL_INTERVAL_MS - Date.now();
+  return Math.max(0, Math.floor(remaining / 1000));
+}
+
+function getStandings() {
+  return { body: standings, etag, maxAge: maxAgeSeconds() };
+}
+
+module.exports = { start, getStandings, subscribe, eventsSince, snapshotEvent };